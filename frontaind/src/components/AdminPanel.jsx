@@ -3,6 +3,8 @@ import { propertyAPI } from '../services/api.js';
 
 const AdminPanel = () => {
   const [properties, setProperties] = useState([]);
+  // Cursor of the next page, null once every property is listed
+  const [nextCursor, setNextCursor] = useState(null);
   const [newProperty, setNewProp] = useState({
     title: '',
     location: '',
@@ -20,12 +22,15 @@ const AdminPanel = () => {
     fetchProperties();
   }, []);
 
-  const fetchProperties = async () => {
+  // Without a cursor the list starts over from the newest; with one, the next page is appended
+  const fetchProperties = async (cursor = null) => {
     try {
       setLoading(true);
-      const response = await propertyAPI.getAllProperties();
+      const response = await propertyAPI.getAllProperties(cursor ? { cursor } : undefined);
       if (response.data && response.data.success && response.data.data) {
-        setProperties(response.data.data);
+        const page = response.data.data;
+        setProperties((loaded) => (cursor ? [...loaded, ...page.items] : page.items));
+        setNextCursor(page.hasMore ? page.nextCursor : null);
       }
     } catch (err) {
       setError('Failed to fetch properties');
@@ -186,6 +191,15 @@ const AdminPanel = () => {
             </div>
           </div>
         ))}
+        {nextCursor && (
+          <button
+            onClick={() => fetchProperties(nextCursor)}
+            className="w-full bg-gray-100 text-gray-700 py-2 px-4 rounded-md hover:bg-gray-200"
+            disabled={loading}
+          >
+            {loading ? 'Loading...' : 'Load more'}
+          </button>
+        )}
       </div>
 
       {error && (
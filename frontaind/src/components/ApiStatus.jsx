@@ -12,7 +12,8 @@ const ApiStatus = () => {
   const checkApiStatus = async () => {
     try {
       setStatus('checking');
-      const response = await propertyAPI.getAllProperties();
+      // Only the envelope matters here, so ask for the smallest page there is
+      const response = await propertyAPI.getAllProperties({ size: 1, view: 'summary' });
       
       // Check if the response has the expected structure
       if (response.data && response.data.success) {
@@ -1,37 +1,79 @@
 import { useState, useEffect } from 'react';
 import PropertyCard from './PropertyCard.jsx';
 import { propertyAPI } from '../services/api.js';
+import { cachedProperties, subscribeToProperties, syncProperties } from '../services/propertyFeed.js';
+
+// Edges of the price range options below, for the per-option counts
+const PRICE_BUCKETS = '0,5000000,10000000,15000000';
 
 const PropertyList = ({ onViewDetails }) => {
-  const [properties, setProperties] = useState([]);
-  const [loading, setLoading] = useState(true);
+  const [properties, setProperties] = useState(() => cachedProperties() ?? []);
+  const [loading, setLoading] = useState(() => cachedProperties() === null);
   const [error, setError] = useState(null);
   const [searchTerm, setSearchTerm] = useState('');
   const [locationFilter, setLocationFilter] = useState('');
   const [priceRange, setPriceRange] = useState('');
+  const [locationCounts, setLocationCounts] = useState(null);
+  const [priceCounts, setPriceCounts] = useState({});
 
   useEffect(() => {
     fetchProperties();
   }, []);
 
+  // Live changes once synced; the stream is closed when the last list unmounts
+  useEffect(() => {
+    if (loading || error) {
+      return undefined;
+    }
+    return subscribeToProperties(setProperties);
+  }, [loading, error]);
+
+  // Listing counts next to each filter option: locations within the chosen price range, price ranges within the
+  // chosen location; refreshed as the catalogue changes
+  useEffect(() => {
+    if (loading || error) {
+      return;
+    }
+    const [minPrice, maxPrice] = priceRange ? priceRange.split('-').map(Number) : [];
+    propertyAPI.getFacets({ minPrice, maxPrice, limit: 200 })
+      .then(response => {
+        const counts = {};
+        response.data.data.localities.forEach(({ locality, count }) => {
+          counts[locality] = (counts[locality] ?? 0) + count;
+        });
+        setLocationCounts(counts);
+      })
+      .catch(err => console.error('Error fetching location counts:', err));
+    propertyAPI.getFacets({ location: locationFilter || undefined, priceBuckets: PRICE_BUCKETS, limit: 1 })
+      .then(response => {
+        const counts = {};
+        response.data.data.priceHistogram.forEach(({ min, count }) => {
+          counts[min] = count;
+        });
+        setPriceCounts(counts);
+      })
+      .catch(err => console.error('Error fetching price counts:', err));
+  }, [loading, error, properties, locationFilter, priceRange]);
+
+  const withCount = (label, count) => (count === undefined || count === null ? label : `${label} (${count})`);
+
+  // Catch up from the change feed: the whole catalogue on the first visit, only what changed after that
   const fetchProperties = async () => {
     try {
-      setLoading(true);
-      const response = await propertyAPI.getAllProperties();
-      
-      // Handle the API response structure: { success, message, data, timestamp }
-      if (response.data && response.data.success && response.data.data) {
-        setProperties(response.data.data);
-        setError(null);
-      } else {
-        setError('Invalid response format from API');
+      if (cachedProperties() === null) {
+        setLoading(true);
       }
+      setProperties(await syncProperties());
+      setError(null);
     } catch (err) {
       console.error('Error fetching properties:', err);
       if (err.code === 'ERR_NETWORK' || err.response?.status === 0) {
         setError('Unable to connect to server. Please check if the backend is running on http://localhost:8080');
       } else if (err.response?.status === 404) {
         setError('API endpoint not found. Please check the backend configuration.');
+      } else if (err.response?.status === 503) {
+        const retryAfter = Number(err.response.headers['retry-after'] ?? 1);
+        setError(`The server is busy right now. Please try again in ${retryAfter} second${retryAfter === 1 ? '' : 's'}.`);
       } else {
         setError(`Failed to fetch properties: ${err.response?.data?.message || err.message}`);
       }
@@ -108,7 +150,7 @@ const PropertyList = ({ onViewDetails }) => {
             >
               <option value="">All Locations</option>
               {uniqueLocations.map(location => (
-                <option key={location} value={location}>{location}</option>
+                <option key={location} value={location}>{withCount(location, locationCounts && (locationCounts[location] ?? 0))}</option>
               ))}
             </select>
           </div>
@@ -123,10 +165,10 @@ const PropertyList = ({ onViewDetails }) => {
               className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-primary-500 focus:border-transparent"
             >
               <option value="">All Prices</option>
-              <option value="0-5000000">Under ₹50 Lakhs</option>
-              <option value="5000000-10000000">₹50 Lakhs - ₹1 Crore</option>
-              <option value="10000000-15000000">₹1 Crore - ₹1.5 Crore</option>
-              <option value="15000000-999999999">Above ₹1.5 Crore</option>
+              <option value="0-5000000">{withCount('Under ₹50 Lakhs', priceCounts[0])}</option>
+              <option value="5000000-10000000">{withCount('₹50 Lakhs - ₹1 Crore', priceCounts[5000000])}</option>
+              <option value="10000000-15000000">{withCount('₹1 Crore - ₹1.5 Crore', priceCounts[10000000])}</option>
+              <option value="15000000-999999999">{withCount('Above ₹1.5 Crore', priceCounts[15000000])}</option>
             </select>
           </div>
           
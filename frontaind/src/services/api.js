@@ -12,6 +12,12 @@ const api = axios.create({
   withCredentials: false,
 });
 
+// The server answers every write with a token; sending it back with later reads makes sure they see that write
+// even when they are served by a read replica. Only kept for a minute, by which time any replica has caught up.
+const WRITE_TOKEN = 'X-Write-Token';
+const WRITE_TOKEN_TTL_MS = 60000;
+let lastWrite = null;
+
 // Request interceptor
 api.interceptors.request.use(
   (config) => {
@@ -20,6 +26,9 @@ api.interceptors.request.use(
     if (token) {
       config.headers.Authorization = `Bearer ${token}`;
     }
+    if (lastWrite && Date.now() - lastWrite.at < WRITE_TOKEN_TTL_MS) {
+      config.headers[WRITE_TOKEN] = lastWrite.token;
+    }
     return config;
   },
   (error) => {
@@ -30,6 +39,10 @@ api.interceptors.request.use(
 // Response interceptor
 api.interceptors.response.use(
   (response) => {
+    const writeToken = response.headers[WRITE_TOKEN.toLowerCase()];
+    if (writeToken) {
+      lastWrite = { token: writeToken, at: Date.now() };
+    }
     return response;
   },
   (error) => {
@@ -40,17 +53,49 @@ api.interceptors.response.use(
 
 // Property API methods - direct API calls to your backend
 export const propertyAPI = {
-  getAllProperties: () => api.get('/properties'),
+  getAllProperties: (params) => api.get('/properties', { params }),
   
   getPropertyById: (id) => api.get(`/properties/${id}`),
+
+  // Up to 100 ids in one call -> { items (in the order given), missing }
+  getPropertiesByIds: (ids) => api.get('/properties', { params: { ids: ids.join(',') } }),
   
   createProperty: (propertyData) => api.post('/properties', propertyData),
   
   updateProperty: (id, propertyData) => api.put(`/properties/${id}`, propertyData),
+
+  // Only the given fields; with the ETag from the last read, fails with 412 if someone changed the listing since
+  patchProperty: (id, changes, etag) =>
+    api.patch(`/properties/${id}`, changes, etag ? { headers: { 'If-Match': etag } } : undefined),
+
+  // [{ id, price, version? }] -> { received, updated, failed, errors }
+  repriceProperties: (updates) => api.patch('/properties/prices', updates),
   
   deleteProperty: (id) => api.delete(`/properties/${id}`),
   
   searchProperties: (params) => api.get('/properties/search', { params }),
+
+  // Nearest first: { lat, lng, radiusKm, minPrice, maxPrice, cursor, size }
+  searchNearby: (params) => api.get('/properties/search/nearby', { params }),
+
+  // Inside the box, nearest its centre first: { minLat, maxLat, minLng, maxLng, ... }
+  searchWithin: (params) => api.get('/properties/search/within', { params }),
+
+  // Counts by city, locality and price bucket for the same filters as search: { location, minPrice, maxPrice, priceBuckets, ... }
+  getFacets: (params) => api.get('/properties/facets', { params }),
+
+  // Creates, updates and deletes after a cursor (everything when there is none)
+  getChanges: (params) => api.get('/properties/changes', { params }),
+
+  // EventSource URL for the live change stream, starting after the cursor
+  changeStreamUrl: (cursor) => `${api.defaults.baseURL}/properties/changes/stream?cursor=${encodeURIComponent(cursor)}`,
+  
+  // Alerts for new or changed listings matching { email, titleKeywords, location, minPrice, maxPrice }
+  saveSearch: (search) => api.post('/saved-searches', search),
+
+  getSavedSearches: (email) => api.get('/saved-searches', { params: { email } }),
+
+  deleteSavedSearch: (id) => api.delete(`/saved-searches/${id}`),
   
   // User authentication methods
   signup: (userData) => api.post('/auth/signup', userData),
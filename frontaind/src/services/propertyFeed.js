@@ -0,0 +1,76 @@
+import { propertyAPI } from './api.js';
+
+// Local copy of the catalogue, kept current from the server's change feed and shared by every mounted list:
+// the first sync pulls everything, later ones (remounts, retries) only what changed since the saved cursor
+const properties = new Map();
+const listeners = new Set();
+let cursor = null;
+let synced = false;
+let stream = null;
+
+const PAGE_SIZE = 500;
+
+const apply = (changes) => {
+  for (const change of changes) {
+    if (change.type === 'DELETE') {
+      properties.delete(change.id);
+    } else {
+      properties.set(change.id, change.property);
+    }
+  }
+};
+
+// Newest first by createdAt then id, as the listing endpoint orders them. Ids are no guide to age: a listing
+// moved to another shard gets a new id but keeps its createdAt. ISO timestamps compare correctly as strings
+const newestFirst = (a, b) => {
+  if (a.createdAt !== b.createdAt) {
+    return a.createdAt < b.createdAt ? 1 : -1;
+  }
+  return b.id - a.id;
+};
+
+const snapshot = () => [...properties.values()].sort(newestFirst);
+
+const notify = () => {
+  const list = snapshot();
+  listeners.forEach((listener) => listener(list));
+};
+
+export const cachedProperties = () => (synced ? snapshot() : null);
+
+export const syncProperties = async () => {
+  let hasMore = true;
+  while (hasMore) {
+    const response = await propertyAPI.getChanges({ cursor, limit: PAGE_SIZE });
+    const page = response.data?.success ? response.data.data : null;
+    if (!page) {
+      throw new Error('Invalid response format from API');
+    }
+    apply(page.changes);
+    cursor = page.cursor;
+    hasMore = page.hasMore;
+  }
+  synced = true;
+  notify();
+  return snapshot();
+};
+
+// Live updates while anyone is listening; EventSource reconnects on its own, resuming from the last event id
+export const subscribeToProperties = (listener) => {
+  listeners.add(listener);
+  if (!stream && cursor) {
+    stream = new EventSource(propertyAPI.changeStreamUrl(cursor));
+    stream.addEventListener('changes', (event) => {
+      apply(JSON.parse(event.data));
+      cursor = event.lastEventId;
+      notify();
+    });
+  }
+  return () => {
+    listeners.delete(listener);
+    if (listeners.size === 0 && stream) {
+      stream.close();
+      stream = null;
+    }
+  };
+};
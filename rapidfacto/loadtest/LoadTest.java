@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// Closed-loop HTTP load generator: each of N clients sends requests back to back for a fixed time,
+// then throughput and latency percentiles are reported per concurrency level.
+// Runs as a single-file program, no build needed:
+//   java LoadTest.java --label virtual --concurrency 100,1000,10000 --duration 30s
+public class LoadTest {
+
+    private static final String DEFAULT_PATHS = "/api/properties?size=20,"
+            + "/api/properties/sort/price-asc?size=20,"
+            + "/api/properties/search?location=pune&size=20,"
+            + "/api/properties/1";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        String label = options.getOrDefault("label", "-");
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "5s"));
+        Duration duration = parseDuration(options.getOrDefault("duration", "30s"));
+        int[] levels = Arrays.stream(options.getOrDefault("concurrency", "100,1000,10000").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim()))
+                .toArray();
+
+        List<HttpRequest> requests = new ArrayList<>();
+        for (String path : options.getOrDefault("paths", DEFAULT_PATHS).split(",")) {
+            requests.add(HttpRequest.newBuilder(URI.create(baseUrl + path.trim()))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build());
+        }
+
+        System.out.printf("%-10s %8s %10s %8s %10s %9s %9s %9s %9s%n",
+                "mode", "clients", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (int level : levels) {
+            Result result = run(requests, level, warmup, duration);
+            System.out.printf("%-10s %8d %10d %8d %10.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    label, level, result.latencies.length, result.errors,
+                    result.latencies.length / (duration.toNanos() / 1e9),
+                    millis(result.percentile(0.50)), millis(result.percentile(0.99)),
+                    millis(result.percentile(0.999)), millis(result.percentile(1.0)));
+        }
+    }
+
+    // Clients are virtual threads, so the generator itself never runs out of threads at 10k clients
+    private static Result run(List<HttpRequest> requests, int clients, Duration warmup, Duration duration)
+            throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+        ConcurrentLinkedQueue<long[]> samples = new ConcurrentLinkedQueue<>();
+        LongAdder errors = new LongAdder();
+
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            for (int i = 0; i < clients; i++) {
+                int offset = i;
+                clientThreads.submit(() -> {
+                    long[] latencies = new long[256];
+                    int count = 0;
+                    long sent = offset;
+                    while (System.nanoTime() < stopAt) {
+                        HttpRequest request = requests.get((int) (sent++ % requests.size()));
+                        long started = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                        } catch (IOException ex) {
+                            ok = false;
+                        } catch (InterruptedException ex) {
+                            break;
+                        }
+                        long elapsed = System.nanoTime() - started;
+                        if (started < measureFrom) {
+                            continue;
+                        }
+                        if (!ok) {
+                            errors.increment();
+                        } else {
+                            if (count == latencies.length) {
+                                latencies = Arrays.copyOf(latencies, count * 2);
+                            }
+                            latencies[count++] = elapsed;
+                        }
+                    }
+                    samples.add(Arrays.copyOf(latencies, count));
+                });
+            }
+        }
+
+        long[] all = samples.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(all, errors.sum());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static Duration parseDuration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        if (text.endsWith("s")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        return Duration.ofSeconds(Long.parseLong(text));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --name value pairs, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private record Result(long[] latencies, long errors) {
+
+        long percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+        }
+    }
+}
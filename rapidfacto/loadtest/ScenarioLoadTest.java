@@ -0,0 +1,349 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// End-to-end user-journey load test against the REST API. Each client repeatedly picks a scenario
+// from a weighted mix (browse, search, detail, create, signup), runs every request of that journey
+// and records one latency sample per HTTP call, grouped by scenario.
+// Client i draws from SplittableRandom(seed + i), so the same --seed replays the same sequence of journeys.
+//   java ScenarioLoadTest.java --clients 200 --duration 60s --mix browse=50,search=25,detail=20,create=3,signup=2
+public class ScenarioLoadTest {
+
+    private static final String DEFAULT_MIX = "browse=50,search=25,detail=20,create=3,signup=2";
+
+    // Terms that match the generator's titles and locations, so searches return realistic result sets
+    private static final String[] CITIES = {"Mumbai", "Bangalore", "Delhi", "Hyderabad", "Pune", "Chennai",
+            "Gurgaon", "Noida", "Kolkata", "Ahmedabad", "Jaipur", "Lucknow", "Bhopal", "Kochi", "Indore"};
+    private static final String[] TITLE_TERMS = {"apartment", "villa", "2 bhk", "3 bhk", "studio", "penthouse",
+            "spacious", "sea-facing", "furnished", "independent house"};
+    private static final String[] SORTS = {"price-asc", "price-desc"};
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Pattern NEXT_CURSOR = Pattern.compile("\"nextCursor\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String baseUrl;
+    private final long runId = System.currentTimeMillis();
+    private final AtomicLong signups = new AtomicLong();
+    private volatile long maxId;
+
+    private ScenarioLoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        ScenarioLoadTest test = new ScenarioLoadTest(options.getOrDefault("base-url", "http://localhost:8080"));
+        int clients = Integer.parseInt(options.getOrDefault("clients", "100"));
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "10s"));
+        Duration duration = parseDuration(options.getOrDefault("duration", "60s"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        Map<String, Integer> mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+
+        test.maxId = test.discoverMaxId();
+        System.out.printf("target %s, %d listings, %d clients, mix %s, seed %d%n",
+                test.baseUrl, test.maxId, clients, mix, seed);
+
+        Map<String, Stats> results = test.run(mix, clients, warmup, duration, seed);
+
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        List<long[]> everything = new ArrayList<>();
+        long totalErrors = 0;
+        for (Map.Entry<String, Stats> entry : results.entrySet()) {
+            long[] latencies = entry.getValue().sorted();
+            everything.add(latencies);
+            totalErrors += entry.getValue().errors.sum();
+            print(entry.getKey(), latencies, entry.getValue().errors.sum(), seconds);
+        }
+        long[] all = everything.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        print("total", all, totalErrors, seconds);
+    }
+
+    private Map<String, Stats> run(Map<String, Integer> mix, int clients, Duration warmup, Duration duration,
+            long seed) throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+        Map<String, Stats> results = new LinkedHashMap<>();
+        mix.keySet().forEach(name -> results.put(name, new Stats()));
+        String[] scenarios = mix.keySet().toArray(String[]::new);
+        int[] cumulative = new int[scenarios.length];
+        int total = 0;
+        for (int i = 0; i < scenarios.length; i++) {
+            total += mix.get(scenarios[i]);
+            cumulative[i] = total;
+        }
+        int weightSum = total;
+
+        // Clients are virtual threads, so thousands of them cost little on the generator side
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                SplittableRandom random = new SplittableRandom(seed + i);
+                clientThreads.submit(() -> {
+                    Journey journey = new Journey(random, measureFrom);
+                    while (System.nanoTime() < stopAt) {
+                        int roll = random.nextInt(weightSum);
+                        int pick = 0;
+                        while (cumulative[pick] <= roll) {
+                            pick++;
+                        }
+                        journey.stats = results.get(scenarios[pick]);
+                        try {
+                            runScenario(scenarios[pick], journey);
+                        } catch (InterruptedException ex) {
+                            break;
+                        }
+                    }
+                    journey.flush();
+                });
+            }
+        }
+        return results;
+    }
+
+    private void runScenario(String scenario, Journey journey) throws InterruptedException {
+        SplittableRandom random = journey.random;
+        switch (scenario) {
+            // A visitor lands on a listing page and pages forward one to three times
+            case "browse" -> {
+                String path = random.nextBoolean()
+                        ? "/api/properties?size=20"
+                        : "/api/properties/sort/" + SORTS[random.nextInt(SORTS.length)] + "?size=20";
+                int pages = 1 + random.nextInt(3);
+                for (int page = 0; page < pages && path != null; page++) {
+                    String body = journey.get(path);
+                    String cursor = body == null ? null : match(NEXT_CURSOR, body);
+                    path = cursor == null ? null : withCursor(path, cursor);
+                }
+            }
+            case "search" -> {
+                String city = CITIES[random.nextInt(CITIES.length)];
+                switch (random.nextInt(3)) {
+                    case 0 -> journey.get("/api/properties/search/title?size=20&title="
+                            + encode(TITLE_TERMS[random.nextInt(TITLE_TERMS.length)]));
+                    case 1 -> journey.get("/api/properties/search/location?size=20&location=" + encode(city));
+                    default -> {
+                        long min = 1_000_000L * (1 + random.nextInt(15));
+                        journey.get("/api/properties/search?size=20&location=" + encode(city)
+                                + "&minPrice=" + min + "&maxPrice=" + (min * 2));
+                    }
+                }
+            }
+            // Ids are dense from 1 to the highest id seen, so a 404 here means a listing was deleted
+            case "detail" -> journey.get("/api/properties/" + (1 + random.nextLong(Math.max(1, maxId))));
+            case "create" -> {
+                String city = CITIES[random.nextInt(CITIES.length)];
+                String body = journey.post("/api/properties", """
+                        {"title":"Load test %d BHK in %s","location":"Sector %d, %s","price":%d,\
+                        "imageUrl":"https://images.example.test/load/%d.jpg",\
+                        "description":"Listing created by the scenario load test for throughput measurement."}"""
+                        .formatted(1 + random.nextInt(4), city, 1 + random.nextInt(150), city,
+                                100_000 + random.nextLong(20_000_000), random.nextInt(1000)));
+                String id = body == null ? null : match(ID, body);
+                if (id != null) {
+                    maxId = Math.max(maxId, Long.parseLong(id));
+                }
+            }
+            case "signup" -> {
+                long n = signups.incrementAndGet();
+                journey.post("/api/users/signup", """
+                        {"firstName":"Load","lastName":"Tester","email":"load.%d.%d@example.test",\
+                        "phoneNumber":"9%09d","password":"password123","type":"buyer"}"""
+                        .formatted(runId, n, n % 1_000_000_000));
+            }
+            default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+    }
+
+    // Highest existing id, found by doubling then bisecting over GET /api/properties/{id}: ~2 log2(n) requests
+    private long discoverMaxId() throws IOException, InterruptedException {
+        long high = 1;
+        while (exists(high)) {
+            high *= 2;
+        }
+        long low = high / 2;
+        while (high - low > 1) {
+            long middle = (low + high) >>> 1;
+            if (exists(middle)) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean exists(long id) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/properties/" + id)).GET().build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    }
+
+    private static String withCursor(String path, String cursor) {
+        return path.replaceAll("&cursor=[^&]*", "") + "&cursor=" + encode(cursor);
+    }
+
+    private static String match(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static void print(String name, long[] latencies, long errors, double seconds) {
+        System.out.printf("%-8s %10d %8d %10.1f %9.1f %9.1f %9.1f %9.1f%n",
+                name, latencies.length, errors, latencies.length / seconds,
+                millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)),
+                millis(percentile(latencies, 0.999)), millis(percentile(latencies, 1.0)));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(pair[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("--mix needs at least one scenario with a positive weight");
+        }
+        return mix;
+    }
+
+    private static Duration parseDuration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        if (text.endsWith("s")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        return Duration.ofSeconds(Long.parseLong(text));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --name value pairs, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    // Samples are buffered per client and scenario, and published once the client stops
+    private static final class Stats {
+        final ConcurrentLinkedQueue<long[]> samples = new ConcurrentLinkedQueue<>();
+        final LongAdder errors = new LongAdder();
+
+        long[] sorted() {
+            return samples.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        }
+    }
+
+    private final class Journey {
+        final SplittableRandom random;
+        final long measureFrom;
+        final Map<Stats, long[]> buffers = new HashMap<>();
+        final Map<Stats, Integer> counts = new HashMap<>();
+        Stats stats;
+
+        Journey(SplittableRandom random, long measureFrom) {
+            this.random = random;
+            this.measureFrom = measureFrom;
+        }
+
+        String get(String path) throws InterruptedException {
+            return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build());
+        }
+
+        String post(String path, String json) throws InterruptedException {
+            return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build());
+        }
+
+        // Returns the body of a successful response, or null on any error so the journey stops early
+        private String send(HttpRequest request) throws InterruptedException {
+            long started = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException ex) {
+                response = null;
+            }
+            long elapsed = System.nanoTime() - started;
+            boolean ok = response != null && response.statusCode() < 400;
+            if (started >= measureFrom) {
+                if (ok) {
+                    record(elapsed);
+                } else {
+                    stats.errors.increment();
+                }
+            }
+            return ok ? response.body() : null;
+        }
+
+        private void record(long elapsed) {
+            long[] latencies = buffers.computeIfAbsent(stats, key -> new long[256]);
+            int count = counts.getOrDefault(stats, 0);
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+                buffers.put(stats, latencies);
+            }
+            latencies[count] = elapsed;
+            counts.put(stats, count + 1);
+        }
+
+        void flush() {
+            buffers.forEach((target, latencies) -> target.samples.add(Arrays.copyOf(latencies, counts.get(target))));
+        }
+    }
+}
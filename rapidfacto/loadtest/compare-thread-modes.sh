@@ -0,0 +1,54 @@
+#!/usr/bin/env bash
+# Boots the API once per thread mode (platform, then virtual) against the configured MySQL and runs
+# LoadTest at each concurrency level. Results go to loadtest/results/thread-modes-<timestamp>.txt.
+#
+#   ./loadtest/compare-thread-modes.sh                       # 100,1000,10000 clients, 30s each
+#   CONCURRENCY=100,1000 DURATION=10s ./loadtest/compare-thread-modes.sh
+#
+# The response and detail caches are switched off by default so every request reaches the database,
+# which is where the two thread models differ; set SERVER_ARGS to override.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+CONCURRENCY=${CONCURRENCY:-100,1000,10000}
+DURATION=${DURATION:-30s}
+WARMUP=${WARMUP:-5s}
+PORT=${PORT:-8080}
+SERVER_ARGS=${SERVER_ARGS:---rapidfacto.cache.response.enabled=false --rapidfacto.cache.property.maximum-size=0}
+RESULTS=loadtest/results/thread-modes-$(date +%Y%m%d-%H%M%S).txt
+
+# 10k clients plus 10k server-side sockets need far more than the usual 1024 descriptors
+ulimit -n 65536 2>/dev/null || echo "warning: could not raise open-file limit (ulimit -n is $(ulimit -n))"
+
+# The wrapper needs .mvn/wrapper/maven-wrapper.properties; fall back to a system Maven without it
+if [ -f .mvn/wrapper/maven-wrapper.properties ]; then MVN="sh mvnw"; else MVN=mvn; fi
+$MVN -B -q package -DskipTests
+JAR=$(ls target/rapidfacto-*.jar | grep -v plain | head -1)
+mkdir -p loadtest/results
+
+run_mode() {
+    local mode=$1
+    shift
+    local log=loadtest/results/server-$mode.log
+    # tracePinnedThreads prints a stack whenever a virtual thread blocks while pinned to its carrier
+    java -Djdk.tracePinnedThreads=short -jar "$JAR" --server.port="$PORT" \
+        --logging.level.com.rapidfacto.rapidfacto=INFO --logging.level.org.springframework.web=INFO \
+        --logging.level.org.hibernate.SQL=INFO --spring.jpa.show-sql=false \
+        $SERVER_ARGS "$@" > "$log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" EXIT
+    until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+        kill -0 "$pid" 2>/dev/null || { echo "server ($mode) failed to start, see $log"; exit 1; }
+        sleep 1
+    done
+    java loadtest/LoadTest.java --base-url "http://localhost:$PORT" --label "$mode" \
+        --concurrency "$CONCURRENCY" --duration "$DURATION" --warmup "$WARMUP" | tee -a "$RESULTS"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+    echo "pinned-thread events ($mode): $(grep -c 'reason:' "$log" || true)" | tee -a "$RESULTS"
+}
+
+run_mode platform
+run_mode virtual --spring.profiles.active=virtual
+echo "Results written to $RESULTS"
@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Self-contained end-to-end run: boots the API on the embedded H2 profile, lets the synthetic data
+# generator top the database up to PROPERTIES listings and USERS accounts, waits for readiness and runs
+# ScenarioLoadTest. Results go to loadtest/results/suite-<timestamp>.txt; no MySQL or other services needed.
+#
+#   ./loadtest/run-suite.sh                                   # 1M listings, 100k users, 200 clients, 60s
+#   PROPERTIES=100000 CLIENTS=50 DURATION=20s ./loadtest/run-suite.sh
+#   MIX=browse=80,detail=20 SEED=7 ./loadtest/run-suite.sh
+#
+# The H2 file in ./data is reused, so only the first run at a given size pays for generation.
+# Delete ./data to start from scratch; pass extra server flags through SERVER_ARGS.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+PROPERTIES=${PROPERTIES:-1000000}
+USERS=${USERS:-100000}
+CLIENTS=${CLIENTS:-200}
+DURATION=${DURATION:-60s}
+WARMUP=${WARMUP:-10s}
+MIX=${MIX:-browse=50,search=25,detail=20,create=3,signup=2}
+SEED=${SEED:-42}
+PORT=${PORT:-8080}
+SERVER_ARGS=${SERVER_ARGS:-}
+RESULTS=loadtest/results/suite-$(date +%Y%m%d-%H%M%S).txt
+LOG=loadtest/results/server-suite.log
+
+# The wrapper needs .mvn/wrapper/maven-wrapper.properties; fall back to a system Maven without it
+if [ -f .mvn/wrapper/maven-wrapper.properties ]; then MVN="sh mvnw"; else MVN=mvn; fi
+$MVN -B -q package -DskipTests
+JAR=$(ls target/rapidfacto-*.jar | grep -v plain | head -1)
+mkdir -p loadtest/results
+
+java -jar "$JAR" --server.port="$PORT" --spring.profiles.active=embedded \
+    --rapidfacto.seed.properties="$PROPERTIES" --rapidfacto.seed.users="$USERS" \
+    --rapidfacto.seed.random-seed="$SEED" $SERVER_ARGS > "$LOG" 2>&1 &
+PID=$!
+trap "kill $PID 2>/dev/null || true" EXIT
+
+# Readiness only turns UP after data generation and the in-memory index builds have finished
+echo "waiting for the server (data generation can take a few minutes on the first run, see $LOG)"
+until curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null; do
+    kill -0 "$PID" 2>/dev/null || { echo "server failed to start, see $LOG"; exit 1; }
+    sleep 2
+done
+grep -h "Generated" "$LOG" | tee -a "$RESULTS" || true
+
+java loadtest/ScenarioLoadTest.java --base-url "http://localhost:$PORT" --clients "$CLIENTS" \
+    --duration "$DURATION" --warmup "$WARMUP" --mix "$MIX" --seed "$SEED" | tee -a "$RESULTS"
+echo "Results written to $RESULTS"
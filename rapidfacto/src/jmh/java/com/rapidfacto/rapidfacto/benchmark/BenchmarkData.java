@@ -0,0 +1,57 @@
+package com.rapidfacto.rapidfacto.benchmark;
+
+import com.rapidfacto.rapidfacto.Property;
+import com.rapidfacto.rapidfacto.dto.PropertyRequestDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic listings shaped like the real catalogue, so runs are comparable between releases
+final class BenchmarkData {
+
+	static final String[] CITIES = {"Mumbai", "Bangalore", "Delhi", "Pune", "Noida", "Gurgaon", "Jaipur",
+			"Ahmedabad", "Lucknow", "Bhopal", "Chennai", "Hyderabad", "Kolkata", "Indore", "Kochi"};
+	static final String[] AREAS = {"Andheri East", "Whitefield", "Rohini Sector 9", "Hinjewadi", "Sector 62",
+			"DLF Phase 3", "Malviya Nagar", "Satellite", "Gomti Nagar", "MP Nagar", "Adyar", "Gachibowli"};
+	static final String[] KINDS = {"1 RK Room", "1 BHK Studio", "2 BHK Apartment", "3 BHK Flat", "4 BHK Villa"};
+
+	private BenchmarkData() {
+	}
+
+	static List<PropertyRequestDto> requests(int count) {
+		Random random = new Random(42);
+		List<PropertyRequestDto> requests = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String city = CITIES[random.nextInt(CITIES.length)];
+			PropertyRequestDto request = new PropertyRequestDto();
+			request.setTitle(KINDS[random.nextInt(KINDS.length)] + " in " + city + " #" + i);
+			request.setLocation(AREAS[random.nextInt(AREAS.length)] + ", " + city);
+			request.setPrice(100_000.0 + random.nextInt(20_000) * 5_000.0);
+			request.setImageUrl("https://cdn.pixabay.com/photo/2016/11/29/03/53/architecture-" + i + "_1280.jpg");
+			request.setDescription("Well-lit home with balcony, covered parking and 24x7 security, listing " + i + ".");
+			requests.add(request);
+		}
+		return requests;
+	}
+
+	static List<Property> properties(int count) {
+		LocalDateTime created = LocalDateTime.of(2025, 1, 1, 9, 30);
+		List<Property> properties = new ArrayList<>(count);
+		long id = 1;
+		for (PropertyRequestDto request : requests(count)) {
+			Property property = new Property();
+			property.setId(id++);
+			property.setTitle(request.getTitle());
+			property.setLocation(request.getLocation());
+			property.setPrice(request.getPrice());
+			property.setImageUrl(request.getImageUrl());
+			property.setDescription(request.getDescription());
+			property.setCreatedAt(created.plusMinutes(id));
+			property.setUpdatedAt(created.plusMinutes(id));
+			properties.add(property);
+		}
+		return properties;
+	}
+}
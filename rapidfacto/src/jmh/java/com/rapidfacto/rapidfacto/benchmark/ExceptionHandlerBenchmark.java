@@ -0,0 +1,83 @@
+package com.rapidfacto.rapidfacto.benchmark;
+
+import com.rapidfacto.rapidfacto.controller.PropertyController;
+import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import com.rapidfacto.rapidfacto.dto.PropertyRequestDto;
+import com.rapidfacto.rapidfacto.exception.GlobalExceptionHandler;
+import com.rapidfacto.rapidfacto.exception.ResourceNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.concurrent.TimeUnit;
+
+// Error-path cost: building and throwing the exception versus only running the handler, next to a success response
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+	private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+	private IllegalArgumentException illegalArgument;
+	private MethodParameter createPropertyBody;
+	private long id;
+
+	@Setup
+	public void setUp() throws NoSuchMethodException {
+		illegalArgument = new IllegalArgumentException("minPrice cannot be greater than maxPrice");
+		createPropertyBody = new MethodParameter(
+				PropertyController.class.getMethod("createProperty", PropertyRequestDto.class), 0);
+	}
+
+	@Benchmark
+	public ResponseEntity<ApiResponse<String>> successResponse() {
+		return ResponseEntity.ok(ApiResponse.success("ok", "Property retrieved successfully"));
+	}
+
+	@Benchmark
+	public ResponseEntity<ApiResponse<String>> handlePrebuiltException() {
+		return handler.handleIllegalArgumentException(illegalArgument);
+	}
+
+	@Benchmark
+	public ResponseEntity<ApiResponse<String>> throwAndHandleIllegalArgument() {
+		try {
+			throw new IllegalArgumentException("minPrice cannot be greater than maxPrice");
+		} catch (IllegalArgumentException ex) {
+			return handler.handleIllegalArgumentException(ex);
+		}
+	}
+
+	@Benchmark
+	public ResponseEntity<ApiResponse<String>> throwAndHandleNotFound() {
+		try {
+			throw new ResourceNotFoundException("Property", "id", ++id);
+		} catch (ResourceNotFoundException ex) {
+			return handler.handleResourceNotFoundException(ex);
+		}
+	}
+
+	@Benchmark
+	public Object handleValidationFailure() {
+		PropertyRequestDto request = new PropertyRequestDto();
+		BeanPropertyBindingResult result = new BeanPropertyBindingResult(request, "propertyRequestDto");
+		result.rejectValue("title", "NotBlank", "Title is required");
+		result.rejectValue("price", "NotNull", "Price is required");
+		result.rejectValue("imageUrl", "Pattern", "Image URL must be a valid HTTP/HTTPS URL");
+		return handler.handleValidationExceptions(new MethodArgumentNotValidException(createPropertyBody, result));
+	}
+}
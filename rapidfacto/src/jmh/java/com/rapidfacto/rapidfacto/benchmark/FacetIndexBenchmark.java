@@ -0,0 +1,71 @@
+package com.rapidfacto.rapidfacto.benchmark;
+
+import com.rapidfacto.rapidfacto.dto.PropertyFacets;
+import com.rapidfacto.rapidfacto.search.FacetCounts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Facet counts and single-listing updates against the in-memory facet counts; both should stay in microseconds
+// at a million listings spread over a few hundred locations
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FacetIndexBenchmark {
+
+	private static final String[] CITIES = {"Mumbai", "Bangalore", "Delhi", "Hyderabad", "Pune", "Chennai", "Gurgaon",
+			"Noida", "Kolkata", "Ahmedabad", "Jaipur", "Lucknow", "Bhopal", "Kochi", "Indore"};
+	private static final int LOCALITIES_PER_CITY = 40;
+	private static final double[] EDGES = {0, 5_000_000, 10_000_000, 15_000_000};
+
+	@Param({"1000000"})
+	private int listings;
+
+	private FacetCounts counts;
+	private String[] locations;
+	private Random random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		random = new Random(42);
+		locations = new String[CITIES.length * LOCALITIES_PER_CITY];
+		for (int i = 0; i < locations.length; i++) {
+			locations[i] = "Sector " + (i % LOCALITIES_PER_CITY) + ", " + CITIES[i / LOCALITIES_PER_CITY];
+		}
+		counts = new FacetCounts(EDGES);
+		for (int i = 0; i < listings; i++) {
+			counts.put(i + 1, locations[random.nextInt(locations.length)], 1_000_000 + random.nextInt(200) * 100_000.0);
+		}
+	}
+
+	@Benchmark
+	public PropertyFacets wholeCatalogue() {
+		return counts.count(null, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, EDGES, 20);
+	}
+
+	@Benchmark
+	public PropertyFacets cityWithPriceRange() {
+		return counts.count("mumbai", 5_000_000, 12_000_000, EDGES, 20);
+	}
+
+	@Benchmark
+	public void moveListing() {
+		counts.put(1 + random.nextInt(listings), locations[random.nextInt(locations.length)],
+				1_000_000 + random.nextInt(200) * 100_000.0);
+	}
+}
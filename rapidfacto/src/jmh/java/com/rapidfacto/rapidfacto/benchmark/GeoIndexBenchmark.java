@@ -0,0 +1,102 @@
+package com.rapidfacto.rapidfacto.benchmark;
+
+import com.rapidfacto.rapidfacto.search.GeoCellIndex;
+import com.rapidfacto.rapidfacto.search.GeoQuery;
+import com.rapidfacto.rapidfacto.search.NearestSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Radius and bounding-box queries against the in-memory geo index, with listings clustered around city centres
+// the way the real catalogue is; the target is single-digit milliseconds at a million listings
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class GeoIndexBenchmark {
+
+	// City centres with their share of listings, as in the synthetic data generator
+	private static final double[][] CENTRES = {{19.0760, 72.8777, 16}, {12.9716, 77.5946, 14}, {28.6139, 77.2090, 12},
+			{17.3850, 78.4867, 10}, {18.5204, 73.8567, 9}, {13.0827, 80.2707, 8}, {28.4595, 77.0266, 6},
+			{28.5355, 77.3910, 5}, {22.5726, 88.3639, 5}, {23.0225, 72.5714, 4}, {26.9124, 75.7873, 3},
+			{26.8467, 80.9462, 3}, {23.2599, 77.4126, 2}, {9.9312, 76.2673, 2}, {22.7196, 75.8577, 1}};
+
+	@Param({"1000000"})
+	private int listings;
+
+	@Param({"2", "10"})
+	private double radiusKm;
+
+	private GeoCellIndex index;
+	private GeoQuery nearCentre;
+	private GeoQuery visibleMap;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		int totalWeight = 0;
+		for (double[] centre : CENTRES) {
+			totalWeight += (int) centre[2];
+		}
+		long[] ids = new long[listings];
+		double[] latitudes = new double[listings];
+		double[] longitudes = new double[listings];
+		double[] prices = new double[listings];
+		for (int i = 0; i < listings; i++) {
+			int roll = random.nextInt(totalWeight);
+			double[] centre = CENTRES[CENTRES.length - 1];
+			for (double[] candidate : CENTRES) {
+				roll -= (int) candidate[2];
+				if (roll < 0) {
+					centre = candidate;
+					break;
+				}
+			}
+			ids[i] = i + 1;
+			latitudes[i] = centre[0] + random.nextGaussian() * 0.08;
+			longitudes[i] = centre[1] + random.nextGaussian() * 0.08;
+			prices[i] = 100_000 + random.nextInt(20_000) * 5_000.0;
+		}
+		index = new GeoCellIndex();
+		index.load(ids, latitudes, longitudes, prices, listings);
+
+		// Central Mumbai, the densest spot in the catalogue
+		nearCentre = GeoQuery.radius(19.0760, 72.8777, radiusKm);
+		visibleMap = GeoQuery.box(19.0, 19.15, 72.8, 72.95);
+	}
+
+	@Benchmark
+	public Object radius() {
+		NearestSelector selector = new NearestSelector(21);
+		index.collect(nearCentre, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, selector);
+		return selector.drain();
+	}
+
+	@Benchmark
+	public Object radiusWithPriceRange() {
+		NearestSelector selector = new NearestSelector(21);
+		index.collect(nearCentre, 5_000_000, 20_000_000, selector);
+		return selector.drain();
+	}
+
+	@Benchmark
+	public Object boundingBox() {
+		NearestSelector selector = new NearestSelector(21);
+		index.collect(visibleMap, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, selector);
+		return selector.drain();
+	}
+}
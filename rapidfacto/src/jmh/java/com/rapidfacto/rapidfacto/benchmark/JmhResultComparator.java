@@ -0,0 +1,77 @@
+package com.rapidfacto.rapidfacto.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Compares two JMH JSON reports and exits with status 1 when any benchmark got slower than the threshold allows.
+// ./mvnw -Pbenchmark test-compile exec:exec@compare-benchmarks -Djmh.baseline=jmh-1.2.0.json [-Djmh.threshold=10]
+public final class JmhResultComparator {
+
+	private JmhResultComparator() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: JmhResultComparator <baseline.json> <current.json> [threshold-percent]");
+			System.exit(2);
+		}
+		Map<String, JsonNode> baseline = read(args[0]);
+		Map<String, JsonNode> current = read(args[1]);
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+		int regressions = 0;
+		System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+		for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+			JsonNode before = baseline.get(entry.getKey());
+			JsonNode metric = entry.getValue().path("primaryMetric");
+			double now = metric.path("score").asDouble();
+			String unit = metric.path("scoreUnit").asText();
+			if (before == null) {
+				System.out.printf("%-90s %14s %14.3f %9s  %s%n", entry.getKey(), "-", now, "new", unit);
+				continue;
+			}
+			double then = before.path("primaryMetric").path("score").asDouble();
+			// Throughput modes report ops per time (higher is better); the others report time per op
+			boolean higherIsBetter = "thrpt".equals(entry.getValue().path("mode").asText());
+			double change = then == 0 ? 0 : (now - then) / then * 100;
+			double slowdown = higherIsBetter ? -change : change;
+			boolean regressed = slowdown > threshold;
+			if (regressed) {
+				regressions++;
+			}
+			System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n",
+					entry.getKey(), then, now, change, unit, regressed ? "  REGRESSION" : "");
+		}
+		for (String name : baseline.keySet()) {
+			if (!current.containsKey(name)) {
+				System.out.printf("%-90s %14s %14s %9s%n", name, "", "-", "removed");
+			}
+		}
+		if (regressions > 0) {
+			System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+			System.exit(1);
+		}
+	}
+
+	// Benchmark name plus its @Param values, so each parameter combination is compared with itself
+	private static Map<String, JsonNode> read(String path) throws IOException {
+		Map<String, JsonNode> results = new LinkedHashMap<>();
+		for (JsonNode result : new ObjectMapper().readTree(new File(path))) {
+			StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+					.replace("com.rapidfacto.rapidfacto.benchmark.", ""));
+			Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+			while (params.hasNext()) {
+				Map.Entry<String, JsonNode> param = params.next();
+				key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+			}
+			results.put(key.toString(), result);
+		}
+		return results;
+	}
+}
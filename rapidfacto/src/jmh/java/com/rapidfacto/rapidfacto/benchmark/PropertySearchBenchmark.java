@@ -0,0 +1,111 @@
+package com.rapidfacto.rapidfacto.benchmark;
+
+import com.rapidfacto.rapidfacto.PropertyImportService;
+import com.rapidfacto.rapidfacto.PropertyService;
+import com.rapidfacto.rapidfacto.PropertyView;
+import com.rapidfacto.rapidfacto.RapidfactoApplication;
+import com.rapidfacto.rapidfacto.dto.PropertySearchRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// PropertyService search paths against an embedded H2 catalogue, with the in-memory indexes on and off
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertySearchBenchmark {
+
+	@Param({"10000"})
+	private int catalogueSize;
+
+	@Param({"true", "false"})
+	private boolean priceIndex;
+
+	private ConfigurableApplicationContext context;
+	private PropertyService propertyService;
+	private PropertySearchRequest combinedSearch;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		// Command-line style arguments, so they win over application.properties (which points at MySQL)
+		context = new SpringApplicationBuilder(RapidfactoApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(
+					"--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+					"--spring.datasource.driver-class-name=org.h2.Driver",
+					"--spring.datasource.username=sa",
+					"--spring.datasource.password=",
+					"--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+					"--spring.jpa.hibernate.ddl-auto=create-drop",
+					"--spring.jpa.show-sql=false",
+					"--logging.level.root=WARN",
+					"--logging.level.com.rapidfacto.rapidfacto=WARN",
+					"--logging.level.org.springframework.web=WARN",
+					"--logging.level.org.hibernate.SQL=WARN",
+					"--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+					"--rapidfacto.price-index.enabled=" + priceIndex);
+		// Imported rows reach the text and price indexes through the same change events as live writes
+		context.getBean(PropertyImportService.class).importRecords(BenchmarkData.requests(catalogueSize));
+		propertyService = context.getBean(PropertyService.class);
+
+		combinedSearch = new PropertySearchRequest();
+		combinedSearch.setLocation("pune");
+		combinedSearch.setMinPrice(5_000_000.0);
+		combinedSearch.setMaxPrice(50_000_000.0);
+		combinedSearch.setSort("price-asc");
+		combinedSearch.setSize(20);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Object searchByTitle() {
+		return propertyService.searchByTitle("bhk apartment", 20, PropertyView.FULL);
+	}
+
+	@Benchmark
+	public Object searchByLocation() {
+		return propertyService.searchByLocation("whitefield", 20, PropertyView.FULL);
+	}
+
+	@Benchmark
+	public Object searchByPriceRange() {
+		return propertyService.searchByPriceRange(2_000_000.0, 8_000_000.0, 20, PropertyView.FULL);
+	}
+
+	@Benchmark
+	public Object searchByPriceRangeSummary() {
+		return propertyService.searchByPriceRange(2_000_000.0, 8_000_000.0, 20, PropertyView.SUMMARY);
+	}
+
+	@Benchmark
+	public Object getPropertiesByPriceAsc() {
+		return propertyService.getPropertiesByPriceAsc(null, 20, PropertyView.FULL);
+	}
+
+	@Benchmark
+	public Object searchProperties() {
+		return propertyService.searchProperties(combinedSearch);
+	}
+}
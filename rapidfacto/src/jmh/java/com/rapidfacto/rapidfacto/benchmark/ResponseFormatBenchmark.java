@@ -0,0 +1,92 @@
+package com.rapidfacto.rapidfacto.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rapidfacto.rapidfacto.codec.PropertyProtobuf;
+import com.rapidfacto.rapidfacto.codec.ResponseEncoder;
+import com.rapidfacto.rapidfacto.codec.ResponseFormat;
+import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import com.rapidfacto.rapidfacto.dto.CursorPage;
+import com.rapidfacto.rapidfacto.dto.PropertyMapper;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Encoding and decoding one page of properties in each response format. Body sizes, plain and gzipped, are printed
+// at setup: time alone does not show what a format saves in egress
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+	private static final TypeReference<ApiResponse<CursorPage<PropertyResponseDto>>> PAGE = new TypeReference<>() {
+	};
+
+	@Param({"JSON", "CBOR", "SMILE", "PROTOBUF"})
+	private ResponseFormat format;
+
+	// The default and the largest page
+	@Param({"20", "100"})
+	private int size;
+
+	private ResponseEncoder encoder;
+	private ObjectMapper mapper;
+	private ApiResponse<CursorPage<PropertyResponseDto>> response;
+	private byte[] encoded;
+
+	@Setup
+	public void setUp() throws IOException {
+		ObjectMapper jsonMapper = builder().build();
+		encoder = new ResponseEncoder(jsonMapper, builder());
+		mapper = switch (format) {
+			case JSON -> jsonMapper;
+			case CBOR -> encoder.getCborMapper();
+			case SMILE -> encoder.getSmileMapper();
+			case PROTOBUF -> null;
+		};
+		List<PropertyResponseDto> dtos = new PropertyMapper().toResponseDtoList(BenchmarkData.properties(size));
+		response = ApiResponse.success(CursorPage.of(dtos, "eyJpZCI6MTIzNDU2fQ"), "Properties retrieved successfully");
+		encoded = encoder.encode(response, format);
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(encoded);
+		}
+		System.out.printf("%n%s, %d properties: %d bytes, %d gzipped%n", format, size, encoded.length, compressed.size());
+	}
+
+	@Benchmark
+	public byte[] encode() {
+		return encoder.encode(response, format);
+	}
+
+	@Benchmark
+	public ApiResponse<CursorPage<PropertyResponseDto>> decode() throws IOException {
+		return format == ResponseFormat.PROTOBUF ? PropertyProtobuf.decode(encoded) : mapper.readValue(encoded, PAGE);
+	}
+
+	// How Spring Boot configures the application's mapper
+	private static Jackson2ObjectMapperBuilder builder() {
+		return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	}
+}
@@ -0,0 +1,83 @@
+package com.rapidfacto.rapidfacto.benchmark;
+
+import com.rapidfacto.rapidfacto.alerts.SearchPercolator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Matching one listing against tens of thousands of saved searches, which runs after every property write. With
+// 50k searches over 15 cities a listing matches about a thousand of them, so this is mostly the cost of the matches
+// themselves; the searches it does not match should cost next to nothing
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SearchPercolatorBenchmark {
+
+	private static final String[] CITIES = {"Mumbai", "Bangalore", "Delhi", "Hyderabad", "Pune", "Chennai", "Gurgaon",
+			"Noida", "Kolkata", "Ahmedabad", "Jaipur", "Lucknow", "Bhopal", "Kochi", "Indore"};
+	private static final String[] TYPES = {"1 BHK", "2 BHK", "3 BHK", "4 BHK", "Villa", "Studio", "Penthouse", "Plot"};
+	private static final int LOCALITIES_PER_CITY = 40;
+
+	@Param({"50000"})
+	private int savedSearches;
+
+	private SearchPercolator percolator;
+	private String[] titles;
+	private String[] locations;
+	private double[] prices;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		percolator = new SearchPercolator();
+		for (int id = 1; id <= savedSearches; id++) {
+			// Mostly a city or locality with a budget, some with a home type, a few budget-only
+			String location = switch (random.nextInt(10)) {
+				case 0 -> null;
+				case 1, 2, 3 -> "Sector " + random.nextInt(LOCALITIES_PER_CITY) + " " + CITIES[random.nextInt(CITIES.length)];
+				default -> CITIES[random.nextInt(CITIES.length)];
+			};
+			String title = random.nextInt(3) == 0 ? TYPES[random.nextInt(TYPES.length)] : null;
+			// Budgets 10-40% wide; one in five gives only an upper limit
+			double min = 1_000_000 + random.nextInt(190) * 100_000.0;
+			double max = min * (1.1 + random.nextInt(30) / 100.0);
+			percolator.put(id, title, location, random.nextInt(5) == 0 ? null : min, max);
+		}
+		titles = new String[1024];
+		locations = new String[1024];
+		prices = new double[1024];
+		for (int i = 0; i < titles.length; i++) {
+			titles[i] = TYPES[random.nextInt(TYPES.length)] + " Apartment with balcony";
+			locations[i] = "Sector " + random.nextInt(LOCALITIES_PER_CITY) + ", " + CITIES[random.nextInt(CITIES.length)];
+			prices[i] = 1_000_000 + random.nextInt(200) * 100_000.0;
+		}
+	}
+
+	@Benchmark
+	public long[] matchListing() {
+		int i = next++ & (titles.length - 1);
+		return percolator.match(titles[i], locations[i], prices[i]);
+	}
+
+	// A listing almost nobody is waiting for: only the budget-only searches above its price are looked at
+	@Benchmark
+	public long[] matchUnwantedListing() {
+		return percolator.match("Farmhouse with orchard", "Mall Road, Shimla", 60_000_000);
+	}
+}
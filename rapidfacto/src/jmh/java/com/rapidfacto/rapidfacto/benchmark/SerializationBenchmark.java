@@ -0,0 +1,58 @@
+package com.rapidfacto.rapidfacto.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import com.rapidfacto.rapidfacto.dto.PropertyMapper;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson cost of a list response body, with the ObjectMapper configured the way Spring Boot builds it
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	private int size;
+
+	private ObjectMapper objectMapper;
+	private ApiResponse<List<PropertyResponseDto>> response;
+
+	@Setup
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+		List<PropertyResponseDto> dtos = new PropertyMapper().toResponseDtoList(BenchmarkData.properties(size));
+		response = ApiResponse.success(dtos, "Properties retrieved successfully");
+	}
+
+	@Benchmark
+	public byte[] writeValueAsBytes() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(response);
+	}
+
+	@Benchmark
+	public String writeValueAsString() throws JsonProcessingException {
+		return objectMapper.writeValueAsString(response);
+	}
+}
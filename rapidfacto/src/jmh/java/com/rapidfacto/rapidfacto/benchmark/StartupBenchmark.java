@@ -0,0 +1,135 @@
+package com.rapidfacto.rapidfacto.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Time from launching the packaged application to its first successful response, in the prod profile on an
+// in-memory database: what a new replica costs before it can take traffic. Each invocation is a fresh JVM.
+// jar runs the fat jar from package; extracted and aot-cds need the -Pstartup build (target/startup), the latter
+// with its AOT bean definitions and class-data-sharing archive. Child output goes to target/startup-benchmark.log
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+	private static final Path TARGET = Path.of("target");
+	private static final Duration TIMEOUT = Duration.ofMinutes(3);
+
+	@Param({"jar", "extracted", "aot-cds"})
+	private String launch;
+
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+	private List<String> command;
+	private File directory;
+	private Process process;
+
+	@Setup
+	public void setUp() throws IOException {
+		Path directory = launch.equals("jar") ? TARGET : TARGET.resolve("startup");
+		Path jar = findJar(directory);
+		this.directory = directory.toFile();
+		command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		if (launch.equals("aot-cds")) {
+			if (!Files.exists(directory.resolve("application.jsa"))) {
+				throw new IllegalStateException("No CDS archive in " + directory + ": build with -Pstartup");
+			}
+			command.add("-XX:SharedArchiveFile=application.jsa");
+			command.add("-Dspring.aot.enabled=true");
+		}
+		command.add("-jar");
+		command.add(jar.getFileName().toString());
+		command.add("--spring.profiles.active=prod,embedded");
+		command.add("--spring.datasource.url=jdbc:h2:mem:startup;MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+	}
+
+	@Benchmark
+	public int firstSuccessfulRequest() throws Exception {
+		int port = freePort();
+		List<String> launchCommand = new ArrayList<>(command);
+		launchCommand.add("--server.port=" + port);
+		process = new ProcessBuilder(launchCommand)
+				.directory(directory)
+				.redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.appendTo(TARGET.resolve("startup-benchmark.log").toFile()))
+				.start();
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/properties?size=1"))
+				.timeout(Duration.ofSeconds(5))
+				.build();
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (System.nanoTime() < deadline) {
+			if (!process.isAlive()) {
+				throw new IllegalStateException("Application exited with " + process.exitValue()
+						+ " before serving a request; see target/startup-benchmark.log");
+			}
+			try {
+				int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+				if (status == 200) {
+					return status;
+				}
+			} catch (IOException notListeningYet) {
+				// Connection refused until Tomcat is up
+			}
+			Thread.sleep(10);
+		}
+		throw new IllegalStateException("No successful response within " + TIMEOUT);
+	}
+
+	@TearDown(Level.Invocation)
+	public void stop() throws InterruptedException {
+		if (process != null) {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly().waitFor();
+			}
+			process = null;
+		}
+	}
+
+	private static Path findJar(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			throw new IllegalStateException(directory + " not found: build with -Pstartup");
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().matches("rapidfacto-.*\\.jar"))
+					.findFirst()
+					.orElseThrow(() -> new IllegalStateException("No application jar in " + directory + ": run package first"));
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
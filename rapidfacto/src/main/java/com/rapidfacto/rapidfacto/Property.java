@@ -1,5 +1,6 @@
 package com.rapidfacto.rapidfacto;
 
+import com.rapidfacto.rapidfacto.dto.PropertyListing;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,12 +12,17 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "properties")
+@Table(name = "properties", indexes = {
+    @Index(name = "idx_properties_price_id", columnList = "price, id"),
+    @Index(name = "idx_properties_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_properties_change_version_id", columnList = "change_version, id"),
+    @Index(name = "idx_properties_latitude_longitude", columnList = "latitude, longitude")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
-public class Property {
+public class Property implements PropertyListing {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -37,6 +43,11 @@ public class Property {
     @Column(length = 1000)
     private String description;
 
+    // WGS84 degrees; optional, listings without a position are left out of geo searches
+    private Double latitude;
+
+    private Double longitude;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -45,6 +56,16 @@ public class Property {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Position in the change feed, assigned by ChangeVersions on every write; rows inserted outside the
+    // service (seed data) keep 0 and are only returned to clients syncing from the start
+    @Column(name = "change_version", nullable = false, columnDefinition = "bigint default 0")
+    private Long changeVersion;
+
+    // Optimistic-locking version, bumped by every update and exposed as the ETag that If-Match is checked against
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,59 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.cache.CoalescingLoader;
+import com.rapidfacto.rapidfacto.cache.PropertyCache;
+import com.rapidfacto.rapidfacto.dto.PropertyMapper;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.replica.ReadRouting;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Property detail DTOs for many ids with one IN query, shared by concurrent multi-gets asking for the same ids.
+// Runs in the caller's (read-only) transaction and fills the property cache with what it loads
+@Component
+public class PropertyBatchLoader implements MeterBinder {
+
+    @Autowired
+    private ShardedPropertyRepository propertyRepository;
+
+    @Autowired
+    private PropertyMapper propertyMapper;
+
+    @Autowired
+    private PropertyCache propertyCache;
+
+    private final CoalescingLoader<Long, PropertyResponseDto> loader = new CoalescingLoader<>(this::load);
+
+    // Requests that must read from the primary (right after their own write) do not join a load that may be
+    // running on a replica
+    public Map<Long, PropertyResponseDto> loadAll(Collection<Long> ids) {
+        return ReadRouting.isPrimaryRequired() ? load(ids) : loader.loadAll(ids);
+    }
+
+    private Map<Long, PropertyResponseDto> load(Collection<Long> ids) {
+        Map<Long, PropertyResponseDto> loaded = new HashMap<>();
+        for (Property property : propertyRepository.findAllById(ids)) {
+            PropertyResponseDto propertyDto = propertyMapper.toResponseDto(property);
+            propertyCache.putLoaded(propertyDto);
+            loaded.put(propertyDto.getId(), propertyDto);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("properties.batch.ids", loader, CoalescingLoader::loadedCount)
+                .tag("source", "database")
+                .register(registry);
+        FunctionCounter.builder("properties.batch.ids", loader, CoalescingLoader::coalescedCount)
+                .tag("source", "coalesced")
+                .register(registry);
+    }
+}
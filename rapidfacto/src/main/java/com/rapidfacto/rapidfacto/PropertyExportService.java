@@ -0,0 +1,212 @@
+package com.rapidfacto.rapidfacto;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+import com.rapidfacto.rapidfacto.shard.ShardTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// Streams the catalogue from a forward-only JDBC cursor straight to the response, one row in memory at a time
+@Service
+public class PropertyExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final String SELECT_SQL = "SELECT id, title, location, price, image_url, description, latitude, longitude, created_at, updated_at "
+            + "FROM properties";
+    private static final String CSV_HEADER = "id,title,location,price,imageUrl,description,latitude,longitude,createdAt,updatedAt\n";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    @Value("${rapidfacto.export.flush-every:500}")
+    private int flushEvery;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public PropertyExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                 @Value("${rapidfacto.export.fetch-size:1000}") int fetchSize) {
+        // With useCursorFetch=true a positive fetch size makes MySQL hand rows over in chunks instead of all at once
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        // Read-only, so the whole-table scan runs on a replica when replicas are configured
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public static String validateFormat(String format) {
+        if (FORMAT_NDJSON.equalsIgnoreCase(format)) {
+            return FORMAT_NDJSON;
+        }
+        if (FORMAT_CSV.equalsIgnoreCase(format)) {
+            return FORMAT_CSV;
+        }
+        throw new BadRequestException("Unsupported export format: " + format);
+    }
+
+    // Write every property (optionally only those updated at or after updatedSince) in id order
+    public void export(OutputStream output, String format, LocalDateTime updatedSince) throws IOException {
+        if (FORMAT_CSV.equals(format)) {
+            Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            writer.write(CSV_HEADER);
+            writer.flush();
+            query(updatedSince, new CsvRowWriter(writer));
+            writer.flush();
+        } else {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8)) {
+                generator.setRootValueSeparator(null);
+                query(updatedSince, new NdjsonRowWriter(generator, output));
+                generator.flush();
+            }
+        }
+    }
+
+    // Shard after shard, which is id order
+    private void query(LocalDateTime updatedSince, RowCallbackHandler handler) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (int shard = 0; shard < shardTemplate.getShardCount(); shard++) {
+                shardTemplate.execute(shard, () -> {
+                    if (updatedSince == null) {
+                        streamingJdbcTemplate.query(SELECT_SQL + " ORDER BY id", handler);
+                    } else {
+                        streamingJdbcTemplate.query(SELECT_SQL + " WHERE updated_at >= ? ORDER BY id", handler,
+                                Timestamp.valueOf(updatedSince));
+                    }
+                    return null;
+                });
+            }
+        });
+    }
+
+    // First row goes out immediately for a fast first byte, then every flushEvery rows
+    private boolean shouldFlush(long rows) {
+        return rows == 1 || rows % flushEvery == 0;
+    }
+
+    private static String timestamp(ResultSet rs, String column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : value.toLocalDateTime().toString();
+    }
+
+    private static Double nullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private class NdjsonRowWriter implements RowCallbackHandler {
+
+        private final JsonGenerator generator;
+        private final OutputStream output;
+        private long rows;
+
+        NdjsonRowWriter(JsonGenerator generator, OutputStream output) {
+            this.generator = generator;
+            this.output = output;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("id", rs.getLong("id"));
+                generator.writeStringField("title", rs.getString("title"));
+                generator.writeStringField("location", rs.getString("location"));
+                generator.writeNumberField("price", rs.getDouble("price"));
+                generator.writeStringField("imageUrl", rs.getString("image_url"));
+                generator.writeStringField("description", rs.getString("description"));
+                writeNumberOrNull("latitude", nullableDouble(rs, "latitude"));
+                writeNumberOrNull("longitude", nullableDouble(rs, "longitude"));
+                generator.writeStringField("createdAt", timestamp(rs, "created_at"));
+                generator.writeStringField("updatedAt", timestamp(rs, "updated_at"));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                if (shouldFlush(++rows)) {
+                    generator.flush();
+                    output.flush();
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void writeNumberOrNull(String name, Double value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(name);
+            } else {
+                generator.writeNumberField(name, value);
+            }
+        }
+    }
+
+    private class CsvRowWriter implements RowCallbackHandler {
+
+        private final Writer writer;
+        private final StringBuilder line = new StringBuilder(256);
+        private long rows;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            line.setLength(0);
+            line.append(rs.getLong("id")).append(',');
+            appendField(rs.getString("title")).append(',');
+            appendField(rs.getString("location")).append(',');
+            line.append(rs.getDouble("price")).append(',');
+            appendField(rs.getString("image_url")).append(',');
+            appendField(rs.getString("description")).append(',');
+            appendNumber(nullableDouble(rs, "latitude")).append(',');
+            appendNumber(nullableDouble(rs, "longitude")).append(',');
+            appendField(timestamp(rs, "created_at")).append(',');
+            appendField(timestamp(rs, "updated_at")).append('\n');
+            try {
+                writer.write(line.toString());
+                if (shouldFlush(++rows)) {
+                    writer.flush();
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private StringBuilder appendNumber(Double value) {
+            return value == null ? line : line.append(value.doubleValue());
+        }
+
+        private StringBuilder appendField(String value) {
+            if (value == null) {
+                return line;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return line.append(value);
+            }
+            return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.rapidfacto.rapidfacto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidfacto.rapidfacto.bulk.CsvLineParser;
+import com.rapidfacto.rapidfacto.bulk.NdjsonLineParser;
+import com.rapidfacto.rapidfacto.bulk.PropertyLineParser;
+import com.rapidfacto.rapidfacto.bulk.RecordReader;
+import com.rapidfacto.rapidfacto.dto.BulkImportResult;
+import com.rapidfacto.rapidfacto.dto.PropertyMapper;
+import com.rapidfacto.rapidfacto.dto.PropertyRequestDto;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.event.PropertiesImportedEvent;
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+import com.rapidfacto.rapidfacto.feed.ChangeVersions;
+import com.rapidfacto.rapidfacto.shard.ShardTemplate;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Streams property feeds into the table in JDBC batches; memory use depends on the batch size, not the feed size
+@Service
+public class PropertyImportService {
+
+    private static final String INSERT_SQL = "INSERT INTO properties "
+            + "(title, location, price, image_url, description, created_at, updated_at, change_version, latitude, longitude) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PropertyMapper propertyMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ChangeVersions changeVersions;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    @Value("${rapidfacto.bulk-import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${rapidfacto.bulk-import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // Import an NDJSON (default) or CSV stream record by record, reporting failures by the line each record starts on
+    public BulkImportResult importStream(InputStream input, boolean csv) throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        // CSV fields may be quoted across line breaks, as the export writes them
+        RecordReader reader = new RecordReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), csv);
+        PropertyLineParser parser;
+        if (csv) {
+            try {
+                parser = new CsvLineParser(reader.next());
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestException(ex.getMessage());
+            }
+        } else {
+            parser = new NdjsonLineParser(objectMapper);
+        }
+
+        List<PropertyRequestDto> batch = new ArrayList<>(batchSize);
+        long[] batchLines = new long[batchSize];
+        String line;
+        while ((line = reader.next()) != null) {
+            long lineNumber = reader.recordLine();
+            if (line.isBlank()) {
+                continue;
+            }
+            result.setReceived(result.getReceived() + 1);
+            if (reader.oversized()) {
+                result.addError(lineNumber, "Record is longer than " + RecordReader.MAX_RECORD_LENGTH + " characters",
+                        maxReportedErrors);
+                continue;
+            }
+            PropertyRequestDto record;
+            try {
+                record = parser.parse(line);
+            } catch (IllegalArgumentException ex) {
+                result.addError(lineNumber, ex.getMessage(), maxReportedErrors);
+                continue;
+            }
+            String violations = validate(record);
+            if (violations != null) {
+                result.addError(lineNumber, violations, maxReportedErrors);
+                continue;
+            }
+            batchLines[batch.size()] = lineNumber;
+            batch.add(record);
+            if (batch.size() == batchSize) {
+                flush(batch, batchLines, result);
+            }
+        }
+        flush(batch, batchLines, result);
+        return result;
+    }
+
+    // Import already-built requests through the same batched path; returns the number of rows written
+    public long importRecords(List<PropertyRequestDto> records) {
+        BulkImportResult result = new BulkImportResult();
+        long[] batchLines = new long[batchSize];
+        List<PropertyRequestDto> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < records.size(); i++) {
+            batchLines[batch.size()] = i + 1;
+            batch.add(records.get(i));
+            if (batch.size() == batchSize) {
+                flush(batch, batchLines, result);
+            }
+        }
+        flush(batch, batchLines, result);
+        if (result.getFailed() > 0) {
+            throw new IllegalStateException("Property import failed: " + result.getErrors());
+        }
+        return result.getImported();
+    }
+
+    // Each shard's rows are written, and succeed or fail, as a batch of their own
+    private void flush(List<PropertyRequestDto> batch, long[] batchLines, BulkImportResult result) {
+        Map<Integer, List<Integer>> byShard = new TreeMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            int shard = shardTemplate.getShardMap().shardFor(batch.get(i).getLocation());
+            byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(i);
+        }
+        byShard.forEach((shard, positions) -> {
+            List<PropertyRequestDto> shardBatch = positions.stream().map(batch::get).toList();
+            try {
+                changeVersions.write(shard, shardBatch.size(), firstVersion -> insertBatch(shard, shardBatch, firstVersion));
+                result.setImported(result.getImported() + shardBatch.size());
+            } catch (DataAccessException ex) {
+                addBatchError(positions, batchLines, "Batch insert failed: " + ex.getMostSpecificCause().getMessage(), result);
+            } catch (IllegalStateException ex) {
+                // The batch's change versions expired before it could be written (see ChangeVersions.write)
+                addBatchError(positions, batchLines, "Batch insert failed: " + ex.getMessage(), result);
+            }
+        });
+        batch.clear();
+    }
+
+    private void addBatchError(List<Integer> positions, long[] batchLines, String message, BulkImportResult result) {
+        for (int position : positions) {
+            result.addError(batchLines[position], message, maxReportedErrors);
+        }
+    }
+
+    // One batched statement per call (rewritten into multi-row INSERTs by the MySQL driver), with one block of
+    // consecutive change versions; one event for the batch fires on commit
+    private Void insertBatch(int shard, List<PropertyRequestDto> batch, long firstVersion) {
+        // The columns keep microseconds, so the published state matches what a read returns
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Timestamp timestamp = Timestamp.valueOf(now);
+        List<Map<String, Object>> keys = shardTemplate.execute(shard, () -> insertRows(batch, firstVersion, timestamp));
+        List<PropertyResponseDto> inserted = new ArrayList<>(keys.size());
+        for (int i = 0; i < batch.size() && i < keys.size(); i++) {
+            Property property = propertyMapper.toEntity(batch.get(i));
+            property.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            property.setCreatedAt(now);
+            property.setUpdatedAt(now);
+            property.setChangeVersion(firstVersion + i);
+            property.setVersion(0L);
+            inserted.add(propertyMapper.toResponseDto(property));
+        }
+        eventPublisher.publishEvent(new PropertiesImportedEvent(inserted));
+        return null;
+    }
+
+    // Generated ids, in row order
+    private List<Map<String, Object>> insertRows(List<PropertyRequestDto> batch, long firstVersion, Timestamp timestamp) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PropertyRequestDto record = batch.get(i);
+                        ps.setString(1, record.getTitle());
+                        ps.setString(2, record.getLocation());
+                        ps.setDouble(3, record.getPrice());
+                        ps.setString(4, record.getImageUrl());
+                        ps.setString(5, record.getDescription());
+                        ps.setTimestamp(6, timestamp);
+                        ps.setTimestamp(7, timestamp);
+                        ps.setLong(8, firstVersion + i);
+                        ps.setObject(9, record.getLatitude(), Types.DOUBLE);
+                        ps.setObject(10, record.getLongitude(), Types.DOUBLE);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                },
+                keyHolder);
+        return keyHolder.getKeyList();
+    }
+
+    private String validate(PropertyRequestDto record) {
+        Set<ConstraintViolation<PropertyRequestDto>> violations = validator.validate(record);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        StringBuilder message = new StringBuilder();
+        for (ConstraintViolation<PropertyRequestDto> violation : violations) {
+            if (!message.isEmpty()) {
+                message.append("; ");
+            }
+            message.append(violation.getPropertyPath()).append(": ").append(violation.getMessage());
+        }
+        return message.toString();
+    }
+}
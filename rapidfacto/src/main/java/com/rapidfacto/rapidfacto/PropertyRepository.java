@@ -1,25 +1,35 @@
 package com.rapidfacto.rapidfacto;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface PropertyRepository extends JpaRepository<Property, Long> {
-    
-    // Find properties by location
-    List<Property> findByLocationContainingIgnoreCase(String location);
-    
-    // Find properties by price range
-    List<Property> findByPriceBetween(Double minPrice, Double maxPrice);
-    
-    // Find properties by title containing keyword
-    List<Property> findByTitleContainingIgnoreCase(String title);
-    
-    // Find properties sorted by price (ascending)
-    List<Property> findAllByOrderByPriceAsc();
-    
-    // Find properties sorted by price (descending)
-    List<Property> findAllByOrderByPriceDesc();
-} 
\ No newline at end of file
+public interface PropertyRepository extends JpaRepository<Property, Long>, JpaSpecificationExecutor<Property>,
+        PropertySummaryRepository, PropertyUpdateRepository {
+
+    // Walk the whole table in id order, one bounded batch at a time, as entities or a projection
+    <T> List<T> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable, Class<T> type);
+
+    // Properties created or updated after the (changeVersion, id) position, in change-feed order
+    @Query("select p from Property p where p.changeVersion > :version "
+            + "or (p.changeVersion = :version and p.id > :id) order by p.changeVersion, p.id")
+    List<Property> findChangedAfter(@Param("version") long version, @Param("id") long id, Pageable pageable);
+
+    // Current optimistic-locking version alone, to tell a version conflict from a missing row
+    @Query("select p.version from Property p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
+    // created_at cannot be written through the entity: a listing moved to another shard keeps its original one
+    @Modifying
+    @Query(value = "UPDATE properties SET created_at = :createdAt WHERE id = :id", nativeQuery = true)
+    int restoreCreatedAt(@Param("id") long id, @Param("createdAt") LocalDateTime createdAt);
+}
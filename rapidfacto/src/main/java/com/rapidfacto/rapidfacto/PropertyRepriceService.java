@@ -0,0 +1,196 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.dto.PriceUpdate;
+import com.rapidfacto.rapidfacto.dto.PropertyMapper;
+import com.rapidfacto.rapidfacto.dto.RepriceResult;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+import com.rapidfacto.rapidfacto.feed.ChangeVersions;
+import com.rapidfacto.rapidfacto.shard.ShardTemplate;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Reprices many listings per call: one batched UPDATE per chunk (per shard, when sharded), each chunk in its own
+// transaction, reporting failures per listing instead of failing the whole call
+@Service
+public class PropertyRepriceService {
+
+    // COALESCE makes the version check a no-op for entries that do not give one
+    private static final String UPDATE_SQL = "UPDATE properties "
+            + "SET price = ?, version = version + 1, change_version = ?, updated_at = ? "
+            + "WHERE id = ? AND version = COALESCE(?, version)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private PropertyMapper propertyMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ChangeVersions changeVersions;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${rapidfacto.reprice.batch-size:500}")
+    private int batchSize;
+
+    @Value("${rapidfacto.reprice.max-items:10000}")
+    private int maxItems;
+
+    @Value("${rapidfacto.reprice.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public RepriceResult reprice(List<PriceUpdate> updates) {
+        if (updates.size() > maxItems) {
+            throw new BadRequestException("At most " + maxItems + " price updates per call");
+        }
+        RepriceResult result = new RepriceResult();
+        result.setReceived(updates.size());
+        Set<Long> seen = new HashSet<>();
+        List<PriceUpdate> batch = new ArrayList<>(batchSize);
+        for (PriceUpdate update : updates) {
+            String invalid = validate(update);
+            if (invalid == null && !seen.add(update.getId())) {
+                invalid = "Duplicate id in this request";
+            }
+            if (invalid != null) {
+                result.addError(update == null ? null : update.getId(), invalid, maxReportedErrors);
+                continue;
+            }
+            batch.add(update);
+            if (batch.size() == batchSize) {
+                flush(batch, result);
+            }
+        }
+        flush(batch, result);
+        return result;
+    }
+
+    private void flush(List<PriceUpdate> batch, RepriceResult result) {
+        // Ids no shard can hold are sent to shard 0, which reports them as not found
+        Map<Integer, List<PriceUpdate>> byShard = new TreeMap<>();
+        for (PriceUpdate update : batch) {
+            int shard = Math.max(0, shardTemplate.getShardMap().shardOf(update.getId()));
+            byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(update);
+        }
+        byShard.forEach((shard, shardBatch) -> flush(shard, shardBatch, result));
+        batch.clear();
+    }
+
+    private void flush(int shard, List<PriceUpdate> batch, RepriceResult result) {
+        try {
+            // Counted only once the chunk has committed
+            List<RepriceResult.ItemError> errors = changeVersions.write(shard, batch.size(),
+                    firstVersion -> updateBatch(shard, batch, firstVersion));
+            result.setUpdated(result.getUpdated() + batch.size() - errors.size());
+            for (RepriceResult.ItemError error : errors) {
+                result.addError(error.getId(), error.getMessage(), maxReportedErrors);
+            }
+        } catch (DataAccessException ex) {
+            String message = "Batch update failed: " + ex.getMostSpecificCause().getMessage();
+            for (PriceUpdate update : batch) {
+                result.addError(update.getId(), message, maxReportedErrors);
+            }
+        }
+    }
+
+    // One block of consecutive change versions per batch; events fire on commit. Update counts are not trusted
+    // (batches rewritten by the driver may not report them): an entry took effect when its row came back carrying
+    // the change version it was written with.
+    private List<RepriceResult.ItemError> updateBatch(int shard, List<PriceUpdate> batch, long firstVersion) {
+        Timestamp timestamp = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (PriceUpdate update : batch) {
+            ids.add(update.getId());
+        }
+        List<Property> updated = shardTemplate.execute(shard, () -> {
+            writeBatch(batch, firstVersion, timestamp);
+            return propertyRepository.findAllById(ids);
+        });
+
+        Map<Long, Property> byId = new HashMap<>();
+        for (Property property : updated) {
+            byId.put(property.getId(), property);
+        }
+        List<RepriceResult.ItemError> errors = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Property property = byId.get(batch.get(i).getId());
+            if (property == null) {
+                errors.add(new RepriceResult.ItemError(batch.get(i).getId(), "Property not found"));
+            } else if (property.getChangeVersion() != firstVersion + i) {
+                errors.add(new RepriceResult.ItemError(property.getId(), "Version conflict: now at version " + property.getVersion()));
+            } else {
+                eventPublisher.publishEvent(PropertyChangedEvent.updated(propertyMapper.toResponseDto(property)));
+            }
+        }
+        return errors;
+    }
+
+    private void writeBatch(List<PriceUpdate> batch, long firstVersion, Timestamp timestamp) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PriceUpdate update = batch.get(i);
+                ps.setDouble(1, update.getPrice());
+                ps.setLong(2, firstVersion + i);
+                ps.setTimestamp(3, timestamp);
+                ps.setLong(4, update.getId());
+                ps.setObject(5, update.getVersion(), Types.BIGINT);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+
+    // As PropertyImportService does for rows, against the constraints on PriceUpdate
+    private String validate(PriceUpdate update) {
+        if (update == null) {
+            return "id is required";
+        }
+        Set<ConstraintViolation<PriceUpdate>> violations = validator.validate(update);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        StringBuilder message = new StringBuilder();
+        for (ConstraintViolation<PriceUpdate> violation : violations) {
+            if (!message.isEmpty()) {
+                message.append("; ");
+            }
+            message.append(violation.getPropertyPath()).append(": ").append(violation.getMessage());
+        }
+        return message.toString();
+    }
+}
@@ -1,155 +1,579 @@
 package com.rapidfacto.rapidfacto;
 
+import com.rapidfacto.rapidfacto.cache.PropertyCache;
+import com.rapidfacto.rapidfacto.dto.CursorPage;
+import com.rapidfacto.rapidfacto.dto.PageCursor;
+import com.rapidfacto.rapidfacto.dto.PropertyBatch;
+import com.rapidfacto.rapidfacto.dto.PropertyFacets;
+import com.rapidfacto.rapidfacto.dto.PropertyListing;
+import com.rapidfacto.rapidfacto.dto.PropertyPatchDto;
 import com.rapidfacto.rapidfacto.dto.PropertyRequestDto;
 import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.dto.PropertySearchRequest;
+import com.rapidfacto.rapidfacto.dto.PropertySummaryDto;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
 import com.rapidfacto.rapidfacto.dto.PropertyMapper;
+import com.rapidfacto.rapidfacto.exception.PreconditionFailedException;
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
 import com.rapidfacto.rapidfacto.exception.ResourceNotFoundException;
+import com.rapidfacto.rapidfacto.feed.ChangeVersions;
+import com.rapidfacto.rapidfacto.feed.PropertyTombstone;
+import com.rapidfacto.rapidfacto.feed.PropertyTombstoneRepository;
+import com.rapidfacto.rapidfacto.search.FacetCounts;
+import com.rapidfacto.rapidfacto.search.GeoMatch;
+import com.rapidfacto.rapidfacto.search.GeoQuery;
+import com.rapidfacto.rapidfacto.search.NearestSelector;
+import com.rapidfacto.rapidfacto.search.PropertyFacetIndex;
+import com.rapidfacto.rapidfacto.search.PropertyFacetRow;
+import com.rapidfacto.rapidfacto.search.PropertyGeoIndex;
+import com.rapidfacto.rapidfacto.search.PropertyGeoPoint;
+import com.rapidfacto.rapidfacto.search.PropertyPriceIndex;
+import com.rapidfacto.rapidfacto.search.PropertyTextIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+// Writes run in read-write transactions on the primary, opened by ChangeVersions once their change versions are
+// reserved; read-only methods may be served by a replica
 @Service
 @Transactional
 public class PropertyService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final double MAX_RADIUS_KM = 500;
+    public static final int MAX_FACET_LIMIT = 200;
+    public static final int MAX_BATCH_IDS = 100;
+
+    // Cursor sort name for geo searches, which page by (distance, id)
+    private static final String DISTANCE_SORT = "distance";
+
     @Autowired
-    private PropertyRepository propertyRepository;
+    private ShardedPropertyRepository propertyRepository;
 
     @Autowired
     private PropertyMapper propertyMapper;
 
-    // Initialize sample data when application starts
-    @PostConstruct
-    public void initializeData() {
-        if (propertyRepository.count() == 0) {
-            // Sample property data with working image URLs
-            Property[] properties = {
-                createSampleProperty("2 BHK Apartment in Mumbai", "Andheri East, Mumbai", 8500000.0, 
-                    "https://cdn.pixabay.com/photo/2016/11/29/03/53/architecture-1867187_1280.jpg", 
-                    "Spacious 2-bedroom apartment with balcony and great sunlight."),
-                
-                createSampleProperty("1 BHK Studio in Bangalore", "Whitefield, Bangalore", 4500000.0, 
-                    "https://cdn.pixabay.com/photo/2020/10/04/13/22/living-room-5623029_1280.jpg", 
-                    "Cozy and affordable studio apartment ideal for professionals."),
-                
-                createSampleProperty("3 BHK Flat in Delhi", "Rohini Sector 9, Delhi", 9500000.0, 
-                    "https://cdn.pixabay.com/photo/2018/05/09/21/38/interior-3389676_1280.jpg", 
-                    "Premium 3-bedroom flat near metro station."),
-                
-                createSampleProperty("2 BHK Apartment in Pune", "Hinjewadi, Pune", 6700000.0, 
-                    "https://cdn.pixabay.com/photo/2016/11/18/16/16/interior-1835352_1280.jpg", 
-                    "Modern home with gated society and gym access."),
-                
-                createSampleProperty("1 RK Room in Noida", "Sector 62, Noida", 3200000.0, 
-                    "https://cdn.pixabay.com/photo/2020/03/26/17/32/room-4976931_1280.jpg", 
-                    "Compact room suitable for students or working individuals."),
-                
-                createSampleProperty("4 BHK Villa in Gurgaon", "DLF Phase 3, Gurgaon", 18000000.0, 
-                    "https://cdn.pixabay.com/photo/2015/01/28/23/35/house-615619_1280.jpg", 
-                    "Luxurious villa with private garden and parking."),
-                
-                createSampleProperty("2 BHK Apartment in Jaipur", "Malviya Nagar, Jaipur", 5200000.0, 
-                    "https://cdn.pixabay.com/photo/2017/08/06/11/40/people-2595685_1280.jpg", 
-                    "Well-furnished apartment near parks and schools."),
-                
-                createSampleProperty("3 BHK in Ahmedabad", "Satellite, Ahmedabad", 8800000.0, 
-                    "https://cdn.pixabay.com/photo/2020/10/24/02/10/living-room-5687332_1280.jpg", 
-                    "Spacious and well-connected residential property."),
-                
-                createSampleProperty("1 BHK in Lucknow", "Gomti Nagar, Lucknow", 4000000.0, 
-                    "https://cdn.pixabay.com/photo/2016/10/13/09/06/living-room-1738317_1280.jpg", 
-                    "Budget-friendly housing option in a prime area."),
-                
-                createSampleProperty("2 BHK Apartment in Bhopal", "MP Nagar, Bhopal", 5500000.0, 
-                    "https://cdn.pixabay.com/photo/2020/04/16/18/05/sofa-5051276_1280.jpg", 
-                    "Peaceful society with nearby amenities and public transport.")
-            };
-
-            for (Property property : properties) {
-                propertyRepository.save(property);
-            }
-            System.out.println("Sample property data initialized successfully!");
-        }
-    }
+    @Autowired
+    private PropertyCache propertyCache;
 
-    private Property createSampleProperty(String title, String location, Double price, String imageUrl, String description) {
-        Property property = new Property();
-        property.setTitle(title);
-        property.setLocation(location);
-        property.setPrice(price);
-        property.setImageUrl(imageUrl);
-        property.setDescription(description);
-        return property;
-    }
+    @Autowired
+    private PropertyTextIndex propertyTextIndex;
 
-    // Get all properties
-    public List<PropertyResponseDto> getAllProperties() {
-        List<Property> properties = propertyRepository.findAll();
-        return propertyMapper.toResponseDtoList(properties);
+    @Autowired
+    private PropertyPriceIndex propertyPriceIndex;
+
+    @Autowired
+    private PropertyGeoIndex propertyGeoIndex;
+
+    @Autowired
+    private PropertyFacetIndex propertyFacetIndex;
+
+    @Autowired
+    private PropertyBatchLoader propertyBatchLoader;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ChangeVersions changeVersions;
+
+    @Autowired
+    private PropertyTombstoneRepository propertyTombstoneRepository;
+
+    // Get a page of properties, newest first
+    @Transactional(readOnly = true)
+    public CursorPage<? extends PropertyListing> getAllProperties(String cursor, int size, PropertyView view) {
+        return findPage(PropertySpecifications.unfiltered(), PropertySort.NEWEST, cursor, size, view);
     }
 
-    // Get property by ID
+    // Get property by ID, from the cache when possible
+    @Transactional(readOnly = true)
     public PropertyResponseDto getPropertyById(Long id) {
+        PropertyResponseDto cached = propertyCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
         Property property = propertyRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Property", "id", id));
-        return propertyMapper.toResponseDto(property);
+        PropertyResponseDto propertyDto = propertyMapper.toResponseDto(property);
+        propertyCache.putLoaded(propertyDto);
+        return propertyDto;
+    }
+
+    // Get several properties by id ("7,3,12"), in the order asked for; ids that do not exist are reported as missing.
+    // Cached properties come from the cache, the rest from one IN query
+    @Transactional(readOnly = true)
+    public PropertyBatch getPropertiesByIds(String ids) {
+        LinkedHashSet<Long> requested = parseIds(ids);
+        Map<Long, PropertyResponseDto> found = new HashMap<>();
+        List<Long> uncached = new ArrayList<>();
+        for (Long id : requested) {
+            PropertyResponseDto cached = propertyCache.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                uncached.add(id);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            found.putAll(propertyBatchLoader.loadAll(uncached));
+        }
+
+        List<PropertyResponseDto> items = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            PropertyResponseDto property = found.get(id);
+            if (property != null) {
+                items.add(property);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new PropertyBatch(items, missing);
+    }
+
+    // Comma-separated ids, first occurrence kept
+    private static LinkedHashSet<Long> parseIds(String ids) {
+        LinkedHashSet<Long> parsed = new LinkedHashSet<>();
+        for (String part : ids.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            try {
+                parsed.add(Long.parseLong(part.trim()));
+            } catch (NumberFormatException ex) {
+                throw new BadRequestException("ids must be numbers separated by commas");
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new BadRequestException("ids must contain at least one id");
+        }
+        if (parsed.size() > MAX_BATCH_IDS) {
+            throw new BadRequestException("Cannot get more than " + MAX_BATCH_IDS + " properties at once");
+        }
+        return parsed;
     }
 
     // Save a new property
+    @Transactional(propagation = Propagation.NEVER)
     public PropertyResponseDto saveProperty(PropertyRequestDto propertyRequestDto) {
         Property property = propertyMapper.toEntity(propertyRequestDto);
-        Property savedProperty = propertyRepository.save(property);
-        return propertyMapper.toResponseDto(savedProperty);
+        int shard = propertyRepository.getShardMap().shardFor(property.getLocation());
+        return changeVersions.write(shard, 1, changeVersion -> {
+            property.setChangeVersion(changeVersion);
+            Property savedProperty = propertyRepository.save(property);
+            PropertyResponseDto savedDto = propertyMapper.toResponseDto(savedProperty);
+            eventPublisher.publishEvent(PropertyChangedEvent.created(savedDto));
+            return savedDto;
+        });
     }
 
-    // Update an existing property
-    public PropertyResponseDto updateProperty(Long id, PropertyRequestDto propertyRequestDto) {
-        Property property = propertyRepository.findById(id)
+    // Replace every field of an existing property; expectedVersion (from If-Match) makes it conditional, and @Version
+    // rejects a concurrent update that lands between the read and the write. A new city on another shard moves it.
+    @Transactional(propagation = Propagation.NEVER)
+    public PropertyResponseDto updateProperty(Long id, PropertyRequestDto propertyRequestDto, Long expectedVersion) {
+        int shard = shardOf(id);
+        int target = propertyRepository.getShardMap().shardFor(propertyRequestDto.getLocation());
+        if (target != shard) {
+            return moveProperty(id, shard, target, expectedVersion,
+                    property -> propertyMapper.updateEntityFromDto(property, propertyRequestDto));
+        }
+        return changeVersions.write(shard, 1, changeVersion -> {
+            Property property = propertyRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Property", "id", id));
+            if (expectedVersion != null && !expectedVersion.equals(property.getVersion())) {
+                throw versionConflict(id, property.getVersion());
+            }
+
+            property.setChangeVersion(changeVersion);
+            propertyMapper.updateEntityFromDto(property, propertyRequestDto);
+            // Flush so @PreUpdate has set updatedAt before it is copied into the DTO (and the cached ETag)
+            Property updatedProperty = propertyRepository.saveAndFlush(property);
+            PropertyResponseDto updatedDto = propertyMapper.toResponseDto(updatedProperty);
+            eventPublisher.publishEvent(PropertyChangedEvent.updated(updatedDto));
+            return updatedDto;
+        });
+    }
+
+    // Write only the supplied fields with one targeted UPDATE, without reading the row first; expectedVersion (from
+    // If-Match) makes it conditional. The row is read back by id afterwards for the response and the change event.
+    @Transactional(propagation = Propagation.NEVER)
+    public PropertyResponseDto patchProperty(Long id, PropertyPatchDto patch, Long expectedVersion) {
+        if (patch.isEmpty()) {
+            throw new BadRequestException("No fields to update");
+        }
+        int shard = shardOf(id);
+        int target = patch.getLocation() == null ? shard : propertyRepository.getShardMap().shardFor(patch.getLocation());
+        if (target != shard) {
+            return moveProperty(id, shard, target, expectedVersion,
+                    property -> propertyMapper.updateEntityFromPatch(property, patch));
+        }
+        return changeVersions.write(shard, 1, changeVersion -> {
+            if (propertyRepository.patch(id, patch, expectedVersion, changeVersion, LocalDateTime.now()) == 0) {
+                // Throwing gives the change version up with the rest of the transaction
+                Long currentVersion = propertyRepository.findVersionById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Property", "id", id));
+                throw versionConflict(id, currentVersion);
+            }
+            Property property = propertyRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Property", "id", id));
+            PropertyResponseDto patchedDto = propertyMapper.toResponseDto(property);
+            eventPublisher.publishEvent(PropertyChangedEvent.updated(patchedDto));
+            return patchedDto;
+        });
+    }
+
+    // The shard holding the property, whose change versions a write to it takes
+    private int shardOf(Long id) {
+        int shard = propertyRepository.getShardMap().shardOf(id);
+        if (shard < 0) {
+            throw new ResourceNotFoundException("Property", "id", id);
+        }
+        return shard;
+    }
+
+    private static PreconditionFailedException versionConflict(Long id, Long currentVersion) {
+        return new PreconditionFailedException("Property " + id + " has been modified (now at version "
+                + currentVersion + "); reload it and retry");
+    }
+
+    // Ids carry their shard, so a property whose new city belongs to another shard is created again there, under a
+    // new id and with its original createdAt, and deleted from the old one. The shards commit one after the other:
+    // the copy first, then the delete, which only goes ahead while the row is still at the version copied; if it
+    // fails, the copy is deleted again. The response (and the change feed) carries the new id.
+    private PropertyResponseDto moveProperty(Long id, int from, int to, Long expectedVersion, Consumer<Property> change) {
+        Property current = propertyRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Property", "id", id));
-        
-        propertyMapper.updateEntityFromDto(property, propertyRequestDto);
-        Property updatedProperty = propertyRepository.save(property);
-        return propertyMapper.toResponseDto(updatedProperty);
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw versionConflict(id, current.getVersion());
+        }
+        Property copy = propertyMapper.copyOf(current);
+        change.accept(copy);
+        PropertyResponseDto movedDto = changeVersions.write(to, 1, changeVersion -> {
+            copy.setChangeVersion(changeVersion);
+            Property moved = propertyRepository.saveAndFlush(copy);
+            propertyRepository.restoreCreatedAt(moved.getId(), current.getCreatedAt());
+            PropertyResponseDto dto = propertyMapper.toResponseDto(moved);
+            dto.setCreatedAt(current.getCreatedAt());
+            eventPublisher.publishEvent(PropertyChangedEvent.created(dto));
+            return dto;
+        });
+        try {
+            delete(from, id, current.getVersion());
+        } catch (RuntimeException ex) {
+            try {
+                delete(to, movedDto.getId(), null);
+            } catch (RuntimeException undoFailure) {
+                ex.addSuppressed(undoFailure);
+            }
+            throw ex;
+        }
+        return movedDto;
     }
 
-    // Delete a property
+    // Delete a property, leaving a tombstone for the change feed on its shard
+    @Transactional(propagation = Propagation.NEVER)
     public void deleteProperty(Long id) {
-        if (!propertyRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Property", "id", id);
+        delete(shardOf(id), id, null);
+    }
+
+    private void delete(int shard, Long id, Long expectedVersion) {
+        changeVersions.write(shard, 1, changeVersion -> {
+            Long currentVersion = propertyRepository.findVersionById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Property", "id", id));
+            if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+                throw versionConflict(id, currentVersion);
+            }
+            propertyTombstoneRepository.save(new PropertyTombstone(id, changeVersion, LocalDateTime.now()));
+            propertyRepository.deleteById(id);
+            eventPublisher.publishEvent(PropertyChangedEvent.deleted(id));
+            return null;
+        });
+    }
+
+    // Search properties by location, best matches first
+    @Transactional(readOnly = true)
+    public List<? extends PropertyListing> searchByLocation(String location, int size, PropertyView view) {
+        int limit = clampPageSize(size);
+        if (!propertyTextIndex.isReady()) {
+            return findList(shardsMatching(location), PropertySpecifications.locationContains(location),
+                    Sort.unsorted(), limit, view);
         }
-        propertyRepository.deleteById(id);
+        return findAllInOrder(propertyTextIndex.searchLocation(location, limit), view);
     }
 
-    // Search properties by location
-    public List<PropertyResponseDto> searchByLocation(String location) {
-        List<Property> properties = propertyRepository.findByLocationContainingIgnoreCase(location);
-        return propertyMapper.toResponseDtoList(properties);
+    // Search properties by price range, cheapest first
+    @Transactional(readOnly = true)
+    public List<? extends PropertyListing> searchByPriceRange(Double minPrice, Double maxPrice, int size, PropertyView view) {
+        int limit = clampPageSize(size);
+        if (propertyPriceIndex.isServing()) {
+            return findAllInOrder(propertyPriceIndex.range(minPrice, maxPrice, limit), view);
+        }
+        return findList(PropertySpecifications.priceBetween(minPrice, maxPrice), PropertySort.PRICE_ASC.toSort(), limit, view);
     }
 
-    // Search properties by price range
-    public List<PropertyResponseDto> searchByPriceRange(Double minPrice, Double maxPrice) {
-        List<Property> properties = propertyRepository.findByPriceBetween(minPrice, maxPrice);
-        return propertyMapper.toResponseDtoList(properties);
+    // Search properties by title, best matches first
+    @Transactional(readOnly = true)
+    public List<? extends PropertyListing> searchByTitle(String title, int size, PropertyView view) {
+        int limit = clampPageSize(size);
+        if (!propertyTextIndex.isReady()) {
+            return findList(PropertySpecifications.titleContains(title), Sort.unsorted(), limit, view);
+        }
+        return findAllInOrder(propertyTextIndex.searchTitle(title, limit), view);
     }
 
-    // Search properties by title
-    public List<PropertyResponseDto> searchByTitle(String title) {
-        List<Property> properties = propertyRepository.findByTitleContainingIgnoreCase(title);
-        return propertyMapper.toResponseDtoList(properties);
+    // Search properties by any combination of title, location and price range, as one query
+    @Transactional(readOnly = true)
+    public CursorPage<? extends PropertyListing> searchProperties(PropertySearchRequest request) {
+        if (request.getMinPrice() != null && request.getMaxPrice() != null
+                && request.getMinPrice() > request.getMaxPrice()) {
+            throw new BadRequestException("minPrice cannot be greater than maxPrice");
+        }
+        PropertySort sort = PropertySort.fromParam(request.getSort());
+        PropertyView view = PropertyView.fromParam(request.getView());
+        return findPage(shardsMatching(request.getLocation()), PropertySpecifications.matching(request), sort,
+                request.getCursor(), request.getSize(), view);
     }
 
-    // Get properties sorted by price (ascending)
-    public List<PropertyResponseDto> getPropertiesByPriceAsc() {
-        List<Property> properties = propertyRepository.findAllByOrderByPriceAsc();
-        return propertyMapper.toResponseDtoList(properties);
+    // Listing counts by city, locality and price bucket over the properties matching the search filters;
+    // priceBuckets are ascending bucket edges, defaulting to rapidfacto.facets.price-buckets
+    @Transactional(readOnly = true)
+    public PropertyFacets getFacets(PropertySearchRequest request, String priceBuckets, int limit) {
+        if (request.getMinPrice() != null && request.getMaxPrice() != null
+                && request.getMinPrice() > request.getMaxPrice()) {
+            throw new BadRequestException("minPrice cannot be greater than maxPrice");
+        }
+        if (limit < 1 || limit > MAX_FACET_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_FACET_LIMIT);
+        }
+        double[] edges;
+        try {
+            edges = priceBuckets == null || priceBuckets.isBlank()
+                    ? propertyFacetIndex.defaultBucketEdges()
+                    : FacetCounts.parseBucketEdges(priceBuckets);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage());
+        }
+        String title = request.getTitle() == null || request.getTitle().isBlank() ? null : request.getTitle();
+        String location = request.getLocation() == null || request.getLocation().isBlank() ? null : request.getLocation();
+        double minPrice = request.getMinPrice() == null ? Double.NEGATIVE_INFINITY : request.getMinPrice();
+        double maxPrice = request.getMaxPrice() == null ? Double.POSITIVE_INFINITY : request.getMaxPrice();
+
+        if (propertyFacetIndex.isServing() && title == null) {
+            return propertyFacetIndex.count(location, minPrice, maxPrice, edges, limit);
+        }
+        if (propertyFacetIndex.isServing() && propertyTextIndex.isReady()) {
+            return propertyFacetIndex.count(propertyTextIndex.searchTitle(title, Integer.MAX_VALUE),
+                    location, minPrice, maxPrice, edges, limit);
+        }
+        // Filters already applied in the query, so count everything loaded
+        FacetCounts counts = new FacetCounts(edges);
+        for (PropertyFacetRow row : propertyRepository.findFacetRows(shardsMatching(location),
+                PropertySpecifications.matching(request))) {
+            counts.put(row.id(), row.location(), row.price());
+        }
+        return counts.count(null, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, edges, limit);
+    }
+
+    // Properties within radiusKm of a point, nearest first, optionally within a price range
+    @Transactional(readOnly = true)
+    public CursorPage<? extends PropertyListing> searchNearby(double latitude, double longitude, double radiusKm,
+                                                             Double minPrice, Double maxPrice,
+                                                             String cursor, int size, PropertyView view) {
+        checkPosition(latitude, longitude);
+        if (!(radiusKm > 0) || radiusKm > MAX_RADIUS_KM) {
+            throw new BadRequestException("radiusKm must be greater than 0 and at most " + (int) MAX_RADIUS_KM);
+        }
+        return findNearest(GeoQuery.radius(latitude, longitude, radiusKm), minPrice, maxPrice, cursor, size, view);
+    }
+
+    // Properties inside a bounding box, nearest its centre first; minLng > maxLng crosses the antimeridian
+    @Transactional(readOnly = true)
+    public CursorPage<? extends PropertyListing> searchWithin(double minLatitude, double maxLatitude,
+                                                             double minLongitude, double maxLongitude,
+                                                             Double minPrice, Double maxPrice,
+                                                             String cursor, int size, PropertyView view) {
+        checkPosition(minLatitude, minLongitude);
+        checkPosition(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude) {
+            throw new BadRequestException("minLat cannot be greater than maxLat");
+        }
+        return findNearest(GeoQuery.box(minLatitude, maxLatitude, minLongitude, maxLongitude),
+                minPrice, maxPrice, cursor, size, view);
+    }
+
+    // Get a page of properties sorted by price (ascending)
+    @Transactional(readOnly = true)
+    public CursorPage<? extends PropertyListing> getPropertiesByPriceAsc(String cursor, int size, PropertyView view) {
+        if (!propertyPriceIndex.isServing()) {
+            return findPage(PropertySpecifications.unfiltered(), PropertySort.PRICE_ASC, cursor, size, view);
+        }
+        int limit = clampPageSize(size);
+        PageCursor after = decodeCursor(cursor, PropertySort.PRICE_ASC);
+        long[] ids = after == null
+                ? propertyPriceIndex.ascendingAfter(null, null, limit + 1)
+                : propertyPriceIndex.ascendingAfter(after.getKeyAsDouble(), after.getId(), limit + 1);
+        return toCursorPage(findAllInOrder(ids, view), limit, PropertySort.PRICE_ASC);
+    }
+
+    // Get a page of properties sorted by price (descending)
+    @Transactional(readOnly = true)
+    public CursorPage<? extends PropertyListing> getPropertiesByPriceDesc(String cursor, int size, PropertyView view) {
+        if (!propertyPriceIndex.isServing()) {
+            return findPage(PropertySpecifications.unfiltered(), PropertySort.PRICE_DESC, cursor, size, view);
+        }
+        int limit = clampPageSize(size);
+        PageCursor after = decodeCursor(cursor, PropertySort.PRICE_DESC);
+        long[] ids = after == null
+                ? propertyPriceIndex.descendingAfter(null, null, limit + 1)
+                : propertyPriceIndex.descendingAfter(after.getKeyAsDouble(), after.getId(), limit + 1);
+        return toCursorPage(findAllInOrder(ids, view), limit, PropertySort.PRICE_DESC);
+    }
+
+    // One keyset page of the rows matching the filter, in the given sort order
+    private CursorPage<? extends PropertyListing> findPage(Specification<Property> filter, PropertySort sort,
+                                                           String cursor, int size, PropertyView view) {
+        return findPage(shardsMatching(null), filter, sort, cursor, size, view);
+    }
+
+    private CursorPage<? extends PropertyListing> findPage(List<Integer> shards, Specification<Property> filter,
+                                                           PropertySort sort, String cursor, int size, PropertyView view) {
+        int limit = clampPageSize(size);
+        PageCursor after = decodeCursor(cursor, sort);
+        Specification<Property> specification = after == null ? filter : filter.and(PropertySpecifications.after(sort, after));
+        return toCursorPage(findList(shards, specification, sort.toSort(), limit + 1, view), limit, sort);
+    }
+
+    private List<? extends PropertyListing> findList(Specification<Property> specification, Sort sort, int limit, PropertyView view) {
+        return findList(shardsMatching(null), specification, sort, limit, view);
     }
 
-    // Get properties sorted by price (descending)
-    public List<PropertyResponseDto> getPropertiesByPriceDesc() {
-        List<Property> properties = propertyRepository.findAllByOrderByPriceDesc();
+    // Summaries select only the card columns; the full view loads entities and maps them
+    private List<? extends PropertyListing> findList(List<Integer> shards, Specification<Property> specification,
+                                                     Sort sort, int limit, PropertyView view) {
+        if (view == PropertyView.SUMMARY) {
+            return propertyRepository.findSummaries(shards, specification, sort, limit);
+        }
+        List<Property> properties = propertyRepository.findAll(shards, specification, sort, limit);
         return propertyMapper.toResponseDtoList(properties);
     }
+
+    // Every shard when there is no location filter
+    private List<Integer> shardsMatching(String location) {
+        return propertyRepository.getShardMap().shardsMatching(location == null || location.isBlank() ? null : location);
+    }
+
+    // One (distance, id) keyset page of a geo query: the index, or a database scan of the covering rectangles,
+    // offers every match to a bounded selector that keeps the nearest ones after the cursor
+    private CursorPage<? extends PropertyListing> findNearest(GeoQuery query, Double minPrice, Double maxPrice,
+                                                              String cursor, int size, PropertyView view) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new BadRequestException("minPrice cannot be greater than maxPrice");
+        }
+        int limit = clampPageSize(size);
+        PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor, DISTANCE_SORT);
+        NearestSelector selector = after == null
+                ? new NearestSelector(limit + 1)
+                : new NearestSelector(limit + 1, after.getKeyAsDouble(), after.getId());
+        if (propertyGeoIndex.isServing()) {
+            propertyGeoIndex.collect(query,
+                    minPrice == null ? Double.NEGATIVE_INFINITY : minPrice,
+                    maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice,
+                    selector);
+        } else {
+            Specification<Property> filter = PropertySpecifications.withinBoxes(query)
+                    .and(PropertySpecifications.priceBetween(minPrice, maxPrice));
+            for (PropertyGeoPoint point : propertyRepository.findGeoPoints(filter)) {
+                double squaredChord = query.match(point.latitude(), point.longitude());
+                if (squaredChord >= 0) {
+                    selector.offer(point.id(), squaredChord);
+                }
+            }
+        }
+
+        List<GeoMatch> matches = selector.drain();
+        long[] ids = new long[matches.size()];
+        Map<Long, Double> squaredChordById = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = matches.get(i).id();
+            squaredChordById.put(ids[i], matches.get(i).squaredChord());
+        }
+        List<? extends PropertyListing> items = findAllInOrder(ids, view);
+        if (items.size() <= limit) {
+            return CursorPage.of(items, null);
+        }
+        List<PropertyListing> page = new ArrayList<>(items.subList(0, limit));
+        PropertyListing last = page.get(limit - 1);
+        return CursorPage.of(page, PageCursor.encode(DISTANCE_SORT, squaredChordById.get(last.getId()), last.getId()));
+    }
+
+    private static void checkPosition(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new BadRequestException("Latitude must be between -90 and 90 and longitude between -180 and 180");
+        }
+    }
+
+    private PageCursor decodeCursor(String cursor, PropertySort sort) {
+        return cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor, sort.getParam());
+    }
+
+    // Load the given ids with one IN query and return them in the order given
+    private List<? extends PropertyListing> findAllInOrder(long[] ids, PropertyView view) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            idList.add(id);
+        }
+        Map<Long, PropertyListing> byId = new HashMap<>();
+        if (view == PropertyView.SUMMARY) {
+            for (PropertySummaryDto summary : propertyRepository.findSummariesByIdIn(idList)) {
+                byId.put(summary.getId(), summary);
+            }
+        } else {
+            for (Property property : propertyRepository.findAllById(idList)) {
+                byId.put(property.getId(), propertyMapper.toResponseDto(property));
+            }
+        }
+        List<PropertyListing> result = new ArrayList<>(ids.length);
+        for (Long id : idList) {
+            PropertyListing listing = byId.get(id);
+            if (listing != null) {
+                result.add(listing);
+            }
+        }
+        return result;
+    }
+
+    private int clampPageSize(int size) {
+        if (size < 1) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    // One extra row is fetched to know whether another page exists; the cursor points at the last row returned
+    private <T extends PropertyListing> CursorPage<T> toCursorPage(List<T> items, int limit, PropertySort sort) {
+        if (items.size() <= limit) {
+            return CursorPage.of(items, null);
+        }
+        List<T> page = new ArrayList<>(items.subList(0, limit));
+        T last = page.get(limit - 1);
+        String nextCursor = PageCursor.encode(sort.getParam(), sort.keyOf(last), last.getId());
+        return CursorPage.of(page, nextCursor);
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.dto.PropertyListing;
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.util.function.Function;
+
+// Orderings supported by the paged endpoints; each one is a keyset of (sort key, id)
+public enum PropertySort {
+
+    NEWEST("newest", "createdAt", Sort.Direction.DESC, PropertyListing::getCreatedAt),
+    PRICE_ASC("price-asc", "price", Sort.Direction.ASC, PropertyListing::getPrice),
+    PRICE_DESC("price-desc", "price", Sort.Direction.DESC, PropertyListing::getPrice);
+
+    private final String param;
+    private final String attribute;
+    private final Sort.Direction direction;
+    private final Function<PropertyListing, Object> key;
+
+    PropertySort(String param, String attribute, Sort.Direction direction, Function<PropertyListing, Object> key) {
+        this.param = param;
+        this.attribute = attribute;
+        this.direction = direction;
+        this.key = key;
+    }
+
+    public static PropertySort fromParam(String param) {
+        if (param == null || param.isBlank()) {
+            return NEWEST;
+        }
+        for (PropertySort sort : values()) {
+            if (sort.param.equalsIgnoreCase(param)) {
+                return sort;
+            }
+        }
+        throw new BadRequestException("Unsupported sort: " + param);
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Object keyOf(PropertyListing property) {
+        return key.apply(property);
+    }
+
+    public Sort toSort() {
+        return Sort.by(direction, attribute).and(Sort.by(direction, "id"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.dto.PageCursor;
+import com.rapidfacto.rapidfacto.dto.PropertySearchRequest;
+import com.rapidfacto.rapidfacto.search.GeoQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class PropertySpecifications {
+
+    private PropertySpecifications() {
+    }
+
+    // No filter at all
+    public static Specification<Property> unfiltered() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    // All supplied filters combined with AND; absent filters are skipped
+    public static Specification<Property> matching(PropertySearchRequest request) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (hasText(request.getTitle())) {
+                predicates.add(titleContains(request.getTitle()).toPredicate(root, query, cb));
+            }
+            if (hasText(request.getLocation())) {
+                predicates.add(locationContains(request.getLocation()).toPredicate(root, query, cb));
+            }
+            if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+                predicates.add(priceBetween(request.getMinPrice(), request.getMaxPrice()).toPredicate(root, query, cb));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    public static Specification<Property> titleContains(String keyword) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("title")), containsPattern(keyword), '\\');
+    }
+
+    public static Specification<Property> locationContains(String keyword) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("location")), containsPattern(keyword), '\\');
+    }
+
+    // Inclusive price range; either bound may be null
+    public static Specification<Property> priceBetween(Double minPrice, Double maxPrice) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(2);
+            if (minPrice != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), minPrice));
+            }
+            if (maxPrice != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), maxPrice));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // Positions inside any of the query's rectangles; the exact radius test is left to the caller
+    public static Specification<Property> withinBoxes(GeoQuery geoQuery) {
+        return (root, query, cb) -> {
+            Expression<Double> latitude = root.get("latitude");
+            Expression<Double> longitude = root.get("longitude");
+            Predicate[] boxes = new Predicate[geoQuery.boxCount()];
+            for (int i = 0; i < boxes.length; i++) {
+                boxes[i] = cb.and(
+                        cb.between(latitude, geoQuery.minLatitude(i), geoQuery.maxLatitude(i)),
+                        cb.between(longitude, geoQuery.minLongitude(i), geoQuery.maxLongitude(i)));
+            }
+            return cb.or(boxes);
+        };
+    }
+
+    // Keyset predicate: rows strictly after the cursor's (sort key, id) in the given ordering
+    public static Specification<Property> after(PropertySort sort, PageCursor cursor) {
+        return (root, query, cb) -> {
+            Expression<Long> id = root.get("id");
+            if (sort == PropertySort.NEWEST) {
+                Expression<LocalDateTime> createdAt = root.get("createdAt");
+                return cb.or(
+                        cb.lessThan(createdAt, cursor.getKeyAsDateTime()),
+                        cb.and(cb.equal(createdAt, cursor.getKeyAsDateTime()), cb.lessThan(id, cursor.getId())));
+            }
+            Expression<Double> price = root.get("price");
+            Double key = cursor.getKeyAsDouble();
+            if (sort == PropertySort.PRICE_ASC) {
+                return cb.or(
+                        cb.greaterThan(price, key),
+                        cb.and(cb.equal(price, key), cb.greaterThan(id, cursor.getId())));
+            }
+            return cb.or(
+                    cb.lessThan(price, key),
+                    cb.and(cb.equal(price, key), cb.lessThan(id, cursor.getId())));
+        };
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static String containsPattern(String value) {
+        String escaped = value.trim().toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,24 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.dto.PropertySummaryDto;
+import com.rapidfacto.rapidfacto.search.PropertyFacetRow;
+import com.rapidfacto.rapidfacto.search.PropertyGeoPoint;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+
+// Summary projections for PropertyRepository: SELECT only the card columns, never whole entities
+public interface PropertySummaryRepository {
+
+    List<PropertySummaryDto> findSummaries(Specification<Property> specification, Sort sort, int limit);
+
+    List<PropertySummaryDto> findSummariesByIdIn(Collection<Long> ids);
+
+    // Positions and prices only, for ranking geo searches when the geo index is not serving
+    List<PropertyGeoPoint> findGeoPoints(Specification<Property> specification);
+
+    // Locations and prices only, for counting facets when the facet index is not serving
+    List<PropertyFacetRow> findFacetRows(Specification<Property> specification);
+}
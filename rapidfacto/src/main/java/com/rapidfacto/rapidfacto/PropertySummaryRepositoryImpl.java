@@ -0,0 +1,73 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.dto.PropertySummaryDto;
+import com.rapidfacto.rapidfacto.search.PropertyFacetRow;
+import com.rapidfacto.rapidfacto.search.PropertyGeoPoint;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+public class PropertySummaryRepositoryImpl implements PropertySummaryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PropertySummaryDto> findSummaries(Specification<Property> specification, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PropertySummaryDto> query = cb.createQuery(PropertySummaryDto.class);
+        Root<Property> root = query.from(Property.class);
+        query.select(cb.construct(PropertySummaryDto.class,
+                root.get("id"), root.get("title"), root.get("location"),
+                root.get("price"), root.get("imageUrl"), root.get("createdAt")));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<PropertySummaryDto> findSummariesByIdIn(Collection<Long> ids) {
+        return findSummaries((root, query, cb) -> root.get("id").in(ids), Sort.unsorted(), ids.size());
+    }
+
+    @Override
+    public List<PropertyGeoPoint> findGeoPoints(Specification<Property> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PropertyGeoPoint> query = cb.createQuery(PropertyGeoPoint.class);
+        Root<Property> root = query.from(Property.class);
+        query.select(cb.construct(PropertyGeoPoint.class,
+                root.get("id"), root.get("latitude"), root.get("longitude"), root.get("price")));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<PropertyFacetRow> findFacetRows(Specification<Property> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PropertyFacetRow> query = cb.createQuery(PropertyFacetRow.class);
+        Root<Property> root = query.from(Property.class);
+        query.select(cb.construct(PropertyFacetRow.class, root.get("id"), root.get("location"), root.get("price")));
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getResultList();
+    }
+}
@@ -0,0 +1,13 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.dto.PropertyPatchDto;
+
+import java.time.LocalDateTime;
+
+// Targeted updates for PropertyRepository: one UPDATE of the given columns, without loading the entity first
+public interface PropertyUpdateRepository {
+
+    // Writes the patch's non-null fields and bumps the version; with expectedVersion, only if the row is still at
+    // it. Returns the number of rows updated: 0 when the id is unknown or the version has moved on.
+    int patch(long id, PropertyPatchDto patch, Long expectedVersion, long changeVersion, LocalDateTime now);
+}
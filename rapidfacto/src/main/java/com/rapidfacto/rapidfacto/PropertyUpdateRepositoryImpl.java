@@ -0,0 +1,48 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.dto.PropertyPatchDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+
+public class PropertyUpdateRepositoryImpl implements PropertyUpdateRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int patch(long id, PropertyPatchDto patch, Long expectedVersion, long changeVersion, LocalDateTime now) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Property> update = cb.createCriteriaUpdate(Property.class);
+        Root<Property> root = update.from(Property.class);
+        setIfPresent(update, "title", patch.getTitle());
+        setIfPresent(update, "location", patch.getLocation());
+        setIfPresent(update, "price", patch.getPrice());
+        setIfPresent(update, "imageUrl", patch.getImageUrl());
+        setIfPresent(update, "description", patch.getDescription());
+        setIfPresent(update, "latitude", patch.getLatitude());
+        setIfPresent(update, "longitude", patch.getLongitude());
+        // Bulk updates bypass @Version and the entity callbacks, so both are maintained here
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), cb.literal(1L)));
+        update.set(root.<Long>get("changeVersion"), changeVersion);
+        update.set(root.<LocalDateTime>get("updatedAt"), now);
+
+        Predicate predicate = cb.equal(root.get("id"), id);
+        if (expectedVersion != null) {
+            predicate = cb.and(predicate, cb.equal(root.get("version"), expectedVersion));
+        }
+        update.where(predicate);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private static void setIfPresent(CriteriaUpdate<Property> update, String attribute, Object value) {
+        if (value != null) {
+            update.set(attribute, value);
+        }
+    }
+}
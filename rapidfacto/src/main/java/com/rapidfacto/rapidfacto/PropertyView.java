@@ -0,0 +1,23 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+
+import java.util.Locale;
+
+// Representation returned by list endpoints: full DTOs, or summaries loaded with a column-restricted query
+public enum PropertyView {
+
+    FULL,
+    SUMMARY;
+
+    public static PropertyView fromParam(String param) {
+        if (param == null || param.isBlank()) {
+            return FULL;
+        }
+        try {
+            return valueOf(param.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Unsupported view: " + param);
+        }
+    }
+}
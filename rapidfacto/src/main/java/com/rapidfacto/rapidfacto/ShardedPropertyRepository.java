@@ -0,0 +1,204 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.dto.PropertyListing;
+import com.rapidfacto.rapidfacto.dto.PropertyPatchDto;
+import com.rapidfacto.rapidfacto.dto.PropertySummaryDto;
+import com.rapidfacto.rapidfacto.search.PropertyFacetRow;
+import com.rapidfacto.rapidfacto.search.PropertyGeoPoint;
+import com.rapidfacto.rapidfacto.shard.ShardMap;
+import com.rapidfacto.rapidfacto.shard.ShardTemplate;
+import com.rapidfacto.rapidfacto.shard.SortedMerge;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// PropertyRepository over every shard. Ids and new locations go to the one shard that holds them; searches run
+// on every shard in parallel, each returning its own first rows in the requested order, and are k-way merged.
+// Unsharded, every call goes straight to the repository in the caller's transaction.
+@Component
+public class ShardedPropertyRepository {
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    public ShardMap getShardMap() {
+        return shardTemplate.getShardMap();
+    }
+
+    public Optional<Property> findById(Long id) {
+        int shard = shardOf(id);
+        return shard < 0 ? Optional.empty() : shardTemplate.execute(shard, () -> propertyRepository.findById(id));
+    }
+
+    public boolean existsById(Long id) {
+        int shard = shardOf(id);
+        return shard >= 0 && shardTemplate.execute(shard, () -> propertyRepository.existsById(id));
+    }
+
+    public Optional<Long> findVersionById(long id) {
+        int shard = shardOf(id);
+        return shard < 0 ? Optional.empty() : shardTemplate.execute(shard, () -> propertyRepository.findVersionById(id));
+    }
+
+    // New properties go to their city's shard, existing ones back to the shard they were read from
+    public Property save(Property property) {
+        return shardTemplate.execute(shardFor(property), () -> propertyRepository.save(property));
+    }
+
+    public Property saveAndFlush(Property property) {
+        return shardTemplate.execute(shardFor(property), () -> propertyRepository.saveAndFlush(property));
+    }
+
+    public int patch(long id, PropertyPatchDto patch, Long expectedVersion, long changeVersion, LocalDateTime now) {
+        int shard = shardOf(id);
+        return shard < 0 ? 0 : shardTemplate.execute(shard,
+                () -> propertyRepository.patch(id, patch, expectedVersion, changeVersion, now));
+    }
+
+    public int restoreCreatedAt(long id, LocalDateTime createdAt) {
+        int shard = shardOf(id);
+        return shard < 0 ? 0 : shardTemplate.execute(shard, () -> propertyRepository.restoreCreatedAt(id, createdAt));
+    }
+
+    public void deleteById(Long id) {
+        int shard = shardOf(id);
+        if (shard >= 0) {
+            shardTemplate.execute(shard, () -> {
+                propertyRepository.deleteById(id);
+                return null;
+            });
+        }
+    }
+
+    public long count() {
+        long count = 0;
+        for (long shardCount : shardTemplate.executeOnEveryShard(shard -> propertyRepository.count())) {
+            count += shardCount;
+        }
+        return count;
+    }
+
+    // One IN query per shard that holds any of the ids; in no particular order
+    public List<Property> findAllById(Collection<Long> ids) {
+        Map<Integer, List<Long>> byShard = groupByShard(ids);
+        return concat(shardTemplate.executeOnShards(byShard.keySet(),
+                shard -> propertyRepository.findAllById(byShard.get(shard))));
+    }
+
+    public List<PropertySummaryDto> findSummariesByIdIn(Collection<Long> ids) {
+        Map<Integer, List<Long>> byShard = groupByShard(ids);
+        return concat(shardTemplate.executeOnShards(byShard.keySet(),
+                shard -> propertyRepository.findSummariesByIdIn(byShard.get(shard))));
+    }
+
+    // The first limit matches in sort order: no shard can contribute more than its own first limit
+    public List<Property> findAll(Specification<Property> specification, Sort sort, int limit) {
+        return findAll(everyShard(), specification, sort, limit);
+    }
+
+    // The same, on the given shards only (those a location filter can match, see ShardMap.shardsMatching)
+    public List<Property> findAll(List<Integer> shards, Specification<Property> specification, Sort sort, int limit) {
+        return merge(shardTemplate.executeOnShards(shards, shard -> propertyRepository.findBy(specification,
+                query -> query.sortBy(sort).limit(limit).all())), sort, limit);
+    }
+
+    public List<PropertySummaryDto> findSummaries(Specification<Property> specification, Sort sort, int limit) {
+        return findSummaries(everyShard(), specification, sort, limit);
+    }
+
+    public List<PropertySummaryDto> findSummaries(List<Integer> shards, Specification<Property> specification,
+                                                  Sort sort, int limit) {
+        return merge(shardTemplate.executeOnShards(shards,
+                shard -> propertyRepository.findSummaries(specification, sort, limit)), sort, limit);
+    }
+
+    public List<PropertyGeoPoint> findGeoPoints(Specification<Property> specification) {
+        return concat(shardTemplate.executeOnEveryShard(shard -> propertyRepository.findGeoPoints(specification)));
+    }
+
+    public List<PropertyFacetRow> findFacetRows(List<Integer> shards, Specification<Property> specification) {
+        return concat(shardTemplate.executeOnShards(shards, shard -> propertyRepository.findFacetRows(specification)));
+    }
+
+    // Id order is shard order, so the shards are walked one after another, starting from the one the id is on
+    public <T> List<T> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable, Class<T> type) {
+        List<T> batch = new ArrayList<>(pageable.getPageSize());
+        int shard = (int) Math.min(Math.max(0, id) >>> ShardMap.ID_BITS, shardTemplate.getShardCount());
+        while (shard < shardTemplate.getShardCount() && batch.size() < pageable.getPageSize()) {
+            Pageable rest = PageRequest.of(0, pageable.getPageSize() - batch.size());
+            batch.addAll(shardTemplate.execute(shard, () -> propertyRepository.findByIdGreaterThanOrderByIdAsc(id, rest, type)));
+            shard++;
+        }
+        return batch;
+    }
+
+    private List<Integer> everyShard() {
+        return shardTemplate.getShardMap().shardsMatching(null);
+    }
+
+    private int shardOf(Long id) {
+        return id == null ? -1 : shardTemplate.getShardMap().shardOf(id);
+    }
+
+    private int shardFor(Property property) {
+        return property.getId() == null
+                ? shardTemplate.getShardMap().shardFor(property.getLocation())
+                : shardOf(property.getId());
+    }
+
+    // Ids no shard can hold are dropped: they are simply not found
+    private Map<Integer, List<Long>> groupByShard(Collection<Long> ids) {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Long id : ids) {
+            int shard = shardOf(id);
+            if (shard >= 0) {
+                byShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(id);
+            }
+        }
+        return byShard;
+    }
+
+    private static <T> List<T> concat(List<List<T>> perShard) {
+        return perShard.size() == 1 ? perShard.get(0) : SortedMerge.concat(perShard, Integer.MAX_VALUE);
+    }
+
+    private static <T extends PropertyListing> List<T> merge(List<List<T>> perShard, Sort sort, int limit) {
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+        return sort.isUnsorted() ? SortedMerge.concat(perShard, limit) : SortedMerge.merge(perShard, order(sort), limit);
+    }
+
+    // The attributes PropertySort orders by, all of which every listing representation has
+    private static Comparator<PropertyListing> order(Sort sort) {
+        Comparator<PropertyListing> order = null;
+        for (Sort.Order attribute : sort) {
+            Comparator<PropertyListing> next = switch (attribute.getProperty()) {
+                case "id" -> Comparator.comparing(PropertyListing::getId);
+                case "price" -> Comparator.comparing(PropertyListing::getPrice);
+                case "createdAt" -> Comparator.comparing(PropertyListing::getCreatedAt);
+                default -> throw new IllegalArgumentException("Cannot merge shard results sorted by " + attribute.getProperty());
+            };
+            if (attribute.isDescending()) {
+                next = next.reversed();
+            }
+            order = order == null ? next : order.thenComparing(next);
+        }
+        return order;
+    }
+}
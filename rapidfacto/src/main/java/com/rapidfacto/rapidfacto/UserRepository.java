@@ -1 +1,9 @@
- 
\ No newline at end of file
+package com.rapidfacto.rapidfacto;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+// Email uniqueness is enforced by the unique constraint on users.email, not by a lookup before insert
+@Repository
+public interface UserRepository extends JpaRepository<User, Long> {
+}
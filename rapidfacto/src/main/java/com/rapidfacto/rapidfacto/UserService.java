@@ -3,29 +3,67 @@ package com.rapidfacto.rapidfacto;
 import com.rapidfacto.rapidfacto.dto.UserRequestDto;
 import com.rapidfacto.rapidfacto.dto.UserResponseDto;
 import com.rapidfacto.rapidfacto.dto.UserMapper;
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+import com.rapidfacto.rapidfacto.security.PasswordHasher;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
-public class UserService {
+public class UserService implements DisposableBean {
+
+    // Named in V1__baseline.sql and on User; databases report it with a schema or table prefix
+    private static final String EMAIL_CONSTRAINT = "uk_users_email";
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private UserMapper userMapper;
 
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordHasher passwordHasher;
 
-    @Transactional
-    public UserResponseDto signup(UserRequestDto userRequestDto) {
-        if (userRepository.existsByEmail(userRequestDto.getEmail())) {
-            throw new IllegalArgumentException("Email already exists");
-        }
+    // The insert waits on the connection pool, which would hold one of the few hashing threads
+    private final ExecutorService insertExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("signup-insert-", 0).factory());
+
+    // Hashes on the PasswordHasher pool, then inserts on a virtual thread; a duplicate email is caught by the unique
+    // constraint
+    public CompletableFuture<UserResponseDto> signup(UserRequestDto userRequestDto) {
         User user = userMapper.toEntity(userRequestDto);
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        User savedUser = userRepository.save(user);
-        return userMapper.toResponseDto(savedUser);
+        return passwordHasher.hash(userRequestDto.getPassword()).thenApplyAsync(hash -> {
+            user.setPassword(hash);
+            try {
+                return userMapper.toResponseDto(userRepository.save(user));
+            } catch (DataIntegrityViolationException ex) {
+                if (violates(ex, EMAIL_CONSTRAINT)) {
+                    throw new BadRequestException("Email already exists");
+                }
+                throw ex;
+            }
+        }, insertExecutor);
+    }
+
+    @Override
+    public void destroy() {
+        insertExecutor.shutdown();
+    }
+
+    private static boolean violates(DataIntegrityViolationException ex, String constraint) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String name = violation.getConstraintName();
+                return name != null && name.toLowerCase(Locale.ROOT).contains(constraint);
+            }
+        }
+        return false;
     }
-} 
\ No newline at end of file
+}
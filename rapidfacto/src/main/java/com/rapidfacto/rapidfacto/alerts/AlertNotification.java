@@ -0,0 +1,11 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
+
+import java.time.LocalDateTime;
+
+// One saved search matched by one new (CREATED) or changed (UPDATED) listing, as handed to the sinks
+public record AlertNotification(long savedSearchId, String email, PropertyChangedEvent.Type change,
+                                PropertyResponseDto property, LocalDateTime matchedAt) {
+}
@@ -0,0 +1,166 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
+import com.rapidfacto.rapidfacto.replica.ReadRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Bounded hand-off between writes and alert delivery. Writers only offer to the queue, so a slow sink never holds
+// up a save; when the queue is full the match is dropped and counted. One thread takes matches in batches (up to
+// batch-size, or whatever arrives within flush-interval of the first), skips those whose saved search has been
+// deleted since, with one IN query per batch, and hands the rest to every AlertSink
+@Component
+public class AlertQueue implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertQueue.class);
+
+    @Autowired
+    private SavedSearchRepository savedSearchRepository;
+
+    @Autowired(required = false)
+    private List<AlertSink> sinks = List.of();
+
+    private final BlockingQueue<PendingAlert> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Thread worker;
+    private final Counter queued;
+    private final Counter dropped;
+    private final Counter stale;
+    private final Counter delivered;
+    private final Counter failed;
+
+    private volatile boolean running = true;
+
+    public AlertQueue(MeterRegistry registry,
+                      @Value("${rapidfacto.alerts.queue-capacity:10000}") int capacity,
+                      @Value("${rapidfacto.alerts.batch-size:100}") int batchSize,
+                      @Value("${rapidfacto.alerts.flush-interval:200ms}") Duration flushInterval) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.worker = new Thread(this::deliverBatches, "alert-delivery");
+        this.worker.setDaemon(true);
+        this.queued = outcomeCounter(registry, "queued");
+        this.dropped = outcomeCounter(registry, "dropped");
+        this.stale = outcomeCounter(registry, "stale");
+        this.delivered = outcomeCounter(registry, "delivered");
+        this.failed = outcomeCounter(registry, "failed");
+        Gauge.builder("alerts.queue.size", queue, BlockingQueue::size)
+                .description("Matches waiting for delivery")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        worker.start();
+    }
+
+    // Never blocks; false (and counted as dropped) when the queue is full
+    public boolean offer(long savedSearchId, PropertyChangedEvent.Type change, PropertyResponseDto property) {
+        if (queue.offer(new PendingAlert(savedSearchId, change, property, LocalDateTime.now()))) {
+            queued.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void deliverBatches() {
+        List<PendingAlert> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    PendingAlert next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                deliver(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                failed.increment(batch.size());
+                log.warn("Could not deliver {} alert notifications", batch.size(), ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<PendingAlert> batch) {
+        Set<Long> savedSearchIds = new HashSet<>();
+        for (PendingAlert pending : batch) {
+            savedSearchIds.add(pending.savedSearchId());
+        }
+        // From the primary: a search saved a moment ago may not have reached a replica yet
+        Map<Long, SavedSearch> live = new HashMap<>();
+        for (SavedSearch search : ReadRouting.onPrimary(() -> savedSearchRepository.findAllById(savedSearchIds))) {
+            live.put(search.getId(), search);
+        }
+
+        List<AlertNotification> notifications = new ArrayList<>(batch.size());
+        for (PendingAlert pending : batch) {
+            SavedSearch search = live.get(pending.savedSearchId());
+            if (search != null) {
+                notifications.add(new AlertNotification(search.getId(), search.getEmail(), pending.change(),
+                        pending.property(), pending.matchedAt()));
+            }
+        }
+        stale.increment(batch.size() - notifications.size());
+        if (notifications.isEmpty()) {
+            return;
+        }
+        for (AlertSink sink : sinks) {
+            try {
+                sink.deliver(notifications);
+                delivered.increment(notifications.size());
+            } catch (RuntimeException ex) {
+                failed.increment(notifications.size());
+                log.warn("{} could not deliver {} alert notifications", sink.getClass().getSimpleName(), notifications.size(), ex);
+            }
+        }
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("alerts.notifications")
+                .description("Saved-search matches, by what became of them")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private record PendingAlert(long savedSearchId, PropertyChangedEvent.Type change, PropertyResponseDto property,
+                                LocalDateTime matchedAt) {
+    }
+}
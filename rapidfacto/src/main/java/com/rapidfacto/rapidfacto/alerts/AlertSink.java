@@ -0,0 +1,10 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import java.util.List;
+
+// Where alert notifications end up (email, push, a message broker). Every AlertSink bean receives every batch on
+// the alert delivery thread; a sink that throws loses that batch for itself only
+public interface AlertSink {
+
+    void deliver(List<AlertNotification> notifications);
+}
@@ -0,0 +1,28 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+// Writes each notification to the com.rapidfacto.rapidfacto.alerts log, for development and as a record next to
+// real sinks
+@Component
+@ConditionalOnProperty(name = "rapidfacto.alerts.log-sink.enabled", havingValue = "true", matchIfMissing = true)
+public class LoggingAlertSink implements AlertSink {
+
+    private static final Logger log = LoggerFactory.getLogger("com.rapidfacto.rapidfacto.alerts");
+
+    @Override
+    public void deliver(List<AlertNotification> notifications) {
+        for (AlertNotification notification : notifications) {
+            log.info("Saved search {} for {}: property {} {} ({}, {}, {})", notification.savedSearchId(),
+                    notification.email(), notification.property().getId(),
+                    notification.change().name().toLowerCase(Locale.ROOT), notification.property().getTitle(),
+                    notification.property().getLocation(), notification.property().getPrice());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Values with a price range [min, max], answering "which ranges contain this price". Parallel arrays sorted by
+// (min, id), with an interval tree over them: a max tree laid out in an array (node i has children 2i and 2i+1,
+// leaf j is range j) holding the highest max under each node. A lookup binary-searches the ranges starting at or
+// below the price and descends only into subtrees whose highest max reaches it, so it costs O(log n) per match
+// rather than a pass over every range that starts lower. Short prefixes are scanned outright. Not thread-safe;
+// SearchPercolator locks around it
+final class PriceRanges<T> {
+
+    private static final int INITIAL_CAPACITY = 4;
+    // Up to this many candidate ranges, a scan of contiguous maxes beats descending the tree
+    private static final int SCAN_LIMIT = 32;
+
+    private double[] mins = new double[INITIAL_CAPACITY];
+    private double[] maxes = new double[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int size;
+    // Leaf count, a power of two; leaves past size hold -infinity
+    private int leaves = INITIAL_CAPACITY;
+    private double[] highestMax = emptyTree(INITIAL_CAPACITY);
+
+    void add(long id, double min, double max, T value) {
+        int pos = position(min, id);
+        if (size == mins.length) {
+            int capacity = size + (size >> 1);
+            mins = Arrays.copyOf(mins, capacity);
+            maxes = Arrays.copyOf(maxes, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        System.arraycopy(mins, pos, mins, pos + 1, size - pos);
+        System.arraycopy(maxes, pos, maxes, pos + 1, size - pos);
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        mins[pos] = min;
+        maxes[pos] = max;
+        ids[pos] = id;
+        values[pos] = value;
+        size++;
+        refresh(pos, size);
+    }
+
+    // min must be the one the id was added with
+    void remove(long id, double min) {
+        int pos = position(min, id);
+        if (pos == size || ids[pos] != id || mins[pos] != min) {
+            return;
+        }
+        System.arraycopy(mins, pos + 1, mins, pos, size - pos - 1);
+        System.arraycopy(maxes, pos + 1, maxes, pos, size - pos - 1);
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+        values[size] = null;
+        refresh(pos, size + 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    void containing(double price, Consumer<T> matches) {
+        int end = startingAtOrBelow(price);
+        if (end <= SCAN_LIMIT) {
+            for (int i = 0; i < end; i++) {
+                if (maxes[i] >= price) {
+                    matches.accept((T) values[i]);
+                }
+            }
+        } else {
+            collect(1, 0, leaves, end, price, matches);
+        }
+    }
+
+    // Ranges below end under the node, which covers leaves [from, to)
+    @SuppressWarnings("unchecked")
+    private void collect(int node, int from, int to, int end, double price, Consumer<T> matches) {
+        if (from >= end || highestMax[node] < price) {
+            return;
+        }
+        if (node >= leaves) {
+            matches.accept((T) values[from]);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        collect(2 * node, from, mid, end, price, matches);
+        collect(2 * node + 1, mid, to, end, price, matches);
+    }
+
+    // Recompute leaves [from, to) and the nodes above them, after the ranges from `from` on have moved
+    private void refresh(int from, int to) {
+        if (size > leaves) {
+            leaves = Integer.highestOneBit(size - 1) << 1;
+            highestMax = emptyTree(leaves);
+            from = 0;
+            to = size;
+        }
+        for (int i = from; i < to; i++) {
+            highestMax[leaves + i] = i < size ? maxes[i] : Double.NEGATIVE_INFINITY;
+        }
+        for (int low = (leaves + from) >>> 1, high = (leaves + to - 1) >>> 1; low >= 1; low >>>= 1, high >>>= 1) {
+            for (int node = low; node <= high; node++) {
+                highestMax[node] = Math.max(highestMax[2 * node], highestMax[2 * node + 1]);
+            }
+        }
+    }
+
+    private static double[] emptyTree(int leaves) {
+        double[] tree = new double[2 * leaves];
+        Arrays.fill(tree, Double.NEGATIVE_INFINITY);
+        return tree;
+    }
+
+    // Number of ranges with min <= price
+    private int startingAtOrBelow(double price) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mins[mid] <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Index of (min, id), or where it would be inserted
+    private int position(double min, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int order = Double.compare(mins[mid], min);
+            if (order == 0) {
+                order = Long.compare(ids[mid], id);
+            }
+            if (order < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,54 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A buyer's criteria for new-listing alerts; every criterion left null matches anything
+@Entity
+@Table(name = "saved_searches", indexes = {
+    @Index(name = "idx_saved_searches_email", columnList = "email")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SavedSearch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Where alerts for this search are sent
+    @Column(nullable = false, length = 100)
+    private String email;
+
+    @Column(name = "title_keywords", length = 100)
+    private String titleKeywords;
+
+    @Column(length = 100)
+    private String location;
+
+    @Column(name = "min_price")
+    private Double minPrice;
+
+    @Column(name = "max_price")
+    private Double maxPrice;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,194 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.event.PropertiesImportedEvent;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Every saved search, held in a SearchPercolator. Properties created or updated through this instance are matched
+// after their transaction commits, and the matches queued for delivery. Searches saved through other instances
+// are picked up every refresh-interval; those deleted elsewhere are skipped at delivery. Ids are handed out when an
+// insert runs, not when it commits, so a search can commit after a higher id has been read: ids skipped over are
+// looked up again on every refresh until gap-timeout has passed, long after any insert would have committed
+@Component
+public class SavedSearchAlerts implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SavedSearchAlerts.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+    // Newest kept: gaps from deleted searches far below the end of the table are the bulk of them at startup
+    private static final int MAX_TRACKED_GAPS = 1000;
+
+    @Autowired
+    private SavedSearchRepository savedSearchRepository;
+
+    @Autowired
+    private AlertQueue alertQueue;
+
+    private final SearchPercolator percolator = new SearchPercolator();
+    private final boolean enabled;
+    private final Duration refreshInterval;
+    private final long gapTimeoutNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Timer matchTimer;
+
+    // Highest saved-search id read from the database so far
+    private long lastLoadedId;
+    // Id ranges below lastLoadedId with nothing committed in them yet, oldest first
+    private final Deque<IdGap> gaps = new ArrayDeque<>();
+
+    public SavedSearchAlerts(MeterRegistry registry,
+                             @Value("${rapidfacto.alerts.enabled:true}") boolean enabled,
+                             @Value("${rapidfacto.alerts.refresh-interval:30s}") Duration refreshInterval,
+                             @Value("${rapidfacto.alerts.gap-timeout:2m}") Duration gapTimeout) {
+        this.enabled = enabled;
+        this.refreshInterval = refreshInterval;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "saved-search-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.matchTimer = Timer.builder("alerts.match")
+                .description("Time to match one listing against every saved search")
+                .register(registry);
+        Gauge.builder("alerts.saved.searches", percolator, SearchPercolator::size)
+                .description("Saved searches held for matching")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        loadNewSearches();
+        log.info("Saved-search matcher built with {} searches in {} ms",
+                percolator.size(), (System.nanoTime() - started) / 1_000_000);
+        long refreshMillis = refreshInterval.toMillis();
+        if (refreshMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // The instance that took a write alerts on it, so remote ones would alert twice
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        if (!enabled || event.isRemote() || event.getType() == PropertyChangedEvent.Type.DELETED) {
+            return;
+        }
+        match(event.getType(), event.getProperty());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertiesImported(PropertiesImportedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (PropertyResponseDto property : event.getProperties()) {
+            match(PropertyChangedEvent.Type.CREATED, property);
+        }
+    }
+
+    private void match(PropertyChangedEvent.Type change, PropertyResponseDto property) {
+        long started = System.nanoTime();
+        long[] matches = percolator.match(property.getTitle(), property.getLocation(), property.getPrice());
+        matchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        for (long savedSearchId : matches) {
+            alertQueue.offer(savedSearchId, change, property);
+        }
+    }
+
+    // Called once the search has been committed
+    public void register(SavedSearch search) {
+        percolator.put(search.getId(), search.getTitleKeywords(), search.getLocation(),
+                search.getMinPrice(), search.getMaxPrice());
+    }
+
+    public void unregister(long savedSearchId) {
+        percolator.remove(savedSearchId);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void refresh() {
+        try {
+            loadNewSearches();
+        } catch (RuntimeException ex) {
+            log.warn("Could not load new saved searches", ex);
+        }
+    }
+
+    private synchronized void loadNewSearches() {
+        loadIntoGaps();
+        long now = System.nanoTime();
+        List<SavedSearch> batch;
+        do {
+            batch = savedSearchRepository.findByIdGreaterThanOrderByIdAsc(lastLoadedId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (SavedSearch search : batch) {
+                if (search.getId() > lastLoadedId + 1) {
+                    addGap(new IdGap(lastLoadedId + 1, search.getId() - 1, now));
+                }
+                register(search);
+                lastLoadedId = search.getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+    }
+
+    // Register what has committed inside each gap since, keeping the parts still empty until the gap times out
+    private void loadIntoGaps() {
+        long now = System.nanoTime();
+        int count = gaps.size();
+        for (int i = 0; i < count; i++) {
+            IdGap gap = gaps.removeFirst();
+            if (now - gap.seenAt() >= gapTimeoutNanos) {
+                continue;
+            }
+            long from = gap.from();
+            for (SavedSearch search : savedSearchRepository.findByIdBetweenOrderByIdAsc(gap.from(), gap.to())) {
+                register(search);
+                if (search.getId() > from) {
+                    gaps.addLast(new IdGap(from, search.getId() - 1, gap.seenAt()));
+                }
+                from = search.getId() + 1;
+            }
+            if (from <= gap.to()) {
+                gaps.addLast(new IdGap(from, gap.to(), gap.seenAt()));
+            }
+        }
+    }
+
+    private void addGap(IdGap gap) {
+        gaps.addLast(gap);
+        if (gaps.size() > MAX_TRACKED_GAPS) {
+            gaps.removeFirst();
+        }
+    }
+
+    private record IdGap(long from, long to, long seenAt) {
+    }
+}
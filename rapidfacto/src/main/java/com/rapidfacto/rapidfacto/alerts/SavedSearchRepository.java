@@ -0,0 +1,21 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SavedSearchRepository extends JpaRepository<SavedSearch, Long> {
+
+    // Walk the table in id order, one bounded batch at a time; also picks up searches saved through other instances
+    List<SavedSearch> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Rows that have committed since a walk passed over their ids
+    List<SavedSearch> findByIdBetweenOrderByIdAsc(Long from, Long to);
+
+    List<SavedSearch> findByEmailOrderByIdAsc(String email);
+
+    long countByEmail(String email);
+}
@@ -0,0 +1,82 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import com.rapidfacto.rapidfacto.dto.SavedSearchDto;
+import com.rapidfacto.rapidfacto.dto.SavedSearchRequestDto;
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+import com.rapidfacto.rapidfacto.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// No class-level @Transactional: each repository call commits on its own, so the matcher is only told about
+// searches that are already committed
+@Service
+public class SavedSearchService {
+
+    public static final int MAX_SEARCHES_PER_EMAIL = 50;
+
+    @Autowired
+    private SavedSearchRepository savedSearchRepository;
+
+    @Autowired
+    private SavedSearchAlerts savedSearchAlerts;
+
+    public SavedSearchDto saveSearch(SavedSearchRequestDto request) {
+        String titleKeywords = blankToNull(request.getTitleKeywords());
+        String location = blankToNull(request.getLocation());
+        if (titleKeywords != null && SearchPercolator.words(titleKeywords).length == 0) {
+            throw new BadRequestException("Title keywords must contain letters or digits");
+        }
+        if (location != null && SearchPercolator.words(location).length == 0) {
+            throw new BadRequestException("Location must contain letters or digits");
+        }
+        if (titleKeywords == null && location == null && request.getMinPrice() == null && request.getMaxPrice() == null) {
+            throw new BadRequestException("A saved search needs title keywords, a location or a price limit");
+        }
+        String email = request.getEmail().trim();
+        if (savedSearchRepository.countByEmail(email) >= MAX_SEARCHES_PER_EMAIL) {
+            throw new BadRequestException("Cannot save more than " + MAX_SEARCHES_PER_EMAIL + " searches per email");
+        }
+
+        SavedSearch search = new SavedSearch();
+        search.setEmail(email);
+        search.setTitleKeywords(titleKeywords);
+        search.setLocation(location);
+        search.setMinPrice(request.getMinPrice());
+        search.setMaxPrice(request.getMaxPrice());
+        SavedSearch saved = savedSearchRepository.save(search);
+        savedSearchAlerts.register(saved);
+        return toDto(saved);
+    }
+
+    public List<SavedSearchDto> getSearches(String email) {
+        return savedSearchRepository.findByEmailOrderByIdAsc(email.trim()).stream()
+                .map(SavedSearchService::toDto)
+                .toList();
+    }
+
+    public void deleteSearch(Long id) {
+        if (!savedSearchRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Saved search", "id", id);
+        }
+        savedSearchRepository.deleteById(id);
+        savedSearchAlerts.unregister(id);
+    }
+
+    private static String blankToNull(String text) {
+        return text == null || text.isBlank() ? null : text.trim();
+    }
+
+    private static SavedSearchDto toDto(SavedSearch search) {
+        SavedSearchDto dto = new SavedSearchDto();
+        dto.setId(search.getId());
+        dto.setEmail(search.getEmail());
+        dto.setTitleKeywords(search.getTitleKeywords());
+        dto.setLocation(search.getLocation());
+        dto.setMinPrice(search.getMinPrice());
+        dto.setMaxPrice(search.getMaxPrice());
+        dto.setCreatedAt(search.getCreatedAt());
+        return dto;
+    }
+}
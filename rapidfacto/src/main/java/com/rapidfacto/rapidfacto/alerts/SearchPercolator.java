@@ -0,0 +1,209 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Saved searches indexed for the reverse question: given one listing, which searches match it. Each search is
+// filed once, under the rarest of its title or location words (or under no word when it has none), and each
+// word's searches are kept ordered by price range. A listing looks only at the searches filed under its own words
+// whose range contains its price, so matching cost follows the matches, not the number of saved searches
+public class SearchPercolator {
+
+    private final Map<Long, SavedQuery> queries = new HashMap<>();
+    private final Map<String, PriceRanges<SavedQuery>> titlePostings = new HashMap<>();
+    private final Map<String, PriceRanges<SavedQuery>> locationPostings = new HashMap<>();
+    private final PriceRanges<SavedQuery> priceOnly = new PriceRanges<>();
+    // How many saved searches use each word, which is what makes a word a good or bad one to file under
+    private final Map<String, Integer> titleWordCounts = new HashMap<>();
+    private final Map<String, Integer> locationWordCounts = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Keywords match whole words, case-insensitively; null bounds are open
+    public void put(long id, String titleKeywords, String locationKeywords, Double minPrice, Double maxPrice) {
+        SavedQuery query = new SavedQuery(id, words(titleKeywords), words(locationKeywords),
+                minPrice == null ? Double.NEGATIVE_INFINITY : minPrice,
+                maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice);
+        lock.writeLock().lock();
+        try {
+            SavedQuery previous = queries.put(id, query);
+            if (previous != null) {
+                unfile(previous);
+            }
+            file(query);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            SavedQuery previous = queries.remove(id);
+            if (previous != null) {
+                unfile(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return queries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of the saved searches the listing matches, ascending
+    public long[] match(String title, String location, double price) {
+        Set<String> titleWords = new HashSet<>(Arrays.asList(words(title)));
+        Set<String> locationWords = new HashSet<>(Arrays.asList(words(location)));
+        Matches matches = new Matches();
+        lock.readLock().lock();
+        try {
+            // Each search is filed under one word only, so no search is verified twice
+            verify(titlePostings, titleWords, titleWords, locationWords, price, matches);
+            verify(locationPostings, locationWords, titleWords, locationWords, price, matches);
+            priceOnly.containing(price, query -> matches.accept(query.id));
+        } finally {
+            lock.readLock().unlock();
+        }
+        long[] result = Arrays.copyOf(matches.ids, matches.count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    // Lower-case runs of letters and digits: "2 BHK, Andheri-East" -> [2, bhk, andheri, east]
+    public static String[] words(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private static void verify(Map<String, PriceRanges<SavedQuery>> postings, Set<String> listingWords,
+                               Set<String> titleWords, Set<String> locationWords, double price, Matches matches) {
+        for (String word : listingWords) {
+            PriceRanges<SavedQuery> filed = postings.get(word);
+            if (filed != null) {
+                filed.containing(price, query -> {
+                    if (query.hasWords(titleWords, locationWords)) {
+                        matches.accept(query.id);
+                    }
+                });
+            }
+        }
+    }
+
+    // Under the word fewest saved searches use, so a listing with a common word ("bhk", "sector") does not have to
+    // look at every search that also names a rarer word the listing lacks
+    private void file(SavedQuery query) {
+        count(titleWordCounts, query.titleWords, 1);
+        count(locationWordCounts, query.locationWords, 1);
+        String rarest = null;
+        boolean rarestInTitle = false;
+        int rarestCount = Integer.MAX_VALUE;
+        for (String word : query.titleWords) {
+            int used = titleWordCounts.get(word);
+            if (used < rarestCount) {
+                rarest = word;
+                rarestInTitle = true;
+                rarestCount = used;
+            }
+        }
+        for (String word : query.locationWords) {
+            int used = locationWordCounts.get(word);
+            if (used < rarestCount) {
+                rarest = word;
+                rarestInTitle = false;
+                rarestCount = used;
+            }
+        }
+        if (rarest == null) {
+            priceOnly.add(query.id, query.minPrice, query.maxPrice, query);
+            return;
+        }
+        (rarestInTitle ? titlePostings : locationPostings).computeIfAbsent(rarest, word -> new PriceRanges<>())
+                .add(query.id, query.minPrice, query.maxPrice, query);
+        query.filedUnder = rarest;
+        query.filedInTitle = rarestInTitle;
+    }
+
+    private static void count(Map<String, Integer> wordCounts, String[] words, int delta) {
+        for (String word : words) {
+            wordCounts.merge(word, delta, (current, change) -> current + change == 0 ? null : current + change);
+        }
+    }
+
+    private void unfile(SavedQuery query) {
+        count(titleWordCounts, query.titleWords, -1);
+        count(locationWordCounts, query.locationWords, -1);
+        if (query.filedUnder == null) {
+            priceOnly.remove(query.id, query.minPrice);
+            return;
+        }
+        Map<String, PriceRanges<SavedQuery>> postings = query.filedInTitle ? titlePostings : locationPostings;
+        PriceRanges<SavedQuery> filed = postings.get(query.filedUnder);
+        filed.remove(query.id, query.minPrice);
+        if (filed.isEmpty()) {
+            postings.remove(query.filedUnder);
+        }
+    }
+
+    private static final class SavedQuery {
+
+        private final long id;
+        private final String[] titleWords;
+        private final String[] locationWords;
+        private final double minPrice;
+        private final double maxPrice;
+        private String filedUnder;
+        private boolean filedInTitle;
+
+        SavedQuery(long id, String[] titleWords, String[] locationWords, double minPrice, double maxPrice) {
+            this.id = id;
+            this.titleWords = titleWords;
+            this.locationWords = locationWords;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+        }
+
+        // The price range is already checked by the PriceRanges the search is filed in
+        boolean hasWords(Set<String> listingTitleWords, Set<String> listingLocationWords) {
+            for (String word : titleWords) {
+                if (!listingTitleWords.contains(word)) {
+                    return false;
+                }
+            }
+            for (String word : locationWords) {
+                if (!listingLocationWords.contains(word)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Matches {
+
+        private long[] ids = new long[8];
+        private int count;
+
+        void accept(long id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.rapidfacto.rapidfacto.bulk;
+
+import com.rapidfacto.rapidfacto.dto.PropertyRequestDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Comma-separated records with a header row naming the columns; fields may be double-quoted, and quoted fields may
+// hold line breaks (RecordReader keeps such a record together)
+public class CsvLineParser implements PropertyLineParser {
+
+    private final int titleColumn;
+    private final int locationColumn;
+    private final int priceColumn;
+    private final int imageUrlColumn;
+    private final int descriptionColumn;
+    private final int latitudeColumn;
+    private final int longitudeColumn;
+
+    public CsvLineParser(String headerLine) {
+        if (headerLine == null) {
+            throw new IllegalArgumentException("CSV header row is missing");
+        }
+        List<String> header = split(headerLine);
+        titleColumn = column(header, "title");
+        locationColumn = column(header, "location");
+        priceColumn = column(header, "price");
+        imageUrlColumn = column(header, "imageurl");
+        descriptionColumn = column(header, "description");
+        // Position columns are optional
+        latitudeColumn = optionalColumn(header, "latitude");
+        longitudeColumn = optionalColumn(header, "longitude");
+    }
+
+    @Override
+    public PropertyRequestDto parse(String line) {
+        List<String> fields = split(line);
+        PropertyRequestDto dto = new PropertyRequestDto();
+        dto.setTitle(field(fields, titleColumn));
+        dto.setLocation(field(fields, locationColumn));
+        dto.setImageUrl(field(fields, imageUrlColumn));
+        dto.setDescription(field(fields, descriptionColumn));
+        dto.setPrice(number(fields, priceColumn, "price"));
+        dto.setLatitude(number(fields, latitudeColumn, "latitude"));
+        dto.setLongitude(number(fields, longitudeColumn, "longitude"));
+        return dto;
+    }
+
+    private static int column(List<String> header, String name) {
+        int column = optionalColumn(header, name);
+        if (column < 0) {
+            throw new IllegalArgumentException("CSV header has no '" + name + "' column");
+        }
+        return column;
+    }
+
+    private static int optionalColumn(List<String> header, String name) {
+        for (int i = 0; i < header.size(); i++) {
+            String normalized = header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT);
+            if (normalized.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column >= 0 && column < fields.size() ? fields.get(column) : null;
+    }
+
+    // Blank or missing fields are null and left to validation
+    private static Double number(List<String> fields, int column, String name) {
+        String value = field(fields, column);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(name + ": not a number '" + value + "'");
+        }
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
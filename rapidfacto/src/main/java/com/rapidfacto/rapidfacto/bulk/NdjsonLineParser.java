@@ -0,0 +1,25 @@
+package com.rapidfacto.rapidfacto.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.rapidfacto.rapidfacto.dto.PropertyRequestDto;
+
+// One JSON object per line, with the same fields as POST /api/properties
+public class NdjsonLineParser implements PropertyLineParser {
+
+    private final ObjectReader reader;
+
+    public NdjsonLineParser(ObjectMapper objectMapper) {
+        this.reader = objectMapper.readerFor(PropertyRequestDto.class);
+    }
+
+    @Override
+    public PropertyRequestDto parse(String line) {
+        try {
+            return reader.readValue(line);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Malformed JSON: " + ex.getOriginalMessage());
+        }
+    }
+}
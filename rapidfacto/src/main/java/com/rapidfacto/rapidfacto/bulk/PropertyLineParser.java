@@ -0,0 +1,9 @@
+package com.rapidfacto.rapidfacto.bulk;
+
+import com.rapidfacto.rapidfacto.dto.PropertyRequestDto;
+
+// Turns one record of a bulk feed into a request; throws IllegalArgumentException for records it cannot read
+public interface PropertyLineParser {
+
+    PropertyRequestDto parse(String line);
+}
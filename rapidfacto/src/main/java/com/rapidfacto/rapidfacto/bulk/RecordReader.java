@@ -0,0 +1,95 @@
+package com.rapidfacto.rapidfacto.bulk;
+
+import java.io.IOException;
+import java.io.Reader;
+
+// Splits a feed into records at line breaks (\n, \r\n or \r). With quoted fields (CSV), a line break inside double
+// quotes belongs to the field, so a record can span lines. No record is held past MAX_RECORD_LENGTH characters,
+// quoted or not: the rest of it is skipped up to the next line break (even inside quotes, so a stray quote cannot
+// swallow the rest of the feed) and the record is flagged as oversized.
+public class RecordReader {
+
+    public static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private static final int NONE = -2;
+
+    private final Reader reader;
+    private final boolean quotedFields;
+    private final StringBuilder record = new StringBuilder(256);
+    private int pushedBack = NONE;
+    private long line;
+    private long recordLine;
+    private boolean oversized;
+
+    public RecordReader(Reader reader, boolean quotedFields) {
+        this.reader = reader;
+        this.quotedFields = quotedFields;
+    }
+
+    // The next record without its line break, or null at the end of the feed
+    public String next() throws IOException {
+        int c = read();
+        if (c < 0) {
+            return null;
+        }
+        record.setLength(0);
+        recordLine = ++line;
+        oversized = false;
+        boolean quoted = false;
+        for (; c >= 0; c = read()) {
+            if (c != '\n' && c != '\r') {
+                if (c == '"' && quotedFields) {
+                    // A doubled quote inside a field flips twice
+                    quoted = !quoted;
+                }
+                append((char) c);
+                continue;
+            }
+            boolean crlf = false;
+            if (c == '\r') {
+                int next = read();
+                if (next == '\n') {
+                    crlf = true;
+                } else {
+                    pushedBack = next;
+                }
+            }
+            if (!quoted || oversized) {
+                return record.toString();
+            }
+            line++;
+            append((char) c);
+            if (crlf) {
+                append('\n');
+            }
+        }
+        return record.toString();
+    }
+
+    // Line the last record started on, counting from 1
+    public long recordLine() {
+        return recordLine;
+    }
+
+    // Whether the last record ran past MAX_RECORD_LENGTH; next() then returned only its first MAX_RECORD_LENGTH characters
+    public boolean oversized() {
+        return oversized;
+    }
+
+    private void append(char c) {
+        if (record.length() < MAX_RECORD_LENGTH) {
+            record.append(c);
+        } else {
+            oversized = true;
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != NONE) {
+            int c = pushedBack;
+            pushedBack = NONE;
+            return c;
+        }
+        return reader.read();
+    }
+}
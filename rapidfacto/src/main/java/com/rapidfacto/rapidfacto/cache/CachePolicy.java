@@ -0,0 +1,17 @@
+package com.rapidfacto.rapidfacto.cache;
+
+import java.time.Duration;
+
+// Eviction policies selectable per cache through configuration
+public enum CachePolicy {
+
+    LRU,
+    TINYLFU;
+
+    public <K, V> CacheStore<K, V> create(int maximumSize, Duration ttl) {
+        return switch (this) {
+            case LRU -> new LruCacheStore<>(maximumSize, ttl);
+            case TINYLFU -> new TinyLfuCacheStore<>(maximumSize, ttl);
+        };
+    }
+}
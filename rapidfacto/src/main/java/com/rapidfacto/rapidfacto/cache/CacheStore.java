@@ -0,0 +1,24 @@
+package com.rapidfacto.rapidfacto.cache;
+
+// Bounded key/value store behind the read caches; implementations differ only in eviction policy
+public interface CacheStore<K, V> {
+
+    V get(K key);
+
+    void put(K key, V value);
+
+    // Used by readers so a value loaded before a concurrent write cannot replace the writer's newer value
+    void putIfAbsent(K key, V value);
+
+    void invalidate(K key);
+
+    void invalidateAll();
+
+    long size();
+
+    long hitCount();
+
+    long missCount();
+
+    long evictionCount();
+}
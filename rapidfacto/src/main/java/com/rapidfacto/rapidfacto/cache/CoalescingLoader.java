@@ -0,0 +1,95 @@
+package com.rapidfacto.rapidfacto.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Merges concurrent loads of the same keys. A caller loads, in one batch, only the keys no other caller is loading
+// right now, and waits for the rest. Callers finish their own batch before waiting on anyone else's, so two
+// callers that need each other's keys cannot deadlock; if the other caller's load fails, the key is loaded again
+public class CoalescingLoader<K, V> {
+
+    private final Function<Collection<K>, Map<K, V>> batchLoader;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loadedKeys = new LongAdder();
+    private final LongAdder coalescedKeys = new LongAdder();
+
+    // batchLoader returns the values of the keys that exist; keys missing from its map are reported as absent
+    public CoalescingLoader(Function<Collection<K>, Map<K, V>> batchLoader) {
+        this.batchLoader = batchLoader;
+    }
+
+    public Map<K, V> loadAll(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> joined = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (owned.containsKey(key) || joined.containsKey(key)) {
+                continue;
+            }
+            CompletableFuture<V> claim = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, claim);
+            if (existing == null) {
+                owned.put(key, claim);
+            } else {
+                joined.put(key, existing);
+            }
+        }
+
+        Map<K, V> values = new HashMap<>();
+        if (!owned.isEmpty()) {
+            try {
+                Map<K, V> loaded = batchLoader.apply(List.copyOf(owned.keySet()));
+                owned.forEach((key, claim) -> {
+                    V value = loaded.get(key);
+                    if (value != null) {
+                        values.put(key, value);
+                    }
+                    claim.complete(value);
+                });
+            } catch (RuntimeException | Error ex) {
+                owned.values().forEach(claim -> claim.completeExceptionally(ex));
+                throw ex;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+            loadedKeys.add(owned.size());
+        }
+
+        List<K> failed = new ArrayList<>();
+        joined.forEach((key, pending) -> {
+            try {
+                V value = pending.join();
+                if (value != null) {
+                    values.put(key, value);
+                }
+                coalescedKeys.increment();
+            } catch (CompletionException ex) {
+                failed.add(key);
+            }
+        });
+        if (!failed.isEmpty()) {
+            values.putAll(batchLoader.apply(failed));
+            loadedKeys.add(failed.size());
+        }
+        return values;
+    }
+
+    // Keys this loader fetched itself
+    public long loadedCount() {
+        return loadedKeys.sum();
+    }
+
+    // Keys served by another caller's load that was already running
+    public long coalescedCount() {
+        return coalescedKeys.sum();
+    }
+}
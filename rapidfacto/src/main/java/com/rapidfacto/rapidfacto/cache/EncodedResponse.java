@@ -0,0 +1,85 @@
+package com.rapidfacto.rapidfacto.cache;
+
+import com.rapidfacto.rapidfacto.codec.ResponseEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// A serialized response body kept in the two parts either side of its timestamp, so every copy served carries the
+// time it was served. gzipHead is a gzip header plus the head deflated up to a sync flush: the stamp and tail are
+// deflated per request after it and the trailer written over the whole body. gzipHead is null when compressing
+// would not make the body smaller
+public record EncodedResponse(byte[] head, byte[] tail, byte[] gzipHead) {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    public static EncodedResponse of(ResponseEncoder.Split split) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(split.head().length / 4 + 64);
+        compressed.writeBytes(GZIP_HEADER);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(split.head());
+            byte[] buffer = new byte[8192];
+            int written;
+            // A sync flush ends on a byte boundary without closing the stream, so more blocks can follow
+            do {
+                written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                compressed.write(buffer, 0, written);
+            } while (written == buffer.length);
+        } finally {
+            deflater.end();
+        }
+        int size = split.head().length + split.tail().length;
+        return new EncodedResponse(split.head(), split.tail(), compressed.size() < size ? compressed.toByteArray() : null);
+    }
+
+    public byte[] body(boolean acceptsGzip, byte[] timestamp) {
+        if (!isGzip(acceptsGzip)) {
+            return concat(head, concat(timestamp, tail));
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(gzipHead.length + timestamp.length + tail.length + 16);
+        body.writeBytes(gzipHead);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(concat(timestamp, tail));
+            deflater.finish();
+            byte[] buffer = new byte[512];
+            while (!deflater.finished()) {
+                body.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(head);
+        crc.update(timestamp);
+        crc.update(tail);
+        writeIntLe(body, (int) crc.getValue());
+        writeIntLe(body, head.length + timestamp.length + tail.length);
+        return body.toByteArray();
+    }
+
+    public boolean isGzip(boolean acceptsGzip) {
+        return acceptsGzip && gzipHead != null;
+    }
+
+    // Bytes kept in the cache for one way of serving this response
+    public int cachedLength(boolean acceptsGzip) {
+        return (isGzip(acceptsGzip) ? gzipHead.length : head.length) + tail.length;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] both = new byte[first.length + second.length];
+        System.arraycopy(first, 0, both, 0, first.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+
+    private static void writeIntLe(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+}
@@ -0,0 +1,93 @@
+package com.rapidfacto.rapidfacto.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Least-recently-used eviction over an access-ordered LinkedHashMap, with a fixed time-to-live per entry
+public class LruCacheStore<K, V> implements CacheStore<K, V> {
+
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LruCacheStore(int maximumSize, Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > maximumSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt - System.nanoTime() <= 0) {
+            entries.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    @Override
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+    }
+
+    @Override
+    public synchronized void putIfAbsent(K key, V value) {
+        Entry<V> existing = entries.get(key);
+        if (existing == null || existing.expiresAt - System.nanoTime() <= 0) {
+            put(key, value);
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized long size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    @Override
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    @Override
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
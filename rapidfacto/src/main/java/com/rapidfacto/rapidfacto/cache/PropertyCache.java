@@ -0,0 +1,104 @@
+package com.rapidfacto.rapidfacto.cache;
+
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.event.PropertiesImportedEvent;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Property detail DTOs by id; writes replace or drop entries once their transaction has committed
+@Component
+public class PropertyCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "properties";
+    private static final int MAX_TRACKED_CHANGES = 10_000;
+
+    private final CacheStore<Long, PropertyResponseDto> store;
+    private final CachePolicy policy;
+    private final long replicaCatchUpNanos;
+    // Ids written within the replica catch-up window, with the time of the write
+    private final Map<Long, Long> recentChanges = new ConcurrentHashMap<>();
+
+    public PropertyCache(@Value("${rapidfacto.cache.property.policy:tinylfu}") String policy,
+                         @Value("${rapidfacto.cache.property.maximum-size:10000}") int maximumSize,
+                         @Value("${rapidfacto.cache.property.ttl:10m}") Duration ttl,
+                         @Value("${rapidfacto.datasource.read-your-writes-window:5s}") Duration replicaCatchUp) {
+        this.policy = CachePolicy.valueOf(policy.toUpperCase(Locale.ROOT));
+        this.store = this.policy.create(maximumSize, ttl);
+        this.replicaCatchUpNanos = replicaCatchUp.toNanos();
+    }
+
+    public PropertyResponseDto get(Long id) {
+        return store.get(id);
+    }
+
+    // Called after a read from the database; never overwrites a fresher value put by a writer, and skips
+    // ids written so recently that the read may have come from a replica without the write
+    public void putLoaded(PropertyResponseDto property) {
+        Long changedAt = recentChanges.get(property.getId());
+        if (changedAt != null) {
+            if (System.nanoTime() - changedAt < replicaCatchUpNanos) {
+                return;
+            }
+            recentChanges.remove(property.getId(), changedAt);
+        }
+        store.putIfAbsent(property.getId(), property);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        long now = System.nanoTime();
+        noteChange(event.getPropertyId(), now);
+        if (event.getType() == PropertyChangedEvent.Type.DELETED) {
+            store.invalidate(event.getPropertyId());
+        } else {
+            store.put(event.getPropertyId(), event.getProperty());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertiesImported(PropertiesImportedEvent event) {
+        long now = System.nanoTime();
+        for (PropertyResponseDto property : event.getProperties()) {
+            noteChange(property.getId(), now);
+            store.put(property.getId(), property);
+        }
+    }
+
+    private void noteChange(Long propertyId, long now) {
+        if (recentChanges.size() >= MAX_TRACKED_CHANGES) {
+            recentChanges.values().removeIf(changedAt -> now - changedAt >= replicaCatchUpNanos);
+        }
+        recentChanges.put(propertyId, now);
+    }
+
+    public void invalidateAll() {
+        store.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", store, CacheStore::hitCount)
+                .tags("cache", CACHE_NAME, "policy", policy.name().toLowerCase(Locale.ROOT), "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", store, CacheStore::missCount)
+                .tags("cache", CACHE_NAME, "policy", policy.name().toLowerCase(Locale.ROOT), "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", store, CacheStore::evictionCount)
+                .tags("cache", CACHE_NAME, "policy", policy.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+        Gauge.builder("cache.size", store, CacheStore::size)
+                .tags("cache", CACHE_NAME, "policy", policy.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+    }
+}
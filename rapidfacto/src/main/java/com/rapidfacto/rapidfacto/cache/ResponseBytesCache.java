@@ -0,0 +1,142 @@
+package com.rapidfacto.rapidfacto.cache;
+
+import com.rapidfacto.rapidfacto.codec.ResponseEncoder;
+import com.rapidfacto.rapidfacto.codec.ResponseFormat;
+import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import com.rapidfacto.rapidfacto.event.PropertiesImportedEvent;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
+import com.rapidfacto.rapidfacto.replica.ReadRouting;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Encoded list responses keyed by catalogue version + format + request; any property write moves to a new version
+@Component
+public class ResponseBytesCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "responses";
+
+    @Autowired
+    private ResponseEncoder responseEncoder;
+
+    private final CacheStore<String, EncodedResponse> store;
+    private final CachePolicy policy;
+    private final boolean enabled;
+    private final long replicaCatchUpNanos;
+
+    private final AtomicLong catalogueVersion = new AtomicLong();
+    private volatile long lastChangeNanos;
+    private final LongAdder servedRequests = new LongAdder();
+    private final LongAdder servedBytes = new LongAdder();
+
+    public ResponseBytesCache(@Value("${rapidfacto.cache.response.enabled:true}") boolean enabled,
+                              @Value("${rapidfacto.cache.response.policy:tinylfu}") String policy,
+                              @Value("${rapidfacto.cache.response.maximum-size:500}") int maximumSize,
+                              @Value("${rapidfacto.cache.response.ttl:10m}") Duration ttl,
+                              @Value("${rapidfacto.datasource.read-your-writes-window:5s}") Duration replicaCatchUp) {
+        this.enabled = enabled;
+        this.replicaCatchUpNanos = replicaCatchUp.toNanos();
+        this.lastChangeNanos = System.nanoTime() - replicaCatchUpNanos;
+        this.policy = CachePolicy.valueOf(policy.toUpperCase(Locale.ROOT));
+        this.store = this.policy.create(maximumSize, ttl);
+    }
+
+    // Serve the cached bytes for this request in this format, or build, encode and cache them with the loader
+    public EncodedResponse get(String requestKey, ResponseFormat format, boolean acceptsGzip,
+                               Supplier<? extends ApiResponse<?>> loader) {
+        if (!enabled) {
+            return encode(loader.get(), format);
+        }
+        // Read the version before loading, so bytes are never stored under a version newer than their data
+        long version = catalogueVersion.get();
+        String key = version + " " + format + " " + requestKey;
+        EncodedResponse cached = store.get(key);
+        if (cached != null) {
+            servedRequests.increment();
+            servedBytes.add(cached.cachedLength(acceptsGzip));
+            return cached;
+        }
+        // Replicas may still miss a change this recent; fill from the primary so stale bytes are never cached
+        ApiResponse<?> body = System.nanoTime() - lastChangeNanos < replicaCatchUpNanos ? ReadRouting.onPrimary(loader) : loader.get();
+        EncodedResponse encoded = encode(body, format);
+        if (catalogueVersion.get() == version) {
+            store.putIfAbsent(key, encoded);
+        }
+        return encoded;
+    }
+
+    // The body to write, stamped with the time it is served rather than the time it was cached
+    public byte[] body(EncodedResponse encoded, ResponseFormat format, boolean acceptsGzip) {
+        return encoded.body(acceptsGzip, responseEncoder.encodeTimestamp(LocalDateTime.now(), format));
+    }
+
+    public long getCatalogueVersion() {
+        return catalogueVersion.get();
+    }
+
+    // Runs after the search indexes have applied the same change, then retires every entry of the old version
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        retireCatalogueVersion();
+    }
+
+    // A whole imported batch moves the catalogue on once
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertiesImported(PropertiesImportedEvent event) {
+        retireCatalogueVersion();
+    }
+
+    private void retireCatalogueVersion() {
+        lastChangeNanos = System.nanoTime();
+        catalogueVersion.incrementAndGet();
+        store.invalidateAll();
+    }
+
+    private EncodedResponse encode(ApiResponse<?> body, ResponseFormat format) {
+        return EncodedResponse.of(responseEncoder.encodeSplit(body, format));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", store, CacheStore::hitCount)
+                .tags("cache", CACHE_NAME, "policy", policy.name().toLowerCase(Locale.ROOT), "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", store, CacheStore::missCount)
+                .tags("cache", CACHE_NAME, "policy", policy.name().toLowerCase(Locale.ROOT), "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", store, CacheStore::evictionCount)
+                .tags("cache", CACHE_NAME, "policy", policy.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+        Gauge.builder("cache.size", store, CacheStore::size)
+                .tags("cache", CACHE_NAME, "policy", policy.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+        FunctionCounter.builder("cache.served.requests", servedRequests, LongAdder::sum)
+                .tags("cache", CACHE_NAME)
+                .description("Responses written straight from cached bytes")
+                .register(registry);
+        FunctionCounter.builder("cache.served.bytes", servedBytes, LongAdder::sum)
+                .tags("cache", CACHE_NAME)
+                .baseUnit("bytes")
+                .description("Body bytes written straight from cached bytes")
+                .register(registry);
+        Gauge.builder("cache.catalogue.version", catalogueVersion, AtomicLong::get)
+                .tags("cache", CACHE_NAME)
+                .register(registry);
+    }
+}
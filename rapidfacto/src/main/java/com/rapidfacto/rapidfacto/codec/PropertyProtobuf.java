@@ -0,0 +1,315 @@
+package com.rapidfacto.rapidfacto.codec;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import com.rapidfacto.rapidfacto.dto.CursorPage;
+import com.rapidfacto.rapidfacto.dto.PropertyBatch;
+import com.rapidfacto.rapidfacto.dto.PropertyListing;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.dto.PropertySummaryDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// The PropertyResponse message of src/main/proto/property.proto, written (and read back) by hand with protobuf-java's
+// wire-format primitives. Only ApiResponse bodies that carry property data have this form; see canEncode
+public final class PropertyProtobuf {
+
+    private static final int VARINT = WireFormat.WIRETYPE_VARINT;
+    private static final int FIXED64 = WireFormat.WIRETYPE_FIXED64;
+    private static final int LENGTH_DELIMITED = WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    // PropertyResponse fields
+    private static final int SUCCESS = 1;
+    private static final int MESSAGE = 2;
+    private static final int TIMESTAMP = 3;
+    private static final int PROPERTIES = 4;
+    private static final int NEXT_CURSOR = 5;
+    private static final int HAS_MORE = 6;
+    private static final int MISSING = 7;
+
+    // Property fields
+    private static final int ID = 1;
+    private static final int TITLE = 2;
+    private static final int LOCATION = 3;
+    private static final int PRICE = 4;
+    private static final int IMAGE_URL = 5;
+    private static final int DESCRIPTION = 6;
+    private static final int LATITUDE = 7;
+    private static final int LONGITUDE = 8;
+    private static final int CREATED_AT = 9;
+    private static final int UPDATED_AT = 10;
+    private static final int VERSION = 11;
+
+    private PropertyProtobuf() {
+    }
+
+    // Whether ApiResponse bodies whose data is of this type can be encoded; String stands for the error responses,
+    // which carry only a message. Lists and pages must hold PropertyListings, which encode checks
+    public static boolean canEncode(Class<?> dataType) {
+        return dataType != null && (PropertyListing.class.isAssignableFrom(dataType)
+                || PropertyBatch.class.isAssignableFrom(dataType)
+                || CursorPage.class.isAssignableFrom(dataType)
+                || List.class.isAssignableFrom(dataType)
+                || dataType == String.class);
+    }
+
+    public static byte[] encode(ApiResponse<?> response) {
+        ZoneId zone = ZoneId.systemDefault();
+        List<Row> rows = new ArrayList<>();
+        List<Long> missing = List.of();
+        String nextCursor = null;
+        boolean hasMore = false;
+        switch (response.getData()) {
+            case null -> {
+            }
+            case PropertyListing property -> rows.add(row(property, zone));
+            case PropertyBatch batch -> {
+                addRows(rows, batch.getItems(), zone);
+                missing = batch.getMissing() == null ? List.of() : batch.getMissing();
+            }
+            case CursorPage<?> page -> {
+                addRows(rows, page.getItems(), zone);
+                nextCursor = page.getNextCursor();
+                hasMore = page.isHasMore();
+            }
+            case List<?> list -> addRows(rows, list, zone);
+            case String ignored -> {
+            }
+            default -> throw new IllegalArgumentException(
+                    "No protobuf form for " + response.getData().getClass().getSimpleName());
+        }
+
+        Long timestamp = epochMillis(response.getTimestamp(), zone);
+        int missingSize = 0;
+        for (Long id : missing) {
+            missingSize += CodedOutputStream.computeInt64SizeNoTag(id);
+        }
+        int size = (response.isSuccess() ? CodedOutputStream.computeBoolSize(SUCCESS, true) : 0)
+                + stringSize(MESSAGE, response.getMessage())
+                + (timestamp != null ? CodedOutputStream.computeInt64Size(TIMESTAMP, timestamp) : 0)
+                + stringSize(NEXT_CURSOR, nextCursor)
+                + (hasMore ? CodedOutputStream.computeBoolSize(HAS_MORE, true) : 0)
+                + (missingSize > 0 ? CodedOutputStream.computeTagSize(MISSING)
+                        + CodedOutputStream.computeUInt32SizeNoTag(missingSize) + missingSize : 0);
+        for (Row row : rows) {
+            row.size = row.computeSize();
+            size += CodedOutputStream.computeTagSize(PROPERTIES) + CodedOutputStream.computeUInt32SizeNoTag(row.size) + row.size;
+        }
+
+        byte[] bytes = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        try {
+            if (response.isSuccess()) {
+                out.writeBool(SUCCESS, true);
+            }
+            writeString(out, MESSAGE, response.getMessage());
+            if (timestamp != null) {
+                out.writeInt64(TIMESTAMP, timestamp);
+            }
+            for (Row row : rows) {
+                out.writeTag(PROPERTIES, LENGTH_DELIMITED);
+                out.writeUInt32NoTag(row.size);
+                row.writeTo(out);
+            }
+            writeString(out, NEXT_CURSOR, nextCursor);
+            if (hasMore) {
+                out.writeBool(HAS_MORE, true);
+            }
+            if (missingSize > 0) {
+                out.writeTag(MISSING, LENGTH_DELIMITED);
+                out.writeUInt32NoTag(missingSize);
+                for (Long id : missing) {
+                    out.writeInt64NoTag(id);
+                }
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes;
+    }
+
+    // Just the timestamp field. Fields may come in any order, so a response encoded without a timestamp is completed
+    // by appending this one
+    public static byte[] encodeTimestamp(LocalDateTime timestamp) {
+        long millis = epochMillis(timestamp, ZoneId.systemDefault());
+        byte[] bytes = new byte[CodedOutputStream.computeInt64Size(TIMESTAMP, millis)];
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        try {
+            out.writeInt64(TIMESTAMP, millis);
+            out.checkNoSpaceLeft();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes;
+    }
+
+    // Reads a list or page response back (multi-get's missing ids are skipped), for Java clients and tests
+    public static ApiResponse<CursorPage<PropertyResponseDto>> decode(byte[] bytes) throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(bytes);
+        ApiResponse<CursorPage<PropertyResponseDto>> response = new ApiResponse<>();
+        List<PropertyResponseDto> items = new ArrayList<>();
+        String nextCursor = null;
+        boolean hasMore = false;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case SUCCESS << 3 | VARINT -> response.setSuccess(in.readBool());
+                case MESSAGE << 3 | LENGTH_DELIMITED -> response.setMessage(in.readString());
+                case TIMESTAMP << 3 | VARINT -> response.setTimestamp(dateTime(in.readInt64()));
+                case PROPERTIES << 3 | LENGTH_DELIMITED -> {
+                    int limit = in.pushLimit(in.readRawVarint32());
+                    items.add(readProperty(in));
+                    in.popLimit(limit);
+                }
+                case NEXT_CURSOR << 3 | LENGTH_DELIMITED -> nextCursor = in.readString();
+                case HAS_MORE << 3 | VARINT -> hasMore = in.readBool();
+                default -> in.skipField(tag);
+            }
+        }
+        response.setData(new CursorPage<>(items, nextCursor, hasMore));
+        return response;
+    }
+
+    private static PropertyResponseDto readProperty(CodedInputStream in) throws IOException {
+        PropertyResponseDto property = new PropertyResponseDto();
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case ID << 3 | VARINT -> property.setId(in.readInt64());
+                case TITLE << 3 | LENGTH_DELIMITED -> property.setTitle(in.readString());
+                case LOCATION << 3 | LENGTH_DELIMITED -> property.setLocation(in.readString());
+                case PRICE << 3 | FIXED64 -> property.setPrice(in.readDouble());
+                case IMAGE_URL << 3 | LENGTH_DELIMITED -> property.setImageUrl(in.readString());
+                case DESCRIPTION << 3 | LENGTH_DELIMITED -> property.setDescription(in.readString());
+                case LATITUDE << 3 | FIXED64 -> property.setLatitude(in.readDouble());
+                case LONGITUDE << 3 | FIXED64 -> property.setLongitude(in.readDouble());
+                case CREATED_AT << 3 | VARINT -> property.setCreatedAt(dateTime(in.readInt64()));
+                case UPDATED_AT << 3 | VARINT -> property.setUpdatedAt(dateTime(in.readInt64()));
+                case VERSION << 3 | VARINT -> property.setVersion(in.readInt64());
+                default -> in.skipField(tag);
+            }
+        }
+        return property;
+    }
+
+    private static void addRows(List<Row> rows, List<?> items, ZoneId zone) {
+        if (items == null) {
+            return;
+        }
+        for (Object item : items) {
+            if (!(item instanceof PropertyListing property)) {
+                throw new IllegalArgumentException("No protobuf form for a list of " + item.getClass().getSimpleName());
+            }
+            rows.add(row(property, zone));
+        }
+    }
+
+    // Summaries send what their JSON does: not createdAt, which they only hold for cursors
+    private static Row row(PropertyListing property, ZoneId zone) {
+        return switch (property) {
+            case PropertyResponseDto p -> new Row(p.getId(), p.getTitle(), p.getLocation(), p.getPrice(), p.getImageUrl(),
+                    p.getDescription(), p.getLatitude(), p.getLongitude(), epochMillis(p.getCreatedAt(), zone),
+                    epochMillis(p.getUpdatedAt(), zone), p.getVersion());
+            case PropertySummaryDto p -> new Row(p.getId(), p.getTitle(), p.getLocation(), p.getPrice(), p.getImageUrl(),
+                    null, null, null, null, null, null);
+            default -> throw new IllegalArgumentException("No protobuf form for " + property.getClass().getSimpleName());
+        };
+    }
+
+    private static Long epochMillis(LocalDateTime dateTime, ZoneId zone) {
+        return dateTime == null ? null : Long.valueOf(dateTime.atZone(zone).toInstant().toEpochMilli());
+    }
+
+    private static LocalDateTime dateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static int stringSize(int field, String value) {
+        return value == null ? 0 : CodedOutputStream.computeStringSize(field, value);
+    }
+
+    private static int int64Size(int field, Long value) {
+        return value == null ? 0 : CodedOutputStream.computeInt64Size(field, value);
+    }
+
+    private static int doubleSize(int field, Double value) {
+        return value == null ? 0 : CodedOutputStream.computeDoubleSize(field, value);
+    }
+
+    private static void writeString(CodedOutputStream out, int field, String value) throws IOException {
+        if (value != null) {
+            out.writeString(field, value);
+        }
+    }
+
+    private static void writeInt64(CodedOutputStream out, int field, Long value) throws IOException {
+        if (value != null) {
+            out.writeInt64(field, value);
+        }
+    }
+
+    private static void writeDouble(CodedOutputStream out, int field, Double value) throws IOException {
+        if (value != null) {
+            out.writeDouble(field, value);
+        }
+    }
+
+    // One Property message; its size is needed for the length prefix before it can be written
+    private static final class Row {
+        private final Long id;
+        private final String title;
+        private final String location;
+        private final Double price;
+        private final String imageUrl;
+        private final String description;
+        private final Double latitude;
+        private final Double longitude;
+        private final Long createdAt;
+        private final Long updatedAt;
+        private final Long version;
+        private int size;
+
+        Row(Long id, String title, String location, Double price, String imageUrl, String description,
+            Double latitude, Double longitude, Long createdAt, Long updatedAt, Long version) {
+            this.id = id;
+            this.title = title;
+            this.location = location;
+            this.price = price;
+            this.imageUrl = imageUrl;
+            this.description = description;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+            this.version = version;
+        }
+
+        int computeSize() {
+            return int64Size(ID, id) + stringSize(TITLE, title) + stringSize(LOCATION, location) + doubleSize(PRICE, price)
+                    + stringSize(IMAGE_URL, imageUrl) + stringSize(DESCRIPTION, description)
+                    + doubleSize(LATITUDE, latitude) + doubleSize(LONGITUDE, longitude)
+                    + int64Size(CREATED_AT, createdAt) + int64Size(UPDATED_AT, updatedAt) + int64Size(VERSION, version);
+        }
+
+        void writeTo(CodedOutputStream out) throws IOException {
+            writeInt64(out, ID, id);
+            writeString(out, TITLE, title);
+            writeString(out, LOCATION, location);
+            writeDouble(out, PRICE, price);
+            writeString(out, IMAGE_URL, imageUrl);
+            writeString(out, DESCRIPTION, description);
+            writeDouble(out, LATITUDE, latitude);
+            writeDouble(out, LONGITUDE, longitude);
+            writeInt64(out, CREATED_AT, createdAt);
+            writeInt64(out, UPDATED_AT, updatedAt);
+            writeInt64(out, VERSION, version);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.rapidfacto.rapidfacto.codec;
+
+import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+// Writes application/x-protobuf for handler methods declared to return ApiResponse bodies PropertyProtobuf can
+// encode (single property, multi-get, errors). It never matches any other body, so asking for protobuf from
+// those endpoints gets a 406 rather than a half-encoded response. Write-only: requests stay JSON
+public class PropertyProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<ApiResponse<?>> {
+
+    public PropertyProtobufHttpMessageConverter() {
+        super(ResponseFormat.PROTOBUF.getMediaTypes());
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ApiResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (type == null || !supports(clazz) || !canWrite(mediaType)) {
+            return false;
+        }
+        return PropertyProtobuf.canEncode(ResolvableType.forType(type).as(ApiResponse.class).getGeneric(0).resolve());
+    }
+
+    @Override
+    protected void writeInternal(ApiResponse<?> response, Type type, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(PropertyProtobuf.encode(response));
+    }
+
+    @Override
+    protected ApiResponse<?> readInternal(Class<? extends ApiResponse<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    public ApiResponse<?> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+}
@@ -0,0 +1,94 @@
+package com.rapidfacto.rapidfacto.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+// Serializes response bodies in each ResponseFormat. The CBOR and Smile mappers come from the same builder as the
+// JSON one, so they carry exactly the fields JSON does, dates included as the same strings
+@Component
+public class ResponseEncoder {
+
+    // Stands in for the timestamp while splitting; no real response is stamped with it
+    private static final LocalDateTime PLACEHOLDER = LocalDateTime.of(1970, 1, 1, 0, 0, 0, 123_456_789);
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+
+    public ResponseEncoder(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder builder) {
+        this.jsonMapper = objectMapper;
+        this.cborMapper = builder.factory(new CBORFactory()).build();
+        this.smileMapper = builder.factory(new SmileFactory()).build();
+    }
+
+    public ObjectMapper getCborMapper() {
+        return cborMapper;
+    }
+
+    public ObjectMapper getSmileMapper() {
+        return smileMapper;
+    }
+
+    public byte[] encode(Object body, ResponseFormat format) {
+        try {
+            return switch (format) {
+                case JSON -> jsonMapper.writeValueAsBytes(body);
+                case CBOR -> cborMapper.writeValueAsBytes(body);
+                case SMILE -> smileMapper.writeValueAsBytes(body);
+                case PROTOBUF -> PropertyProtobuf.encode((ApiResponse<?>) body);
+            };
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize response", ex);
+        }
+    }
+
+    // The response encoded in the two parts either side of its timestamp value, so encoded bytes can be kept and
+    // still go out stamped with the time they are served: head + encodeTimestamp(now) + tail
+    public Split encodeSplit(ApiResponse<?> body, ResponseFormat format) {
+        if (format == ResponseFormat.PROTOBUF) {
+            return new Split(PropertyProtobuf.encode(withTimestamp(body, null)), new byte[0]);
+        }
+        byte[] bytes = encode(withTimestamp(body, PLACEHOLDER), format);
+        byte[] placeholder = encodeTimestamp(PLACEHOLDER, format);
+        // The timestamp is the envelope's last field, after any dates in the data
+        for (int at = bytes.length - placeholder.length; at >= 0; at--) {
+            if (Arrays.equals(bytes, at, at + placeholder.length, placeholder, 0, placeholder.length)) {
+                return new Split(Arrays.copyOf(bytes, at), Arrays.copyOfRange(bytes, at + placeholder.length, bytes.length));
+            }
+        }
+        throw new IllegalStateException("No timestamp in the encoded " + format + " response");
+    }
+
+    // A timestamp value as it appears inside a response in this format
+    public byte[] encodeTimestamp(LocalDateTime timestamp, ResponseFormat format) {
+        try {
+            return switch (format) {
+                case JSON -> jsonMapper.writeValueAsBytes(timestamp);
+                case CBOR -> cborMapper.writeValueAsBytes(timestamp);
+                case SMILE -> {
+                    // Less the 4 byte header a Smile document starts with
+                    byte[] document = smileMapper.writeValueAsBytes(timestamp);
+                    yield Arrays.copyOfRange(document, 4, document.length);
+                }
+                case PROTOBUF -> PropertyProtobuf.encodeTimestamp(timestamp);
+            };
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize timestamp", ex);
+        }
+    }
+
+    private static ApiResponse<?> withTimestamp(ApiResponse<?> body, LocalDateTime timestamp) {
+        return new ApiResponse<>(body.isSuccess(), body.getMessage(), body.getData(), timestamp);
+    }
+
+    public record Split(byte[] head, byte[] tail) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.rapidfacto.rapidfacto.codec;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+// Body encodings the property endpoints answer in. Binary ones are only used when a client asks for them
+public enum ResponseFormat {
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR),
+    SMILE(new MediaType("application", "x-jackson-smile")),
+    // Also answers Accept: application/protobuf
+    PROTOBUF(new MediaType("application", "x-protobuf"), new MediaType("application", "protobuf"));
+
+    private static final Comparator<MediaType> PREFERENCE = Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+            .thenComparing(MediaType::isWildcardType)
+            .thenComparing(MediaType::isWildcardSubtype);
+
+    private final MediaType mediaType;
+    private final MediaType[] alternatives;
+
+    ResponseFormat(MediaType mediaType, MediaType... alternatives) {
+        this.mediaType = mediaType;
+        this.alternatives = alternatives;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public MediaType[] getMediaTypes() {
+        MediaType[] types = new MediaType[alternatives.length + 1];
+        types[0] = mediaType;
+        System.arraycopy(alternatives, 0, types, 1, alternatives.length);
+        return types;
+    }
+
+    // The offered format the Accept header prefers (by quality, then specificity). JSON when the header is absent,
+    // malformed or names nothing offered, as these endpoints answered before they had other formats
+    public static ResponseFormat negotiate(String accept, Set<ResponseFormat> offered) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException ex) {
+            return JSON;
+        }
+        acceptable.sort(PREFERENCE);
+        for (MediaType type : acceptable) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (ResponseFormat format : values()) {
+                if (offered.contains(format) && format.isIncludedIn(type)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    private boolean isIncludedIn(MediaType type) {
+        if (type.includes(mediaType)) {
+            return true;
+        }
+        for (MediaType alternative : alternatives) {
+            if (type.includes(alternative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,34 @@
+package com.rapidfacto.rapidfacto.config;
+
+import com.rapidfacto.rapidfacto.codec.PropertyProtobufHttpMessageConverter;
+import com.rapidfacto.rapidfacto.codec.ResponseEncoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+// Binary formats for endpoints that return objects rather than pre-encoded bytes, with the mappers the cached list
+// responses are encoded by. Converter beans replace Spring MVC's defaults of the same type in place, after JSON;
+// protobuf goes last, so */* keeps getting JSON
+@Configuration
+public class ResponseFormatConfig implements WebMvcConfigurer {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ResponseEncoder responseEncoder) {
+        return new MappingJackson2CborHttpMessageConverter(responseEncoder.getCborMapper());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ResponseEncoder responseEncoder) {
+        return new MappingJackson2SmileHttpMessageConverter(responseEncoder.getSmileMapper());
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new PropertyProtobufHttpMessageConverter());
+    }
+}
@@ -1,37 +1,116 @@
 package com.rapidfacto.rapidfacto.controller;
 
+import com.rapidfacto.rapidfacto.cache.EncodedResponse;
+import com.rapidfacto.rapidfacto.cache.ResponseBytesCache;
+import com.rapidfacto.rapidfacto.codec.ResponseFormat;
 import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import com.rapidfacto.rapidfacto.dto.BulkImportResult;
+import com.rapidfacto.rapidfacto.dto.ChangeFeedPage;
+import com.rapidfacto.rapidfacto.dto.PriceUpdate;
+import com.rapidfacto.rapidfacto.dto.PropertyBatch;
+import com.rapidfacto.rapidfacto.dto.PropertyPatchDto;
 import com.rapidfacto.rapidfacto.dto.PropertyRequestDto;
 import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.dto.PropertySearchRequest;
+import com.rapidfacto.rapidfacto.dto.RepriceResult;
+import com.rapidfacto.rapidfacto.PropertyExportService;
+import com.rapidfacto.rapidfacto.PropertyImportService;
+import com.rapidfacto.rapidfacto.PropertyRepriceService;
 import com.rapidfacto.rapidfacto.PropertyService;
+import com.rapidfacto.rapidfacto.PropertyView;
+import com.rapidfacto.rapidfacto.exception.PreconditionFailedException;
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+import com.rapidfacto.rapidfacto.feed.ChangeFeed;
+import com.rapidfacto.rapidfacto.replica.ReadYourWritesFilter;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/properties")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {HttpHeaders.ETAG, HttpHeaders.CONTENT_LOCATION, ReadYourWritesFilter.WRITE_TOKEN})
 public class PropertyController {
 
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    // Protobuf has a schema for properties only (src/main/proto/property.proto); facets are schemaless formats only
+    private static final Set<ResponseFormat> LISTING_FORMATS = EnumSet.allOf(ResponseFormat.class);
+    private static final Set<ResponseFormat> FACET_FORMATS = EnumSet.of(ResponseFormat.JSON, ResponseFormat.CBOR, ResponseFormat.SMILE);
+
     @Autowired
     private PropertyService propertyService;
 
-    // Get all properties
+    @Autowired
+    private PropertyImportService propertyImportService;
+
+    @Autowired
+    private PropertyExportService propertyExportService;
+
+    @Autowired
+    private PropertyRepriceService propertyRepriceService;
+
+    @Autowired
+    private ResponseBytesCache responseBytesCache;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    // Get a page of properties, newest first; view=summary returns only the listing-card fields
     @GetMapping
-    public ResponseEntity<ApiResponse<List<PropertyResponseDto>>> getAllProperties() {
-        List<PropertyResponseDto> properties = propertyService.getAllProperties();
-        return ResponseEntity.ok(ApiResponse.success(properties, "Properties retrieved successfully"));
+    public ResponseEntity<byte[]> getAllProperties(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view,
+            HttpServletRequest request) {
+        return cachedResponse(request, () -> ApiResponse.success(
+                propertyService.getAllProperties(cursor, size, PropertyView.fromParam(view)), "Properties retrieved successfully"));
+    }
+
+    // Get several properties at once, e.g. favourites or a comparison: ?ids=7,3,12 returns them in that order
+    // and lists the ids that do not exist instead of failing
+    @GetMapping(params = "ids")
+    public ResponseEntity<ApiResponse<PropertyBatch>> getPropertiesByIds(@RequestParam String ids) {
+        PropertyBatch batch = propertyService.getPropertiesByIds(ids);
+        return ResponseEntity.ok(ApiResponse.success(batch, "Properties retrieved successfully"));
     }
 
-    // Get property by ID
+    // Get property by ID; conditional requests matching the ETag/Last-Modified get a bodiless 304
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<PropertyResponseDto>> getPropertyById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<PropertyResponseDto>> getPropertyById(@PathVariable Long id, WebRequest webRequest) {
         PropertyResponseDto property = propertyService.getPropertyById(id);
-        return ResponseEntity.ok(ApiResponse.success(property, "Property retrieved successfully"));
+        String etag = eTag(property);
+        if (property.getUpdatedAt() == null) {
+            return ResponseEntity.ok().eTag(etag).body(ApiResponse.success(property, "Property retrieved successfully"));
+        }
+        Instant lastModified = property.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant();
+        if (webRequest.checkNotModified(etag, lastModified.toEpochMilli())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(ApiResponse.success(property, "Property retrieved successfully"));
     }
 
     // Create a new property
@@ -42,11 +121,85 @@ public class PropertyController {
                 .body(ApiResponse.success(savedProperty, "Property created successfully"));
     }
 
-    // Update an existing property
+    // Stream the whole catalogue (or rows updated since a point in time) as NDJSON or CSV
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProperties(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince) {
+        String exportFormat = PropertyExportService.validateFormat(format);
+        MediaType mediaType = PropertyExportService.FORMAT_CSV.equals(exportFormat) ? TEXT_CSV : APPLICATION_NDJSON;
+        StreamingResponseBody body = output -> propertyExportService.export(output, exportFormat, updatedSince);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"properties." + exportFormat + "\"")
+                .body(body);
+    }
+
+    // Creates, updates and deletes after the cursor, oldest first; without a cursor, every property from the start
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<ChangeFeedPage>> getChanges(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(ApiResponse.success(changeFeed.changesSince(cursor, limit), "Changes retrieved successfully"));
+    }
+
+    // The same feed as server-sent events, from the cursor (or from now); reconnects resume from Last-Event-ID
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter;
+        try {
+            emitter = changeFeed.subscribe(lastEventId != null && !lastEventId.isBlank() ? lastEventId : cursor);
+        } catch (BadRequestException ex) {
+            // Status only: an event-stream client cannot take the usual JSON error body
+            return ResponseEntity.badRequest().build();
+        }
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Bulk import a streamed feed of NDJSON (application/x-ndjson) or CSV (text/csv, header row first) records
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<ApiResponse<BulkImportResult>> bulkImport(
+            InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType) throws IOException {
+        boolean csv = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV);
+        BulkImportResult result = propertyImportService.importStream(body, csv);
+        return ResponseEntity.ok(ApiResponse.success(result, "Bulk import completed"));
+    }
+
+    // Replace an existing property; with If-Match, only while it is still at that ETag (412 otherwise)
     @PutMapping("/{id}")
-    public ResponseEntity<ApiResponse<PropertyResponseDto>> updateProperty(@PathVariable Long id, @Valid @RequestBody PropertyRequestDto propertyRequestDto) {
-        PropertyResponseDto updatedProperty = propertyService.updateProperty(id, propertyRequestDto);
-        return ResponseEntity.ok(ApiResponse.success(updatedProperty, "Property updated successfully"));
+    public ResponseEntity<ApiResponse<PropertyResponseDto>> updateProperty(
+            @PathVariable Long id,
+            @Valid @RequestBody PropertyRequestDto propertyRequestDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        PropertyResponseDto updatedProperty = propertyService.updateProperty(id, propertyRequestDto, expectedVersion(id, ifMatch));
+        return updated(id, updatedProperty)
+                .body(ApiResponse.success(updatedProperty, "Property updated successfully"));
+    }
+
+    // Change only the fields in the body, with one UPDATE; with If-Match, only while it is still at that ETag
+    @PatchMapping("/{id}")
+    public ResponseEntity<ApiResponse<PropertyResponseDto>> patchProperty(
+            @PathVariable Long id,
+            @Valid @RequestBody PropertyPatchDto propertyPatchDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        PropertyResponseDto patchedProperty = propertyService.patchProperty(id, propertyPatchDto, expectedVersion(id, ifMatch));
+        return updated(id, patchedProperty)
+                .body(ApiResponse.success(patchedProperty, "Property updated successfully"));
+    }
+
+    // Reprice many listings in one call: [{id, price, version?}, ...], with failures reported per listing
+    @PatchMapping("/prices")
+    public ResponseEntity<ApiResponse<RepriceResult>> repriceProperties(@RequestBody List<PriceUpdate> updates) {
+        RepriceResult result = propertyRepriceService.reprice(updates);
+        return ResponseEntity.ok(ApiResponse.success(result, "Reprice completed"));
     }
 
     // Delete a property
@@ -56,40 +209,192 @@ public class PropertyController {
         return ResponseEntity.ok(ApiResponse.success(null, "Property deleted successfully"));
     }
 
+    // Search properties by any combination of title, location, price range and sort
+    @GetMapping("/search")
+    public ResponseEntity<byte[]> searchProperties(@ModelAttribute PropertySearchRequest searchRequest, HttpServletRequest request) {
+        return cachedResponse(request, () -> ApiResponse.success(
+                propertyService.searchProperties(searchRequest), "Properties found"));
+    }
+
+    // Listing counts by city, locality and price bucket for the same filters as /search, e.g. for a filter sidebar
+    @GetMapping("/facets")
+    public ResponseEntity<byte[]> getFacets(
+            @ModelAttribute PropertySearchRequest searchRequest,
+            @RequestParam(required = false) String priceBuckets,
+            @RequestParam(defaultValue = "20") int limit,
+            HttpServletRequest request) {
+        return cachedResponse(request, FACET_FORMATS, () -> ApiResponse.success(
+                propertyService.getFacets(searchRequest, priceBuckets, limit), "Facets retrieved"));
+    }
+
     // Search properties by location
     @GetMapping("/search/location")
-    public ResponseEntity<ApiResponse<List<PropertyResponseDto>>> searchByLocation(@RequestParam String location) {
-        List<PropertyResponseDto> properties = propertyService.searchByLocation(location);
-        return ResponseEntity.ok(ApiResponse.success(properties, "Properties found by location"));
+    public ResponseEntity<byte[]> searchByLocation(
+            @RequestParam String location,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view,
+            HttpServletRequest request) {
+        return cachedResponse(request, () -> ApiResponse.success(
+                propertyService.searchByLocation(location, size, PropertyView.fromParam(view)), "Properties found by location"));
     }
 
     // Search properties by price range
     @GetMapping("/search/price")
-    public ResponseEntity<ApiResponse<List<PropertyResponseDto>>> searchByPriceRange(
+    public ResponseEntity<byte[]> searchByPriceRange(
             @RequestParam Double minPrice, 
-            @RequestParam Double maxPrice) {
-        List<PropertyResponseDto> properties = propertyService.searchByPriceRange(minPrice, maxPrice);
-        return ResponseEntity.ok(ApiResponse.success(properties, "Properties found by price range"));
+            @RequestParam Double maxPrice,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view,
+            HttpServletRequest request) {
+        return cachedResponse(request, () -> ApiResponse.success(
+                propertyService.searchByPriceRange(minPrice, maxPrice, size, PropertyView.fromParam(view)), "Properties found by price range"));
+    }
+
+    // Properties within radiusKm of a point, nearest first
+    @GetMapping("/search/nearby")
+    public ResponseEntity<byte[]> searchNearby(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "5") double radiusKm,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view,
+            HttpServletRequest request) {
+        return cachedResponse(request, () -> ApiResponse.success(
+                propertyService.searchNearby(lat, lng, radiusKm, minPrice, maxPrice, cursor, size, PropertyView.fromParam(view)),
+                "Properties found near location"));
+    }
+
+    // Properties inside a bounding box (e.g. the visible map), nearest its centre first
+    @GetMapping("/search/within")
+    public ResponseEntity<byte[]> searchWithin(
+            @RequestParam double minLat,
+            @RequestParam double maxLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLng,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view,
+            HttpServletRequest request) {
+        return cachedResponse(request, () -> ApiResponse.success(
+                propertyService.searchWithin(minLat, maxLat, minLng, maxLng, minPrice, maxPrice, cursor, size,
+                        PropertyView.fromParam(view)),
+                "Properties found within area"));
     }
 
     // Search properties by title
     @GetMapping("/search/title")
-    public ResponseEntity<ApiResponse<List<PropertyResponseDto>>> searchByTitle(@RequestParam String title) {
-        List<PropertyResponseDto> properties = propertyService.searchByTitle(title);
-        return ResponseEntity.ok(ApiResponse.success(properties, "Properties found by title"));
+    public ResponseEntity<byte[]> searchByTitle(
+            @RequestParam String title,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view,
+            HttpServletRequest request) {
+        return cachedResponse(request, () -> ApiResponse.success(
+                propertyService.searchByTitle(title, size, PropertyView.fromParam(view)), "Properties found by title"));
     }
 
-    // Get properties sorted by price (ascending)
+    // Get a page of properties sorted by price (ascending)
     @GetMapping("/sort/price-asc")
-    public ResponseEntity<ApiResponse<List<PropertyResponseDto>>> getPropertiesByPriceAsc() {
-        List<PropertyResponseDto> properties = propertyService.getPropertiesByPriceAsc();
-        return ResponseEntity.ok(ApiResponse.success(properties, "Properties sorted by price (ascending)"));
+    public ResponseEntity<byte[]> getPropertiesByPriceAsc(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view,
+            HttpServletRequest request) {
+        return cachedResponse(request, () -> ApiResponse.success(
+                propertyService.getPropertiesByPriceAsc(cursor, size, PropertyView.fromParam(view)), "Properties sorted by price (ascending)"));
     }
 
-    // Get properties sorted by price (descending)
+    // Get a page of properties sorted by price (descending)
     @GetMapping("/sort/price-desc")
-    public ResponseEntity<ApiResponse<List<PropertyResponseDto>>> getPropertiesByPriceDesc() {
-        List<PropertyResponseDto> properties = propertyService.getPropertiesByPriceDesc();
-        return ResponseEntity.ok(ApiResponse.success(properties, "Properties sorted by price (descending)"));
+    public ResponseEntity<byte[]> getPropertiesByPriceDesc(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "full") String view,
+            HttpServletRequest request) {
+        return cachedResponse(request, () -> ApiResponse.success(
+                propertyService.getPropertiesByPriceDesc(cursor, size, PropertyView.fromParam(view)), "Properties sorted by price (descending)"));
+    }
+
+    // A listing moved to another shard by a change of city has a new id, which Content-Location points to
+    private static ResponseEntity.BodyBuilder updated(Long id, PropertyResponseDto property) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag(property));
+        if (!id.equals(property.getId())) {
+            response.header(HttpHeaders.CONTENT_LOCATION, "/api/properties/" + property.getId());
+        }
+        return response;
+    }
+
+    // Strong ETag naming one version of one property, as sent with GET and expected back in If-Match
+    private static String eTag(PropertyResponseDto property) {
+        return "\"" + property.getId() + "-" + property.getVersion() + "\"";
+    }
+
+    // The version an If-Match header requires; null when there is none or it is "*"
+    private static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        String prefix = "\"" + id + "-";
+        if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+            try {
+                return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+            } catch (NumberFormatException ex) {
+                // Falls through to the failed precondition below
+            }
+        }
+        throw new PreconditionFailedException("If-Match " + tag + " is not an ETag of property " + id);
+    }
+
+    private ResponseEntity<byte[]> cachedResponse(HttpServletRequest request, Supplier<? extends ApiResponse<?>> loader) {
+        return cachedResponse(request, LISTING_FORMATS, loader);
+    }
+
+    // Write a list response from pre-encoded bytes in the format the Accept header asks for (gzip when accepted),
+    // building and caching them on a miss
+    private ResponseEntity<byte[]> cachedResponse(HttpServletRequest request, Set<ResponseFormat> formats,
+                                                  Supplier<? extends ApiResponse<?>> loader) {
+        ResponseFormat format = ResponseFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT), formats);
+        boolean acceptsGzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        EncodedResponse encoded = responseBytesCache.get(requestKey(request), format, acceptsGzip, loader);
+        byte[] body = responseBytesCache.body(encoded, format, acceptsGzip);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .contentLength(body.length)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (encoded.isGzip(acceptsGzip)) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    // Path plus parameters in sorted order, so the same query spelled differently shares one entry
+    private static String requestKey(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        char separator = '?';
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            for (String value : parameter.getValue()) {
+                key.append(separator).append(parameter.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
-}
+}
\ No newline at end of file
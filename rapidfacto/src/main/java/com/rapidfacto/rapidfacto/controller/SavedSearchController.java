@@ -0,0 +1,42 @@
+package com.rapidfacto.rapidfacto.controller;
+
+import com.rapidfacto.rapidfacto.alerts.SavedSearchService;
+import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import com.rapidfacto.rapidfacto.dto.SavedSearchDto;
+import com.rapidfacto.rapidfacto.dto.SavedSearchRequestDto;
+import com.rapidfacto.rapidfacto.replica.ReadYourWritesFilter;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/saved-searches")
+@CrossOrigin(origins = "*", exposedHeaders = ReadYourWritesFilter.WRITE_TOKEN)
+public class SavedSearchController {
+
+    @Autowired
+    private SavedSearchService savedSearchService;
+
+    // Save a search; new or changed listings matching it are sent as alerts to its email
+    @PostMapping
+    public ResponseEntity<ApiResponse<SavedSearchDto>> saveSearch(@Valid @RequestBody SavedSearchRequestDto request) {
+        SavedSearchDto saved = savedSearchService.saveSearch(request);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(saved, "Saved search created successfully"));
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<SavedSearchDto>>> getSearches(@RequestParam String email) {
+        return ResponseEntity.ok(ApiResponse.success(savedSearchService.getSearches(email), "Saved searches retrieved successfully"));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> deleteSearch(@PathVariable Long id) {
+        savedSearchService.deleteSearch(id);
+        return ResponseEntity.ok(ApiResponse.success(null, "Saved search deleted successfully"));
+    }
+}
@@ -4,23 +4,26 @@ import com.rapidfacto.rapidfacto.dto.ApiResponse;
 import com.rapidfacto.rapidfacto.dto.UserRequestDto;
 import com.rapidfacto.rapidfacto.dto.UserResponseDto;
 import com.rapidfacto.rapidfacto.UserService;
+import com.rapidfacto.rapidfacto.replica.ReadYourWritesFilter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/users")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = ReadYourWritesFilter.WRITE_TOKEN)
 public class UserController {
     @Autowired
     private UserService userService;
 
+    // Completes asynchronously, so the request thread is released while the password is hashed
     @PostMapping("/signup")
-    public ResponseEntity<ApiResponse<UserResponseDto>> signup(@Valid @RequestBody UserRequestDto userRequestDto) {
-        UserResponseDto userResponseDto = userService.signup(userRequestDto);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(ApiResponse.success(userResponseDto, "User registered successfully"));
+    public CompletableFuture<ResponseEntity<ApiResponse<UserResponseDto>>> signup(@Valid @RequestBody UserRequestDto userRequestDto) {
+        return userService.signup(userRequestDto).thenApply(userResponseDto -> ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(userResponseDto, "User registered successfully")));
     }
 } 
\ No newline at end of file
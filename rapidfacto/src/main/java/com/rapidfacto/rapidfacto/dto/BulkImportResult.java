@@ -0,0 +1,36 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkImportResult {
+    private long received;
+    private long imported;
+    private long failed;
+    private List<LineError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    // Only the first maxErrors failures are kept so the report stays small for any feed size
+    public void addError(long line, String message, int maxErrors) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new LineError(line, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        private long line;
+        private String message;
+    }
+}
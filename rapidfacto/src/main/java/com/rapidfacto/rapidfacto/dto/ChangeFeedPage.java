@@ -0,0 +1,18 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Changes in version order plus the cursor to ask from next time; unlike CursorPage the cursor is always set,
+// since a caught-up client keeps polling (or streaming) from it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedPage {
+    private List<PropertyChange> changes;
+    private String cursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,78 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Opaque keyset cursor: the sort it belongs to, the last sort key seen and the last id seen
+public final class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String sort;
+    private final String key;
+    private final long id;
+
+    private PageCursor(String sort, String key, long id) {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    public static String encode(String sort, Object key, Long id) {
+        String raw = sort + SEPARATOR + key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token, String expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 3 || !parts[0].equals(expectedSort)) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            return new PageCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid page cursor", ex);
+        }
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Double getKeyAsDouble() {
+        try {
+            return Double.valueOf(key);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Invalid page cursor", ex);
+        }
+    }
+
+    public long getKeyAsLong() {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Invalid page cursor", ex);
+        }
+    }
+
+    public LocalDateTime getKeyAsDateTime() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException ex) {
+            throw new BadRequestException("Invalid page cursor", ex);
+        }
+    }
+
+    public long getId() {
+        return id;
+    }
+}
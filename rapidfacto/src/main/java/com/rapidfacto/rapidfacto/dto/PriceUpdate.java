@@ -0,0 +1,25 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One entry of a batch reprice; version, when given, must match the listing's current version
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceUpdate {
+    @NotNull(message = "id is required")
+    private Long id;
+
+    // Same bounds as PropertyRequestDto
+    @NotNull(message = "Price is required")
+    @DecimalMin(value = "100000.0", message = "Price must be at least 100,000")
+    @DecimalMax(value = "100000000.0", message = "Price cannot exceed 100,000,000")
+    private Double price;
+
+    private Long version;
+}
@@ -0,0 +1,16 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Result of a multi-get: the properties found, in the order they were asked for, and the ids that do not exist
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyBatch {
+    private List<PropertyResponseDto> items;
+    private List<Long> missing;
+}
@@ -0,0 +1,28 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One change-feed entry: the property's latest state for an UPSERT, only the id for a DELETE
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyChange {
+
+    public static final String UPSERT = "UPSERT";
+    public static final String DELETE = "DELETE";
+
+    private long version;
+    private String type;
+    private Long id;
+    private PropertyResponseDto property;
+
+    public static PropertyChange upsert(long version, PropertyResponseDto property) {
+        return new PropertyChange(version, UPSERT, property.getId(), property);
+    }
+
+    public static PropertyChange delete(long version, Long id) {
+        return new PropertyChange(version, DELETE, id, null);
+    }
+}
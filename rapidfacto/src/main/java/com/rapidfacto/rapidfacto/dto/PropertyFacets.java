@@ -0,0 +1,44 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class PropertyFacets {
+    private long total;
+    private List<CityCount> cities = new ArrayList<>();
+    private List<LocalityCount> localities = new ArrayList<>();
+    private List<PriceBucket> priceHistogram = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CityCount {
+        private String city;
+        private long count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LocalityCount {
+        private String locality;
+        private String city;
+        private long count;
+    }
+
+    // [min, max); max is null for the open-ended top bucket
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucket {
+        private double min;
+        private Double max;
+        private long count;
+    }
+}
@@ -0,0 +1,13 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import java.time.LocalDateTime;
+
+// What list endpoints need from any representation to build keyset cursors (and merge shard results)
+public interface PropertyListing {
+
+    Long getId();
+
+    Double getPrice();
+
+    LocalDateTime getCreatedAt();
+}
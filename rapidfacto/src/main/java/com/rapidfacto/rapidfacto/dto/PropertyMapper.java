@@ -3,8 +3,8 @@ package com.rapidfacto.rapidfacto.dto;
 import com.rapidfacto.rapidfacto.Property;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Component
 public class PropertyMapper {
@@ -17,8 +17,11 @@ public class PropertyMapper {
         dto.setPrice(property.getPrice());
         dto.setImageUrl(property.getImageUrl());
         dto.setDescription(property.getDescription());
+        dto.setLatitude(property.getLatitude());
+        dto.setLongitude(property.getLongitude());
         dto.setCreatedAt(property.getCreatedAt());
         dto.setUpdatedAt(property.getUpdatedAt());
+        dto.setVersion(property.getVersion());
         return dto;
     }
 
@@ -29,13 +32,54 @@ public class PropertyMapper {
         property.setPrice(dto.getPrice());
         property.setImageUrl(dto.getImageUrl());
         property.setDescription(dto.getDescription());
+        property.setLatitude(dto.getLatitude());
+        property.setLongitude(dto.getLongitude());
         return property;
     }
 
+    // Presized loop rather than stream().map().collect(): measurably cheaper on large pages (PropertyMapperBenchmark)
     public List<PropertyResponseDto> toResponseDtoList(List<Property> properties) {
-        return properties.stream()
-                .map(this::toResponseDto)
-                .collect(Collectors.toList());
+        List<PropertyResponseDto> dtos = new ArrayList<>(properties.size());
+        for (Property property : properties) {
+            dtos.add(toResponseDto(property));
+        }
+        return dtos;
+    }
+
+    // The listing fields of a property, as a new row
+    public Property copyOf(Property property) {
+        Property copy = new Property();
+        copy.setTitle(property.getTitle());
+        copy.setLocation(property.getLocation());
+        copy.setPrice(property.getPrice());
+        copy.setImageUrl(property.getImageUrl());
+        copy.setDescription(property.getDescription());
+        copy.setLatitude(property.getLatitude());
+        copy.setLongitude(property.getLongitude());
+        return copy;
+    }
+
+    // The non-null fields of a patch, as PropertyUpdateRepository.patch writes them
+    public void updateEntityFromPatch(Property property, PropertyPatchDto patch) {
+        if (patch.getTitle() != null) {
+            property.setTitle(patch.getTitle());
+        }
+        if (patch.getLocation() != null) {
+            property.setLocation(patch.getLocation());
+        }
+        if (patch.getPrice() != null) {
+            property.setPrice(patch.getPrice());
+        }
+        if (patch.getImageUrl() != null) {
+            property.setImageUrl(patch.getImageUrl());
+        }
+        if (patch.getDescription() != null) {
+            property.setDescription(patch.getDescription());
+        }
+        if (patch.getLatitude() != null) {
+            property.setLatitude(patch.getLatitude());
+            property.setLongitude(patch.getLongitude());
+        }
     }
 
     public void updateEntityFromDto(Property property, PropertyRequestDto dto) {
@@ -44,5 +88,7 @@ public class PropertyMapper {
         property.setPrice(dto.getPrice());
         property.setImageUrl(dto.getImageUrl());
         property.setDescription(dto.getDescription());
+        property.setLatitude(dto.getLatitude());
+        property.setLongitude(dto.getLongitude());
     }
 } 
\ No newline at end of file
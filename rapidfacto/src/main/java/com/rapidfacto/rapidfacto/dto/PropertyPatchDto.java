@@ -0,0 +1,51 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+// Partial update: only the non-null fields are written, with the same rules as PropertyRequestDto
+@Data
+public class PropertyPatchDto {
+
+    @Pattern(regexp = ".*\\S.*", message = "Title cannot be blank")
+    @Size(min = 5, max = 100, message = "Title must be between 5 and 100 characters")
+    private String title;
+
+    @Pattern(regexp = ".*\\S.*", message = "Location cannot be blank")
+    @Size(min = 3, max = 100, message = "Location must be between 3 and 100 characters")
+    private String location;
+
+    @Positive(message = "Price must be positive")
+    @DecimalMin(value = "100000.0", message = "Price must be at least 100,000")
+    @DecimalMax(value = "100000000.0", message = "Price cannot exceed 100,000,000")
+    private Double price;
+
+    @Pattern(regexp = "^(https?://).*", message = "Image URL must be a valid HTTP/HTTPS URL")
+    @Size(max = 500, message = "Image URL cannot exceed 500 characters")
+    private String imageUrl;
+
+    @Pattern(regexp = "(?s).*\\S.*", message = "Description cannot be blank")
+    @Size(min = 10, max = 1000, message = "Description must be between 10 and 1000 characters")
+    private String description;
+
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+
+    @JsonIgnore
+    @AssertTrue(message = "Latitude and longitude must be given together")
+    public boolean isPositionComplete() {
+        return (latitude == null) == (longitude == null);
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return title == null && location == null && price == null && imageUrl == null
+                && description == null && latitude == null;
+    }
+}
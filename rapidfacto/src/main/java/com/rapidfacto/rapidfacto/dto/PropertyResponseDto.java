@@ -4,13 +4,16 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Data
-public class PropertyResponseDto {
+public class PropertyResponseDto implements PropertyListing {
     private Long id;
     private String title;
     private String location;
     private Double price;
     private String imageUrl;
     private String description;
+    private Double latitude;
+    private Double longitude;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 } 
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import lombok.Data;
+
+@Data
+public class PropertySearchRequest {
+    private String title;
+    private String location;
+    private Double minPrice;
+    private Double maxPrice;
+    private String sort;
+    private String cursor;
+    private String view;
+    private int size;
+}
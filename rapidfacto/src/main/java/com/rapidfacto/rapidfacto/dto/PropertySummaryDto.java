@@ -0,0 +1,24 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Card-sized view of a property for list pages (view=summary)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertySummaryDto implements PropertyListing {
+    private Long id;
+    private String title;
+    private String location;
+    private Double price;
+    private String imageUrl;
+
+    // Selected only so newest-first pages can build their cursor; not sent to clients
+    @JsonIgnore
+    private LocalDateTime createdAt;
+}
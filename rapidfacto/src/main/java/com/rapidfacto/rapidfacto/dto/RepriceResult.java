@@ -0,0 +1,36 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class RepriceResult {
+    private long received;
+    private long updated;
+    private long failed;
+    private List<ItemError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    // Only the first maxErrors failures are kept so the report stays small for any batch size
+    public void addError(Long id, String message, int maxErrors) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new ItemError(id, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemError {
+        private Long id;
+        private String message;
+    }
+}
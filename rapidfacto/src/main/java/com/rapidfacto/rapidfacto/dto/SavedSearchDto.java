@@ -0,0 +1,16 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class SavedSearchDto {
+    private Long id;
+    private String email;
+    private String titleKeywords;
+    private String location;
+    private Double minPrice;
+    private Double maxPrice;
+    private LocalDateTime createdAt;
+}
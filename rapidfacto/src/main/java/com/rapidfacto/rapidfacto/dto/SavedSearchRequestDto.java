@@ -0,0 +1,34 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+@Data
+public class SavedSearchRequestDto {
+
+    @NotBlank(message = "Email is required")
+    @Email(message = "Email must be valid")
+    @Size(max = 100, message = "Email cannot exceed 100 characters")
+    private String email;
+
+    // Words that must all appear in the title, e.g. "3 BHK villa"
+    @Size(max = 100, message = "Title keywords cannot exceed 100 characters")
+    private String titleKeywords;
+
+    // Words that must all appear in the location, e.g. "Andheri Mumbai"
+    @Size(max = 100, message = "Location cannot exceed 100 characters")
+    private String location;
+
+    @PositiveOrZero(message = "Minimum price cannot be negative")
+    private Double minPrice;
+
+    @PositiveOrZero(message = "Maximum price cannot be negative")
+    private Double maxPrice;
+
+    @JsonIgnore
+    @AssertTrue(message = "Minimum price cannot be greater than maximum price")
+    public boolean isPriceRangeValid() {
+        return minPrice == null || maxPrice == null || minPrice <= maxPrice;
+    }
+}
@@ -1 +1,31 @@
- 
\ No newline at end of file
+package com.rapidfacto.rapidfacto.dto;
+
+import com.rapidfacto.rapidfacto.User;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserMapper {
+
+    // The password is copied as given; UserService replaces it with the hash before saving
+    public User toEntity(UserRequestDto dto) {
+        User user = new User();
+        user.setFirstName(dto.getFirstName());
+        user.setLastName(dto.getLastName());
+        user.setEmail(dto.getEmail());
+        user.setPhoneNumber(dto.getPhoneNumber());
+        user.setPassword(dto.getPassword());
+        user.setType(dto.getType());
+        return user;
+    }
+
+    public UserResponseDto toResponseDto(User user) {
+        UserResponseDto dto = new UserResponseDto();
+        dto.setId(user.getId());
+        dto.setFirstName(user.getFirstName());
+        dto.setLastName(user.getLastName());
+        dto.setEmail(user.getEmail());
+        dto.setPhoneNumber(user.getPhoneNumber());
+        dto.setType(user.getType());
+        return dto;
+    }
+}
@@ -0,0 +1,17 @@
+package com.rapidfacto.rapidfacto.event;
+
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Published by PropertyImportService once per inserted batch, in place of a CREATED PropertyChangedEvent per row, so
+// a large import costs each listener one call per batch; listeners react after the transaction commits
+@Getter
+@AllArgsConstructor
+public class PropertiesImportedEvent {
+
+    // State of each new listing after the insert, in insert order
+    private final List<PropertyResponseDto> properties;
+}
@@ -0,0 +1,48 @@
+package com.rapidfacto.rapidfacto.event;
+
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published by PropertyService on every write; listeners react after the transaction commits. ChangeFeed publishes
+// the writes other instances made as remote events once it reads them, so caches and indexes follow those too
+@Getter
+@AllArgsConstructor
+public class PropertyChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long propertyId;
+
+    // State after the write; null for DELETED
+    private final PropertyResponseDto property;
+
+    // Written through another instance, which has already reacted to it as a local write
+    private final boolean remote;
+
+    public static PropertyChangedEvent created(PropertyResponseDto property) {
+        return new PropertyChangedEvent(Type.CREATED, property.getId(), property, false);
+    }
+
+    public static PropertyChangedEvent updated(PropertyResponseDto property) {
+        return new PropertyChangedEvent(Type.UPDATED, property.getId(), property, false);
+    }
+
+    public static PropertyChangedEvent deleted(Long propertyId) {
+        return new PropertyChangedEvent(Type.DELETED, propertyId, null, false);
+    }
+
+    // The feed does not tell creates from updates
+    public static PropertyChangedEvent remoteUpsert(PropertyResponseDto property) {
+        return new PropertyChangedEvent(Type.UPDATED, property.getId(), property, true);
+    }
+
+    public static PropertyChangedEvent remoteDelete(Long propertyId) {
+        return new PropertyChangedEvent(Type.DELETED, propertyId, null, true);
+    }
+}
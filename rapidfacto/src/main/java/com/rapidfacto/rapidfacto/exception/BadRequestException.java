@@ -0,0 +1,13 @@
+package com.rapidfacto.rapidfacto.exception;
+
+// A request the client has to change before it can succeed: a malformed cursor, parameter or body
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
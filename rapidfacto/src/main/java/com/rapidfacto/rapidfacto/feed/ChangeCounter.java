@@ -0,0 +1,24 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Single row holding the last change version handed out
+@Entity
+@Table(name = "property_change_counter")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeCounter {
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long version;
+}
@@ -0,0 +1,25 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ChangeCounterRepository extends JpaRepository<ChangeCounter, Integer> {
+
+    // SELECT ... FOR UPDATE: the row stays locked until the calling transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from ChangeCounter c where c.id = :id")
+    Optional<ChangeCounter> lockById(@Param("id") Integer id);
+
+    @Query("select coalesce(max(p.changeVersion), 0) from Property p")
+    long findHighestPropertyVersion();
+
+    @Query("select coalesce(max(t.changeVersion), 0) from PropertyTombstone t")
+    long findHighestTombstoneVersion();
+}
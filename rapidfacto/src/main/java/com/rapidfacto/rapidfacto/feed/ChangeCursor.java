@@ -0,0 +1,94 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+// Opaque change-feed cursor: the last (change version, property id) seen on each shard, since every shard numbers
+// its changes on its own. A shard nothing has been seen from yet is at version -1. Cursors handed out before
+// sharding ("changes|version|id") still decode, as a position on shard 0.
+final class ChangeCursor {
+
+    private static final String PREFIX = "changes|";
+
+    private final long[] versions;
+    private final long[] ids;
+
+    private ChangeCursor(long[] versions, long[] ids) {
+        this.versions = versions;
+        this.ids = ids;
+    }
+
+    static ChangeCursor start(int shards) {
+        long[] versions = new long[shards];
+        Arrays.fill(versions, -1);
+        return new ChangeCursor(versions, new long[shards]);
+    }
+
+    static ChangeCursor decode(String token, int shards) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            String[] positions = raw.substring(PREFIX.length()).split(",", -1);
+            ChangeCursor cursor = start(shards);
+            if (positions.length == 1 && positions[0].contains("|")) {
+                String[] legacy = positions[0].split("\\|", -1);
+                if (legacy.length != 2) {
+                    throw new IllegalArgumentException("Invalid page cursor");
+                }
+                cursor.versions[0] = Long.parseLong(legacy[0]);
+                cursor.ids[0] = Long.parseLong(legacy[1]);
+                return cursor;
+            }
+            if (positions.length > shards) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            for (int shard = 0; shard < positions.length; shard++) {
+                String[] position = positions[shard].split(":", -1);
+                if (position.length != 2) {
+                    throw new IllegalArgumentException("Invalid page cursor");
+                }
+                cursor.versions[shard] = Long.parseLong(position[0]);
+                cursor.ids[shard] = Long.parseLong(position[1]);
+            }
+            return cursor;
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid page cursor", ex);
+        }
+    }
+
+    String encode() {
+        StringBuilder raw = new StringBuilder(PREFIX);
+        for (int shard = 0; shard < versions.length; shard++) {
+            if (shard > 0) {
+                raw.append(',');
+            }
+            raw.append(versions[shard]).append(':').append(ids[shard]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    int shardCount() {
+        return versions.length;
+    }
+
+    long version(int shard) {
+        return versions[shard];
+    }
+
+    long id(int shard) {
+        return ids[shard];
+    }
+
+    // A copy moved to (version, id) on the shard
+    ChangeCursor with(int shard, long version, long id) {
+        ChangeCursor moved = new ChangeCursor(versions.clone(), ids.clone());
+        moved.versions[shard] = version;
+        moved.ids[shard] = id;
+        return moved;
+    }
+}
@@ -0,0 +1,531 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import com.rapidfacto.rapidfacto.Property;
+import com.rapidfacto.rapidfacto.PropertyRepository;
+import com.rapidfacto.rapidfacto.dto.ChangeFeedPage;
+import com.rapidfacto.rapidfacto.dto.PropertyChange;
+import com.rapidfacto.rapidfacto.dto.PropertyMapper;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.event.PropertiesImportedEvent;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
+import com.rapidfacto.rapidfacto.replica.ReadRouting;
+import com.rapidfacto.rapidfacto.shard.ShardTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Property creates, updates and deletes after a cursor: recent ones from an in-memory ChangeLog per shard, older
+// ones from the shard's database. One background thread tails every shard's change horizon (see ChangeVersions),
+// woken early by local commits and polled so that writes made through other instances arrive too; stream
+// subscribers are pushed whatever each pass adds. Nothing past a horizon is handed out, so a cursor never skips a
+// write that commits late. Shards number their changes independently: a cursor holds a position on each
+// (ChangeCursor), and pages interleave the shards by version. Changes other instances wrote are published here as
+// remote PropertyChangedEvents once read, so every instance's caches and indexes see every write.
+@Service
+public class ChangeFeed implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+    private static final int MAX_LOCAL_CHANGES = 100_000;
+    private static final long DELETED = Long.MAX_VALUE;
+
+    // Reads the shard ShardTemplate routes the calling thread to
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private PropertyTombstoneRepository propertyTombstoneRepository;
+
+    @Autowired
+    private ChangeVersions changeVersions;
+
+    @Autowired
+    private PropertyMapper propertyMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ShardTemplate shardTemplate;
+    private final ChangeLog[] changeLogs;
+    private final int maxPageSize;
+    private final Duration pollInterval;
+    private final Duration heartbeatInterval;
+    private final Duration streamTimeout;
+    private final int maxSubscribers;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ScheduledExecutorService scheduler;
+    // A thread per push, so one slow client blocks only its own stream
+    private final ExecutorService pushExecutor;
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Property id -> entity version of writes made here (DELETED for deletes) that the tail has not reached yet;
+    // those were published when they committed
+    private final Map<Long, Long> localChanges = new ConcurrentHashMap<>();
+    private final Counter logReads;
+    private final Counter databaseReads;
+
+    private volatile boolean started;
+
+    public ChangeFeed(PlatformTransactionManager transactionManager, MeterRegistry registry, ShardTemplate shardTemplate,
+                      @Value("${rapidfacto.feed.log-capacity:10000}") int logCapacity,
+                      @Value("${rapidfacto.feed.max-page-size:500}") int maxPageSize,
+                      @Value("${rapidfacto.feed.poll-interval:1s}") Duration pollInterval,
+                      @Value("${rapidfacto.feed.heartbeat-interval:15s}") Duration heartbeatInterval,
+                      @Value("${rapidfacto.feed.stream-timeout:30m}") Duration streamTimeout,
+                      @Value("${rapidfacto.feed.max-subscribers:1000}") int maxSubscribers) {
+        this.shardTemplate = shardTemplate;
+        this.changeLogs = new ChangeLog[shardTemplate.getShardCount()];
+        for (int shard = 0; shard < changeLogs.length; shard++) {
+            changeLogs[shard] = new ChangeLog(logCapacity);
+        }
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.pollInterval = pollInterval;
+        this.heartbeatInterval = heartbeatInterval;
+        this.streamTimeout = streamTimeout;
+        this.maxSubscribers = maxSubscribers;
+        // Read-only, so catch-up scans for old cursors run on a replica when replicas are configured
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pushExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("change-feed-push-", 0).factory());
+        this.logReads = Counter.builder("changefeed.reads")
+                .description("Change feed pages, by where they were read from")
+                .tag("source", "log")
+                .register(registry);
+        this.databaseReads = Counter.builder("changefeed.reads")
+                .description("Change feed pages, by where they were read from")
+                .tag("source", "database")
+                .register(registry);
+        Gauge.builder("changefeed.subscribers", subscribers, Set::size)
+                .description("Open change stream connections")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<Long> heads = horizons();
+        for (int shard = 0; shard < changeLogs.length; shard++) {
+            changeLogs[shard].reset(heads.get(shard));
+        }
+        started = true;
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly,
+                pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::heartbeat,
+                heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Change feed log starting at versions {} (capacity {} per shard)", heads, changeLogs[0].capacity());
+    }
+
+    // Local commits are noted before any index applies them, so a tail read from just before the commit is never
+    // republished over them, and picked up right away instead of at the next poll; a burst of them costs one pass
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        noteLocal(event.getPropertyId(), event.getType() == PropertyChangedEvent.Type.DELETED
+                ? DELETED : entityVersion(event.getProperty().getVersion()));
+        queueRefresh();
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertiesImported(PropertiesImportedEvent event) {
+        for (PropertyResponseDto property : event.getProperties()) {
+            noteLocal(property.getId(), entityVersion(property.getVersion()));
+        }
+        queueRefresh();
+    }
+
+    private void noteLocal(Long propertyId, long version) {
+        if (localChanges.size() >= MAX_LOCAL_CHANGES) {
+            localChanges.clear();
+        }
+        localChanges.merge(propertyId, version, Math::max);
+    }
+
+    private void queueRefresh() {
+        if (started && refreshQueued.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                refreshQueued.set(false);
+                refreshQuietly();
+            });
+        }
+    }
+
+    // Changes after the cursor, oldest first; without a cursor every live property is listed from the start
+    public ChangeFeedPage changesSince(String cursor, int limit) {
+        int size = limit < 1 ? maxPageSize : Math.min(limit, maxPageSize);
+        ChangeCursor after = decodeCursor(cursor);
+        List<List<PropertyChange>> perShard = new ArrayList<>(changeLogs.length);
+        List<Integer> fromDatabase = new ArrayList<>();
+        for (int shard = 0; shard < changeLogs.length; shard++) {
+            // Version 0 rows (written outside the service) are only in the database
+            List<PropertyChange> recent = started && after.version(shard) > 0
+                    ? changeLogs[shard].after(after.version(shard), size + 1)
+                    : null;
+            perShard.add(recent);
+            if (recent == null) {
+                fromDatabase.add(shard);
+            }
+        }
+        if (fromDatabase.isEmpty()) {
+            logReads.increment();
+        } else {
+            databaseReads.increment();
+            // Someone starting a shard from scratch has nothing of it to delete, so its tombstones are skipped
+            List<List<PropertyChange>> loaded = readOnlyTransaction.execute(status -> shardTemplate.executeOnShards(
+                    fromDatabase, shard -> load(after.version(shard), after.id(shard), size + 1,
+                            changeVersions.horizon(), after.version(shard) >= 0)));
+            for (int i = 0; i < fromDatabase.size(); i++) {
+                perShard.set(fromDatabase.get(i), loaded.get(i));
+            }
+        }
+        return toPage(perShard, size, after);
+    }
+
+    // Cursor positioned after the newest change this instance knows of on every shard
+    public String currentCursor() {
+        List<Long> heads = started ? null : horizons();
+        ChangeCursor cursor = ChangeCursor.start(changeLogs.length);
+        for (int shard = 0; shard < changeLogs.length; shard++) {
+            long head = heads == null ? changeLogs[shard].head() : heads.get(shard);
+            cursor = cursor.with(shard, head, Long.MAX_VALUE);
+        }
+        return cursor.encode();
+    }
+
+    // Push changes after the cursor (from now when there is none) as server-sent events until the client leaves
+    // or the stream times out; null when the subscriber limit is reached
+    public SseEmitter subscribe(String cursor) {
+        String from = cursor == null || cursor.isBlank() ? currentCursor() : cursor;
+        decodeCursor(from);
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, from);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(ex -> subscribers.remove(subscriber));
+        // EventSource clients reconnect on their own, resuming from the last event id
+        emitter.onTimeout(emitter::complete);
+        subscriber.wake();
+        return emitter;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        started = false;
+        // Cancels the periodic passes and lets a running one finish while the connection pool is still open
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        pushExecutor.shutdown();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException ex) {
+            log.warn("Change feed refresh failed: {}", ex.getMessage());
+        }
+    }
+
+    // Bring every shard's log up to its horizon, publish what other instances wrote and wake every subscriber if
+    // any moved
+    private void refresh() {
+        changeVersions.expireLeases();
+        long[] from = new long[changeLogs.length];
+        for (int shard = 0; shard < changeLogs.length; shard++) {
+            from[shard] = changeLogs[shard].head();
+        }
+        List<Tail> tails = ReadRouting.onPrimary(() -> readOnlyTransaction.execute(
+                status -> shardTemplate.executeOnEveryShard(shard -> readTail(changeLogs[shard], from[shard]))));
+        boolean moved = false;
+        for (int shard = 0; shard < changeLogs.length; shard++) {
+            Tail tail = tails.get(shard);
+            if (tail == null) {
+                continue;
+            }
+            if (tail.changes() == null) {
+                changeLogs[shard].reset(tail.head());
+                publishFromDatabase(shard, from[shard], tail.head());
+            } else {
+                changeLogs[shard].append(tail.changes(), tail.head());
+                publishRemote(tail.changes());
+            }
+            moved = true;
+        }
+        if (moved) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.wake();
+            }
+        }
+    }
+
+    // Outside any transaction, so the listeners run right away, indexes ahead of the response cache as for local
+    // writes. A change at or below the version written here is this instance's own (or older than it)
+    private void publishRemote(List<PropertyChange> changes) {
+        for (PropertyChange change : changes) {
+            Long local = localChanges.get(change.getId());
+            if (PropertyChange.DELETE.equals(change.getType())) {
+                if (local != null && local == DELETED) {
+                    localChanges.remove(change.getId());
+                } else {
+                    eventPublisher.publishEvent(PropertyChangedEvent.remoteDelete(change.getId()));
+                }
+                continue;
+            }
+            long version = entityVersion(change.getProperty().getVersion());
+            if (local != null && local >= version) {
+                localChanges.remove(change.getId(), version);
+            } else {
+                eventPublisher.publishEvent(PropertyChangedEvent.remoteUpsert(change.getProperty()));
+            }
+        }
+    }
+
+    // More changed than the log holds: page through them in the shard's database instead
+    private void publishFromDatabase(int shard, long from, long head) {
+        int pageSize = changeLogs[shard].capacity();
+        long version = from;
+        long id = Long.MAX_VALUE;
+        List<PropertyChange> page;
+        do {
+            long afterVersion = version;
+            long afterId = id;
+            page = ReadRouting.onPrimary(() -> readOnlyTransaction.execute(status -> shardTemplate.execute(
+                    shard, () -> load(afterVersion, afterId, pageSize, head, true))));
+            publishRemote(page);
+            if (!page.isEmpty()) {
+                version = page.getLast().getVersion();
+                id = page.getLast().getId();
+            }
+        } while (page.size() == pageSize);
+    }
+
+    private static long entityVersion(Long version) {
+        return version == null ? 0 : version;
+    }
+
+    // Horizon and rows of the current shard are read in one transaction; rows changed again since the horizon was
+    // read are left for the next pass, when they come back with their newer version
+    private Tail readTail(ChangeLog changeLog, long from) {
+        long head = changeVersions.horizon();
+        if (head <= from) {
+            return null;
+        }
+        if (head - from > changeLog.capacity()) {
+            // More than the log could hold (a large import): restart it here and serve older cursors from the database
+            return new Tail(head, null);
+        }
+        return new Tail(head, load(from, Long.MAX_VALUE, (int) (head - from), head, true));
+    }
+
+    // Every shard's horizon, read from the primaries
+    private List<Long> horizons() {
+        return ReadRouting.onPrimary(() -> readOnlyTransaction.execute(
+                status -> shardTemplate.executeOnEveryShard(shard -> changeVersions.horizon())));
+    }
+
+    // Upserts and deletes on the current shard after (version, id) in feed order, at most limit of them and none
+    // past maxVersion
+    private List<PropertyChange> load(long version, long id, int limit, long maxVersion, boolean includeDeletes) {
+        Pageable page = PageRequest.of(0, limit);
+        List<Property> properties = propertyRepository.findChangedAfter(version, id, page);
+        List<PropertyTombstone> tombstones = includeDeletes
+                ? propertyTombstoneRepository.findChangedAfter(version, id, page)
+                : List.of();
+        List<PropertyChange> changes = new ArrayList<>(Math.min(limit, properties.size() + tombstones.size()));
+        int p = 0;
+        int t = 0;
+        while (changes.size() < limit && (p < properties.size() || t < tombstones.size())) {
+            boolean takeProperty = t == tombstones.size() || (p < properties.size()
+                    && compare(properties.get(p).getChangeVersion(), properties.get(p).getId(),
+                    tombstones.get(t).getChangeVersion(), tombstones.get(t).getPropertyId()) < 0);
+            PropertyChange change;
+            if (takeProperty) {
+                Property property = properties.get(p++);
+                change = PropertyChange.upsert(property.getChangeVersion(), propertyMapper.toResponseDto(property));
+            } else {
+                PropertyTombstone tombstone = tombstones.get(t++);
+                change = PropertyChange.delete(tombstone.getChangeVersion(), tombstone.getPropertyId());
+            }
+            if (change.getVersion() > maxVersion) {
+                break;
+            }
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    private static int compare(long version, long id, long otherVersion, long otherId) {
+        int byVersion = Long.compare(version, otherVersion);
+        return byVersion != 0 ? byVersion : Long.compare(id, otherId);
+    }
+
+    // The shards' changes merged by version (ties in shard order). Each shard supplies one more than fits to know
+    // whether more follow; the cursor moves on only for the shards that contributed, so a caught-up client keeps its
+    // position
+    private static ChangeFeedPage toPage(List<List<PropertyChange>> perShard, int size, ChangeCursor after) {
+        int[] next = new int[perShard.size()];
+        List<PropertyChange> page = new ArrayList<>(size);
+        ChangeCursor cursor = after;
+        boolean hasMore = false;
+        while (true) {
+            int oldest = -1;
+            for (int shard = 0; shard < perShard.size(); shard++) {
+                if (next[shard] < perShard.get(shard).size() && (oldest < 0 || perShard.get(shard).get(next[shard]).getVersion()
+                        < perShard.get(oldest).get(next[oldest]).getVersion())) {
+                    oldest = shard;
+                }
+            }
+            if (oldest < 0) {
+                break;
+            }
+            if (page.size() == size) {
+                hasMore = true;
+                break;
+            }
+            PropertyChange change = perShard.get(oldest).get(next[oldest]++);
+            page.add(change);
+            cursor = cursor.with(oldest, change.getVersion(), change.getId());
+        }
+        return new ChangeFeedPage(compact(page), cursor.encode(), hasMore);
+    }
+
+    // A property changed several times within one page is sent once, in its latest state
+    private static List<PropertyChange> compact(List<PropertyChange> changes) {
+        Set<Long> seen = new HashSet<>();
+        List<PropertyChange> latest = new ArrayList<>(changes.size());
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            if (seen.add(changes.get(i).getId())) {
+                latest.add(changes.get(i));
+            }
+        }
+        Collections.reverse(latest);
+        return latest;
+    }
+
+    private ChangeCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ChangeCursor.start(changeLogs.length);
+        }
+        return ChangeCursor.decode(cursor, changeLogs.length);
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    private record Tail(long head, List<PropertyChange> changes) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicInteger signals = new AtomicInteger();
+        // Only touched by the drain loop, which never runs twice at once for one subscriber
+        private String cursor;
+
+        private Subscriber(SseEmitter emitter, String cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        void wake() {
+            if (signals.getAndIncrement() == 0) {
+                pushExecutor.execute(this::drain);
+            }
+        }
+
+        // Send pages until caught up; wakeups that arrive meanwhile make it go round again
+        private void drain() {
+            int missed = 1;
+            do {
+                try {
+                    ChangeFeedPage page;
+                    do {
+                        page = changesSince(cursor, maxPageSize);
+                        if (!page.getChanges().isEmpty()) {
+                            emitter.send(SseEmitter.event()
+                                    .id(page.getCursor())
+                                    .name("changes")
+                                    .data(page.getChanges(), MediaType.APPLICATION_JSON));
+                        }
+                        cursor = page.getCursor();
+                    } while (page.isHasMore());
+                } catch (IOException | RuntimeException ex) {
+                    close(ex);
+                    return;
+                }
+                missed = signals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        // Comment lines keep proxies from closing an idle stream
+        void heartbeat() {
+            pushExecutor.execute(() -> {
+                try {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | RuntimeException ex) {
+                    close(ex);
+                }
+            });
+        }
+
+        // Completing normally either way: an error dispatch would meet JSON error handlers on an event stream,
+        // and the client reconnects from its last event id regardless
+        private void close(Exception ex) {
+            subscribers.remove(this);
+            if (ex instanceof IOException) {
+                log.debug("Change stream client went away: {}", ex.getMessage());
+            } else {
+                log.warn("Change stream closed: {}", ex.getMessage());
+            }
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Change versions reserved by a writer that has not committed yet; the change feed stops short of the oldest one
+@Entity
+@Table(name = "property_change_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeLease {
+
+    @Id
+    @Column(name = "first_version")
+    private Long firstVersion;
+
+    @Column(name = "last_version", nullable = false)
+    private Long lastVersion;
+
+    @Column(name = "reserved_at", nullable = false)
+    private LocalDateTime reservedAt;
+}
@@ -0,0 +1,25 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChangeLeaseRepository extends JpaRepository<ChangeLease, Long> {
+
+    @Query("select min(l.firstVersion) from ChangeLease l")
+    Long findOldestFirstVersion();
+
+    @Query("select l.firstVersion from ChangeLease l where l.reservedAt < :cutoff")
+    List<Long> findFirstVersionsReservedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // By primary key, so only that lease's row is locked, until the calling transaction ends
+    @Modifying
+    @Query("delete from ChangeLease l where l.firstVersion = :firstVersion")
+    int deleteByFirstVersion(@Param("firstVersion") long firstVersion);
+}
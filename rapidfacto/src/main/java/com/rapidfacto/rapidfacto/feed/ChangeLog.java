@@ -0,0 +1,90 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import com.rapidfacto.rapidfacto.dto.PropertyChange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Fixed-size ring of recent changes in version order. Every change after floor() up to head() is in the ring or
+// superseded by a later entry for the same property, so any cursor at or past floor() is answered from memory.
+public class ChangeLog {
+
+    private final PropertyChange[] entries;
+    private int start;
+    private int size;
+    private long floor;
+    private long head;
+
+    public ChangeLog(int capacity) {
+        this.entries = new PropertyChange[Math.max(1, capacity)];
+    }
+
+    // Forget everything and cover only changes after version
+    public synchronized void reset(long version) {
+        Arrays.fill(entries, null);
+        start = 0;
+        size = 0;
+        floor = version;
+        head = version;
+    }
+
+    // changes must be in version order and newer than head(); versions in between that are missing were
+    // superseded by a later change to the same property or given up by a writer that rolled back, so head still
+    // moves up to newHead
+    public synchronized void append(List<PropertyChange> changes, long newHead) {
+        for (PropertyChange change : changes) {
+            if (size == entries.length) {
+                floor = entries[start].getVersion();
+                entries[start] = change;
+                start = (start + 1) % entries.length;
+            } else {
+                entries[(start + size) % entries.length] = change;
+                size++;
+            }
+        }
+        head = Math.max(head, newHead);
+    }
+
+    // Up to limit changes after version, oldest first; null when the ring no longer reaches back that far
+    public synchronized List<PropertyChange> after(long version, int limit) {
+        if (version < floor) {
+            return null;
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (at(mid).getVersion() <= version) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<PropertyChange> changes = new ArrayList<>(Math.min(limit, size - low));
+        for (int i = low; i < size && changes.size() < limit; i++) {
+            changes.add(at(i));
+        }
+        return changes;
+    }
+
+    public synchronized long floor() {
+        return floor;
+    }
+
+    public synchronized long head() {
+        return head;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    private PropertyChange at(int index) {
+        return entries[(start + index) % entries.length];
+    }
+}
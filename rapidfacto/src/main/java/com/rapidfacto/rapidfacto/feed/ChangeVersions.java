@@ -0,0 +1,136 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import com.rapidfacto.rapidfacto.replica.ReadRouting;
+import com.rapidfacto.rapidfacto.shard.ShardTemplate;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.LongFunction;
+
+// Hands out change-feed versions without holding a lock across the write. A writer reserves its versions in a short
+// transaction of its own, which bumps the counter and records a lease, then claims the lease in the transaction
+// that writes the rows, so the claim commits (or rolls back) with them. Writers commit in any order; readers only
+// trust versions up to the horizon, which stops short of the oldest lease still outstanding. Every shard numbers
+// the changes to its own rows with a counter and leases of its own, so a write commits in one transaction there.
+@Component
+public class ChangeVersions {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeVersions.class);
+
+    private static final int COUNTER_ID = 1;
+
+    @Autowired
+    private ChangeCounterRepository changeCounterRepository;
+
+    @Autowired
+    private ChangeLeaseRepository changeLeaseRepository;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    private final Duration leaseTimeout;
+
+    public ChangeVersions(@Value("${rapidfacto.feed.lease-timeout:1m}") Duration leaseTimeout) {
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    // A new counter starts past the versions already on the shard's rows: shards written before each had a counter
+    // of their own were numbered from shard 0's
+    @PostConstruct
+    public void ensureCounters() {
+        for (int shard = 0; shard < shardTemplate.getShardCount(); shard++) {
+            try {
+                shardTemplate.executeInTransaction(shard, () -> changeCounterRepository.existsById(COUNTER_ID)
+                        || changeCounterRepository.save(new ChangeCounter(COUNTER_ID, Math.max(
+                                changeCounterRepository.findHighestPropertyVersion(),
+                                changeCounterRepository.findHighestTombstoneVersion()))) != null);
+            } catch (DataIntegrityViolationException ex) {
+                // Another instance created it first
+            }
+        }
+    }
+
+    // Run work in a read-write transaction of its own on the shard, with count consecutive change versions of that
+    // shard reserved for it, passing it the first. The caller must not have a transaction open: it would hold a
+    // connection while the reservation waits for another one from the same pool.
+    public <T> T write(int shard, int count, LongFunction<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Change versions must be reserved outside any transaction");
+        }
+        long first = shardTemplate.executeInTransaction(shard, () -> reserve(count));
+        try {
+            T result = shardTemplate.executeInTransaction(shard, () -> {
+                claim(first);
+                return work.apply(first);
+            });
+            // Committed: the client's write token now covers it
+            ReadRouting.noteWrite(shard, first + count - 1);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            try {
+                release(shard, first);
+            } catch (RuntimeException releaseFailure) {
+                // Left to expire
+                ex.addSuppressed(releaseFailure);
+            }
+            throw ex;
+        }
+    }
+
+    // Last version up to which every version of the current shard has committed or been abandoned: the counter, or
+    // the version before the oldest outstanding lease. Both are read in the caller's transaction when it has one.
+    @Transactional(readOnly = true)
+    public long horizon() {
+        long head = changeCounterRepository.findById(COUNTER_ID).map(ChangeCounter::getVersion).orElse(0L);
+        Long oldestLease = changeLeaseRepository.findOldestFirstVersion();
+        return oldestLease == null ? head : Math.min(head, oldestLease - 1);
+    }
+
+    // Drop leases older than the lease timeout on every shard, left by writers that died before releasing them. One
+    // at a time by key: a lease whose writer is still running is locked, and is gone once the wait for it ends.
+    public int expireLeases() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(leaseTimeout);
+        int expired = 0;
+        for (int shard = 0; shard < shardTemplate.getShardCount(); shard++) {
+            List<Long> stale = shardTemplate.executeInTransaction(shard,
+                    () -> changeLeaseRepository.findFirstVersionsReservedBefore(cutoff));
+            for (Long first : stale) {
+                expired += shardTemplate.executeInTransaction(shard, () -> changeLeaseRepository.deleteByFirstVersion(first));
+            }
+        }
+        if (expired > 0) {
+            log.warn("Expired {} change version leases older than {}", expired, leaseTimeout);
+        }
+        return expired;
+    }
+
+    private long reserve(int count) {
+        ChangeCounter counter = changeCounterRepository.lockById(COUNTER_ID)
+                .orElseThrow(() -> new IllegalStateException("Change counter row is missing"));
+        long first = counter.getVersion() + 1;
+        counter.setVersion(counter.getVersion() + count);
+        changeLeaseRepository.save(new ChangeLease(first, first + count - 1, LocalDateTime.now()));
+        return first;
+    }
+
+    // An expired lease cannot be claimed: the write fails rather than commit under a horizon readers have passed
+    private void claim(long first) {
+        if (changeLeaseRepository.deleteByFirstVersion(first) == 0) {
+            throw new IllegalStateException("Change versions from " + first + " expired before the write started");
+        }
+    }
+
+    private void release(int shard, long first) {
+        shardTemplate.executeInTransaction(shard, () -> changeLeaseRepository.deleteByFirstVersion(first));
+    }
+}
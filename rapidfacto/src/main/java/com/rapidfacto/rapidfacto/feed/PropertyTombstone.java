@@ -0,0 +1,33 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// What remains of a deleted property, so clients syncing from an older cursor learn about the delete
+@Entity
+@Table(name = "property_tombstones", indexes = {
+    @Index(name = "idx_property_tombstones_change_version", columnList = "change_version, property_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyTombstone {
+
+    @Id
+    @Column(name = "property_id")
+    private Long propertyId;
+
+    @Column(name = "change_version", nullable = false)
+    private Long changeVersion;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
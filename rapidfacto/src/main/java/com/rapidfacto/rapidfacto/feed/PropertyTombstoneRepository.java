@@ -0,0 +1,18 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PropertyTombstoneRepository extends JpaRepository<PropertyTombstone, Long> {
+
+    // Deletes after the (version, id) position, in feed order
+    @Query("select t from PropertyTombstone t where t.changeVersion > :version "
+            + "or (t.changeVersion = :version and t.propertyId > :id) order by t.changeVersion, t.propertyId")
+    List<PropertyTombstone> findChangedAfter(@Param("version") long version, @Param("id") long id, Pageable pageable);
+}
@@ -0,0 +1,126 @@
+package com.rapidfacto.rapidfacto.limiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Concurrency limit that follows observed latency (gradient style): each window compares the window's average
+// latency with a slowly moving baseline. Near the baseline the limit grows by about its square root; as queueing
+// pushes latency past TOLERANCE times the baseline it shrinks in proportion, and failures (5xx, 429) cut it
+// multiplicatively. Admitted requests therefore stop piling up behind a slow database instead of timing out.
+public class AdaptiveLimiter {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+    private static final int BASELINE_WINDOWS = 100;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile int limit;
+    private volatile double baselineNanos;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private boolean started;
+    private long windowStart;
+    private long windowLatencySum;
+    private int windowSamples;
+    private int windowMaxInflight;
+    private boolean windowDropped;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, long windowNanos) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min-limit <= max-limit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = windowNanos;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    // Admits the request while fewer than share x limit are in flight; lower shares are turned away first
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Gives back a permit without a latency sample (e.g. the request was shed by another limiter)
+    public void cancel() {
+        inflight.decrementAndGet();
+    }
+
+    // Gives back a permit and records how the request went; nowNanos is its completion time
+    public void release(long latencyNanos, long nowNanos, boolean dropped) {
+        int inflightAtRelease = inflight.getAndDecrement();
+        sample(latencyNanos, nowNanos, inflightAtRelease, dropped);
+    }
+
+    private synchronized void sample(long latencyNanos, long nowNanos, int inflightAtRelease, boolean dropped) {
+        // Windows follow each other back to back; the first one opens when its first request started
+        if (!started) {
+            windowStart = nowNanos - latencyNanos;
+            started = true;
+        }
+        windowMaxInflight = Math.max(windowMaxInflight, inflightAtRelease);
+        if (dropped) {
+            windowDropped = true;
+        } else {
+            windowLatencySum += latencyNanos;
+            windowSamples++;
+        }
+        if (nowNanos - windowStart < windowNanos || (windowSamples < MIN_WINDOW_SAMPLES && !windowDropped)) {
+            return;
+        }
+
+        if (windowDropped) {
+            estimatedLimit *= BACKOFF;
+        } else {
+            double windowLatency = (double) windowLatencySum / windowSamples;
+            double baseline = baselineNanos == 0 ? windowLatency : baselineNanos + (windowLatency - baselineNanos) / BASELINE_WINDOWS;
+            // Load has dropped well below what the baseline learned: let it come down quickly
+            if (baseline / windowLatency > 2) {
+                baseline *= 0.95;
+            }
+            baselineNanos = baseline;
+            // Only a limit that was actually reached says anything about whether it should grow
+            if (windowMaxInflight >= estimatedLimit / 2) {
+                double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baseline / windowLatency));
+                double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+                estimatedLimit = estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING;
+            }
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        limit = (int) estimatedLimit;
+
+        windowStart = nowNanos;
+        windowLatencySum = 0;
+        windowSamples = 0;
+        windowMaxInflight = 0;
+        windowDropped = false;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    // The latency the limit is steering towards, 0 until the first window closes
+    public double getBaselineNanos() {
+        return baselineNanos;
+    }
+}
@@ -0,0 +1,51 @@
+package com.rapidfacto.rapidfacto.limiter;
+
+// Budgets requests are limited in. Each class has its own adaptive limit, and all of them also share one; a
+// class may only fill its share of the shared limit, so under pressure signup is shed first, then search, then
+// browse, and writes last
+public enum EndpointClass {
+
+    WRITE("write", 1.0),
+    BROWSE("browse", 0.9),
+    SEARCH("search", 0.75),
+    SIGNUP("signup", 0.5);
+
+    private final String tag;
+    private final double share;
+
+    EndpointClass(String tag, double share) {
+        this.tag = tag;
+        this.share = share;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public double getShare() {
+        return share;
+    }
+
+    // Null for requests that are not limited: non-API paths (actuator health included), CORS preflights, and the
+    // long-running streams (export, change stream, bulk import) whose duration reflects their size rather than load.
+    // A batch reprice is a bounded write and counts as one
+    public static EndpointClass of(String method, String uri) {
+        if (!uri.startsWith("/api/") || method.equals("OPTIONS")) {
+            return null;
+        }
+        if (uri.equals("/api/users/signup")) {
+            return SIGNUP;
+        }
+        if (uri.equals("/api/properties/export") || uri.equals("/api/properties/changes/stream")
+                || uri.equals("/api/properties/bulk")) {
+            return null;
+        }
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            return WRITE;
+        }
+        if (uri.startsWith("/api/properties/search") || uri.equals("/api/properties/facets")) {
+            return SEARCH;
+        }
+        return BROWSE;
+    }
+}
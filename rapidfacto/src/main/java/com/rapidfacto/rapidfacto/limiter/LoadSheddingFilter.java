@@ -0,0 +1,181 @@
+package com.rapidfacto.rapidfacto.limiter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Adaptive concurrency limits in front of the controllers. A request needs a permit from its endpoint class's
+// limiter and, within its class's share, from the shared one; otherwise it is answered 503 with Retry-After
+// straight away, before it can take a request thread's worth of database time. Runs just after the HTTP
+// metrics filter, so shed requests still show up in http.server.requests.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private static final String SHARED_TAG = "all";
+
+    private final boolean enabled;
+    private final Duration retryAfter;
+    private final ObjectMapper objectMapper;
+    private final AdaptiveLimiter shared;
+    private final Map<EndpointClass, AdaptiveLimiter> limiters = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> admitted = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> shed = new EnumMap<>(EndpointClass.class);
+
+    public LoadSheddingFilter(MeterRegistry registry, ObjectMapper objectMapper,
+                              @Value("${rapidfacto.limiter.enabled:true}") boolean enabled,
+                              @Value("${rapidfacto.limiter.initial-limit:20}") int initialLimit,
+                              @Value("${rapidfacto.limiter.min-limit:4}") int minLimit,
+                              @Value("${rapidfacto.limiter.max-limit:400}") int maxLimit,
+                              @Value("${rapidfacto.limiter.window:250ms}") Duration window,
+                              @Value("${rapidfacto.limiter.retry-after:1s}") Duration retryAfter) {
+        this.enabled = enabled;
+        this.retryAfter = retryAfter;
+        this.objectMapper = objectMapper;
+        this.shared = new AdaptiveLimiter(initialLimit, minLimit, maxLimit, window.toNanos());
+        registerGauges(registry, SHARED_TAG, shared);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            AdaptiveLimiter limiter = new AdaptiveLimiter(initialLimit, minLimit, maxLimit, window.toNanos());
+            limiters.put(endpointClass, limiter);
+            registerGauges(registry, endpointClass.getTag(), limiter);
+            admitted.put(endpointClass, Counter.builder("limiter.requests")
+                    .description("API requests admitted or shed with 503 by the concurrency limiter")
+                    .tag("class", endpointClass.getTag()).tag("outcome", "admitted")
+                    .register(registry));
+            shed.put(endpointClass, Counter.builder("limiter.requests")
+                    .description("API requests admitted or shed with 503 by the concurrency limiter")
+                    .tag("class", endpointClass.getTag()).tag("outcome", "shed")
+                    .register(registry));
+        }
+    }
+
+    private static void registerGauges(MeterRegistry registry, String tag, AdaptiveLimiter limiter) {
+        Gauge.builder("limiter.limit", limiter, AdaptiveLimiter::getLimit)
+                .description("Current concurrency limit")
+                .tag("class", tag)
+                .register(registry);
+        Gauge.builder("limiter.inflight", limiter, AdaptiveLimiter::getInflight)
+                .description("Requests holding a permit")
+                .tag("class", tag)
+                .register(registry);
+        Gauge.builder("limiter.latency.baseline", limiter, l -> l.getBaselineNanos() / 1e9)
+                .description("Latency the limit steers towards")
+                .tag("class", tag)
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || EndpointClass.of(request.getMethod(), request.getRequestURI()) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = EndpointClass.of(request.getMethod(), request.getRequestURI());
+        AdaptiveLimiter limiter = limiters.get(endpointClass);
+        if (!limiter.tryAcquire(1.0)) {
+            reject(endpointClass, request, response);
+            return;
+        }
+        if (!shared.tryAcquire(endpointClass.getShare())) {
+            limiter.cancel();
+            reject(endpointClass, request, response);
+            return;
+        }
+        admitted.get(endpointClass).increment();
+
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                // Signup completes on another thread: hold the permits until the response is written
+                request.getAsyncContext().addListener(new PermitReleaser(limiter, started, response));
+            } else {
+                release(limiter, started, failed || isOverloaded(response.getStatus()));
+            }
+        }
+    }
+
+    private void release(AdaptiveLimiter limiter, long started, boolean dropped) {
+        long now = System.nanoTime();
+        limiter.release(now - started, now, dropped);
+        shared.release(now - started, now, dropped);
+    }
+
+    // Server errors and 429s mean the backend is struggling, not that the request was slow to describe
+    private static boolean isOverloaded(int status) {
+        return status >= 500 || status == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private void reject(EndpointClass endpointClass, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        shed.get(endpointClass).increment();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+        // The controllers' @CrossOrigin never runs for a shed request
+        if (request.getHeader(HttpHeaders.ORIGIN) != null) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.RETRY_AFTER);
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error("Server is busy, please retry shortly"));
+    }
+
+    private final class PermitReleaser implements AsyncListener {
+
+        private final AdaptiveLimiter limiter;
+        private final long started;
+        private final HttpServletResponse response;
+        private boolean dropped;
+
+        PermitReleaser(AdaptiveLimiter limiter, long started, HttpServletResponse response) {
+            this.limiter = limiter;
+            this.started = started;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(limiter, started, dropped || isOverloaded(response.getStatus()));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            dropped = true;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            dropped = true;
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
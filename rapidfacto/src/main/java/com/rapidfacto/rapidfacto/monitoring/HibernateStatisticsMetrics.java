@@ -0,0 +1,69 @@
+package com.rapidfacto.rapidfacto.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+// Session-factory wide Hibernate statistics (needs hibernate.generate_statistics=true), plus a post-load
+// listener that feeds per-request entity loads to SqlMonitor
+@Component
+public class HibernateStatisticsMetrics implements MeterBinder {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SqlMonitor sqlMonitor;
+
+    @PostConstruct
+    void registerLoadListener() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> sqlMonitor.entityLoaded());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        counter(registry, "hibernate.statements", "JDBC statements prepared by Hibernate",
+                statistics, Statistics::getPrepareStatementCount);
+        counter(registry, "hibernate.entities.loads", "Entities loaded from the database",
+                statistics, Statistics::getEntityLoadCount);
+        // Fetches are lazy loads triggered by touching an association: the usual source of N+1 queries
+        counter(registry, "hibernate.entities.fetches", "Entities fetched lazily",
+                statistics, Statistics::getEntityFetchCount);
+        counter(registry, "hibernate.collections.fetches", "Collections fetched lazily",
+                statistics, Statistics::getCollectionFetchCount);
+        counter(registry, "hibernate.query.executions", "HQL and criteria queries executed",
+                statistics, Statistics::getQueryExecutionCount);
+        counter(registry, "hibernate.flushes", "Session flushes",
+                statistics, Statistics::getFlushCount);
+        Gauge.builder("hibernate.query.executions.max", statistics, Statistics::getQueryExecutionMaxTime)
+                .description("Slowest HQL or criteria query so far, in milliseconds")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String name, String description,
+                                Statistics statistics, ToDoubleFunction<Statistics> count) {
+        FunctionCounter.builder(name, statistics, count)
+                .description(description)
+                .register(registry);
+    }
+}
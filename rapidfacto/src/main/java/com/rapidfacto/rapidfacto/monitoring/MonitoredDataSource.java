@@ -0,0 +1,122 @@
+package com.rapidfacto.rapidfacto.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Wraps the pool so every execute* call on its statements is timed and reported to SqlMonitor.
+// Covers JPA, JdbcTemplate and actuator queries alike; everything else passes straight through.
+public class MonitoredDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final SqlMonitor sqlMonitor;
+
+    public MonitoredDataSource(DataSource target, SqlMonitor sqlMonitor) {
+        super(target);
+        this.sqlMonitor = sqlMonitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return monitored(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return monitored(super.getConnection(username, password));
+    }
+
+    // Keeps the pool's own shutdown hook working now that this wrapper is the DataSource bean
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection monitored(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, method, args, connection);
+            }
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" -> monitored(PreparedStatement.class, (Statement) result, (String) args[0]);
+                case "prepareCall" -> monitored(CallableStatement.class, (Statement) result, (String) args[0]);
+                case "createStatement" -> monitored(Statement.class, (Statement) result, null);
+                default -> result;
+            };
+        });
+    }
+
+    private <T extends Statement> T monitored(Class<T> type, Statement statement, String preparedSql) {
+        return proxy(type, new InvocationHandler() {
+            private String batchSql = preparedSql;
+            private int batchSize;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getDeclaringClass() == Object.class) {
+                    return objectMethod(proxy, method, args, statement);
+                }
+                String name = method.getName();
+                if (name.equals("addBatch")) {
+                    batchSize++;
+                    if (args != null && args.length == 1 && batchSql == null) {
+                        batchSql = (String) args[0];
+                    }
+                } else if (name.equals("clearBatch")) {
+                    batchSize = 0;
+                } else if (name.startsWith("execute")) {
+                    boolean batch = name.endsWith("Batch");
+                    String sql = !batch && args != null && args.length > 0 && args[0] instanceof String text
+                            ? text : batchSql;
+                    int statements = batch ? batchSize : 1;
+                    if (batch) {
+                        batchSize = 0;
+                    }
+                    long started = System.nanoTime();
+                    boolean success = false;
+                    try {
+                        Object result = MonitoredDataSource.invoke(statement, method, args);
+                        success = true;
+                        return result;
+                    } finally {
+                        sqlMonitor.record(sql, System.nanoTime() - started, statements, success);
+                    }
+                }
+                return MonitoredDataSource.invoke(statement, method, args);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(MonitoredDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    // Identity of the proxy itself, since callers keep connections and statements in hash-based collections
+    private static Object objectMethod(Object proxy, Method method, Object[] args, Object target) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> target.toString();
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.rapidfacto.rapidfacto.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Scopes SqlMonitor's per-request statement and entity-load counts to each API call, tagged by its URI template.
+// Work handed to other threads (async signup, streamed exports) is timed but not attributed to the request.
+@Component
+public class RequestQueryFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private SqlMonitor sqlMonitor;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlMonitor.RequestQueries queries = sqlMonitor.beginRequest(request.getMethod() + " " + request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            sqlMonitor.endRequest(queries, pattern == null ? "UNKNOWN" : pattern.toString());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.rapidfacto.rapidfacto.monitoring;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// GET /actuator/slowqueries lists the latest statements over rapidfacto.sql.slow-threshold; DELETE clears them
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Value("${rapidfacto.sql.slow-threshold:200ms}")
+    private Duration slowThreshold;
+
+    @ReadOperation
+    public Map<String, Object> slowQueries() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("thresholdMs", slowThreshold.toMillis());
+        result.put("capacity", slowQueryLog.capacity());
+        result.put("captured", slowQueryLog.captured());
+        result.put("queries", slowQueryLog.snapshot());
+        return result;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryLog.clear();
+    }
+}
@@ -0,0 +1,61 @@
+package com.rapidfacto.rapidfacto.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Fixed-size ring of the most recent slow statements; the oldest entry is overwritten once it is full
+@Component
+public class SlowQueryLog {
+
+    private final SlowQuery[] entries;
+    private int next;
+    private long captured;
+
+    public SlowQueryLog(@Value("${rapidfacto.sql.slow-log-capacity:200}") int capacity) {
+        this.entries = new SlowQuery[Math.max(1, capacity)];
+    }
+
+    // Only statements over the threshold get here, so a plain lock costs nothing on the fast path
+    public synchronized void add(SlowQuery query) {
+        entries[next] = query;
+        next = (next + 1) % entries.length;
+        captured++;
+    }
+
+    // Newest first
+    public synchronized List<SlowQuery> snapshot() {
+        List<SlowQuery> queries = new ArrayList<>(entries.length);
+        for (int i = 1; i <= entries.length; i++) {
+            SlowQuery query = entries[(next - i + entries.length) % entries.length];
+            if (query == null) {
+                break;
+            }
+            queries.add(query);
+        }
+        return queries;
+    }
+
+    // Slow statements seen since startup or the last clear, including ones already overwritten
+    public synchronized long captured() {
+        return captured;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(entries, null);
+        next = 0;
+        captured = 0;
+    }
+
+    public record SlowQuery(Instant executedAt, double durationMs, String sql, int batchSize, boolean success,
+                            String thread, String request) {
+    }
+}
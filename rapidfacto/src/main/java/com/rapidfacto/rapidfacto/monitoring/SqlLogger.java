@@ -0,0 +1,76 @@
+package com.rapidfacto.rapidfacto.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Replaces spring.jpa.show-sql: logs a sample of statements (and every slow one) from a background thread,
+// so request threads never wait on log I/O. Lines that don't fit in the queue are dropped and counted.
+@Component
+public class SqlLogger implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger("com.rapidfacto.rapidfacto.sql");
+
+    private final double sampleRate;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder dropped = new LongAdder();
+
+    public SqlLogger(MeterRegistry registry,
+                     @Value("${rapidfacto.sql.log.sample-rate:0.0}") double sampleRate,
+                     @Value("${rapidfacto.sql.log.queue-capacity:1024}") int queueCapacity) {
+        this.sampleRate = sampleRate;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "sql-log");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, pool) -> dropped.increment());
+        FunctionCounter.builder("jdbc.log.dropped", dropped, LongAdder::sum)
+                .description("SQL log lines discarded because the log queue was full")
+                .register(registry);
+    }
+
+    public void statement(String sql, long nanos, int batchSize) {
+        if (sampleRate > 0 && log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            double millis = nanos / 1_000_000.0;
+            executor.execute(() -> log.info("{} ms{} {}", format(millis), batch(batchSize), sql));
+        }
+    }
+
+    public void slowStatement(String sql, long nanos, int batchSize, String request) {
+        if (log.isWarnEnabled()) {
+            double millis = nanos / 1_000_000.0;
+            executor.execute(() -> log.warn("Slow statement: {} ms{} during {}: {}",
+                    format(millis), batch(batchSize), request == null ? "-" : request, sql));
+        }
+    }
+
+    public void repeatedStatement(String request, int executions, String sql) {
+        if (log.isWarnEnabled()) {
+            executor.execute(() -> log.warn("Possible N+1 in {}: {} executions of {}", request, executions, sql));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static String format(double millis) {
+        return String.format("%.2f", millis);
+    }
+
+    private static String batch(int batchSize) {
+        return batchSize > 1 ? " (batch of " + batchSize + ")" : "";
+    }
+}
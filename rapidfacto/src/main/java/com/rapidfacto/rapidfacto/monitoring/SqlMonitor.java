@@ -0,0 +1,179 @@
+package com.rapidfacto.rapidfacto.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Receives every JDBC statement from MonitoredDataSource: times it per operation and table, keeps the slow ones,
+// samples the SQL log, and counts statements and entity loads for the HTTP request running on this thread
+@Component
+public class SqlMonitor {
+
+    // Hibernate and JdbcTemplate only produce a bounded set of statement strings; this guards against the rest
+    private static final int MAX_CACHED_STATEMENTS = 2000;
+
+    private static final ThreadLocal<RequestQueries> CURRENT_REQUEST = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+    private final SlowQueryLog slowQueryLog;
+    private final SqlLogger sqlLogger;
+    private final long slowThresholdNanos;
+    private final int repeatThreshold;
+    private final Map<String, Timer[]> timersBySql = new ConcurrentHashMap<>();
+
+    public SqlMonitor(MeterRegistry registry, SlowQueryLog slowQueryLog, SqlLogger sqlLogger,
+                      @Value("${rapidfacto.sql.slow-threshold:200ms}") Duration slowThreshold,
+                      @Value("${rapidfacto.sql.n-plus-one-threshold:10}") int repeatThreshold) {
+        this.registry = registry;
+        this.slowQueryLog = slowQueryLog;
+        this.sqlLogger = sqlLogger;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    public void record(String sql, long nanos, int batchSize, boolean success) {
+        timers(sql)[success ? 0 : 1].record(nanos, TimeUnit.NANOSECONDS);
+
+        RequestQueries request = CURRENT_REQUEST.get();
+        if (request != null) {
+            request.statements++;
+            if (sql != null) {
+                request.executionsBySql.merge(sql, 1, Integer::sum);
+            }
+        }
+
+        if (nanos >= slowThresholdNanos) {
+            String description = request == null ? null : request.description;
+            slowQueryLog.add(new SlowQueryLog.SlowQuery(Instant.now(), nanos / 1_000_000.0, sql, batchSize, success,
+                    Thread.currentThread().getName(), description));
+            sqlLogger.slowStatement(sql, nanos, batchSize, description);
+        } else {
+            sqlLogger.statement(sql, nanos, batchSize);
+        }
+    }
+
+    public void entityLoaded() {
+        RequestQueries request = CURRENT_REQUEST.get();
+        if (request != null) {
+            request.entityLoads++;
+        }
+    }
+
+    // Statements and entity loads on this thread are attributed to the request until endRequest
+    public RequestQueries beginRequest(String description) {
+        RequestQueries request = new RequestQueries(description);
+        CURRENT_REQUEST.set(request);
+        return request;
+    }
+
+    public void endRequest(RequestQueries request, String uri) {
+        CURRENT_REQUEST.remove();
+        DistributionSummary.builder("http.server.requests.queries")
+                .description("JDBC statements executed per HTTP request")
+                .tags("uri", uri)
+                .register(registry)
+                .record(request.statements);
+        DistributionSummary.builder("http.server.requests.entity.loads")
+                .description("Hibernate entities loaded per HTTP request")
+                .tags("uri", uri)
+                .register(registry)
+                .record(request.entityLoads);
+
+        // The same statement over and over in one request is the signature of a lazy load per row
+        Map.Entry<String, Integer> mostRepeated = null;
+        for (Map.Entry<String, Integer> entry : request.executionsBySql.entrySet()) {
+            if (mostRepeated == null || entry.getValue() > mostRepeated.getValue()) {
+                mostRepeated = entry;
+            }
+        }
+        if (mostRepeated != null && mostRepeated.getValue() >= repeatThreshold) {
+            Counter.builder("jdbc.n_plus_one")
+                    .description("Requests that ran one statement at least rapidfacto.sql.n-plus-one-threshold times")
+                    .tags("uri", uri)
+                    .register(registry)
+                    .increment();
+            sqlLogger.repeatedStatement(request.description, mostRepeated.getValue(), mostRepeated.getKey());
+        }
+    }
+
+    // [success timer, error timer] for the statement's operation and table
+    private Timer[] timers(String sql) {
+        String key = sql == null ? "" : sql;
+        Timer[] timers = timersBySql.get(key);
+        if (timers == null) {
+            String operation = operation(key);
+            String table = table(key, operation);
+            timers = new Timer[]{timer(operation, table, "success"), timer(operation, table, "error")};
+            if (timersBySql.size() < MAX_CACHED_STATEMENTS) {
+                timersBySql.put(key, timers);
+            }
+        }
+        return timers;
+    }
+
+    private Timer timer(String operation, String table, String outcome) {
+        return Timer.builder("jdbc.statements")
+                .description("JDBC statement execution time, by operation and table")
+                .tags("operation", operation, "table", table, "outcome", outcome)
+                .register(registry);
+    }
+
+    static String operation(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String keyword = trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+        return switch (keyword) {
+            case "select", "insert", "update", "delete", "merge" -> keyword;
+            default -> "other";
+        };
+    }
+
+    // First table the statement reads from or writes to; good enough for Hibernate's and our own SQL
+    static String table(String sql, String operation) {
+        String lower = sql.toLowerCase(Locale.ROOT);
+        String marker = switch (operation) {
+            case "select", "delete" -> " from ";
+            case "insert", "merge" -> " into ";
+            case "update" -> "update ";
+            default -> null;
+        };
+        int at = marker == null ? -1 : lower.indexOf(marker);
+        if (at < 0) {
+            return "none";
+        }
+        int start = at + marker.length();
+        while (start < lower.length() && Character.isWhitespace(lower.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < lower.length() && (Character.isLetterOrDigit(lower.charAt(end)) || lower.charAt(end) == '_')) {
+            end++;
+        }
+        return end > start ? lower.substring(start, end) : "none";
+    }
+
+    public static final class RequestQueries {
+        private final String description;
+        private final Map<String, Integer> executionsBySql = new HashMap<>();
+        private int statements;
+        private int entityLoads;
+
+        private RequestQueries(String description) {
+            this.description = description;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.rapidfacto.rapidfacto.monitoring;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// Puts MonitoredDataSource in front of the configured pool before JPA or JdbcTemplate ever see it
+@Component
+public class SqlMonitoringPostProcessor implements BeanPostProcessor {
+
+    // Resolved lazily: post-processors are created before the beans SqlMonitor depends on
+    @Autowired
+    private ObjectProvider<SqlMonitor> sqlMonitor;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof MonitoredDataSource)) {
+            return new MonitoredDataSource(dataSource, sqlMonitor.getObject());
+        }
+        return bean;
+    }
+}
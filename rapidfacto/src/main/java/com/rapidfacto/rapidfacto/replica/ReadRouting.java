@@ -0,0 +1,73 @@
+package com.rapidfacto.rapidfacto.replica;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+// Per-thread override that sends read-only transactions to the primary instead of a replica, or only to replicas
+// that have applied shard 0's changes up to a version. Also collects the change versions a request writes, for its
+// write token. Only matters when replicas are configured; otherwise every connection comes from the primary anyway.
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+    private static final ThreadLocal<Long> REQUIRED_VERSION = new ThreadLocal<>();
+    // Shard -> last change version written; only set while ReadYourWritesFilter handles a write
+    private static final ThreadLocal<SortedMap<Integer, Long>> WRITES = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    // Run work whose reads must see every committed write, e.g. filling a shared cache right after a change
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (isPrimaryRequired()) {
+            return work.get();
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    // The shard 0 change version a replica must have applied to serve this thread's reads, or -1 for any replica
+    public static long requiredVersion() {
+        Long version = REQUIRED_VERSION.get();
+        return version == null ? -1 : version;
+    }
+
+    // Called as each write commits its change versions
+    public static void noteWrite(int shard, long lastVersion) {
+        SortedMap<Integer, Long> writes = WRITES.get();
+        if (writes != null) {
+            writes.merge(shard, lastVersion, Math::max);
+        }
+    }
+
+    static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    static void requireVersion(long version) {
+        REQUIRED_VERSION.set(version);
+    }
+
+    static void recordWrites() {
+        WRITES.set(new TreeMap<>());
+    }
+
+    static SortedMap<Integer, Long> writes() {
+        SortedMap<Integer, Long> writes = WRITES.get();
+        return writes == null ? new TreeMap<>() : writes;
+    }
+
+    static void clear() {
+        PRIMARY_REQUIRED.remove();
+        REQUIRED_VERSION.remove();
+        WRITES.remove();
+    }
+}
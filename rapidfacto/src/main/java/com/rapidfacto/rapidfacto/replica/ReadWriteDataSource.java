@@ -0,0 +1,26 @@
+package com.rapidfacto.rapidfacto.replica;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Defers fetching the physical connection until the first statement, by which time the transaction manager
+// has marked it read-only or not: read-only transactions go to the replicas, everything else to the primary
+public class ReadWriteDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private final ReplicaRoutingDataSource replicas;
+
+    public ReadWriteDataSource(DataSource primary, ReplicaRoutingDataSource replicas) {
+        super(primary);
+        this.replicas = replicas;
+        setReadOnlyDataSource(replicas);
+    }
+
+    @Override
+    public void close() throws Exception {
+        replicas.close();
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.rapidfacto.rapidfacto.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.List;
+
+// A write answers with a WriteToken header, which the client sends back with its reads. A read carrying the change
+// version of a write to shard 0 only goes to a replica that has applied it, otherwise to the primary, so a client
+// never sees a replica that has not caught up with its own change yet. A write without change versions keeps that
+// client's reads on the primary for the window instead.
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String WRITE_TOKEN = "X-Write-Token";
+
+    private final boolean replicasConfigured;
+    private final Duration window;
+
+    public ReadYourWritesFilter(@Value("${rapidfacto.datasource.replicas.urls:}") List<String> replicaUrls,
+                                @Value("${rapidfacto.datasource.read-your-writes-window:5s}") Duration window) {
+        this.replicasConfigured = replicaUrls.stream().anyMatch(url -> !url.isBlank());
+        this.window = window;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !replicasConfigured || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        try {
+            if (isWrite(request)) {
+                ReadRouting.recordWrites();
+                WriteTokenResponse tokenResponse = new WriteTokenResponse(response, now);
+                chain.doFilter(request, tokenResponse);
+                tokenResponse.addToken();
+            } else {
+                WriteToken token = WriteToken.decode(request.getHeader(WRITE_TOKEN));
+                if (token != null && token.versions().containsKey(0)) {
+                    ReadRouting.requireVersion(token.versions().get(0));
+                } else if (token != null && token.versions().isEmpty() && now - token.writtenAt() < window.toMillis()) {
+                    ReadRouting.requirePrimary();
+                }
+                chain.doFilter(request, response);
+            }
+        } finally {
+            ReadRouting.clear();
+        }
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        return switch (request.getMethod()) {
+            case "POST", "PUT", "PATCH", "DELETE" -> true;
+            default -> false;
+        };
+    }
+
+    // Sets the token just before the body is written: the handler has made its writes by then, and headers can
+    // still be set
+    private static final class WriteTokenResponse extends HttpServletResponseWrapper {
+
+        private final long writtenAt;
+        private boolean added;
+
+        private WriteTokenResponse(HttpServletResponse response, long writtenAt) {
+            super(response);
+            this.writtenAt = writtenAt;
+        }
+
+        void addToken() {
+            if (!added && !isCommitted()) {
+                setHeader(WRITE_TOKEN, new WriteToken(writtenAt, ReadRouting.writes()).encode());
+            }
+            added = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addToken();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addToken();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addToken();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            addToken();
+            super.sendError(status);
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            addToken();
+            super.sendError(status, message);
+        }
+    }
+}
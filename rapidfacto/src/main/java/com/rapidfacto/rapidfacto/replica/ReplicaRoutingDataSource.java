@@ -0,0 +1,269 @@
+package com.rapidfacto.rapidfacto.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Connections for read-only transactions: a healthy replica (the less busy of two random picks), or the primary
+// when the request needs read-your-writes, every replica is lagging or down, or a replica refuses a connection.
+// A background check measures each replica's lag and takes it out of rotation above maxLag. It also reads how far
+// each replica has applied the change versions (ChangeVersions.horizon), so a read that has to see a client's own
+// write can still use a replica that has it.
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // ChangeVersions.horizon in SQL: the counter, or the version before the oldest outstanding lease
+    private static final String HORIZON_QUERY = "SELECT c.version, (SELECT MIN(l.first_version) FROM property_change_leases l)"
+            + " FROM property_change_counter c WHERE c.id = 1";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final ScheduledExecutorService checker;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder readYourWritesReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources, Duration maxLag,
+                                    String lagQuery) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>();
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            replicas.add(new Replica("replica-" + (i + 1), replicaDataSources.get(i)));
+        }
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagQuery = lagQuery == null ? "" : lagQuery.trim();
+        this.checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Replicas stay out of rotation until their first successful check
+    public void startChecks(Duration interval) {
+        checker.scheduleWithFixedDelay(this::checkReplicas, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try {
+                double lagMillis = measureLag(replica.dataSource);
+                replica.lagMillis = lagMillis;
+                replica.horizon = measureHorizon(replica);
+                setHealthy(replica, lagMillis <= maxLagMillis, lagMillis > maxLagMillis
+                        ? String.format("lag %.0f ms exceeds %d ms", lagMillis, maxLagMillis) : null);
+            } catch (SQLException | RuntimeException ex) {
+                replica.lagMillis = Double.NaN;
+                setHealthy(replica, false, ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagMillis / 1000.0)
+                    .description("Replication lag at the last check, in seconds")
+                    .baseUnit("seconds")
+                    .tags("replica", replica.name)
+                    .register(registry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("1 while the replica receives reads, 0 while it is lagging or down")
+                    .tags("replica", replica.name)
+                    .register(registry);
+        }
+        readCounter(registry, replicaReads, "replica", "balanced");
+        readCounter(registry, readYourWritesReads, "primary", "read-your-writes");
+        readCounter(registry, fallbackReads, "primary", "no-healthy-replica");
+    }
+
+    @Override
+    public void close() throws Exception {
+        checker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Connection connect(Connector connector) throws SQLException {
+        if (ReadRouting.isPrimaryRequired()) {
+            readYourWritesReads.increment();
+            return connector.connect(primary);
+        }
+        long requiredVersion = ReadRouting.requiredVersion();
+        Replica replica = choose(requiredVersion);
+        while (replica != null) {
+            try {
+                Connection connection = connector.connect(replica.dataSource);
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException ex) {
+                setHealthy(replica, false, ex.getMessage());
+                replica = choose(requiredVersion);
+            }
+        }
+        if (requiredVersion >= 0 && anyHealthy()) {
+            readYourWritesReads.increment();
+        } else {
+            fallbackReads.increment();
+        }
+        return connector.connect(primary);
+    }
+
+    private boolean anyHealthy() {
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Power of two choices among the healthy replicas that have applied requiredVersion: cheap, and avoids piling
+    // onto a replica whose pool is already busy
+    private Replica choose(long requiredVersion) {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy && replica.horizon >= requiredVersion) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.size() <= 1) {
+            return healthy.isEmpty() ? null : healthy.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Replica first = healthy.get(random.nextInt(healthy.size()));
+        Replica second = healthy.get(random.nextInt(healthy.size()));
+        return activeConnections(first) <= activeConnections(second) ? first : second;
+    }
+
+    private static int activeConnections(Replica replica) {
+        if (replica.dataSource instanceof HikariDataSource hikari) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+        return 0;
+    }
+
+    // Lag in milliseconds. With no lag query the replica is only checked for connectivity (local stand-ins);
+    // otherwise the first Seconds_Behind_* column is used, or the first column when there is none
+    private double measureLag(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (lagQuery.isEmpty()) {
+                if (!connection.isValid(5)) {
+                    throw new SQLException("Connection is not valid");
+                }
+                return 0;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                if (!rs.next()) {
+                    throw new SQLException("Lag query returned no rows; is replication configured?");
+                }
+                Object seconds = rs.getObject(lagColumn(rs.getMetaData()));
+                if (seconds == null) {
+                    throw new SQLException("Replication is not running");
+                }
+                return Double.parseDouble(seconds.toString()) * 1000;
+            }
+        }
+    }
+
+    // -1 when the replica has no change tables yet, so only reads that need no write of their own go to it
+    private long measureHorizon(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(HORIZON_QUERY)) {
+            if (!rs.next()) {
+                return 0;
+            }
+            long head = rs.getLong(1);
+            long oldestLease = rs.getLong(2);
+            return rs.wasNull() ? head : Math.min(head, oldestLease - 1);
+        } catch (SQLException ex) {
+            if (replica.horizon >= 0) {
+                log.warn("Could not read the change horizon of {}: {}", replica.name, ex.getMessage());
+            }
+            return -1;
+        }
+    }
+
+    private static int lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            if (metaData.getColumnLabel(column).startsWith("Seconds_Behind")) {
+                return column;
+            }
+        }
+        return 1;
+    }
+
+    private void setHealthy(Replica replica, boolean healthy, String reason) {
+        if (replica.healthy != healthy) {
+            if (healthy) {
+                log.info("{} is back in rotation", replica.name);
+            } else {
+                log.warn("{} taken out of rotation: {}", replica.name, reason);
+            }
+        }
+        replica.healthy = healthy;
+    }
+
+    private static void readCounter(MeterRegistry registry, LongAdder count, String target, String reason) {
+        FunctionCounter.builder("datasource.reads", count, LongAdder::sum)
+                .description("Connections handed to read-only transactions")
+                .tags("target", target, "reason", reason)
+                .register(registry);
+    }
+
+    private interface Connector {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile double lagMillis = Double.NaN;
+        private volatile long horizon = -1;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
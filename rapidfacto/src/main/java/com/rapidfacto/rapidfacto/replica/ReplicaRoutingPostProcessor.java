@@ -0,0 +1,89 @@
+package com.rapidfacto.rapidfacto.replica;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// With rapidfacto.datasource.replicas.urls set, turns the configured pool into the primary of a ReadWriteDataSource.
+// Runs before SqlMonitoringPostProcessor, so statement monitoring still wraps the whole thing.
+@Component
+public class ReplicaRoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+    // Resolved lazily: post-processors are created before the meter registry
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${rapidfacto.datasource.replicas.urls:}")
+    private List<String> urls;
+
+    @Value("${rapidfacto.datasource.replicas.username:${spring.datasource.username:}}")
+    private String username;
+
+    @Value("${rapidfacto.datasource.replicas.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${rapidfacto.datasource.replicas.maximum-pool-size:20}")
+    private int maximumPoolSize;
+
+    // Short, so an unreachable replica fails over to the primary quickly instead of stalling reads
+    @Value("${rapidfacto.datasource.replicas.connection-timeout:2s}")
+    private Duration connectionTimeout;
+
+    @Value("${rapidfacto.datasource.replicas.max-lag:2s}")
+    private Duration maxLag;
+
+    @Value("${rapidfacto.datasource.replicas.check-interval:1s}")
+    private Duration checkInterval;
+
+    @Value("${rapidfacto.datasource.replicas.lag-query:SHOW REPLICA STATUS}")
+    private String lagQuery;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        List<String> replicaUrls = urls.stream().map(String::trim).filter(url -> !url.isEmpty()).toList();
+        if (!(bean instanceof DataSource primary) || bean instanceof ReadWriteDataSource || replicaUrls.isEmpty()) {
+            return bean;
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        List<DataSource> replicaPools = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (i + 1));
+            config.setJdbcUrl(replicaUrls.get(i));
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setReadOnly(true);
+            // Start even when a replica is down; the lag check brings it into rotation once it answers
+            config.setInitializationFailTimeout(-1);
+            if (registry != null) {
+                config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+            replicaPools.add(new HikariDataSource(config));
+        }
+        ReplicaRoutingDataSource replicas = new ReplicaRoutingDataSource(primary, replicaPools, maxLag, lagQuery);
+        if (registry != null) {
+            replicas.bindTo(registry);
+        }
+        replicas.startChecks(checkInterval);
+        return new ReadWriteDataSource(primary, replicas);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,40 @@
+package com.rapidfacto.rapidfacto.replica;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// What a client is handed after a write and sends back with its reads: when it wrote, and the last change version
+// it wrote on each shard, as "writtenAt,shard:version,...". Writes that take no change version (users, saved
+// searches) leave the versions empty.
+record WriteToken(long writtenAt, SortedMap<Integer, Long> versions) {
+
+    String encode() {
+        StringBuilder token = new StringBuilder(Long.toString(writtenAt));
+        for (Map.Entry<Integer, Long> version : versions.entrySet()) {
+            token.append(',').append(version.getKey()).append(':').append(version.getValue());
+        }
+        return token.toString();
+    }
+
+    // Null for a missing or malformed token, which reads treat as no write at all
+    static WriteToken decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = token.trim().split(",");
+            SortedMap<Integer, Long> versions = new TreeMap<>();
+            for (int i = 1; i < parts.length; i++) {
+                String[] version = parts[i].split(":", -1);
+                if (version.length != 2) {
+                    return null;
+                }
+                versions.merge(Integer.parseInt(version[0].trim()), Long.parseLong(version[1].trim()), Math::max);
+            }
+            return new WriteToken(Long.parseLong(parts[0].trim()), versions);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.rapidfacto.rapidfacto.search;
+
+import com.rapidfacto.rapidfacto.dto.PropertyFacets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Listing counts by location and price, kept current write by write. Every distinct location has a slot holding
+// its listings' prices in a sorted primitive array, so the count over any price range or histogram bucket is a
+// difference of two ranks: the cost grows with the number of locations and buckets, never with the catalogue.
+// Slots also keep plain counters for the configured bucket edges, which answer the common unbounded-price
+// histogram without touching the price arrays
+public class FacetCounts {
+
+    private static final int INITIAL_SLOT_CAPACITY = 8;
+    private static final int MAX_BUCKET_EDGES = 50;
+
+    private final Map<String, Slot> slotByKey = new HashMap<>();
+    private final List<Slot> slots = new ArrayList<>();
+    private final Map<Long, Placement> placementById = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final double[] countedEdges;
+
+    public FacetCounts(double[] countedEdges) {
+        this.countedEdges = countedEdges.clone();
+    }
+
+    public void put(long id, String location, double price) {
+        String key = normalize(location);
+        lock.writeLock().lock();
+        try {
+            Placement previous = placementById.get(id);
+            if (previous != null) {
+                if (previous.slot().key.equals(key) && previous.price() == price) {
+                    return;
+                }
+                previous.slot().remove(previous.price(), bucketOf(countedEdges, previous.price()));
+            }
+            Slot slot = slotByKey.get(key);
+            if (slot == null) {
+                slot = new Slot(key, location, countedEdges.length);
+                slotByKey.put(key, slot);
+                slots.add(slot);
+            }
+            slot.add(price, bucketOf(countedEdges, price));
+            placementById.put(id, new Placement(slot, price));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Placement previous = placementById.remove(id);
+            if (previous != null) {
+                previous.slot().remove(previous.price(), bucketOf(countedEdges, previous.price()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return placementById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Counts over listings whose location contains the keyword (all when null) and priced in [minPrice, maxPrice];
+    // cities and localities are the limit largest, the histogram has one bucket per edge
+    public PropertyFacets count(String locationKeyword, double minPrice, double maxPrice, double[] bucketEdges, int limit) {
+        String keyword = locationKeyword == null ? null : normalize(locationKeyword);
+        boolean counted = minPrice == Double.NEGATIVE_INFINITY && maxPrice == Double.POSITIVE_INFINITY
+                && Arrays.equals(bucketEdges, countedEdges);
+        lock.readLock().lock();
+        try {
+            Tally tally = new Tally(bucketEdges);
+            for (Slot slot : slots) {
+                if (slot.size == 0 || (keyword != null && !slot.key.contains(keyword))) {
+                    continue;
+                }
+                if (counted) {
+                    tally.add(slot, slot.size);
+                    for (int b = 0; b < bucketEdges.length; b++) {
+                        tally.histogram[b] += slot.bucketCounts[b];
+                    }
+                    continue;
+                }
+                int from = slot.rankBelow(minPrice);
+                int to = slot.rankAtOrBelow(maxPrice);
+                if (to <= from) {
+                    continue;
+                }
+                tally.add(slot, to - from);
+                for (int b = 0; b < bucketEdges.length; b++) {
+                    int low = Math.max(from, slot.rankBelow(bucketEdges[b]));
+                    int high = b + 1 < bucketEdges.length ? Math.min(to, slot.rankBelow(bucketEdges[b + 1])) : to;
+                    tally.histogram[b] += Math.max(0, high - low);
+                }
+            }
+            return tally.toFacets(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The same counts restricted to the given ids, for filters the per-location arrays cannot answer (title)
+    public PropertyFacets count(long[] ids, String locationKeyword, double minPrice, double maxPrice, double[] bucketEdges, int limit) {
+        String keyword = locationKeyword == null ? null : normalize(locationKeyword);
+        lock.readLock().lock();
+        try {
+            Tally tally = new Tally(bucketEdges);
+            for (long id : ids) {
+                Placement placement = placementById.get(id);
+                if (placement == null || placement.price() < minPrice || placement.price() > maxPrice
+                        || (keyword != null && !placement.slot().key.contains(keyword))) {
+                    continue;
+                }
+                tally.add(placement.slot(), 1);
+                int bucket = bucketOf(bucketEdges, placement.price());
+                if (bucket >= 0) {
+                    tally.histogram[bucket]++;
+                }
+            }
+            return tally.toFacets(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // "0, 5000000, 1e7" -> ascending bucket edges
+    public static double[] parseBucketEdges(String edges) {
+        String[] parts = edges.split(",");
+        if (parts.length > MAX_BUCKET_EDGES) {
+            throw new IllegalArgumentException("priceBuckets cannot have more than " + MAX_BUCKET_EDGES + " edges");
+        }
+        double[] parsed = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                parsed[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("priceBuckets must be ascending numbers separated by commas");
+            }
+            if (!Double.isFinite(parsed[i]) || (i > 0 && parsed[i] <= parsed[i - 1])) {
+                throw new IllegalArgumentException("priceBuckets must be ascending numbers separated by commas");
+            }
+        }
+        return parsed;
+    }
+
+    // Index of the last edge <= price, or -1 below the first edge
+    private static int bucketOf(double[] edges, double price) {
+        int bucket = Arrays.binarySearch(edges, price);
+        return bucket >= 0 ? bucket : -bucket - 2;
+    }
+
+    // Case and spacing differences ("Andheri East, Mumbai" vs "andheri east ,  mumbai") count as one location
+    static String normalize(String text) {
+        return text.trim().replaceAll("\\s*,\\s*", ", ").replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private record Placement(Slot slot, double price) {
+    }
+
+    // One distinct location: the text after the last comma is the city, the rest the locality
+    private static final class Slot {
+
+        private final String key;
+        private final String cityKey;
+        private final String city;
+        private final String locality;
+        private final long[] bucketCounts;
+        private double[] prices = new double[INITIAL_SLOT_CAPACITY];
+        private int size;
+
+        Slot(String key, String location, int buckets) {
+            this.key = key;
+            this.bucketCounts = new long[buckets];
+            String trimmed = location.trim();
+            int comma = trimmed.lastIndexOf(',');
+            String cityPart = comma < 0 ? "" : trimmed.substring(comma + 1).trim();
+            this.city = cityPart.isEmpty() ? trimmed : cityPart;
+            this.locality = cityPart.isEmpty() ? trimmed : trimmed.substring(0, comma).trim();
+            this.cityKey = normalize(city);
+        }
+
+        void add(double price, int bucket) {
+            if (bucket >= 0) {
+                bucketCounts[bucket]++;
+            }
+            int pos = rankBelow(price);
+            if (size == prices.length) {
+                prices = Arrays.copyOf(prices, prices.length * 2);
+            }
+            System.arraycopy(prices, pos, prices, pos + 1, size - pos);
+            prices[pos] = price;
+            size++;
+        }
+
+        void remove(double price, int bucket) {
+            if (bucket >= 0) {
+                bucketCounts[bucket]--;
+            }
+            int pos = rankBelow(price);
+            System.arraycopy(prices, pos + 1, prices, pos, size - pos - 1);
+            size--;
+        }
+
+        // Number of prices < price
+        int rankBelow(double price) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Number of prices <= price
+        int rankAtOrBelow(double price) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] <= price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    // Per-request accumulation; cities are merged by normalized name and shown as first seen
+    private static final class Tally {
+
+        private final double[] bucketEdges;
+        private final long[] histogram;
+        private final Map<String, PropertyFacets.CityCount> cities = new LinkedHashMap<>();
+        private final List<PropertyFacets.LocalityCount> localities = new ArrayList<>();
+        private final Map<Slot, PropertyFacets.LocalityCount> localityBySlot = new HashMap<>();
+        private long total;
+
+        Tally(double[] bucketEdges) {
+            this.bucketEdges = bucketEdges;
+            this.histogram = new long[bucketEdges.length];
+        }
+
+        void add(Slot slot, long count) {
+            total += count;
+            PropertyFacets.CityCount city = cities.computeIfAbsent(slot.cityKey, key -> new PropertyFacets.CityCount(slot.city, 0));
+            city.setCount(city.getCount() + count);
+            PropertyFacets.LocalityCount locality = localityBySlot.get(slot);
+            if (locality == null) {
+                locality = new PropertyFacets.LocalityCount(slot.locality, slot.city, 0);
+                localityBySlot.put(slot, locality);
+                localities.add(locality);
+            }
+            locality.setCount(locality.getCount() + count);
+        }
+
+        PropertyFacets toFacets(int limit) {
+            PropertyFacets facets = new PropertyFacets();
+            facets.setTotal(total);
+            List<PropertyFacets.CityCount> cityCounts = new ArrayList<>(cities.values());
+            cityCounts.sort(Comparator.comparingLong(PropertyFacets.CityCount::getCount).reversed()
+                    .thenComparing(PropertyFacets.CityCount::getCity));
+            facets.setCities(new ArrayList<>(cityCounts.subList(0, Math.min(limit, cityCounts.size()))));
+            localities.sort(Comparator.comparingLong(PropertyFacets.LocalityCount::getCount).reversed()
+                    .thenComparing(PropertyFacets.LocalityCount::getCity)
+                    .thenComparing(PropertyFacets.LocalityCount::getLocality));
+            facets.setLocalities(new ArrayList<>(localities.subList(0, Math.min(limit, localities.size()))));
+            for (int b = 0; b < bucketEdges.length; b++) {
+                Double max = b + 1 < bucketEdges.length ? bucketEdges[b + 1] : null;
+                facets.getPriceHistogram().add(new PropertyFacets.PriceBucket(bucketEdges[b], max, histogram[b]));
+            }
+            return facets;
+        }
+    }
+}
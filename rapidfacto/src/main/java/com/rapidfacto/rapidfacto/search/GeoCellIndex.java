@@ -0,0 +1,454 @@
+package com.rapidfacto.rapidfacto.search;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Listings kept sorted by the Z-order (Morton) code of their position, then id. Nearby points share code
+// prefixes, so a rectangle is covered by a handful of grid cells, each a contiguous code range: one binary
+// search and a scan per cell, over parallel primitive arrays. Each position is also stored as a unit vector,
+// so testing and ranking a candidate is arithmetic only (see GeoQuery)
+public class GeoCellIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+    // 31 bits per axis: about 2 cm of latitude per step
+    private static final int BITS = 31;
+    private static final long GRID = 1L << BITS;
+    // Upper bound on cells covering one rectangle; more cells scan less outside it but search more often
+    private static final int MAX_COVER_CELLS = 64;
+
+    private long[] codes = new long[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    private double[] zs = new double[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int size;
+
+    private LongLongMap codeById = new LongLongMap();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Replace the whole index with the given entries, sorting once instead of inserting one by one
+    public void load(long[] entryIds, double[] entryLatitudes, double[] entryLongitudes, double[] entryPrices, int count) {
+        int capacity = Math.max(count, INITIAL_CAPACITY);
+        long[] newIds = Arrays.copyOf(entryIds, capacity);
+        double[] newLatitudes = Arrays.copyOf(entryLatitudes, capacity);
+        double[] newLongitudes = Arrays.copyOf(entryLongitudes, capacity);
+        double[] newPrices = Arrays.copyOf(entryPrices, capacity);
+        long[] newCodes = new long[capacity];
+        double[] newXs = new double[capacity];
+        double[] newYs = new double[capacity];
+        double[] newZs = new double[capacity];
+        LongLongMap newCodeById = new LongLongMap(count);
+        for (int i = 0; i < count; i++) {
+            newCodes[i] = code(newLatitudes[i], newLongitudes[i]);
+            newCodeById.put(newIds[i], newCodes[i]);
+            double cosLatitude = Math.cos(Math.toRadians(newLatitudes[i]));
+            newXs[i] = cosLatitude * Math.cos(Math.toRadians(newLongitudes[i]));
+            newYs[i] = cosLatitude * Math.sin(Math.toRadians(newLongitudes[i]));
+            newZs[i] = Math.sin(Math.toRadians(newLatitudes[i]));
+        }
+        new Columns(newCodes, newIds, newLatitudes, newLongitudes, newXs, newYs, newZs, newPrices).sort(0, count - 1);
+        lock.writeLock().lock();
+        try {
+            codes = newCodes;
+            ids = newIds;
+            latitudes = newLatitudes;
+            longitudes = newLongitudes;
+            xs = newXs;
+            ys = newYs;
+            zs = newZs;
+            prices = newPrices;
+            size = count;
+            codeById = newCodeById;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(long id, double latitude, double longitude, double price) {
+        long code = code(latitude, longitude);
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        double x = cosLatitude * Math.cos(Math.toRadians(longitude));
+        double y = cosLatitude * Math.sin(Math.toRadians(longitude));
+        double z = Math.sin(Math.toRadians(latitude));
+        lock.writeLock().lock();
+        try {
+            if (codeById.containsKey(id)) {
+                long previous = codeById.get(id);
+                int pos = find(previous, id);
+                if (previous == code) {
+                    set(pos, latitude, longitude, x, y, z, price);
+                    return;
+                }
+                removeAt(pos);
+            }
+            codeById.put(id, code);
+            int pos = lowerBound(code, id);
+            if (size == ids.length) {
+                grow(ids.length + (ids.length >> 1));
+            }
+            System.arraycopy(codes, pos, codes, pos + 1, size - pos);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            System.arraycopy(latitudes, pos, latitudes, pos + 1, size - pos);
+            System.arraycopy(longitudes, pos, longitudes, pos + 1, size - pos);
+            System.arraycopy(xs, pos, xs, pos + 1, size - pos);
+            System.arraycopy(ys, pos, ys, pos + 1, size - pos);
+            System.arraycopy(zs, pos, zs, pos + 1, size - pos);
+            System.arraycopy(prices, pos, prices, pos + 1, size - pos);
+            codes[pos] = code;
+            ids[pos] = id;
+            set(pos, latitude, longitude, x, y, z, price);
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Add or replace many entries (distinct ids) at once: the batch is sorted and merged into the arrays in one pass
+    // instead of shifting the tail once per entry
+    public void putAll(long[] entryIds, double[] entryLatitudes, double[] entryLongitudes, double[] entryPrices, int count) {
+        Columns batch = new Columns(new long[count], Arrays.copyOf(entryIds, count), Arrays.copyOf(entryLatitudes, count),
+                Arrays.copyOf(entryLongitudes, count), new double[count], new double[count], new double[count],
+                Arrays.copyOf(entryPrices, count));
+        for (int i = 0; i < count; i++) {
+            batch.codes[i] = code(batch.latitudes[i], batch.longitudes[i]);
+            double cosLatitude = Math.cos(Math.toRadians(batch.latitudes[i]));
+            batch.xs[i] = cosLatitude * Math.cos(Math.toRadians(batch.longitudes[i]));
+            batch.ys[i] = cosLatitude * Math.sin(Math.toRadians(batch.longitudes[i]));
+            batch.zs[i] = Math.sin(Math.toRadians(batch.latitudes[i]));
+        }
+        lock.writeLock().lock();
+        try {
+            int[] stale = new int[count];
+            int staleCount = 0;
+            int added = 0;
+            for (int i = 0; i < count; i++) {
+                long id = batch.ids[i];
+                long code = batch.codes[i];
+                if (codeById.containsKey(id)) {
+                    long previous = codeById.get(id);
+                    int pos = find(previous, id);
+                    if (previous == code) {
+                        set(pos, batch.latitudes[i], batch.longitudes[i], batch.xs[i], batch.ys[i], batch.zs[i], batch.prices[i]);
+                        continue;
+                    }
+                    stale[staleCount++] = pos;
+                }
+                codeById.put(id, code);
+                batch.copy(i, added++);
+            }
+            if (staleCount > 0) {
+                Arrays.sort(stale, 0, staleCount);
+                compact(stale, staleCount);
+            }
+            batch.sort(0, added - 1);
+            if (size + added > ids.length) {
+                grow(Math.max(size + added, ids.length + (ids.length >> 1)));
+            }
+            // Merge from the back so every entry moves once
+            int read = size - 1;
+            int write = size + added - 1;
+            for (int next = added - 1; next >= 0; write--) {
+                if (read >= 0 && compare(codes[read], ids[read], batch.codes[next], batch.ids[next]) > 0) {
+                    move(read--, write);
+                } else {
+                    codes[write] = batch.codes[next];
+                    ids[write] = batch.ids[next];
+                    set(write, batch.latitudes[next], batch.longitudes[next], batch.xs[next], batch.ys[next], batch.zs[next],
+                            batch.prices[next]);
+                    next--;
+                }
+            }
+            size += added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            if (codeById.containsKey(id)) {
+                removeAt(find(codeById.get(id), id));
+                codeById.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Offers every listing inside the query with minPrice <= price <= maxPrice to the selector
+    public void collect(GeoQuery query, double minPrice, double maxPrice, NearestSelector selector) {
+        long[] ranges = cover(query);
+        lock.readLock().lock();
+        try {
+            for (int r = 0; r < ranges.length; r += 2) {
+                long end = ranges[r + 1];
+                for (int i = lowerBound(ranges[r], Long.MIN_VALUE); i < size && codes[i] <= end; i++) {
+                    double price = prices[i];
+                    if (price < minPrice || price > maxPrice) {
+                        continue;
+                    }
+                    double squaredChord = query.match(latitudes[i], longitudes[i], xs[i], ys[i], zs[i]);
+                    if (squaredChord >= 0) {
+                        selector.offer(ids[i], squaredChord);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Sorted, merged [start, end] code ranges, flattened into pairs, that together contain every rectangle of
+    // the query: each rectangle gets the finest grid level at which it spans at most MAX_COVER_CELLS cells
+    static long[] cover(GeoQuery query) {
+        long[] starts = new long[MAX_COVER_CELLS * query.boxCount()];
+        long[] ends = new long[starts.length];
+        int count = 0;
+        for (int box = 0; box < query.boxCount(); box++) {
+            long minX = x(query.minLongitude(box));
+            long maxX = x(query.maxLongitude(box));
+            long minY = y(query.minLatitude(box));
+            long maxY = y(query.maxLatitude(box));
+            int shift = 0;
+            while (((maxX >> shift) - (minX >> shift) + 1) * ((maxY >> shift) - (minY >> shift) + 1) > MAX_COVER_CELLS) {
+                shift++;
+            }
+            long cellSpan = (1L << (2 * shift)) - 1;
+            for (long cellX = minX >> shift; cellX <= maxX >> shift; cellX++) {
+                for (long cellY = minY >> shift; cellY <= maxY >> shift; cellY++) {
+                    long start = interleave(cellX, cellY) << (2 * shift);
+                    // Insertion keeps the ranges sorted by start; there are only a few dozen of them
+                    int pos = count++;
+                    while (pos > 0 && starts[pos - 1] > start) {
+                        starts[pos] = starts[pos - 1];
+                        ends[pos] = ends[pos - 1];
+                        pos--;
+                    }
+                    starts[pos] = start;
+                    ends[pos] = start + cellSpan;
+                }
+            }
+        }
+        long[] merged = new long[count * 2];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            if (length > 0 && starts[i] <= merged[length - 1] + 1) {
+                merged[length - 1] = Math.max(merged[length - 1], ends[i]);
+            } else {
+                merged[length++] = starts[i];
+                merged[length++] = ends[i];
+            }
+        }
+        return Arrays.copyOf(merged, length);
+    }
+
+    static long code(double latitude, double longitude) {
+        return interleave(x(longitude), y(latitude));
+    }
+
+    private static long x(double longitude) {
+        return cell((longitude + 180) / 360);
+    }
+
+    private static long y(double latitude) {
+        return cell((latitude + 90) / 180);
+    }
+
+    private static long cell(double fraction) {
+        return Math.max(0, Math.min(GRID - 1, (long) (fraction * GRID)));
+    }
+
+    // x bits in the even positions, y bits in the odd ones
+    private static long interleave(long x, long y) {
+        return spread(x) | (spread(y) << 1);
+    }
+
+    private static long spread(long value) {
+        value &= 0xFFFFFFFFL;
+        value = (value | (value << 16)) & 0x0000FFFF0000FFFFL;
+        value = (value | (value << 8)) & 0x00FF00FF00FF00FFL;
+        value = (value | (value << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        value = (value | (value << 2)) & 0x3333333333333333L;
+        value = (value | (value << 1)) & 0x5555555555555555L;
+        return value;
+    }
+
+    // First position whose (code, id) is >= the given key
+    private int lowerBound(long code, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(codes[mid], ids[mid], code, id) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int find(long code, long id) {
+        int pos = lowerBound(code, id);
+        if (pos >= size || ids[pos] != id) {
+            throw new IllegalStateException("Geo index out of sync for id " + id);
+        }
+        return pos;
+    }
+
+    private void set(int pos, double latitude, double longitude, double x, double y, double z, double price) {
+        latitudes[pos] = latitude;
+        longitudes[pos] = longitude;
+        xs[pos] = x;
+        ys[pos] = y;
+        zs[pos] = z;
+        prices[pos] = price;
+    }
+
+    private void grow(int capacity) {
+        codes = Arrays.copyOf(codes, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        zs = Arrays.copyOf(zs, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+    }
+
+    private void move(int from, int to) {
+        codes[to] = codes[from];
+        ids[to] = ids[from];
+        set(to, latitudes[from], longitudes[from], xs[from], ys[from], zs[from], prices[from]);
+    }
+
+    // Drops the entries at the given sorted positions in one pass
+    private void compact(int[] positions, int count) {
+        int write = positions[0];
+        int next = 0;
+        for (int read = positions[0]; read < size; read++) {
+            if (next < count && read == positions[next]) {
+                next++;
+                continue;
+            }
+            move(read, write++);
+        }
+        size = write;
+    }
+
+    private void removeAt(int pos) {
+        int tail = size - pos - 1;
+        System.arraycopy(codes, pos + 1, codes, pos, tail);
+        System.arraycopy(ids, pos + 1, ids, pos, tail);
+        System.arraycopy(latitudes, pos + 1, latitudes, pos, tail);
+        System.arraycopy(longitudes, pos + 1, longitudes, pos, tail);
+        System.arraycopy(xs, pos + 1, xs, pos, tail);
+        System.arraycopy(ys, pos + 1, ys, pos, tail);
+        System.arraycopy(zs, pos + 1, zs, pos, tail);
+        System.arraycopy(prices, pos + 1, prices, pos, tail);
+        size--;
+    }
+
+    private static int compare(long codeA, long idA, long codeB, long idB) {
+        int byCode = Long.compare(codeA, codeB);
+        return byCode != 0 ? byCode : Long.compare(idA, idB);
+    }
+
+    // The parallel arrays of a load or batch, sorted together on (code, id)
+    private record Columns(long[] codes, long[] ids, double[] latitudes, double[] longitudes,
+                           double[] xs, double[] ys, double[] zs, double[] prices) {
+
+        // Quicksort; insertion sort for short runs
+        void sort(int low, int high) {
+            while (high - low > 16) {
+                int mid = (low + high) >>> 1;
+                if (compareAt(mid, low) < 0) {
+                    swap(mid, low);
+                }
+                if (compareAt(high, low) < 0) {
+                    swap(high, low);
+                }
+                if (compareAt(high, mid) < 0) {
+                    swap(high, mid);
+                }
+                long pivotCode = codes[mid];
+                long pivotId = ids[mid];
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (compare(codes[i], ids[i], pivotCode, pivotId) < 0) {
+                        i++;
+                    }
+                    while (compare(codes[j], ids[j], pivotCode, pivotId) > 0) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i++, j--);
+                    }
+                }
+                // Recurse into the smaller half, loop on the larger one to bound stack depth
+                if (j - low < high - i) {
+                    sort(low, j);
+                    low = i;
+                } else {
+                    sort(i, high);
+                    high = j;
+                }
+            }
+            for (int i = low + 1; i <= high; i++) {
+                for (int j = i; j > low && compareAt(j, j - 1) < 0; j--) {
+                    swap(j, j - 1);
+                }
+            }
+        }
+
+        void copy(int from, int to) {
+            codes[to] = codes[from];
+            ids[to] = ids[from];
+            latitudes[to] = latitudes[from];
+            longitudes[to] = longitudes[from];
+            xs[to] = xs[from];
+            ys[to] = ys[from];
+            zs[to] = zs[from];
+            prices[to] = prices[from];
+        }
+
+        private int compareAt(int a, int b) {
+            return compare(codes[a], ids[a], codes[b], ids[b]);
+        }
+
+        private void swap(int a, int b) {
+            long code = codes[a];
+            codes[a] = codes[b];
+            codes[b] = code;
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            swap(latitudes, a, b);
+            swap(longitudes, a, b);
+            swap(xs, a, b);
+            swap(ys, a, b);
+            swap(zs, a, b);
+            swap(prices, a, b);
+        }
+
+        private static void swap(double[] values, int a, int b) {
+            double value = values[a];
+            values[a] = values[b];
+            values[b] = value;
+        }
+    }
+}
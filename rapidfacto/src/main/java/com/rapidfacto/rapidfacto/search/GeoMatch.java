@@ -0,0 +1,9 @@
+package com.rapidfacto.rapidfacto.search;
+
+// One geo search hit: the listing and its squared chord from the query's centre (see GeoQuery)
+public record GeoMatch(long id, double squaredChord) {
+
+    public double distanceKm() {
+        return GeoQuery.distanceKm(squaredChord);
+    }
+}
@@ -0,0 +1,153 @@
+package com.rapidfacto.rapidfacto.search;
+
+// A radius or a bounding box on the globe, as one or two latitude/longitude rectangles (two when it crosses the
+// antimeridian) plus the exact test. Hits are ranked by the squared chord between their unit vector and the
+// centre's: it grows with great-circle distance, needs no trigonometry per point, and converts to km exactly
+public final class GeoQuery {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double latitude;
+    private final double longitude;
+    private final double centreX;
+    private final double centreY;
+    private final double centreZ;
+    // Squared chord at the radius; infinite for boxes, which are tested on their rectangles instead
+    private final double maxSquaredChord;
+    private final double[] minLatitudes;
+    private final double[] maxLatitudes;
+    private final double[] minLongitudes;
+    private final double[] maxLongitudes;
+
+    private GeoQuery(double latitude, double longitude, double maxSquaredChord, double[] minLatitudes,
+                     double[] maxLatitudes, double[] minLongitudes, double[] maxLongitudes) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        this.centreX = cosLatitude * Math.cos(Math.toRadians(longitude));
+        this.centreY = cosLatitude * Math.sin(Math.toRadians(longitude));
+        this.centreZ = Math.sin(Math.toRadians(latitude));
+        this.maxSquaredChord = maxSquaredChord;
+        this.minLatitudes = minLatitudes;
+        this.maxLatitudes = maxLatitudes;
+        this.minLongitudes = minLongitudes;
+        this.maxLongitudes = maxLongitudes;
+    }
+
+    // Everything within radiusKm of the point
+    public static GeoQuery radius(double latitude, double longitude, double radiusKm) {
+        double angle = radiusKm / EARTH_RADIUS_KM;
+        double chord = 2 * Math.sin(Math.min(angle, Math.PI) / 2);
+        double minLatitude = latitude - Math.toDegrees(angle);
+        double maxLatitude = latitude + Math.toDegrees(angle);
+        // Circles reaching over a pole span every longitude
+        if (minLatitude <= -90 || maxLatitude >= 90) {
+            return new GeoQuery(latitude, longitude, chord * chord, new double[]{Math.max(-90, minLatitude)},
+                    new double[]{Math.min(90, maxLatitude)}, new double[]{-180}, new double[]{180});
+        }
+        double deltaLongitude = Math.toDegrees(Math.asin(Math.sin(angle) / Math.cos(Math.toRadians(latitude))));
+        return wrapped(latitude, longitude, chord * chord, minLatitude, maxLatitude,
+                longitude - deltaLongitude, longitude + deltaLongitude);
+    }
+
+    // Everything inside the rectangle; minLongitude > maxLongitude means it crosses the antimeridian
+    public static GeoQuery box(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        double centreLongitude = minLongitude <= maxLongitude
+                ? (minLongitude + maxLongitude) / 2
+                : normalizeLongitude((minLongitude + maxLongitude + 360) / 2);
+        if (minLongitude > maxLongitude) {
+            maxLongitude += 360;
+        }
+        return wrapped((minLatitude + maxLatitude) / 2, centreLongitude, Double.POSITIVE_INFINITY,
+                minLatitude, maxLatitude, minLongitude, maxLongitude);
+    }
+
+    // Splits a longitude range running past +/-180 into the two rectangles either side of the antimeridian
+    private static GeoQuery wrapped(double latitude, double longitude, double maxSquaredChord, double minLatitude,
+                                    double maxLatitude, double minLongitude, double maxLongitude) {
+        if (minLongitude >= -180 && maxLongitude <= 180) {
+            return new GeoQuery(latitude, longitude, maxSquaredChord, new double[]{minLatitude},
+                    new double[]{maxLatitude}, new double[]{minLongitude}, new double[]{maxLongitude});
+        }
+        if (maxLongitude - minLongitude >= 360) {
+            return new GeoQuery(latitude, longitude, maxSquaredChord, new double[]{minLatitude},
+                    new double[]{maxLatitude}, new double[]{-180}, new double[]{180});
+        }
+        double low = minLongitude < -180 ? minLongitude + 360 : minLongitude;
+        double high = maxLongitude > 180 ? maxLongitude - 360 : maxLongitude;
+        return new GeoQuery(latitude, longitude, maxSquaredChord, new double[]{minLatitude, minLatitude},
+                new double[]{maxLatitude, maxLatitude}, new double[]{low, -180}, new double[]{180, high});
+    }
+
+    public int boxCount() {
+        return minLatitudes.length;
+    }
+
+    public double minLatitude(int box) {
+        return minLatitudes[box];
+    }
+
+    public double maxLatitude(int box) {
+        return maxLatitudes[box];
+    }
+
+    public double minLongitude(int box) {
+        return minLongitudes[box];
+    }
+
+    public double maxLongitude(int box) {
+        return maxLongitudes[box];
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    // Squared chord from the centre when the position is inside the query, otherwise -1
+    public double match(double pointLatitude, double pointLongitude) {
+        double cosLatitude = Math.cos(Math.toRadians(pointLatitude));
+        return match(pointLatitude, pointLongitude, cosLatitude * Math.cos(Math.toRadians(pointLongitude)),
+                cosLatitude * Math.sin(Math.toRadians(pointLongitude)), Math.sin(Math.toRadians(pointLatitude)));
+    }
+
+    // As above, for a point whose unit vector (x, y, z) is already known
+    public double match(double pointLatitude, double pointLongitude, double x, double y, double z) {
+        double dx = x - centreX;
+        double dy = y - centreY;
+        double dz = z - centreZ;
+        double squaredChord = dx * dx + dy * dy + dz * dz;
+        if (maxSquaredChord == Double.POSITIVE_INFINITY
+                ? !insideBoxes(pointLatitude, pointLongitude)
+                : squaredChord > maxSquaredChord) {
+            return -1;
+        }
+        return squaredChord;
+    }
+
+    public static double distanceKm(double squaredChord) {
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(squaredChord) / 2));
+    }
+
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        return distanceKm(new GeoQuery(latitude1, longitude1, Double.MAX_VALUE, new double[]{-90}, new double[]{90},
+                new double[]{-180}, new double[]{180}).match(latitude2, longitude2));
+    }
+
+    private boolean insideBoxes(double pointLatitude, double pointLongitude) {
+        for (int i = 0; i < minLatitudes.length; i++) {
+            if (pointLatitude >= minLatitudes[i] && pointLatitude <= maxLatitudes[i]
+                    && pointLongitude >= minLongitudes[i] && pointLongitude <= maxLongitudes[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double normalizeLongitude(double value) {
+        return value > 180 ? value - 360 : value;
+    }
+}
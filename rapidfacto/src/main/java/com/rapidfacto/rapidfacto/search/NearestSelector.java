@@ -0,0 +1,101 @@
+package com.rapidfacto.rapidfacto.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps the limit smallest (distance, id) pairs offered to it, skipping any at or before the cursor position;
+// a bounded max-heap on primitive arrays, so a scan over many candidates allocates nothing per candidate.
+// Distances are whatever the caller ranks by; geo searches use GeoQuery's squared chord
+public class NearestSelector {
+
+    private final int limit;
+    private final double afterDistance;
+    private final long afterId;
+    private final double[] distances;
+    private final long[] ids;
+    private int size;
+
+    public NearestSelector(int limit) {
+        this(limit, Double.NEGATIVE_INFINITY, Long.MIN_VALUE);
+    }
+
+    public NearestSelector(int limit, double afterDistance, long afterId) {
+        this.limit = limit;
+        this.afterDistance = afterDistance;
+        this.afterId = afterId;
+        this.distances = new double[limit];
+        this.ids = new long[limit];
+    }
+
+    public void offer(long id, double distance) {
+        if (compare(distance, id, afterDistance, afterId) <= 0) {
+            return;
+        }
+        if (size < limit) {
+            distances[size] = distance;
+            ids[size] = id;
+            siftUp(size++);
+        } else if (limit > 0 && compare(distance, id, distances[0], ids[0]) < 0) {
+            distances[0] = distance;
+            ids[0] = id;
+            siftDown(0, size);
+        }
+    }
+
+    // Nearest first; empties the selector
+    public List<GeoMatch> drain() {
+        GeoMatch[] sorted = new GeoMatch[size];
+        while (size > 0) {
+            sorted[size - 1] = new GeoMatch(ids[0], distances[0]);
+            size--;
+            distances[0] = distances[size];
+            ids[0] = ids[size];
+            siftDown(0, size);
+        }
+        return new ArrayList<>(List.of(sorted));
+    }
+
+    private void siftUp(int pos) {
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (compare(distances[pos], ids[pos], distances[parent], ids[parent]) <= 0) {
+                return;
+            }
+            swap(pos, parent);
+            pos = parent;
+        }
+    }
+
+    private void siftDown(int pos, int end) {
+        while (true) {
+            int largest = pos;
+            int left = 2 * pos + 1;
+            int right = left + 1;
+            if (left < end && compare(distances[left], ids[left], distances[largest], ids[largest]) > 0) {
+                largest = left;
+            }
+            if (right < end && compare(distances[right], ids[right], distances[largest], ids[largest]) > 0) {
+                largest = right;
+            }
+            if (largest == pos) {
+                return;
+            }
+            swap(pos, largest);
+            pos = largest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double distance = distances[a];
+        distances[a] = distances[b];
+        distances[b] = distance;
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+    }
+
+    private static int compare(double distanceA, long idA, double distanceB, long idB) {
+        int byDistance = Double.compare(distanceA, distanceB);
+        return byDistance != 0 ? byDistance : Long.compare(idA, idB);
+    }
+}
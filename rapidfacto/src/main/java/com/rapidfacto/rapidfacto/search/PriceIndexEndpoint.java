@@ -0,0 +1,31 @@
+package com.rapidfacto.rapidfacto.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.Access;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// GET /actuator/priceindex compares the in-memory price index with the database; POST rebuilds it. Nothing
+// authenticates actuator calls, so the rebuild is off unless management.endpoint.priceindex.access=unrestricted
+@Component
+@Endpoint(id = "priceindex", defaultAccess = Access.READ_ONLY)
+public class PriceIndexEndpoint {
+
+    @Autowired
+    private PropertyPriceIndex propertyPriceIndex;
+
+    @ReadOperation
+    public Map<String, Object> consistency() {
+        return propertyPriceIndex.checkConsistency();
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        propertyPriceIndex.rebuild();
+        return propertyPriceIndex.checkConsistency();
+    }
+}
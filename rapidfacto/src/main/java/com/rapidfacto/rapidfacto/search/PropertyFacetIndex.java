@@ -0,0 +1,176 @@
+package com.rapidfacto.rapidfacto.search;
+
+import com.rapidfacto.rapidfacto.ShardedPropertyRepository;
+import com.rapidfacto.rapidfacto.dto.PropertyFacets;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.event.PropertiesImportedEvent;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory facet counts (by city, locality and price bucket) updated on every write; disable to aggregate in the
+// repository per request instead
+@Component
+public class PropertyFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PropertyFacetIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    @Autowired
+    private ShardedPropertyRepository propertyRepository;
+
+    @Value("${rapidfacto.facet-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rapidfacto.facets.price-buckets:0,5000000,10000000,15000000}")
+    private String defaultPriceBuckets;
+
+    private volatile FacetCounts counts;
+    // One rebuild at a time
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Orders applying changes against swapping in rebuilt counts
+    private final ReentrantLock changeLock = new ReentrantLock();
+    // Changes that arrived since the running rebuild started scanning, replayed over what it loads; null otherwise
+    private List<PropertyChangedEvent> pending;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            rebuildFromDatabase();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // As in PropertyPriceIndex: the scan fills fresh counts, and changes committed behind it are applied again on top
+    // before they are swapped in, so a stale row never outlives a newer write or delete
+    private void rebuildFromDatabase() {
+        ready = false;
+        changeLock.lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            changeLock.unlock();
+        }
+        long started = System.nanoTime();
+        FacetCounts loaded = new FacetCounts(defaultBucketEdges());
+        long lastId = 0;
+        List<PropertyFacetRow> batch;
+        do {
+            batch = propertyRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE), PropertyFacetRow.class);
+            for (PropertyFacetRow row : batch) {
+                lastId = row.id();
+                loaded.put(row.id(), row.location(), row.price());
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        int replayed;
+        changeLock.lock();
+        try {
+            replayed = pending.size();
+            for (PropertyChangedEvent event : pending) {
+                apply(event, loaded);
+            }
+            counts = loaded;
+            pending = null;
+        } finally {
+            changeLock.unlock();
+        }
+        ready = true;
+        log.info("Property facet index built with {} listings in {} ms ({} changes replayed)",
+                loaded.size(), (System.nanoTime() - started) / 1_000_000, replayed);
+    }
+
+    // Ahead of the response cache, which moves to a new catalogue version once indexes reflect the write, and just
+    // behind the change feed noting it as local
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        changeLock.lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            apply(event, counts);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertiesImported(PropertiesImportedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        changeLock.lock();
+        try {
+            for (PropertyResponseDto property : event.getProperties()) {
+                PropertyChangedEvent created = PropertyChangedEvent.created(property);
+                if (pending != null) {
+                    pending.add(created);
+                }
+                apply(created, counts);
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    // Before the first rebuild there are no counts yet; the rebuild replays the change instead
+    private static void apply(PropertyChangedEvent event, FacetCounts counts) {
+        if (counts == null) {
+            return;
+        }
+        PropertyResponseDto property = event.getProperty();
+        if (property == null) {
+            counts.remove(event.getPropertyId());
+        } else {
+            counts.put(event.getPropertyId(), property.getLocation(), property.getPrice());
+        }
+    }
+
+    // True when reads should be answered from memory rather than the repository
+    public boolean isServing() {
+        return enabled && ready;
+    }
+
+    // Histogram edges used when a request does not give its own
+    public double[] defaultBucketEdges() {
+        return FacetCounts.parseBucketEdges(defaultPriceBuckets);
+    }
+
+    public int size() {
+        return counts == null ? 0 : counts.size();
+    }
+
+    public PropertyFacets count(String locationKeyword, double minPrice, double maxPrice, double[] bucketEdges, int limit) {
+        return counts.count(locationKeyword, minPrice, maxPrice, bucketEdges, limit);
+    }
+
+    public PropertyFacets count(long[] ids, String locationKeyword, double minPrice, double maxPrice, double[] bucketEdges, int limit) {
+        return counts.count(ids, locationKeyword, minPrice, maxPrice, bucketEdges, limit);
+    }
+}
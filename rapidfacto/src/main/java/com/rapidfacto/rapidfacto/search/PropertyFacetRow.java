@@ -0,0 +1,5 @@
+package com.rapidfacto.rapidfacto.search;
+
+// The columns facet counts are kept over, loaded without hydrating full entities
+public record PropertyFacetRow(Long id, String location, Double price) {
+}
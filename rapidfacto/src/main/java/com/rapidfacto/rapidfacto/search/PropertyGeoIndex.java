@@ -0,0 +1,193 @@
+package com.rapidfacto.rapidfacto.search;
+
+import com.rapidfacto.rapidfacto.ShardedPropertyRepository;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.event.PropertiesImportedEvent;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory spatial index of listing positions serving radius and bounding-box searches; disable to fall back
+// to the repository
+@Component
+public class PropertyGeoIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PropertyGeoIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    @Autowired
+    private ShardedPropertyRepository propertyRepository;
+
+    @Value("${rapidfacto.geo-index.enabled:true}")
+    private boolean enabled;
+
+    private final GeoCellIndex index = new GeoCellIndex();
+    // One rebuild at a time
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Orders applying changes against swapping in a rebuilt index
+    private final ReentrantLock changeLock = new ReentrantLock();
+    // Changes that arrived since the running rebuild started scanning, replayed over what it loads; null otherwise
+    private List<PropertyChangedEvent> pending;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            rebuildFromDatabase();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // As in PropertyPriceIndex: changes committed behind the scan are kept and applied again on top of the load
+    private void rebuildFromDatabase() {
+        ready = false;
+        changeLock.lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            changeLock.unlock();
+        }
+        long started = System.nanoTime();
+        long[] ids = new long[REBUILD_BATCH_SIZE];
+        double[] latitudes = new double[REBUILD_BATCH_SIZE];
+        double[] longitudes = new double[REBUILD_BATCH_SIZE];
+        double[] prices = new double[REBUILD_BATCH_SIZE];
+        int count = 0;
+        long lastId = 0;
+        List<PropertyGeoPoint> batch;
+        do {
+            batch = propertyRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE), PropertyGeoPoint.class);
+            if (count + batch.size() > ids.length) {
+                int capacity = Math.max(count + batch.size(), ids.length * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+            }
+            for (PropertyGeoPoint point : batch) {
+                lastId = point.id();
+                if (point.latitude() == null || point.longitude() == null) {
+                    continue;
+                }
+                ids[count] = point.id();
+                latitudes[count] = point.latitude();
+                longitudes[count] = point.longitude();
+                prices[count] = point.price();
+                count++;
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        int replayed;
+        changeLock.lock();
+        try {
+            index.load(ids, latitudes, longitudes, prices, count);
+            replayed = pending.size();
+            for (PropertyChangedEvent event : pending) {
+                apply(event);
+            }
+            pending = null;
+        } finally {
+            changeLock.unlock();
+        }
+        ready = true;
+        log.info("Property geo index built with {} positioned listings in {} ms ({} changes replayed)",
+                count, (System.nanoTime() - started) / 1_000_000, replayed);
+    }
+
+    // Ahead of the response cache, which moves to a new catalogue version once indexes reflect the write, and just
+    // behind the change feed noting it as local
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        changeLock.lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            apply(event);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertiesImported(PropertiesImportedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<PropertyResponseDto> properties = event.getProperties();
+        long[] ids = new long[properties.size()];
+        double[] latitudes = new double[ids.length];
+        double[] longitudes = new double[ids.length];
+        double[] prices = new double[ids.length];
+        int count = 0;
+        for (PropertyResponseDto property : properties) {
+            if (property.getLatitude() == null || property.getLongitude() == null) {
+                continue;
+            }
+            ids[count] = property.getId();
+            latitudes[count] = property.getLatitude();
+            longitudes[count] = property.getLongitude();
+            prices[count] = property.getPrice();
+            count++;
+        }
+        changeLock.lock();
+        try {
+            if (pending != null) {
+                for (PropertyResponseDto property : properties) {
+                    pending.add(PropertyChangedEvent.created(property));
+                }
+            }
+            // Imported listings are new, so one without a position has nothing to remove
+            index.putAll(ids, latitudes, longitudes, prices, count);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    private void apply(PropertyChangedEvent event) {
+        PropertyResponseDto property = event.getProperty();
+        if (property == null || property.getLatitude() == null || property.getLongitude() == null) {
+            index.remove(event.getPropertyId());
+        } else {
+            index.put(event.getPropertyId(), property.getLatitude(), property.getLongitude(), property.getPrice());
+        }
+    }
+
+    // True when reads should be answered from memory rather than the repository
+    public boolean isServing() {
+        return enabled && ready;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public void collect(GeoQuery query, double minPrice, double maxPrice, NearestSelector selector) {
+        index.collect(query, minPrice, maxPrice, selector);
+    }
+}
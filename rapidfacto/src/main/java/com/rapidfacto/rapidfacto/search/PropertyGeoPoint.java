@@ -0,0 +1,5 @@
+package com.rapidfacto.rapidfacto.search;
+
+// Position and price of one listing, for building the geo index and ranking database fallbacks
+public record PropertyGeoPoint(Long id, Double latitude, Double longitude, Double price) {
+}
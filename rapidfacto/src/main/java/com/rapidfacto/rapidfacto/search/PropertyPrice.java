@@ -0,0 +1,5 @@
+package com.rapidfacto.rapidfacto.search;
+
+// Two-column projection used to load the price index without hydrating full entities
+public record PropertyPrice(Long id, Double price) {
+}
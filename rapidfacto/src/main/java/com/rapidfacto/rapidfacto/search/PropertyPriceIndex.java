@@ -0,0 +1,228 @@
+package com.rapidfacto.rapidfacto.search;
+
+import com.rapidfacto.rapidfacto.ShardedPropertyRepository;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.event.PropertiesImportedEvent;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory (price, id) index serving price ranges and price-sorted pages; disable to fall back to the repository
+@Component
+public class PropertyPriceIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PropertyPriceIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 5000;
+    private static final int MAX_REPORTED_IDS = 20;
+
+    @Autowired
+    private ShardedPropertyRepository propertyRepository;
+
+    @Value("${rapidfacto.price-index.enabled:true}")
+    private boolean enabled;
+
+    private final SortedPriceIndex index = new SortedPriceIndex();
+    // One rebuild at a time
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Orders applying changes against swapping in a rebuilt index
+    private final ReentrantLock changeLock = new ReentrantLock();
+    // Changes that arrived since the running rebuild started scanning, replayed over what it loads; null otherwise
+    private List<PropertyChangedEvent> pending;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            rebuildFromDatabase();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // The scan is not one snapshot: a change committed after it passed a row would be lost when the loaded index
+    // replaces the live one, so changes are kept from the start and applied again, in order, on top of the load
+    private void rebuildFromDatabase() {
+        ready = false;
+        changeLock.lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            changeLock.unlock();
+        }
+        long started = System.nanoTime();
+        long[] ids = new long[REBUILD_BATCH_SIZE];
+        double[] prices = new double[REBUILD_BATCH_SIZE];
+        int count = 0;
+        long lastId = 0;
+        List<PropertyPrice> batch;
+        do {
+            batch = propertyRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE), PropertyPrice.class);
+            if (count + batch.size() > ids.length) {
+                int capacity = Math.max(count + batch.size(), ids.length * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+            }
+            for (PropertyPrice entry : batch) {
+                ids[count] = entry.id();
+                prices[count] = entry.price();
+                count++;
+                lastId = entry.id();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        int replayed;
+        changeLock.lock();
+        try {
+            index.load(ids, prices, count);
+            replayed = pending.size();
+            for (PropertyChangedEvent event : pending) {
+                apply(event);
+            }
+            pending = null;
+        } finally {
+            changeLock.unlock();
+        }
+        ready = true;
+        log.info("Property price index built with {} listings in {} ms ({} changes replayed)",
+                count, (System.nanoTime() - started) / 1_000_000, replayed);
+    }
+
+    // Ahead of the response cache, which moves to a new catalogue version once indexes reflect the write, and just
+    // behind the change feed noting it as local
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        changeLock.lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            apply(event);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertiesImported(PropertiesImportedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<PropertyResponseDto> properties = event.getProperties();
+        long[] ids = new long[properties.size()];
+        double[] prices = new double[properties.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = properties.get(i).getId();
+            prices[i] = properties.get(i).getPrice();
+        }
+        changeLock.lock();
+        try {
+            if (pending != null) {
+                for (PropertyResponseDto property : properties) {
+                    pending.add(PropertyChangedEvent.created(property));
+                }
+            }
+            index.putAll(ids, prices, ids.length);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    private void apply(PropertyChangedEvent event) {
+        if (event.getType() == PropertyChangedEvent.Type.DELETED) {
+            index.remove(event.getPropertyId());
+        } else {
+            index.put(event.getPropertyId(), event.getProperty().getPrice());
+        }
+    }
+
+    // True when reads should be answered from memory rather than the repository
+    public boolean isServing() {
+        return enabled && ready;
+    }
+
+    public long[] range(double minPrice, double maxPrice, int limit) {
+        return index.range(minPrice, maxPrice, limit);
+    }
+
+    public long[] ascendingAfter(Double price, Long id, int limit) {
+        return index.ascendingAfter(price, id, limit);
+    }
+
+    public long[] descendingAfter(Double price, Long id, int limit) {
+        return index.descendingAfter(price, id, limit);
+    }
+
+    // Walk the table in id order and compare every (id, price) with the index
+    public Map<String, Object> checkConsistency() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("enabled", enabled);
+        report.put("ready", ready);
+        if (!isServing()) {
+            return report;
+        }
+        List<Long> missing = new ArrayList<>();
+        List<Long> mismatched = new ArrayList<>();
+        int missingCount = 0;
+        int mismatchedCount = 0;
+        int databaseCount = 0;
+        long lastId = 0;
+        List<PropertyPrice> batch;
+        do {
+            batch = propertyRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE), PropertyPrice.class);
+            for (PropertyPrice entry : batch) {
+                databaseCount++;
+                lastId = entry.id();
+                Double indexed = index.priceOf(entry.id());
+                if (indexed == null) {
+                    missingCount++;
+                    addSample(missing, entry.id());
+                } else if (!indexed.equals(entry.price())) {
+                    mismatchedCount++;
+                    addSample(mismatched, entry.id());
+                }
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        int indexedCount = index.size();
+        report.put("indexed", indexedCount);
+        report.put("database", databaseCount);
+        report.put("missing", missingCount);
+        report.put("mismatched", mismatchedCount);
+        report.put("stale", Math.max(0, indexedCount - (databaseCount - missingCount)));
+        report.put("missingIds", missing);
+        report.put("mismatchedIds", mismatched);
+        report.put("consistent", missingCount == 0 && mismatchedCount == 0 && indexedCount == databaseCount);
+        return report;
+    }
+
+    private static void addSample(List<Long> sample, Long id) {
+        if (sample.size() < MAX_REPORTED_IDS) {
+            sample.add(id);
+        }
+    }
+}
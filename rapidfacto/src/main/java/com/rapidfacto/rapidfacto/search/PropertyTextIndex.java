@@ -0,0 +1,151 @@
+package com.rapidfacto.rapidfacto.search;
+
+import com.rapidfacto.rapidfacto.Property;
+import com.rapidfacto.rapidfacto.ShardedPropertyRepository;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.event.PropertiesImportedEvent;
+import com.rapidfacto.rapidfacto.event.PropertyChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory title/location search, built once at startup and kept current from PropertyService writes
+@Component
+public class PropertyTextIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PropertyTextIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ShardedPropertyRepository propertyRepository;
+
+    private volatile TrigramIndex titleIndex = new TrigramIndex();
+    private volatile TrigramIndex locationIndex = new TrigramIndex();
+    // One rebuild at a time
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Orders applying changes against swapping in the rebuilt indexes
+    private final ReentrantLock changeLock = new ReentrantLock();
+    // Changes that arrived since the running rebuild started scanning, replayed over what it loads; null otherwise
+    private List<PropertyChangedEvent> pending;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildFromDatabase();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // As in PropertyPriceIndex: the scan fills fresh indexes, and changes committed behind it are applied again on
+    // top before they are swapped in, so a stale row never outlives a newer write or delete
+    private void rebuildFromDatabase() {
+        ready = false;
+        changeLock.lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            changeLock.unlock();
+        }
+        long started = System.nanoTime();
+        TrigramIndex titles = new TrigramIndex();
+        TrigramIndex locations = new TrigramIndex();
+        long lastId = 0;
+        List<Property> batch;
+        do {
+            batch = propertyRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE), Property.class);
+            for (Property property : batch) {
+                titles.put(property.getId(), property.getTitle());
+                locations.put(property.getId(), property.getLocation());
+                lastId = property.getId();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        int replayed;
+        changeLock.lock();
+        try {
+            replayed = pending.size();
+            for (PropertyChangedEvent event : pending) {
+                apply(event, titles, locations);
+            }
+            titleIndex = titles;
+            locationIndex = locations;
+            pending = null;
+        } finally {
+            changeLock.unlock();
+        }
+        ready = true;
+        log.info("Property text index built with {} listings in {} ms ({} changes replayed)",
+                titles.size(), (System.nanoTime() - started) / 1_000_000, replayed);
+    }
+
+    // Ahead of the response cache, which moves to a new catalogue version once indexes reflect the write, and just
+    // behind the change feed noting it as local
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        changeLock.lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            apply(event, titleIndex, locationIndex);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertiesImported(PropertiesImportedEvent event) {
+        changeLock.lock();
+        try {
+            for (PropertyResponseDto property : event.getProperties()) {
+                PropertyChangedEvent created = PropertyChangedEvent.created(property);
+                if (pending != null) {
+                    pending.add(created);
+                }
+                apply(created, titleIndex, locationIndex);
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    private static void apply(PropertyChangedEvent event, TrigramIndex titles, TrigramIndex locations) {
+        if (event.getType() == PropertyChangedEvent.Type.DELETED) {
+            titles.remove(event.getPropertyId());
+            locations.remove(event.getPropertyId());
+            return;
+        }
+        PropertyResponseDto property = event.getProperty();
+        titles.put(property.getId(), property.getTitle());
+        locations.put(property.getId(), property.getLocation());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long[] searchTitle(String query, int limit) {
+        return titleIndex.search(query, limit);
+    }
+
+    public long[] searchLocation(String query, int limit) {
+        return locationIndex.search(query, limit);
+    }
+}
@@ -0,0 +1,309 @@
+package com.rapidfacto.rapidfacto.search;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Parallel primitive arrays of (price, id) kept sorted by price then id; lookups are binary searches, pages are slices
+public class SortedPriceIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int size;
+
+    // Price bits by id
+    private LongLongMap priceById = new LongLongMap();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Replace the whole index with the given entries, sorting once instead of inserting one by one
+    public void load(long[] entryIds, double[] entryPrices, int count) {
+        long[] newIds = Arrays.copyOf(entryIds, Math.max(count, INITIAL_CAPACITY));
+        double[] newPrices = Arrays.copyOf(entryPrices, Math.max(count, INITIAL_CAPACITY));
+        sort(newPrices, newIds, 0, count - 1);
+        LongLongMap newPriceById = new LongLongMap(count);
+        for (int i = 0; i < count; i++) {
+            newPriceById.put(newIds[i], Double.doubleToRawLongBits(newPrices[i]));
+        }
+        lock.writeLock().lock();
+        try {
+            ids = newIds;
+            prices = newPrices;
+            size = count;
+            priceById = newPriceById;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(long id, double price) {
+        lock.writeLock().lock();
+        try {
+            if (priceById.containsKey(id)) {
+                double previous = Double.longBitsToDouble(priceById.get(id));
+                if (previous == price) {
+                    return;
+                }
+                removeAt(find(previous, id));
+            }
+            priceById.put(id, Double.doubleToRawLongBits(price));
+            int pos = lowerBound(price, id);
+            if (size == ids.length) {
+                int capacity = ids.length + (ids.length >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            System.arraycopy(prices, pos, prices, pos + 1, size - pos);
+            ids[pos] = id;
+            prices[pos] = price;
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Add or replace many entries (distinct ids) at once: the batch is sorted and merged into the arrays in one pass
+    // instead of shifting the tail once per entry
+    public void putAll(long[] entryIds, double[] entryPrices, int count) {
+        long[] newIds = Arrays.copyOf(entryIds, count);
+        double[] newPrices = Arrays.copyOf(entryPrices, count);
+        lock.writeLock().lock();
+        try {
+            int[] stale = new int[count];
+            int staleCount = 0;
+            int added = 0;
+            for (int i = 0; i < count; i++) {
+                long id = newIds[i];
+                double price = newPrices[i];
+                if (priceById.containsKey(id)) {
+                    double previous = Double.longBitsToDouble(priceById.get(id));
+                    if (previous == price) {
+                        continue;
+                    }
+                    stale[staleCount++] = find(previous, id);
+                }
+                priceById.put(id, Double.doubleToRawLongBits(price));
+                newIds[added] = id;
+                newPrices[added] = price;
+                added++;
+            }
+            if (staleCount > 0) {
+                Arrays.sort(stale, 0, staleCount);
+                compact(stale, staleCount);
+            }
+            sort(newPrices, newIds, 0, added - 1);
+            if (size + added > ids.length) {
+                int capacity = Math.max(size + added, ids.length + (ids.length >> 1));
+                ids = Arrays.copyOf(ids, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+            }
+            // Merge from the back so every entry moves once
+            int read = size - 1;
+            int write = size + added - 1;
+            for (int next = added - 1; next >= 0; write--) {
+                if (read >= 0 && compare(prices[read], ids[read], newPrices[next], newIds[next]) > 0) {
+                    ids[write] = ids[read];
+                    prices[write] = prices[read];
+                    read--;
+                } else {
+                    ids[write] = newIds[next];
+                    prices[write] = newPrices[next];
+                    next--;
+                }
+            }
+            size += added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            if (priceById.containsKey(id)) {
+                removeAt(find(Double.longBitsToDouble(priceById.get(id)), id));
+                priceById.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Double priceOf(long id) {
+        lock.readLock().lock();
+        try {
+            return priceById.containsKey(id) ? Double.longBitsToDouble(priceById.get(id)) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids with minPrice <= price <= maxPrice, cheapest first, at most limit of them
+    public long[] range(double minPrice, double maxPrice, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = lowerBound(minPrice, Long.MIN_VALUE);
+            int to = from;
+            while (to < size && to - from < limit && prices[to] <= maxPrice) {
+                to++;
+            }
+            return Arrays.copyOfRange(ids, from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Next ids in (price, id) ascending order strictly after the given key; a null key starts from the cheapest
+    public long[] ascendingAfter(Double price, Long id, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = price == null ? 0 : upperBound(price, id);
+            int to = (int) Math.min(size, (long) from + limit);
+            return Arrays.copyOfRange(ids, from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Next ids in (price, id) descending order strictly before the given key; a null key starts from the most expensive
+    public long[] descendingAfter(Double price, Long id, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = (price == null ? size : lowerBound(price, id)) - 1;
+            int count = Math.max(0, Math.min(from + 1, limit));
+            long[] result = new long[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = ids[from - i];
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // First position whose (price, id) is >= the given key
+    private int lowerBound(double price, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(prices[mid], ids[mid], price, id) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First position whose (price, id) is > the given key
+    private int upperBound(double price, long id) {
+        int pos = lowerBound(price, id);
+        return pos < size && prices[pos] == price && ids[pos] == id ? pos + 1 : pos;
+    }
+
+    private int find(double price, long id) {
+        int pos = lowerBound(price, id);
+        if (pos >= size || ids[pos] != id) {
+            throw new IllegalStateException("Price index out of sync for id " + id);
+        }
+        return pos;
+    }
+
+    private void removeAt(int pos) {
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        System.arraycopy(prices, pos + 1, prices, pos, size - pos - 1);
+        size--;
+    }
+
+    // Drops the entries at the given sorted positions in one pass
+    private void compact(int[] positions, int count) {
+        int write = positions[0];
+        int next = 0;
+        for (int read = positions[0]; read < size; read++) {
+            if (next < count && read == positions[next]) {
+                next++;
+                continue;
+            }
+            ids[write] = ids[read];
+            prices[write] = prices[read];
+            write++;
+        }
+        size = write;
+    }
+
+    private static int compare(double priceA, long idA, double priceB, long idB) {
+        int byPrice = Double.compare(priceA, priceB);
+        return byPrice != 0 ? byPrice : Long.compare(idA, idB);
+    }
+
+    // Quicksort of the parallel arrays on (price, id); insertion sort for short runs
+    private static void sort(double[] prices, long[] ids, int low, int high) {
+        while (high - low > 16) {
+            int mid = (low + high) >>> 1;
+            if (compare(prices[mid], ids[mid], prices[low], ids[low]) < 0) {
+                swap(prices, ids, mid, low);
+            }
+            if (compare(prices[high], ids[high], prices[low], ids[low]) < 0) {
+                swap(prices, ids, high, low);
+            }
+            if (compare(prices[high], ids[high], prices[mid], ids[mid]) < 0) {
+                swap(prices, ids, high, mid);
+            }
+            double pivotPrice = prices[mid];
+            long pivotId = ids[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(prices[i], ids[i], pivotPrice, pivotId) < 0) {
+                    i++;
+                }
+                while (compare(prices[j], ids[j], pivotPrice, pivotId) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(prices, ids, i++, j--);
+                }
+            }
+            // Recurse into the smaller half, loop on the larger one to bound stack depth
+            if (j - low < high - i) {
+                sort(prices, ids, low, j);
+                low = i;
+            } else {
+                sort(prices, ids, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            double price = prices[i];
+            long id = ids[i];
+            int j = i - 1;
+            while (j >= low && compare(prices[j], ids[j], price, id) > 0) {
+                prices[j + 1] = prices[j];
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            prices[j + 1] = price;
+            ids[j + 1] = id;
+        }
+    }
+
+    private static void swap(double[] prices, long[] ids, int a, int b) {
+        double price = prices[a];
+        prices[a] = prices[b];
+        prices[b] = price;
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+    }
+}
@@ -0,0 +1,240 @@
+package com.rapidfacto.rapidfacto.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Case-insensitive substring index over one text field: trigram -> sorted id postings, verified against the stored
+// text. Texts are padded with two NUL chars so every character starts a trigram; a 1-2 character query is then the
+// trigrams with that prefix, one range of the sorted keys. Texts are kept as UTF-8 bytes, matched as bytes: a UTF-8
+// needle only ever matches at a character boundary
+public class TrigramIndex {
+
+    private static final Comparator<Hit> RANKING = Comparator
+            .comparingInt(Hit::score)
+            .thenComparing(Comparator.comparingInt(Hit::length).reversed())
+            .thenComparing(Comparator.comparingLong(Hit::id).reversed());
+
+    // Keyed by trigram, see key; sorted so a prefix is a key range
+    private final NavigableMap<Long, LongPostings> postings = new TreeMap<>();
+    private final Map<Long, byte[]> documents = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Add or replace the text indexed for an id
+    public void put(long id, String text) {
+        String normalized = normalize(text);
+        byte[] bytes = normalized.getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            byte[] previous = documents.put(id, bytes);
+            if (Arrays.equals(bytes, previous)) {
+                return;
+            }
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            for (long gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, key -> new LongPostings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            byte[] previous = documents.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids whose text contains the query, best matches first, at most limit of them
+    public long[] search(String query, int limit) {
+        String needle = normalize(query);
+        if (needle.isEmpty() || limit < 1) {
+            return new long[0];
+        }
+        byte[] needleBytes = needle.getBytes(StandardCharsets.UTF_8);
+        lock.readLock().lock();
+        try {
+            long[] candidates = candidates(needle);
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(limit, Math.max(candidates.length, 1)) + 1, RANKING);
+            for (long id : candidates) {
+                byte[] text = documents.get(id);
+                int position = indexOf(text, needleBytes);
+                if (position < 0) {
+                    continue;
+                }
+                top.offer(new Hit(id, score(text, needleBytes, position), text.length));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            long[] ranked = new long[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = top.poll().id();
+            }
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Exact match > prefix > word start > anywhere, earlier matches ahead of later ones. Any non-ASCII character
+    // before the match counts as a letter
+    private static int score(byte[] text, byte[] needle, int position) {
+        if (position == 0) {
+            return text.length == needle.length ? 4000 : 3000;
+        }
+        byte before = text[position - 1];
+        int base = before < 0 || Character.isLetterOrDigit(before) ? 1000 : 2000;
+        return base - Math.min(position, 999);
+    }
+
+    private static int indexOf(byte[] text, byte[] needle) {
+        outer:
+        for (int i = 0; i <= text.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (text[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private long[] candidates(String needle) {
+        if (needle.length() < 3) {
+            return prefixed(needle);
+        }
+        long[] grams = trigrams(needle);
+        List<LongPostings> lists = new ArrayList<>(grams.length);
+        for (long gram : grams) {
+            LongPostings list = postings.get(gram);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(LongPostings::size));
+        long[] candidates = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = lists.get(i).retainAll(candidates);
+        }
+        return candidates;
+    }
+
+    // Union of the postings of every trigram starting with the 1-2 character prefix
+    private long[] prefixed(String prefix) {
+        long from = key(padded(prefix), 0, 3);
+        long to = from | ((1L << (16 * (3 - prefix.length()))) - 1);
+        long[] ids = new long[0];
+        int count = 0;
+        for (LongPostings list : postings.subMap(from, true, to, true).values()) {
+            long[] more = list.toArray();
+            if (count + more.length > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(count + more.length, 2 * ids.length));
+            }
+            System.arraycopy(more, 0, ids, count, more.length);
+            count += more.length;
+        }
+        return distinctSorted(Arrays.copyOf(ids, count));
+    }
+
+    private void unindex(long id, byte[] text) {
+        for (long gram : grams(new String(text, StandardCharsets.UTF_8))) {
+            LongPostings list = postings.get(gram);
+            if (list != null && list.remove(id) && list.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    // Distinct trigrams of text
+    static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = key(text, i, 3);
+        }
+        return distinctSorted(grams);
+    }
+
+    // Distinct trigrams of the padded text, one starting at each character
+    private static long[] grams(String text) {
+        return text.isEmpty() ? new long[0] : trigrams(padded(text));
+    }
+
+    private static String padded(String text) {
+        return text + "\0\0";
+    }
+
+    // Up to three 16-bit chars packed into one long, tagged with how many
+    private static long key(String text, int from, int length) {
+        long key = length;
+        for (int i = from; i < from + length; i++) {
+            key = (key << 16) | text.charAt(i);
+        }
+        return key;
+    }
+
+    private static long[] distinctSorted(long[] values) {
+        if (values.length < 2) {
+            return values;
+        }
+        Arrays.sort(values);
+        int count = 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != values[count - 1]) {
+                values[count++] = values[i];
+            }
+        }
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    private record Hit(long id, int score, int length) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.rapidfacto.rapidfacto.security;
+
+import com.rapidfacto.rapidfacto.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// BCrypt on its own small pool with a bounded queue, so hashing bursts cannot take over the request threads
+@Component
+public class PasswordHasher implements DisposableBean {
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+    private final LongAdder rejected = new LongAdder();
+    private final Timer hashTimer;
+    private final Timer queueTimer;
+
+    public PasswordHasher(MeterRegistry registry,
+                          @Value("${rapidfacto.password.bcrypt-strength:10}") int strength,
+                          @Value("${rapidfacto.password.hash-threads:0}") int threads,
+                          @Value("${rapidfacto.password.queue-capacity:64}") int queueCapacity,
+                          @Value("${rapidfacto.password.retry-after:1s}") Duration retryAfter) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.retryAfter = retryAfter;
+        // Hashing is pure CPU: more threads than cores only adds context switching
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads(), new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = Timer.builder("password.hash")
+                .description("Time spent computing BCrypt hashes")
+                .register(registry);
+        this.queueTimer = Timer.builder("password.hash.queue.wait")
+                .description("Time hash requests waited for a hashing thread")
+                .register(registry);
+        Gauge.builder("password.hash.queue.size", executor, e -> e.getQueue().size())
+                .register(registry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(registry);
+        FunctionCounter.builder("password.hash.rejected", rejected, LongAdder::sum)
+                .description("Hash requests turned away with 429 because the queue was full")
+                .register(registry);
+    }
+
+    // Hash on the pool; fails fast with TooManyRequestsException when the queue is full
+    public CompletableFuture<String> hash(String rawPassword) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long started = System.nanoTime();
+                queueTimer.record(started - queuedAt, TimeUnit.NANOSECONDS);
+                String hash = encoder.encode(rawPassword);
+                hashTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                return hash;
+            }, executor);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many signups in progress, please retry shortly", retryAfter);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.rapidfacto.rapidfacto.seed;
+
+import com.rapidfacto.rapidfacto.PropertyImportService;
+import com.rapidfacto.rapidfacto.ShardedPropertyRepository;
+import com.rapidfacto.rapidfacto.dto.PropertyRequestDto;
+import com.rapidfacto.rapidfacto.replica.ReadRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Ten sample listings for an empty database, so a fresh local install has something to show. Runs once the
+// server is up rather than while beans are created, and ahead of SyntheticDataGenerator, which tops up from here.
+// Off in the prod profile: a replica joining a populated cluster has no reason to count the table first.
+@Component
+@Order(0)
+public class SampleDataLoader implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SampleDataLoader.class);
+
+    @Autowired
+    private ShardedPropertyRepository propertyRepository;
+
+    @Autowired
+    private PropertyImportService propertyImportService;
+
+    @Value("${rapidfacto.seed.sample-data:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Asked of the primary: an empty or lagging replica must not cause a second round of sample data
+        if (!enabled || ReadRouting.onPrimary(propertyRepository::count) > 0) {
+            return;
+        }
+        // Sample property data with working image URLs
+        List<PropertyRequestDto> properties = List.of(
+            createSampleProperty("2 BHK Apartment in Mumbai", "Andheri East, Mumbai", 8500000.0,
+                "https://cdn.pixabay.com/photo/2016/11/29/03/53/architecture-1867187_1280.jpg",
+                "Spacious 2-bedroom apartment with balcony and great sunlight.", 19.1136, 72.8697),
+
+            createSampleProperty("1 BHK Studio in Bangalore", "Whitefield, Bangalore", 4500000.0,
+                "https://cdn.pixabay.com/photo/2020/10/04/13/22/living-room-5623029_1280.jpg",
+                "Cozy and affordable studio apartment ideal for professionals.", 12.9698, 77.7500),
+
+            createSampleProperty("3 BHK Flat in Delhi", "Rohini Sector 9, Delhi", 9500000.0,
+                "https://cdn.pixabay.com/photo/2018/05/09/21/38/interior-3389676_1280.jpg",
+                "Premium 3-bedroom flat near metro station.", 28.7170, 77.1230),
+
+            createSampleProperty("2 BHK Apartment in Pune", "Hinjewadi, Pune", 6700000.0,
+                "https://cdn.pixabay.com/photo/2016/11/18/16/16/interior-1835352_1280.jpg",
+                "Modern home with gated society and gym access.", 18.5913, 73.7389),
+
+            createSampleProperty("1 RK Room in Noida", "Sector 62, Noida", 3200000.0,
+                "https://cdn.pixabay.com/photo/2020/03/26/17/32/room-4976931_1280.jpg",
+                "Compact room suitable for students or working individuals.", 28.6270, 77.3650),
+
+            createSampleProperty("4 BHK Villa in Gurgaon", "DLF Phase 3, Gurgaon", 18000000.0,
+                "https://cdn.pixabay.com/photo/2015/01/28/23/35/house-615619_1280.jpg",
+                "Luxurious villa with private garden and parking.", 28.4937, 77.0940),
+
+            createSampleProperty("2 BHK Apartment in Jaipur", "Malviya Nagar, Jaipur", 5200000.0,
+                "https://cdn.pixabay.com/photo/2017/08/06/11/40/people-2595685_1280.jpg",
+                "Well-furnished apartment near parks and schools.", 26.8549, 75.8243),
+
+            createSampleProperty("3 BHK in Ahmedabad", "Satellite, Ahmedabad", 8800000.0,
+                "https://cdn.pixabay.com/photo/2020/10/24/02/10/living-room-5687332_1280.jpg",
+                "Spacious and well-connected residential property.", 23.0300, 72.5170),
+
+            createSampleProperty("1 BHK in Lucknow", "Gomti Nagar, Lucknow", 4000000.0,
+                "https://cdn.pixabay.com/photo/2016/10/13/09/06/living-room-1738317_1280.jpg",
+                "Budget-friendly housing option in a prime area.", 26.8560, 80.9920),
+
+            createSampleProperty("2 BHK Apartment in Bhopal", "MP Nagar, Bhopal", 5500000.0,
+                "https://cdn.pixabay.com/photo/2020/04/16/18/05/sofa-5051276_1280.jpg",
+                "Peaceful society with nearby amenities and public transport.", 23.2330, 77.4340)
+        );
+
+        long imported = propertyImportService.importRecords(properties);
+        log.info("Sample property data initialized: {} listings", imported);
+    }
+
+    private PropertyRequestDto createSampleProperty(String title, String location, Double price, String imageUrl, String description,
+                                                    Double latitude, Double longitude) {
+        PropertyRequestDto property = new PropertyRequestDto();
+        property.setTitle(title);
+        property.setLocation(location);
+        property.setPrice(price);
+        property.setImageUrl(imageUrl);
+        property.setDescription(description);
+        property.setLatitude(latitude);
+        property.setLongitude(longitude);
+        return property;
+    }
+}
@@ -0,0 +1,314 @@
+package com.rapidfacto.rapidfacto.seed;
+
+import com.rapidfacto.rapidfacto.security.PasswordHasher;
+import com.rapidfacto.rapidfacto.shard.ShardTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+// Tops the properties and users tables up to the configured row counts with realistic, reproducible data.
+// Runs before ApplicationReadyEvent, so the search indexes are built over the generated rows afterwards.
+@Component
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final String PROPERTY_INSERT_SQL = "INSERT INTO properties "
+            + "(title, location, price, image_url, description, latitude, longitude, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String USER_INSERT_SQL = "INSERT INTO users "
+            + "(first_name, last_name, email, phone_number, password, type, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // City, relative share of listings, typical price of a 2 BHK there, city centre, and a few localities
+    private static final City[] CITIES = {
+            new City("Mumbai", 16, 16_000_000, 19.0760, 72.8777, "Andheri East", "Bandra West", "Powai", "Thane West", "Borivali"),
+            new City("Bangalore", 14, 9_000_000, 12.9716, 77.5946, "Whitefield", "Koramangala", "HSR Layout", "Electronic City", "Hebbal"),
+            new City("Delhi", 12, 11_000_000, 28.6139, 77.2090, "Rohini Sector 9", "Dwarka", "Saket", "Lajpat Nagar", "Vasant Kunj"),
+            new City("Hyderabad", 10, 8_000_000, 17.3850, 78.4867, "Gachibowli", "Kondapur", "Madhapur", "Banjara Hills", "Kukatpally"),
+            new City("Pune", 9, 7_000_000, 18.5204, 73.8567, "Hinjewadi", "Baner", "Kharadi", "Wakad", "Viman Nagar"),
+            new City("Chennai", 8, 7_500_000, 13.0827, 80.2707, "Adyar", "Velachery", "OMR", "Anna Nagar", "Porur"),
+            new City("Gurgaon", 6, 12_000_000, 28.4595, 77.0266, "DLF Phase 3", "Sohna Road", "Golf Course Road", "Sector 56"),
+            new City("Noida", 5, 6_500_000, 28.5355, 77.3910, "Sector 62", "Sector 150", "Noida Extension", "Sector 137"),
+            new City("Kolkata", 5, 5_500_000, 22.5726, 88.3639, "Salt Lake", "New Town", "Ballygunge", "Behala"),
+            new City("Ahmedabad", 4, 5_000_000, 23.0225, 72.5714, "Satellite", "Prahlad Nagar", "Bopal", "Gota"),
+            new City("Jaipur", 3, 4_500_000, 26.9124, 75.7873, "Malviya Nagar", "Vaishali Nagar", "Mansarovar", "Jagatpura"),
+            new City("Lucknow", 3, 4_000_000, 26.8467, 80.9462, "Gomti Nagar", "Hazratganj", "Aliganj", "Indira Nagar"),
+            new City("Bhopal", 2, 3_800_000, 23.2599, 77.4126, "MP Nagar", "Arera Colony", "Kolar Road", "Hoshangabad Road"),
+            new City("Kochi", 2, 5_000_000, 9.9312, 76.2673, "Kakkanad", "Edappally", "Marine Drive", "Vyttila"),
+            new City("Indore", 1, 3_500_000, 22.7196, 75.8577, "Vijay Nagar", "Palasia", "Rau", "Nipania")
+    };
+
+    // Listing kind and its price relative to a 2 BHK in the same city
+    private static final String[] KINDS = {"1 RK Room", "Studio Apartment", "1 BHK Apartment", "2 BHK Apartment",
+            "2 BHK Flat", "3 BHK Flat", "3 BHK Apartment", "4 BHK Villa", "Independent House", "Penthouse"};
+    private static final double[] KIND_PRICE_FACTORS = {0.35, 0.45, 0.6, 1.0, 0.95, 1.5, 1.6, 3.0, 2.2, 4.0};
+    private static final int[] KIND_WEIGHTS = {4, 4, 18, 26, 8, 16, 10, 5, 6, 3};
+
+    private static final String[] ADJECTIVES = {"Spacious", "Sunny", "Modern", "Cozy", "Premium", "Newly Built",
+            "Furnished", "Semi-Furnished", "Corner", "Park-facing", "Sea-facing", "Budget"};
+    private static final String[] SENTENCES = {
+            "Well-lit rooms with cross ventilation throughout the day.",
+            "Gated society with 24x7 security and power backup.",
+            "Walking distance to the metro station and bus stops.",
+            "Covered parking for one car and visitor parking available.",
+            "Modular kitchen with chimney and ample storage.",
+            "Close to schools, hospitals and shopping centres.",
+            "Clubhouse, gym and swimming pool in the complex.",
+            "Vastu-compliant layout with east-facing entrance.",
+            "Balcony overlooking landscaped gardens.",
+            "Ready to move in, with all approvals in place.",
+            "Vitrified flooring and branded fittings in all bathrooms.",
+            "Quiet neighbourhood with good connectivity to the IT corridor.",
+            "Rainwater harvesting and solar water heating installed.",
+            "Lift access and a dedicated maintenance team on site."
+    };
+    private static final String[] IMAGE_URLS = {
+            "https://cdn.pixabay.com/photo/2016/11/29/03/53/architecture-1867187_1280.jpg",
+            "https://cdn.pixabay.com/photo/2020/10/04/13/22/living-room-5623029_1280.jpg",
+            "https://cdn.pixabay.com/photo/2018/05/09/21/38/interior-3389676_1280.jpg",
+            "https://cdn.pixabay.com/photo/2016/11/18/16/16/interior-1835352_1280.jpg",
+            "https://cdn.pixabay.com/photo/2020/03/26/17/32/room-4976931_1280.jpg",
+            "https://cdn.pixabay.com/photo/2015/01/28/23/35/house-615619_1280.jpg",
+            "https://cdn.pixabay.com/photo/2017/08/06/11/40/people-2595685_1280.jpg",
+            "https://cdn.pixabay.com/photo/2020/10/24/02/10/living-room-5687332_1280.jpg",
+            "https://cdn.pixabay.com/photo/2016/10/13/09/06/living-room-1738317_1280.jpg",
+            "https://cdn.pixabay.com/photo/2020/04/16/18/05/sofa-5051276_1280.jpg"
+    };
+
+    private static final String[] FIRST_NAMES = {"Aarav", "Vivaan", "Aditya", "Vihaan", "Arjun", "Sai", "Reyansh",
+            "Ananya", "Diya", "Saanvi", "Aadhya", "Isha", "Kavya", "Meera", "Rohan", "Priya", "Neha", "Rahul",
+            "Karan", "Pooja", "Amit", "Sneha", "Vikram", "Asha"};
+    private static final String[] LAST_NAMES = {"Sharma", "Verma", "Patel", "Reddy", "Iyer", "Nair", "Gupta",
+            "Singh", "Kumar", "Rao", "Das", "Mehta", "Joshi", "Kulkarni", "Banerjee", "Chopra", "Menon", "Shah"};
+    private static final String[] USER_TYPES = {"buyer", "buyer", "buyer", "seller", "agent"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    @Value("${rapidfacto.seed.properties:0}")
+    private long targetProperties;
+
+    @Value("${rapidfacto.seed.users:0}")
+    private long targetUsers;
+
+    @Value("${rapidfacto.seed.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${rapidfacto.seed.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${rapidfacto.seed.user-password:password123}")
+    private String userPassword;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int totalCityWeight;
+    private final int totalKindWeight;
+
+    public SyntheticDataGenerator(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        int cityWeight = 0;
+        for (City city : CITIES) {
+            cityWeight += city.weight();
+        }
+        this.totalCityWeight = cityWeight;
+        int kindWeight = 0;
+        for (int weight : KIND_WEIGHTS) {
+            kindWeight += weight;
+        }
+        this.totalKindWeight = kindWeight;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Off by default; a count over every shard is not free, so it is only made when there is something to top up
+        if (targetProperties <= 0 && targetUsers <= 0) {
+            return;
+        }
+        long existingProperties = 0;
+        for (long shardRows : shardTemplate.executeOnEveryShard(shard -> count("properties"))) {
+            existingProperties += shardRows;
+        }
+        if (targetProperties > existingProperties) {
+            generateProperties(existingProperties, targetProperties - existingProperties);
+        }
+        long existingUsers = count("users");
+        if (targetUsers > existingUsers) {
+            generateUsers(existingUsers, targetUsers - existingUsers);
+        }
+    }
+
+    private void generateProperties(long offset, long rows) {
+        // Seeded by the starting offset too, so topping up a table continues the sequence instead of repeating it
+        SplittableRandom random = new SplittableRandom(randomSeed ^ offset);
+        LocalDateTime now = LocalDateTime.now();
+        long started = System.nanoTime();
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (long i = 0; i < rows; i++) {
+            batch.add(propertyRow(random, now));
+            if (batch.size() == batchSize || i == rows - 1) {
+                insertProperties(batch);
+                logProgress("properties", i + 1, rows, started);
+            }
+        }
+    }
+
+    private void generateUsers(long offset, long rows) {
+        SplittableRandom random = new SplittableRandom(randomSeed ^ ~offset);
+        // BCrypt is deliberately slow; every generated user shares one hash of the configured password
+        String passwordHash = passwordHasher.hash(userPassword).join();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long started = System.nanoTime();
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (long i = 0; i < rows; i++) {
+            long n = offset + i + 1;
+            String firstName = pick(random, FIRST_NAMES);
+            String lastName = pick(random, LAST_NAMES);
+            batch.add(new Object[] {
+                    firstName,
+                    lastName,
+                    firstName.toLowerCase() + "." + lastName.toLowerCase() + "." + n + "@example.test",
+                    String.valueOf(9_000_000_000L + random.nextLong(1_000_000_000L)),
+                    passwordHash,
+                    pick(random, USER_TYPES),
+                    now,
+                    now
+            });
+            if (batch.size() == batchSize || i == rows - 1) {
+                insert(0, USER_INSERT_SQL, batch);
+                logProgress("users", i + 1, rows, started);
+            }
+        }
+    }
+
+    private Object[] propertyRow(SplittableRandom random, LocalDateTime now) {
+        City city = pickCity(random);
+        int kind = pickKind(random);
+        String locality = pick(random, city.localities());
+        String location = locality + ", " + city.name();
+
+        String title = KINDS[kind] + " in " + locality;
+        if (random.nextInt(3) > 0) {
+            title = pick(random, ADJECTIVES) + " " + title;
+        }
+        if (random.nextInt(4) == 0) {
+            title = title + ", " + city.name();
+        }
+
+        // Log-normal spread around the city/kind typical price, inside the bounds PropertyRequestDto accepts
+        double typical = city.typicalPrice() * KIND_PRICE_FACTORS[kind];
+        double price = typical * Math.exp(random.nextGaussian() * 0.35);
+        price = Math.round(Math.min(100_000_000, Math.max(100_000, price)) / 1000) * 1000.0;
+
+        // Descriptions of 1-12 sentences: mostly short, with a long tail up to the 1000 character limit
+        int sentences = 1 + (int) Math.min(11, Math.abs(random.nextGaussian()) * 3);
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            String sentence = pick(random, SENTENCES);
+            if (description.length() + sentence.length() + 1 > 1000) {
+                break;
+            }
+            if (!description.isEmpty()) {
+                description.append(' ');
+            }
+            description.append(sentence);
+        }
+
+        // Scattered around the city centre, most within 10-15 km
+        double latitude = Math.round((city.latitude() + random.nextGaussian() * 0.08) * 1e6) / 1e6;
+        double longitude = Math.round((city.longitude() + random.nextGaussian() * 0.08) * 1e6) / 1e6;
+
+        Timestamp createdAt = Timestamp.valueOf(now.minusMinutes(random.nextLong(2L * 365 * 24 * 60)));
+        return new Object[] {
+                title.length() > 100 ? title.substring(0, 100) : title,
+                location,
+                price,
+                pick(random, IMAGE_URLS),
+                description.toString(),
+                latitude,
+                longitude,
+                createdAt,
+                createdAt
+        };
+    }
+
+    // Each row goes to the shard of its city, as listings created through the API do
+    private void insertProperties(List<Object[]> batch) {
+        Map<Integer, List<Object[]>> byShard = new TreeMap<>();
+        for (Object[] row : batch) {
+            byShard.computeIfAbsent(shardTemplate.getShardMap().shardFor((String) row[1]), s -> new ArrayList<>()).add(row);
+        }
+        byShard.forEach((shard, rows) -> insert(shard, PROPERTY_INSERT_SQL, rows));
+        batch.clear();
+    }
+
+    private void insert(int shard, String sql, List<Object[]> batch) {
+        transactionTemplate.executeWithoutResult(status ->
+                shardTemplate.execute(shard, () -> jdbcTemplate.batchUpdate(sql, batch)));
+        batch.clear();
+    }
+
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    // Logs once per 100k rows crossed, and at the end
+    private void logProgress(String table, long done, long total, long started) {
+        if (done != total && done / 100_000 == (done - batchSize) / 100_000) {
+            return;
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Generated {}/{} {} ({} rows/s)", done, total, table, Math.round(done / Math.max(seconds, 0.001)));
+    }
+
+    private City pickCity(SplittableRandom random) {
+        int roll = random.nextInt(totalCityWeight);
+        for (City city : CITIES) {
+            roll -= city.weight();
+            if (roll < 0) {
+                return city;
+            }
+        }
+        return CITIES[CITIES.length - 1];
+    }
+
+    private int pickKind(SplittableRandom random) {
+        int roll = random.nextInt(totalKindWeight);
+        for (int i = 0; i < KIND_WEIGHTS.length; i++) {
+            roll -= KIND_WEIGHTS[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return KIND_WEIGHTS.length - 1;
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private record City(String name, int weight, double typicalPrice, double latitude, double longitude,
+                        String... localities) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.rapidfacto.rapidfacto.shard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Which shard holds a property. An id carries its shard in the bits above ID_BITS, so lookups by id need no
+// directory: shard s hands out ids from s << ID_BITS up, and shard 0 keeps every id issued before sharding.
+// New properties go to the shard of their city (the text after the last comma of the location), pinned by the
+// configured map or else by hash. A property whose city changes to one on another shard is moved there, under a
+// new id (see PropertyService).
+public final class ShardMap {
+
+    public static final int ID_BITS = 40;
+
+    // Keeps every id below 2^53, so they survive JSON numbers in JavaScript
+    public static final int MAX_SHARDS = 1 << (53 - ID_BITS);
+
+    private final int shardCount;
+    private final Map<String, Integer> pinned;
+
+    public ShardMap(int shardCount, Map<String, Integer> pinned) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS);
+        }
+        this.shardCount = shardCount;
+        this.pinned = new HashMap<>();
+        pinned.forEach((city, shard) -> {
+            if (shard < 0 || shard >= shardCount) {
+                throw new IllegalArgumentException("City " + city + " is mapped to shard " + shard
+                        + ", but there are only " + shardCount);
+            }
+            this.pinned.put(normalize(city), shard);
+        });
+    }
+
+    // "mumbai=1, pune=1, delhi=2"
+    public static ShardMap parse(int shardCount, String cities) {
+        Map<String, Integer> pinned = new HashMap<>();
+        for (String entry : cities == null ? new String[0] : cities.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected city=shard, got '" + entry.trim() + "'");
+            }
+            try {
+                pinned.put(entry.substring(0, separator), Integer.parseInt(entry.substring(separator + 1).trim()));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Expected city=shard, got '" + entry.trim() + "'");
+            }
+        }
+        return new ShardMap(shardCount, pinned);
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    // Shard a new property is written to
+    public int shardFor(String location) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        String city = cityOf(location);
+        Integer shard = pinned.get(city);
+        return shard != null ? shard : Math.floorMod(city.hashCode(), shardCount);
+    }
+
+    // Shards a location search can match rows on. Only a keyword that is exactly a configured city ("Mumbai") is
+    // kept to that city's shard; any other text ("Powai, Mumbai" may sit inside "Powai, Mumbai Suburban"), hashed
+    // cities included, is looked for everywhere
+    public List<Integer> shardsMatching(String location) {
+        Integer shard = location == null ? null : pinned.get(normalize(location));
+        if (shard != null) {
+            return List.of(shard);
+        }
+        List<Integer> shards = new ArrayList<>(shardCount);
+        for (int s = 0; s < shardCount; s++) {
+            shards.add(s);
+        }
+        return shards;
+    }
+
+    // Shard an existing id lives on, or -1 for an id no shard can have issued
+    public int shardOf(long id) {
+        long shard = id >>> ID_BITS;
+        return id > 0 && shard < shardCount ? (int) shard : -1;
+    }
+
+    // Where the shard's auto-increment starts
+    public static long firstId(int shard) {
+        return Math.max(1, (long) shard << ID_BITS);
+    }
+
+    static String cityOf(String location) {
+        if (location == null) {
+            return "";
+        }
+        return normalize(location.substring(location.lastIndexOf(',') + 1));
+    }
+
+    private static String normalize(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,32 @@
+package com.rapidfacto.rapidfacto.shard;
+
+import java.util.function.Supplier;
+
+// Per-thread choice of the shard ShardedDataSource hands connections from. Unset means shard 0, which also holds
+// every table that is not sharded.
+public final class ShardRouting {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardRouting() {
+    }
+
+    public static int currentShard() {
+        Integer shard = SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    static <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.rapidfacto.rapidfacto.shard;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// With rapidfacto.sharding.urls set, makes the configured data source shard 0 of a ShardedDataSource. Runs after
+// ReplicaRoutingPostProcessor, so shard 0 keeps its replicas, and before SqlMonitoringPostProcessor, so statements
+// on every shard are monitored.
+@Component
+public class ShardRoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+    // Resolved lazily: post-processors are created before the meter registry
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${rapidfacto.sharding.urls:}")
+    private List<String> urls;
+
+    @Value("${rapidfacto.sharding.username:${spring.datasource.username:}}")
+    private String username;
+
+    @Value("${rapidfacto.sharding.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${rapidfacto.sharding.maximum-pool-size:20}")
+    private int maximumPoolSize;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        List<String> shardUrls = ShardTemplate.shardUrls(urls);
+        if (!(bean instanceof DataSource primary) || bean instanceof ShardedDataSource || shardUrls.isEmpty()) {
+            return bean;
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(primary);
+        for (int i = 0; i < shardUrls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("shard-" + (i + 1));
+            config.setJdbcUrl(shardUrls.get(i));
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(maximumPoolSize);
+            if (registry != null) {
+                config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+            shards.add(new HikariDataSource(config));
+        }
+        return new ShardedDataSource(shards);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
@@ -0,0 +1,137 @@
+package com.rapidfacto.rapidfacto.shard;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.SchemaToolingSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.mapping.Table;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.TargetType;
+import org.hibernate.tool.schema.internal.ExceptionHandlerHaltImpl;
+import org.hibernate.tool.schema.spi.ContributableMatcher;
+import org.hibernate.tool.schema.spi.ExecutionOptions;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+import org.hibernate.tool.schema.spi.SchemaManagementTool;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.hibernate.tool.schema.spi.ScriptTargetOutput;
+import org.hibernate.tool.schema.spi.TargetDescriptor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Hibernate only creates or updates the schema of shard 0, where its connections go by default. This keeps hold of
+// the mapping it built so the same update can be run against every other shard, for the tables every shard has:
+// properties and the change-feed bookkeeping that has to commit with it.
+@Component
+public class ShardSchema implements HibernatePropertiesCustomizer, Integrator {
+
+    private static final Set<String> TABLES = Set.of("properties", "property_change_counter",
+            "property_change_leases", "property_tombstones");
+
+    private static final SchemaFilter SHARDED_TABLES = new SchemaFilter() {
+        @Override
+        public boolean includeNamespace(Namespace namespace) {
+            return true;
+        }
+
+        @Override
+        public boolean includeTable(Table table) {
+            return TABLES.contains(table.getName());
+        }
+
+        @Override
+        public boolean includeSequence(Sequence sequence) {
+            return false;
+        }
+    };
+
+    // Hands the filter to the migrator through its settings, where it looks for one
+    private static final SchemaFilterProvider SHARDED_TABLES_ONLY = new SchemaFilterProvider() {
+        @Override
+        public SchemaFilter getCreateFilter() {
+            return SHARDED_TABLES;
+        }
+
+        @Override
+        public SchemaFilter getDropFilter() {
+            return SHARDED_TABLES;
+        }
+
+        @Override
+        public SchemaFilter getTruncatorFilter() {
+            return SHARDED_TABLES;
+        }
+
+        @Override
+        public SchemaFilter getMigrateFilter() {
+            return SHARDED_TABLES;
+        }
+
+        @Override
+        public SchemaFilter getValidateFilter() {
+            return SHARDED_TABLES;
+        }
+    };
+
+    private static final TargetDescriptor DATABASE = new TargetDescriptor() {
+        @Override
+        public EnumSet<TargetType> getTargetTypes() {
+            return EnumSet.of(TargetType.DATABASE);
+        }
+
+        @Override
+        public ScriptTargetOutput getScriptTargetOutput() {
+            return null;
+        }
+    };
+
+    private volatile Metadata metadata;
+    private volatile SessionFactoryImplementor sessionFactory;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(this));
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = null;
+        this.sessionFactory = null;
+    }
+
+    // Whether Hibernate was told to manage the schema (create, create-drop or update) rather than only check it
+    public boolean isManaged() {
+        Object action = sessionFactory == null ? null : sessionFactory.getProperties().get("hibernate.hbm2ddl.auto");
+        return action != null && List.of("create", "create-drop", "update").contains(action.toString());
+    }
+
+    // Creates the sharded tables, or their missing columns and indexes, on the shard the calling thread is routed to
+    void update() {
+        if (metadata == null) {
+            throw new IllegalStateException("Hibernate has not been bootstrapped yet");
+        }
+        Map<String, Object> settings = new HashMap<>(sessionFactory.getProperties());
+        settings.put(SchemaToolingSettings.HBM2DDL_FILTER_PROVIDER, SHARDED_TABLES_ONLY);
+        ExecutionOptions options = SchemaManagementToolCoordinator.buildExecutionOptions(settings,
+                ExceptionHandlerHaltImpl.INSTANCE);
+        sessionFactory.getServiceRegistry().requireService(SchemaManagementTool.class)
+                .getSchemaMigrator(settings)
+                .doMigration(metadata, options, ContributableMatcher.ALL, DATABASE);
+    }
+}
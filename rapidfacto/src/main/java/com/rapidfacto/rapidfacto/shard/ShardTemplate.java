@@ -0,0 +1,234 @@
+package com.rapidfacto.rapidfacto.shard;
+
+import com.rapidfacto.rapidfacto.replica.ReadRouting;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+// Runs work against one shard, or several at once. Each shard gets a transaction of its own, since one transaction
+// cannot span databases, except the shard the caller's transaction is on, which joins it; unsharded (no
+// rapidfacto.sharding.urls), work simply runs in the caller's transaction.
+@Component
+public class ShardTemplate implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardTemplate.class);
+
+    // Shard 0 (the configured data source) has to exist before it can be mapped
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ShardSchema shardSchema;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Present when migrations are enabled (spring.flyway.enabled); shard 0 is migrated before the mapping starts
+    @Autowired
+    private ObjectProvider<Flyway> flyway;
+
+    private final ShardMap shardMap;
+    private final TransactionTemplate readWriteTransaction;
+    private final TransactionTemplate readOnlyTransaction;
+    // A thread per shard query: they spend their time waiting on the databases
+    private final ExecutorService executor;
+    private final Timer[] timers;
+
+    public ShardTemplate(PlatformTransactionManager transactionManager, MeterRegistry registry,
+                         @Value("${rapidfacto.sharding.urls:}") List<String> urls,
+                         @Value("${rapidfacto.sharding.cities:}") String cities) {
+        this.shardMap = ShardMap.parse(shardUrls(urls).size() + 1, cities);
+        this.readWriteTransaction = new TransactionTemplate(transactionManager);
+        this.readWriteTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("shard-query-", 0).factory());
+        this.timers = new Timer[shardMap.getShardCount()];
+        for (int shard = 0; shard < timers.length; shard++) {
+            timers[shard] = Timer.builder("shard.queries")
+                    .description("Time spent in work confined to one shard, including its transaction")
+                    .tag("shard", Integer.toString(shard))
+                    .register(registry);
+        }
+    }
+
+    static List<String> shardUrls(List<String> urls) {
+        return urls.stream().map(String::trim).filter(url -> !url.isEmpty()).toList();
+    }
+
+    // Every shard but 0 gets the schema Hibernate manages or the migrations, and an auto-increment starting at its
+    // first id
+    @PostConstruct
+    void prepareShards() {
+        for (int shard = 1; shard < shardMap.getShardCount(); shard++) {
+            int target = shard;
+            ShardRouting.onShard(shard, () -> {
+                if (shardSchema.isManaged()) {
+                    shardSchema.update();
+                } else {
+                    flyway.ifAvailable(Flyway::migrate);
+                }
+                startIdsAt(target);
+                return null;
+            });
+        }
+        if (shardMap.isSharded()) {
+            log.info("Properties sharded across {} databases", shardMap.getShardCount());
+        }
+    }
+
+    public ShardMap getShardMap() {
+        return shardMap;
+    }
+
+    public int getShardCount() {
+        return shardMap.getShardCount();
+    }
+
+    // Work confined to one shard, in a new transaction there read-only when the caller's is. On the shard the
+    // caller's transaction already holds a connection to, the work joins it: suspending it for a second connection
+    // from the same pool would deadlock once every connection is held by a caller waiting for another
+    public <T> T execute(int shard, Supplier<T> work) {
+        return execute(shard, TransactionSynchronizationManager.isCurrentTransactionReadOnly(), work);
+    }
+
+    // Work in a read-write transaction of its own on one shard, sharded or not, for writers that commit on their
+    // own; the caller must not have a transaction open
+    public <T> T executeInTransaction(int shard, Supplier<T> work) {
+        long started = System.nanoTime();
+        try {
+            return ShardRouting.onShard(shard, () -> readWriteTransaction.execute(status -> work.get()));
+        } finally {
+            timers[shard].record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // The same work on every shard in parallel; results in shard order
+    public <T> List<T> executeOnEveryShard(IntFunction<T> work) {
+        List<Integer> shards = new ArrayList<>(shardMap.getShardCount());
+        for (int shard = 0; shard < shardMap.getShardCount(); shard++) {
+            shards.add(shard);
+        }
+        return executeOnShards(shards, work);
+    }
+
+    // Work on the given shards in parallel, one on the calling thread (the one its transaction is on, if any, else
+    // the first); results in the order given. The first failure is rethrown once every shard has finished, so no
+    // transaction is left running behind the caller
+    public <T> List<T> executeOnShards(Collection<Integer> shards, IntFunction<T> work) {
+        List<Integer> order = List.copyOf(shards);
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (order.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (order.size() == 1) {
+            int shard = order.get(0);
+            return Collections.singletonList(execute(shard, readOnly, () -> work.apply(shard)));
+        }
+        int local = Math.max(0, order.indexOf(ShardRouting.currentShard()));
+        // Workers start with fresh thread-locals: carry over a request's need to read its own writes
+        boolean primaryRequired = ReadRouting.isPrimaryRequired();
+        List<Future<T>> futures = new ArrayList<>(order.size());
+        for (int i = 0; i < order.size(); i++) {
+            int shard = order.get(i);
+            Supplier<T> task = () -> execute(shard, readOnly, () -> work.apply(shard));
+            futures.add(i == local ? null : executor.submit(() -> primaryRequired ? ReadRouting.onPrimary(task) : task.get()));
+        }
+
+        List<T> results = new ArrayList<>(Collections.nCopies(order.size(), null));
+        RuntimeException failure = null;
+        try {
+            int shard = order.get(local);
+            results.set(local, execute(shard, readOnly, () -> work.apply(shard)));
+        } catch (RuntimeException ex) {
+            failure = ex;
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            if (i == local) {
+                continue;
+            }
+            try {
+                results.set(i, futures.get(i).get());
+            } catch (ExecutionException ex) {
+                if (failure == null) {
+                    failure = ex.getCause() instanceof RuntimeException cause ? cause
+                            : new IllegalStateException("Shard query failed", ex.getCause());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new IllegalStateException("Interrupted waiting for shard queries", ex);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T execute(int shard, boolean readOnly, Supplier<T> work) {
+        if (!shardMap.isSharded()) {
+            return work.get();
+        }
+        long started = System.nanoTime();
+        try {
+            if (shard == ShardRouting.currentShard() && TransactionSynchronizationManager.isActualTransactionActive()) {
+                return work.get();
+            }
+            TransactionTemplate transaction = readOnly ? readOnlyTransaction : readWriteTransaction;
+            return ShardRouting.onShard(shard, () -> transaction.execute(status -> work.get()));
+        } finally {
+            timers[shard].record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Left alone once the shard holds ids of its own. Never below an id that was issued here and deleted since
+    // (its tombstone stays on the shard), so an emptied shard does not hand the same id out twice
+    private void startIdsAt(int shard) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long firstId = ShardMap.firstId(shard);
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM properties", Long.class);
+        if (maxId != null && maxId >= firstId) {
+            return;
+        }
+        Long maxDeleted = jdbcTemplate.queryForObject(
+                "SELECT MAX(property_id) FROM property_tombstones WHERE property_id >= ? AND property_id < ?",
+                Long.class, firstId, ShardMap.firstId(shard + 1));
+        long nextId = maxDeleted == null ? firstId : maxDeleted + 1;
+        jdbcTemplate.execute("ALTER TABLE properties AUTO_INCREMENT = " + nextId);
+    }
+}
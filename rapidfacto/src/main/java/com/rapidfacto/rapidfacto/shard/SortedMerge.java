@@ -0,0 +1,56 @@
+package com.rapidfacto.rapidfacto.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// K-way merge of per-shard results that are each already sorted the same way, stopping at the limit
+public final class SortedMerge {
+
+    private SortedMerge() {
+    }
+
+    public static <T> List<T> merge(List<? extends List<? extends T>> sorted, Comparator<? super T> order, int limit) {
+        List<T> merged = new ArrayList<>(Math.min(limit, total(sorted)));
+        // Heads of the lists not yet exhausted: {list, position}, smallest element first
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, sorted.size()),
+                (a, b) -> order.compare(sorted.get(a[0]).get(a[1]), sorted.get(b[0]).get(b[1])));
+        for (int i = 0; i < sorted.size(); i++) {
+            if (!sorted.get(i).isEmpty()) {
+                heads.add(new int[] {i, 0});
+            }
+        }
+        while (merged.size() < limit && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<? extends T> list = sorted.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (++head[1] < list.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    // For results in no particular order: shard by shard
+    public static <T> List<T> concat(List<? extends List<? extends T>> lists, int limit) {
+        List<T> all = new ArrayList<>(Math.min(limit, total(lists)));
+        for (List<? extends T> list : lists) {
+            for (T item : list) {
+                if (all.size() == limit) {
+                    return all;
+                }
+                all.add(item);
+            }
+        }
+        return all;
+    }
+
+    private static int total(List<? extends List<?>> lists) {
+        int total = 0;
+        for (List<?> list : lists) {
+            total += list.size();
+        }
+        return total;
+    }
+}
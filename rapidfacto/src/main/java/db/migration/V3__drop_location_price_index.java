@@ -0,0 +1,42 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Drops idx_properties_location_price. Location filters match a substring of lower(location), which no index on
+// location can serve, so every write paid to maintain it for nothing. In Java rather than SQL because MySQL has no
+// DROP INDEX IF EXISTS, and databases built by ddl-auto and then baselined may never have had it
+public class V3__drop_location_price_index extends BaseJavaMigration {
+
+    private static final String TABLE = "properties";
+    private static final String INDEX = "idx_properties_location_price";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (hasIndex(connection)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("drop index " + INDEX + " on " + TABLE);
+            }
+        }
+    }
+
+    private static boolean hasIndex(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String table = metaData.storesUpperCaseIdentifiers() ? TABLE.toUpperCase() : TABLE;
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, false, true)) {
+            while (indexes.next()) {
+                if (INDEX.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
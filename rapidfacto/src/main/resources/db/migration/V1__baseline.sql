@@ -0,0 +1,67 @@
+-- Schema as of the first versioned migration: what ddl-auto=update had built from the entities. Databases that
+-- already have these tables are baselined at this version instead of running it (spring.flyway.baseline-on-migrate).
+-- Runs on every shard too, where only properties is used.
+
+create table properties (
+    id bigint not null auto_increment,
+    title varchar(100) not null,
+    location varchar(100) not null,
+    price float(53) not null,
+    image_url varchar(500) not null,
+    description varchar(1000),
+    latitude float(53),
+    longitude float(53),
+    version bigint default 0 not null,
+    change_version bigint default 0 not null,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_properties_price_id on properties (price, id);
+create index idx_properties_created_at_id on properties (created_at, id);
+create index idx_properties_location_price on properties (location, price, id);
+create index idx_properties_change_version_id on properties (change_version, id);
+create index idx_properties_latitude_longitude on properties (latitude, longitude);
+
+create table users (
+    id bigint not null auto_increment,
+    first_name varchar(50) not null,
+    last_name varchar(50) not null,
+    email varchar(100) not null,
+    phone_number varchar(20) not null,
+    password varchar(255) not null,
+    type varchar(20) not null,
+    created_at datetime(6) not null,
+    updated_at datetime(6),
+    primary key (id),
+    constraint uk_users_email unique (email)
+) engine=InnoDB;
+
+create table property_change_counter (
+    id integer not null,
+    version bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table property_tombstones (
+    property_id bigint not null,
+    change_version bigint not null,
+    deleted_at datetime(6) not null,
+    primary key (property_id)
+) engine=InnoDB;
+
+create index idx_property_tombstones_change_version on property_tombstones (change_version, property_id);
+
+create table saved_searches (
+    id bigint not null auto_increment,
+    email varchar(100) not null,
+    title_keywords varchar(100),
+    location varchar(100),
+    min_price float(53),
+    max_price float(53),
+    created_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_saved_searches_email on saved_searches (email);
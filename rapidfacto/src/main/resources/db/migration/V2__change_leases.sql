@@ -0,0 +1,7 @@
+-- Change versions reserved by writers that have not committed yet (see ChangeVersions)
+create table property_change_leases (
+    first_version bigint not null,
+    last_version bigint not null,
+    reserved_at datetime(6) not null,
+    primary key (first_version)
+) engine=InnoDB;
@@ -0,0 +1,114 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.dto.PageCursor;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Root;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Walks every sort page by page with the cursor the service hands out, over rows that tie on the sort key, and
+// checks the pages add up to the whole ordering: nothing skipped, nothing repeated
+class KeysetPagingTest {
+
+	private static final double[] PRICES = {300, 100, 200, 100, 300, 100, 200, 250};
+	private static final int[] CREATED_MINUTES = {0, 5, 5, 10, 10, 10, 20, 20};
+
+	private static SessionFactory sessionFactory;
+
+	@BeforeAll
+	static void seed() {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:keyset-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+		Configuration configuration = new Configuration()
+				.addAnnotatedClass(Property.class)
+				.setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy());
+		configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+		configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "create");
+		sessionFactory = configuration.buildSessionFactory();
+
+		// Written directly: the entity stamps created_at itself on persist
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		for (int i = 0; i < PRICES.length; i++) {
+			jdbc.update("INSERT INTO properties (title, location, price, image_url, created_at, change_version, version)"
+							+ " VALUES (?, 'Baner, Pune', ?, 'http://x/y.jpg', ?, 0, 0)",
+					"Flat " + (i + 1), PRICES[i], LocalDateTime.of(2024, 3, 1, 10, 0).plusMinutes(CREATED_MINUTES[i]));
+		}
+	}
+
+	@AfterAll
+	static void close() {
+		sessionFactory.close();
+	}
+
+	@Test
+	void pagesCoverEverySortWithoutGapsOrRepeats() {
+		for (PropertySort sort : PropertySort.values()) {
+			List<Property> all = page(sort, null, Integer.MAX_VALUE);
+			assertEquals(ids(sorted(all, sort)), ids(all), sort.name());
+
+			for (int size = 1; size <= 3; size++) {
+				List<Property> walked = new ArrayList<>();
+				PageCursor after = null;
+				List<Property> page;
+				do {
+					page = page(sort, after, size);
+					walked.addAll(page);
+					if (!page.isEmpty()) {
+						Property last = page.getLast();
+						after = PageCursor.decode(PageCursor.encode(sort.getParam(), sort.keyOf(last), last.getId()), sort.getParam());
+					}
+				} while (page.size() == size);
+				assertEquals(ids(all), ids(walked), sort.name() + " in pages of " + size);
+			}
+		}
+	}
+
+	// The query PropertyService runs for a page, minus the filters
+	private static List<Property> page(PropertySort sort, PageCursor after, int size) {
+		return sessionFactory.fromSession(session -> {
+			CriteriaBuilder cb = session.getCriteriaBuilder();
+			CriteriaQuery<Property> query = cb.createQuery(Property.class);
+			Root<Property> root = query.from(Property.class);
+			if (after != null) {
+				query.where(PropertySpecifications.after(sort, after).toPredicate(root, query, cb));
+			}
+			List<Order> orders = new ArrayList<>();
+			for (Sort.Order order : sort.toSort()) {
+				orders.add(order.isAscending() ? cb.asc(root.get(order.getProperty())) : cb.desc(root.get(order.getProperty())));
+			}
+			query.orderBy(orders);
+			return session.createQuery(query).setMaxResults(size).getResultList();
+		});
+	}
+
+	// The same ordering worked out in Java: sort key, then id, both in the sort's direction
+	@SuppressWarnings("unchecked")
+	private static List<Property> sorted(List<Property> properties, PropertySort sort) {
+		Comparator<Property> byKey = Comparator.comparing(property -> (Comparable<Object>) sort.keyOf(property));
+		Comparator<Property> order = byKey.thenComparing(Property::getId);
+		return properties.stream()
+				.sorted(sort.getDirection() == Sort.Direction.ASC ? order : order.reversed())
+				.toList();
+	}
+
+	private static List<Long> ids(List<Property> properties) {
+		return properties.stream().map(Property::getId).toList();
+	}
+}
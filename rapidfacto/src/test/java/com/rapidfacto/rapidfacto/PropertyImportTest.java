@@ -0,0 +1,210 @@
+package com.rapidfacto.rapidfacto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidfacto.rapidfacto.bulk.RecordReader;
+import com.rapidfacto.rapidfacto.controller.PropertyController;
+import com.rapidfacto.rapidfacto.dto.PropertyMapper;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.event.PropertiesImportedEvent;
+import com.rapidfacto.rapidfacto.feed.ChangeVersions;
+import com.rapidfacto.rapidfacto.shard.ShardTemplate;
+import com.rapidfacto.rapidfacto.shard.ShardedDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// POST /api/properties/bulk through the controller and the import service into an in-memory database, and the CSV
+// export read back in; change versions are handed out by a plain counter
+class PropertyImportTest {
+
+	private static final String CSV_HEADER = "title,location,price,image_url,description\n";
+
+	private final List<PropertiesImportedEvent> events = new ArrayList<>();
+	private PropertyImportService importService;
+	private CountingChangeVersions changeVersions;
+	private JdbcTemplate jdbc;
+	private MockMvc mvc;
+	private PropertyExportService exportService;
+
+	@BeforeEach
+	void setUp() {
+		JdbcDataSource database = new JdbcDataSource();
+		database.setURL("jdbc:h2:mem:import-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		jdbc = new JdbcTemplate(database);
+		jdbc.execute("CREATE TABLE properties (id BIGINT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(100), "
+				+ "location VARCHAR(100), price DOUBLE, image_url VARCHAR(500), description VARCHAR(1000), "
+				+ "created_at TIMESTAMP(6), updated_at TIMESTAMP(6), change_version BIGINT, latitude DOUBLE, longitude DOUBLE)");
+		ShardedDataSource dataSource = new ShardedDataSource(List.of(database));
+		ShardTemplate shards = new ShardTemplate(new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry(),
+				List.of(), "");
+
+		importService = new PropertyImportService();
+		ReflectionTestUtils.setField(importService, "jdbcTemplate", new JdbcTemplate(dataSource));
+		ReflectionTestUtils.setField(importService, "propertyMapper", new PropertyMapper());
+		ReflectionTestUtils.setField(importService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+		ReflectionTestUtils.setField(importService, "objectMapper", new ObjectMapper());
+		ApplicationEventPublisher publisher = event -> events.add((PropertiesImportedEvent) event);
+		ReflectionTestUtils.setField(importService, "eventPublisher", publisher);
+		changeVersions = new CountingChangeVersions(shards);
+		ReflectionTestUtils.setField(importService, "changeVersions", changeVersions);
+		ReflectionTestUtils.setField(importService, "shardTemplate", shards);
+		ReflectionTestUtils.setField(importService, "batchSize", 2);
+		ReflectionTestUtils.setField(importService, "maxReportedErrors", 1);
+
+		PropertyController controller = new PropertyController();
+		ReflectionTestUtils.setField(controller, "propertyImportService", importService);
+		mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		exportService = new PropertyExportService(dataSource, new DataSourceTransactionManager(dataSource), 100);
+		ReflectionTestUtils.setField(exportService, "shardTemplate", shards);
+		ReflectionTestUtils.setField(exportService, "flushEvery", 500);
+	}
+
+	@Test
+	void importsCsvInBatchesWithOneEventEach() throws Exception {
+		String csv = CSV_HEADER
+				+ row("Flat one", 1) + row("Flat two", 2) + "\n" + row("Flat three", 3) + row("Flat four", 4) + row("Flat five", 5);
+
+		mvc.perform(post("/api/properties/bulk").contentType("text/csv").content(csv))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.received").value(5))
+				.andExpect(jsonPath("$.data.imported").value(5))
+				.andExpect(jsonPath("$.data.failed").value(0));
+
+		assertEquals(5, jdbc.queryForObject("SELECT COUNT(*) FROM properties", Integer.class));
+		assertEquals(List.of(2, 2, 1), events.stream().map(event -> event.getProperties().size()).toList());
+		List<PropertyResponseDto> published = events.stream().flatMap(event -> event.getProperties().stream()).toList();
+		assertEquals(jdbc.queryForList("SELECT id FROM properties ORDER BY id", Long.class),
+				published.stream().map(PropertyResponseDto::getId).toList());
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L),
+				jdbc.queryForList("SELECT change_version FROM properties ORDER BY id", Long.class));
+		// Published as stored: the column keeps microseconds
+		for (PropertyResponseDto property : published) {
+			assertEquals(0, property.getCreatedAt().getNano() % 1000);
+			assertEquals(property.getCreatedAt(), jdbc.queryForObject("SELECT created_at FROM properties WHERE id = ?",
+					LocalDateTime.class, property.getId()));
+		}
+	}
+
+	@Test
+	void reportsBadNdjsonLinesAndImportsTheRest() throws Exception {
+		String ndjson = "{\"title\":\"Flat one\",\"location\":\"Baner, Pune\",\"price\":2500000,"
+				+ "\"imageUrl\":\"https://x/1.jpg\",\"description\":\"Close to the park\"}\n"
+				+ "{not json\n"
+				+ "{\"title\":\"Flat\",\"location\":\"Baner, Pune\",\"price\":2500000,"
+				+ "\"imageUrl\":\"https://x/2.jpg\",\"description\":\"Close to the park\"}\n";
+
+		mvc.perform(post("/api/properties/bulk").contentType("application/x-ndjson").content(ndjson))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.received").value(3))
+				.andExpect(jsonPath("$.data.imported").value(1))
+				.andExpect(jsonPath("$.data.failed").value(2))
+				.andExpect(jsonPath("$.data.errors.length()").value(1))
+				.andExpect(jsonPath("$.data.errors[0].line").value(2))
+				.andExpect(jsonPath("$.data.errorsTruncated").value(true));
+
+		assertEquals(List.of("Flat one"), jdbc.queryForList("SELECT title FROM properties", String.class));
+		assertEquals(1, events.size());
+	}
+
+	@Test
+	void reportsOversizedRecordsAndExpiredLeasesPerRecord() throws Exception {
+		String csv = CSV_HEADER + row("Flat one", 1) + row("Flat two", 2)
+				+ "x".repeat(RecordReader.MAX_RECORD_LENGTH + 1) + "\n" + row("Flat three", 3);
+		changeVersions.expireCall = 1;
+		ReflectionTestUtils.setField(importService, "maxReportedErrors", 10);
+
+		mvc.perform(post("/api/properties/bulk").contentType("text/csv").content(csv))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.received").value(4))
+				.andExpect(jsonPath("$.data.imported").value(1))
+				.andExpect(jsonPath("$.data.failed").value(3))
+				.andExpect(jsonPath("$.data.errors[0].line").value(2))
+				.andExpect(jsonPath("$.data.errors[0].message").value("Batch insert failed: lease expired"))
+				.andExpect(jsonPath("$.data.errors[1].line").value(3))
+				.andExpect(jsonPath("$.data.errors[2].line").value(4))
+				.andExpect(jsonPath("$.data.errors[2].message")
+						.value("Record is longer than " + RecordReader.MAX_RECORD_LENGTH + " characters"));
+
+		assertEquals(List.of("Flat three"), jdbc.queryForList("SELECT title FROM properties", String.class));
+	}
+
+	@Test
+	void exportedCsvImportsBack() throws Exception {
+		String description = "Sea view, \"quiet\" street\r\nSecond line\nThird line";
+		String csv = CSV_HEADER + "\"Flat, with comma\",\"Baner, Pune\",2500000,https://x/1.jpg,\""
+				+ description.replace("\"", "\"\"") + "\"\n" + row("Flat after", 2);
+		mvc.perform(post("/api/properties/bulk").contentType("text/csv").content(csv))
+				.andExpect(jsonPath("$.data.imported").value(2));
+		List<Map<String, Object>> imported = jdbc.queryForList("SELECT title, location, price, description FROM properties ORDER BY id");
+
+		ByteArrayOutputStream exported = new ByteArrayOutputStream();
+		exportService.export(exported, PropertyExportService.FORMAT_CSV, null);
+		jdbc.update("DELETE FROM properties");
+		mvc.perform(post("/api/properties/bulk").contentType("text/csv").content(exported.toByteArray()))
+				.andExpect(jsonPath("$.data.received").value(2))
+				.andExpect(jsonPath("$.data.imported").value(2));
+
+		assertEquals(description, imported.get(0).get("DESCRIPTION"));
+		assertEquals(imported, jdbc.queryForList("SELECT title, location, price, description FROM properties ORDER BY id"));
+	}
+
+	@Test
+	void rejectsOtherContentTypes() throws Exception {
+		mvc.perform(post("/api/properties/bulk").contentType("application/json").content("[]"))
+				.andExpect(status().isUnsupportedMediaType());
+
+		assertTrue(events.isEmpty());
+	}
+
+	private static String row(String title, int n) {
+		return title + ",\"Baner, Pune\"," + (2_000_000 + n) + ",https://x/" + n + ".jpg,Close to the park\n";
+	}
+
+	// Versions from a counter, the work in a transaction of its own on the shard
+	private static class CountingChangeVersions extends ChangeVersions {
+
+		private final AtomicLong counter = new AtomicLong();
+		private final AtomicLong calls = new AtomicLong();
+		private final ShardTemplate shards;
+		// The call (counting from 1) that fails as if its lease had expired; 0 for none
+		private long expireCall;
+
+		CountingChangeVersions(ShardTemplate shards) {
+			super(Duration.ofMinutes(1));
+			this.shards = shards;
+		}
+
+		@Override
+		public <T> T write(int shard, int count, LongFunction<T> work) {
+			if (calls.incrementAndGet() == expireCall) {
+				throw new IllegalStateException("lease expired");
+			}
+			long first = counter.getAndAdd(count) + 1;
+			return shards.executeInTransaction(shard, () -> work.apply(first));
+		}
+	}
+}
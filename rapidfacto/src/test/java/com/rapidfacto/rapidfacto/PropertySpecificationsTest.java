@@ -0,0 +1,124 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.dto.PropertySearchRequest;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// /search combines whichever of title, location, minPrice and maxPrice are given with AND; every combination is
+// checked against the same filter worked out in Java
+class PropertySpecificationsTest {
+
+	private static final String[][] ROWS = {
+			{"Sunny flat near park", "Baner, Pune", "2500000"},
+			{"Sunny villa", "Powai, Mumbai", "9000000"},
+			{"Compact studio", "Baner, Pune", "1200000"},
+			{"Villa with garden", "Whitefield, Bangalore", "15000000"},
+			{"100% sea view flat", "Bandra, Mumbai", "30000000"},
+			{"Flat_one", "Kothrud, Pune", "4000000"},
+	};
+
+	private static SessionFactory sessionFactory;
+
+	@BeforeAll
+	static void seed() {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:specifications-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+		Configuration configuration = new Configuration()
+				.addAnnotatedClass(Property.class)
+				.setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy());
+		configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+		configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "create");
+		sessionFactory = configuration.buildSessionFactory();
+
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		for (String[] row : ROWS) {
+			jdbc.update("INSERT INTO properties (title, location, price, image_url, created_at, change_version, version)"
+					+ " VALUES (?, ?, ?, 'http://x/y.jpg', CURRENT_TIMESTAMP, 0, 0)", row[0], row[1], Double.parseDouble(row[2]));
+		}
+	}
+
+	@AfterAll
+	static void close() {
+		sessionFactory.close();
+	}
+
+	@Test
+	void everyCombinationOfFiltersIsAnAnd() {
+		String[] titles = {null, "sunny", "FLAT", " "};
+		String[] locations = {null, "pune", "Mumbai"};
+		Double[] minPrices = {null, 2_000_000.0, 9_000_000.0};
+		Double[] maxPrices = {null, 9_000_000.0, 1_000_000.0};
+		for (String title : titles) {
+			for (String location : locations) {
+				for (Double minPrice : minPrices) {
+					for (Double maxPrice : maxPrices) {
+						PropertySearchRequest request = new PropertySearchRequest();
+						request.setTitle(title);
+						request.setLocation(location);
+						request.setMinPrice(minPrice);
+						request.setMaxPrice(maxPrice);
+
+						assertEquals(expected(request), titles(request), request.toString());
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void likeWildcardsInKeywordsMatchLiterally() {
+		PropertySearchRequest percent = new PropertySearchRequest();
+		percent.setTitle("100%");
+		PropertySearchRequest underscore = new PropertySearchRequest();
+		underscore.setTitle("t_o");
+		// As a wildcard it would match the space in "Sunny flat"
+		PropertySearchRequest wildcard = new PropertySearchRequest();
+		wildcard.setTitle("y_f");
+
+		assertEquals(List.of("100% sea view flat"), titles(percent));
+		assertEquals(List.of("Flat_one"), titles(underscore));
+		assertEquals(List.of(), titles(wildcard));
+	}
+
+	private static List<String> titles(PropertySearchRequest request) {
+		return sessionFactory.fromSession(session -> {
+			CriteriaBuilder cb = session.getCriteriaBuilder();
+			CriteriaQuery<Property> query = cb.createQuery(Property.class);
+			Root<Property> root = query.from(Property.class);
+			query.where(PropertySpecifications.matching(request).toPredicate(root, query, cb));
+			query.orderBy(cb.asc(root.get("id")));
+			return session.createQuery(query).getResultList().stream().map(Property::getTitle).toList();
+		});
+	}
+
+	private static List<String> expected(PropertySearchRequest request) {
+		return Arrays.stream(ROWS)
+				.filter(row -> contains(row[0], request.getTitle()))
+				.filter(row -> contains(row[1], request.getLocation()))
+				.filter(row -> request.getMinPrice() == null || Double.parseDouble(row[2]) >= request.getMinPrice())
+				.filter(row -> request.getMaxPrice() == null || Double.parseDouble(row[2]) <= request.getMaxPrice())
+				.map(row -> row[0])
+				.toList();
+	}
+
+	private static boolean contains(String value, String keyword) {
+		return keyword == null || keyword.isBlank()
+				|| value.toLowerCase(Locale.ROOT).contains(keyword.trim().toLowerCase(Locale.ROOT));
+	}
+}
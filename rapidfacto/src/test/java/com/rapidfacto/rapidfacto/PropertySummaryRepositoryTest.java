@@ -0,0 +1,100 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.dto.PropertySummaryDto;
+import jakarta.persistence.EntityManager;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// view=summary reads only the columns a list card shows (plus created_at for the cursor), never the description
+// or the position
+class PropertySummaryRepositoryTest {
+
+	private static final Pattern COLUMN = Pattern.compile("\\w+\\.(\\w+)");
+	private static final List<String> statements = new ArrayList<>();
+
+	private static SessionFactory sessionFactory;
+
+	@BeforeAll
+	static void seed() {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:summaries-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+		Configuration configuration = new Configuration()
+				.addAnnotatedClass(Property.class)
+				.setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy());
+		configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+		configuration.getProperties().put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+			statements.add(sql);
+			return sql;
+		});
+		configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "create");
+		sessionFactory = configuration.buildSessionFactory();
+
+		new JdbcTemplate(dataSource).update("INSERT INTO properties (title, location, price, image_url, description, "
+				+ "created_at, change_version, version, latitude, longitude) VALUES ('Sunny flat', 'Baner, Pune', 2500000, "
+				+ "'http://x/y.jpg', 'A long description', CURRENT_TIMESTAMP, 0, 0, 18.56, 73.78)");
+	}
+
+	@AfterAll
+	static void close() {
+		sessionFactory.close();
+	}
+
+	@Test
+	void selectsOnlyTheSummaryColumns() {
+		List<PropertySummaryDto> summaries = query(repository -> repository.findSummaries(
+				PropertySpecifications.unfiltered(), Sort.by(Sort.Direction.DESC, "createdAt"), 10));
+
+		assertEquals(1, summaries.size());
+		assertEquals("Sunny flat", summaries.get(0).getTitle());
+		assertEquals(List.of("id", "title", "location", "price", "image_url", "created_at"), selectedColumns());
+	}
+
+	@Test
+	void selectsOnlyTheSummaryColumnsById() {
+		List<PropertySummaryDto> summaries = query(repository -> repository.findSummariesByIdIn(List.of(1L, 2L)));
+
+		assertEquals(1, summaries.size());
+		assertEquals("Baner, Pune", summaries.get(0).getLocation());
+		assertEquals(List.of("id", "title", "location", "price", "image_url", "created_at"), selectedColumns());
+	}
+
+	private static <T> T query(Function<PropertySummaryRepositoryImpl, T> call) {
+		try (EntityManager entityManager = sessionFactory.createEntityManager()) {
+			PropertySummaryRepositoryImpl repository = new PropertySummaryRepositoryImpl();
+			ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+			statements.clear();
+			return call.apply(repository);
+		}
+	}
+
+	// Columns of the one statement run, in select-list order
+	private static List<String> selectedColumns() {
+		assertEquals(1, statements.size(), statements.toString());
+		String sql = statements.get(0).toLowerCase(Locale.ROOT);
+		Matcher columns = COLUMN.matcher(sql.substring(sql.indexOf("select") + 6, sql.indexOf(" from ")));
+		List<String> names = new ArrayList<>();
+		while (columns.find()) {
+			names.add(columns.group(1));
+		}
+		return names;
+	}
+}
@@ -0,0 +1,133 @@
+package com.rapidfacto.rapidfacto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// PATCH /api/properties/{id} and PATCH /api/properties/prices against the whole application on an in-memory database
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:write-api;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+class PropertyWriteApiTest {
+
+	private static final long UNKNOWN_ID = 999_999;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void patchWithoutIfMatchChangesOnlyTheGivenFields() throws Exception {
+		long id = create("Flat near the lake", 2_500_000);
+		String before = eTag(id);
+
+		JsonNode patched = data(mvc.perform(patch("/api/properties/" + id)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"price\":2750000}"))
+				.andExpect(status().isOk())
+				.andReturn());
+
+		assertEquals(2_750_000, patched.get("price").asDouble());
+		assertEquals("Flat near the lake", patched.get("title").asText());
+		assertEquals(1, patched.get("version").asLong());
+		assertNotEquals(before, eTag(id));
+	}
+
+	@Test
+	void patchWithAStaleIfMatchFailsAndLeavesTheListing() throws Exception {
+		long id = create("Villa with a garden", 9_000_000);
+		String stale = eTag(id);
+		mvc.perform(patch("/api/properties/" + id).header(HttpHeaders.IF_MATCH, stale)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"price\":9100000}"))
+				.andExpect(status().isOk());
+
+		mvc.perform(patch("/api/properties/" + id).header(HttpHeaders.IF_MATCH, stale)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"price\":1500000}"))
+				.andExpect(status().isPreconditionFailed());
+
+		mvc.perform(get("/api/properties/" + id))
+				.andExpect(jsonPath("$.data.price").value(9_100_000.0))
+				.andExpect(jsonPath("$.data.version").value(1));
+	}
+
+	@Test
+	void patchOfAnUnknownListingIsNotFound() throws Exception {
+		mvc.perform(patch("/api/properties/" + UNKNOWN_ID)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"price\":2500000}"))
+				.andExpect(status().isNotFound());
+		mvc.perform(patch("/api/properties/" + UNKNOWN_ID).header(HttpHeaders.IF_MATCH, "\"" + UNKNOWN_ID + "-0\"")
+						.contentType(MediaType.APPLICATION_JSON).content("{\"price\":2500000}"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void repriceReportsConflictsAndUnknownListingsPerItem() throws Exception {
+		long current = create("Studio in the old town", 3_000_000);
+		long stale = create("Loft over the market", 4_000_000);
+		long unconditional = create("Cottage by the river", 5_000_000);
+		String body = "[{\"id\":" + current + ",\"price\":3100000,\"version\":0},"
+				+ "{\"id\":" + stale + ",\"price\":4100000,\"version\":7},"
+				+ "{\"id\":" + UNKNOWN_ID + ",\"price\":2000000},"
+				+ "{\"id\":" + unconditional + ",\"price\":5100000},"
+				+ "{\"id\":" + current + ",\"price\":5}]";
+
+		JsonNode result = data(mvc.perform(patch("/api/properties/prices")
+						.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isOk())
+				.andReturn());
+
+		assertEquals(5, result.get("received").asLong());
+		assertEquals(2, result.get("updated").asLong());
+		assertEquals(3, result.get("failed").asLong());
+		Map<Long, String> errors = new HashMap<>();
+		for (JsonNode error : result.get("errors")) {
+			errors.put(error.get("id").asLong(), error.get("message").asText());
+		}
+		assertEquals(Map.of(stale, "Version conflict: now at version 0", UNKNOWN_ID, "Property not found",
+				current, "price: Price must be at least 100,000"), errors);
+		mvc.perform(get("/api/properties/" + current)).andExpect(jsonPath("$.data.price").value(3_100_000.0));
+		mvc.perform(get("/api/properties/" + stale)).andExpect(jsonPath("$.data.price").value(4_000_000.0));
+		mvc.perform(get("/api/properties/" + unconditional)).andExpect(jsonPath("$.data.version").value(1));
+	}
+
+	private long create(String title, double price) throws Exception {
+		String body = "{\"title\":\"" + title + "\",\"location\":\"Baner, Pune\",\"price\":" + price
+				+ ",\"imageUrl\":\"https://x/y.jpg\",\"description\":\"Close to the park and the station\"}";
+		return data(mvc.perform(post("/api/properties").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated())
+				.andReturn()).get("id").asLong();
+	}
+
+	private String eTag(long id) throws Exception {
+		return mvc.perform(get("/api/properties/" + id)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+	}
+
+	private JsonNode data(MvcResult result) throws Exception {
+		return objectMapper.readTree(result.getResponse().getContentAsString()).get("data");
+	}
+}
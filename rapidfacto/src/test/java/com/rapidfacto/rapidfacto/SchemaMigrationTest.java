@@ -0,0 +1,106 @@
+package com.rapidfacto.rapidfacto;
+
+import com.rapidfacto.rapidfacto.alerts.SavedSearch;
+import com.rapidfacto.rapidfacto.feed.ChangeCounter;
+import com.rapidfacto.rapidfacto.feed.ChangeLease;
+import com.rapidfacto.rapidfacto.feed.PropertyTombstone;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The prod profile trusts the migrations instead of letting Hibernate build the schema, so they have to give
+// exactly the tables and columns the entities map to
+class SchemaMigrationTest {
+
+	@Test
+	void migrationsCreateTheSchemaTheEntitiesMapTo() {
+		DataSource dataSource = database();
+		Flyway flyway = flyway(dataSource);
+
+		assertEquals(flyway.info().pending().length, flyway.migrate().migrationsExecuted);
+
+		Configuration configuration = new Configuration()
+				.addAnnotatedClass(Property.class)
+				.addAnnotatedClass(User.class)
+				.addAnnotatedClass(SavedSearch.class)
+				.addAnnotatedClass(ChangeCounter.class)
+				.addAnnotatedClass(ChangeLease.class)
+				.addAnnotatedClass(PropertyTombstone.class)
+				.setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy());
+		configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+		configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "validate");
+		// Fails to build on any missing table or column, or a column of the wrong type
+		try (SessionFactory sessionFactory = configuration.buildSessionFactory()) {
+			Long rows = sessionFactory.fromSession(session -> session
+					.createSelectionQuery("select count(*) from Property", Long.class).getSingleResult());
+			assertEquals(0L, rows);
+		}
+	}
+
+	@Test
+	void databasesBuiltByDdlAutoAreBaselinedNotMigrated() {
+		DataSource dataSource = database();
+		new JdbcTemplate(dataSource).execute("CREATE TABLE properties (id BIGINT AUTO_INCREMENT PRIMARY KEY)");
+		Flyway flyway = flyway(dataSource);
+		int later = flyway.info().all().length - 1;
+
+		// Only the migrations after the baseline run
+		assertEquals(later, flyway.migrate().migrationsExecuted);
+		assertEquals("1", flyway.info().applied()[0].getVersion().getVersion());
+		assertEquals(0, flyway.info().pending().length);
+	}
+
+	@Test
+	void locationPriceIndexIsDropped() {
+		DataSource dataSource = database();
+		Flyway.configure().dataSource(dataSource).target("2").load().migrate();
+		assertTrue(indexes(dataSource).contains("idx_properties_location_price"));
+
+		flyway(dataSource).migrate();
+
+		assertFalse(indexes(dataSource).contains("idx_properties_location_price"));
+		assertTrue(indexes(dataSource).contains("idx_properties_price_id"));
+	}
+
+	@Test
+	void locationPriceIndexDropSkipsDatabasesWithoutIt() {
+		DataSource dataSource = database();
+		Flyway.configure().dataSource(dataSource).target("2").load().migrate();
+		new JdbcTemplate(dataSource).execute("DROP INDEX idx_properties_location_price");
+
+		assertEquals(1, flyway(dataSource).migrate().migrationsExecuted);
+		assertFalse(indexes(dataSource).contains("idx_properties_location_price"));
+	}
+
+	private static List<String> indexes(DataSource dataSource) {
+		return new JdbcTemplate(dataSource).queryForList(
+				"SELECT LOWER(index_name) FROM information_schema.indexes WHERE LOWER(table_name) = 'properties'", String.class);
+	}
+
+	// As configured in application.properties
+	private static Flyway flyway(DataSource dataSource) {
+		return Flyway.configure()
+				.dataSource(dataSource)
+				.baselineOnMigrate(true)
+				.baselineVersion("1")
+				.load();
+	}
+
+	private static DataSource database() {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:migrations-" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+		return dataSource;
+	}
+}
@@ -0,0 +1,73 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PriceRangesTest {
+
+	@Test
+	void findsTheRangesContainingAPrice() {
+		PriceRanges<String> ranges = new PriceRanges<>();
+		ranges.add(1, 100, 200, "a");
+		ranges.add(2, 150, 150, "b");
+		ranges.add(3, Double.NEGATIVE_INFINITY, 120, "c");
+		ranges.add(4, 180, Double.POSITIVE_INFINITY, "d");
+
+		assertEquals(List.of("c", "a"), containing(ranges, 110));
+		assertEquals(List.of("a", "b"), containing(ranges, 150));
+		assertEquals(List.of("a", "d"), containing(ranges, 200));
+		assertEquals(List.of("d"), containing(ranges, 1_000));
+
+		ranges.remove(1, 100);
+		assertEquals(List.of("b"), containing(ranges, 150));
+	}
+
+	// Enough ranges that lookups go through the tree, which grows with them and follows removals
+	@Test
+	void agreesWithCheckingEveryRange() {
+		Random random = new Random(7);
+		PriceRanges<Long> ranges = new PriceRanges<>();
+		Map<Long, double[]> expected = new HashMap<>();
+		for (int step = 0; step < 5_000; step++) {
+			long id = random.nextInt(600);
+			double[] previous = expected.remove(id);
+			if (previous != null) {
+				ranges.remove(id, previous[0]);
+			}
+			if (random.nextInt(3) > 0) {
+				double min = random.nextInt(100);
+				double[] range = {min, min + random.nextInt(40)};
+				ranges.add(id, range[0], range[1], id);
+				expected.put(id, range);
+			}
+			if (step % 50 == 0) {
+				for (int price = -1; price <= 140; price += 7) {
+					List<Long> want = new ArrayList<>();
+					for (Map.Entry<Long, double[]> entry : expected.entrySet()) {
+						if (entry.getValue()[0] <= price && price <= entry.getValue()[1]) {
+							want.add(entry.getKey());
+						}
+					}
+					List<Long> got = containing(ranges, price);
+					want.sort(null);
+					got.sort(null);
+					assertEquals(want, got, "price " + price + " at step " + step);
+				}
+			}
+		}
+		assertEquals(expected.size(), ranges.size());
+	}
+
+	private static <T> List<T> containing(PriceRanges<T> ranges, double price) {
+		List<T> found = new ArrayList<>();
+		ranges.containing(price, found::add);
+		return found;
+	}
+}
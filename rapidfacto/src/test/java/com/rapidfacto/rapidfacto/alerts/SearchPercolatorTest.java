@@ -0,0 +1,103 @@
+package com.rapidfacto.rapidfacto.alerts;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchPercolatorTest {
+
+	@Test
+	void matchesWholeWordsInTitleAndLocationWithinPriceRange() {
+		SearchPercolator percolator = new SearchPercolator();
+		percolator.put(1, "2 BHK", "Mumbai", null, 9_000_000.0);
+		percolator.put(2, null, "andheri east", null, null);
+		percolator.put(3, "villa", null, null, null);
+		percolator.put(4, null, "Mum", null, null);
+
+		assertArrayEquals(new long[]{1, 2}, percolator.match("2 BHK Apartment", "Andheri East, Mumbai", 8_500_000));
+		assertArrayEquals(new long[]{2}, percolator.match("2 BHK Apartment", "Andheri East, Mumbai", 9_500_000));
+		assertArrayEquals(new long[0], percolator.match("3 BHK Flat", "Andheri West, Mumbai", 8_500_000));
+	}
+
+	@Test
+	void priceOnlySearchesMatchByRange() {
+		SearchPercolator percolator = new SearchPercolator();
+		percolator.put(1, null, null, 5_000_000.0, 10_000_000.0);
+		percolator.put(2, null, null, null, 5_000_000.0);
+		percolator.put(3, null, null, 8_000_000.0, null);
+
+		assertArrayEquals(new long[]{1, 2}, percolator.match("Flat", "Pune", 5_000_000));
+		assertArrayEquals(new long[]{1, 3}, percolator.match("Flat", "Pune", 9_000_000));
+		assertArrayEquals(new long[]{3}, percolator.match("Flat", "Pune", 20_000_000));
+	}
+
+	@Test
+	void replacedAndRemovedSearchesStopMatching() {
+		SearchPercolator percolator = new SearchPercolator();
+		percolator.put(1, null, "pune", null, null);
+		percolator.put(2, null, null, 1.0, 2.0);
+		percolator.put(1, null, "delhi", null, null);
+		percolator.remove(2);
+
+		assertArrayEquals(new long[0], percolator.match("Flat", "Pune", 1.5));
+		assertArrayEquals(new long[]{1}, percolator.match("Flat", "Delhi", 1.5));
+		assertEquals(1, percolator.size());
+	}
+
+	@Test
+	void agreesWithCheckingEverySearch() {
+		String[] vocabulary = {"1", "2", "3", "bhk", "flat", "villa", "studio", "garden", "mumbai", "pune", "delhi",
+				"andheri", "east", "west", "sector", "62"};
+		Random random = new Random(7);
+		SearchPercolator percolator = new SearchPercolator();
+		List<Object[]> searches = new ArrayList<>();
+		for (int id = 0; id < 3000; id++) {
+			String title = randomWords(random, vocabulary, random.nextInt(3));
+			String location = randomWords(random, vocabulary, random.nextInt(3));
+			Double min = random.nextInt(3) == 0 ? null : random.nextInt(100) * 100_000.0;
+			Double max = random.nextInt(3) == 0 ? null : (min == null ? 0 : min) + random.nextInt(100) * 100_000.0;
+			percolator.put(id, title, location, min, max);
+			searches.add(new Object[]{(long) id, title, location, min, max});
+		}
+		for (int id = 0; id < 3000; id += 3) {
+			percolator.remove(id);
+		}
+		searches.removeIf(search -> (long) search[0] % 3 == 0);
+
+		for (int i = 0; i < 500; i++) {
+			String title = randomWords(random, vocabulary, 1 + random.nextInt(4));
+			String location = randomWords(random, vocabulary, 1 + random.nextInt(3));
+			double price = random.nextInt(200) * 100_000.0;
+			assertArrayEquals(bruteForce(searches, title, location, price), percolator.match(title, location, price));
+		}
+	}
+
+	private static String randomWords(Random random, String[] vocabulary, int count) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			text.append(i == 0 ? "" : i % 2 == 0 ? ", " : " ").append(vocabulary[random.nextInt(vocabulary.length)]);
+		}
+		return text.toString();
+	}
+
+	private static long[] bruteForce(List<Object[]> searches, String title, String location, double price) {
+		Set<String> titleWords = new HashSet<>(Arrays.asList(SearchPercolator.words(title)));
+		Set<String> locationWords = new HashSet<>(Arrays.asList(SearchPercolator.words(location)));
+		return searches.stream()
+				.filter(search -> search[3] == null || price >= (Double) search[3])
+				.filter(search -> search[4] == null || price <= (Double) search[4])
+				.filter(search -> titleWords.containsAll(Arrays.asList(SearchPercolator.words((String) search[1]))))
+				.filter(search -> locationWords.containsAll(Arrays.asList(SearchPercolator.words((String) search[2]))))
+				.mapToLong(search -> (Long) search[0])
+				.sorted()
+				.toArray();
+	}
+}
@@ -0,0 +1,55 @@
+package com.rapidfacto.rapidfacto.bulk;
+
+import com.rapidfacto.rapidfacto.dto.PropertyRequestDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvLineParserTest {
+
+	@Test
+	void readsColumnsByHeaderNameInAnyOrder() {
+		CsvLineParser parser = new CsvLineParser("Price,image_url,Title,location,DESCRIPTION,longitude,latitude");
+
+		PropertyRequestDto record = parser.parse("9500000,https://x/y.jpg,2 BHK Flat,\"Powai, Mumbai\",Lake view,72.9,19.1");
+
+		assertEquals("2 BHK Flat", record.getTitle());
+		assertEquals("Powai, Mumbai", record.getLocation());
+		assertEquals(9_500_000, record.getPrice());
+		assertEquals("https://x/y.jpg", record.getImageUrl());
+		assertEquals("Lake view", record.getDescription());
+		assertEquals(19.1, record.getLatitude());
+		assertEquals(72.9, record.getLongitude());
+	}
+
+	@Test
+	void quotedFieldsKeepCommasAndDoubledQuotes() {
+		assertEquals(List.of("a", "b, c", "say \"hi\"", ""), CsvLineParser.split("a,\"b, c\",\"say \"\"hi\"\"\","));
+	}
+
+	@Test
+	void blankAndMissingFieldsAreLeftToValidation() {
+		CsvLineParser parser = new CsvLineParser("title,location,price,imageUrl,description");
+
+		PropertyRequestDto record = parser.parse("Villa,Baner");
+
+		assertEquals("Villa", record.getTitle());
+		assertNull(record.getPrice());
+		assertNull(record.getDescription());
+		assertNull(record.getLatitude());
+	}
+
+	@Test
+	void rejectsUnreadableRowsAndHeaders() {
+		CsvLineParser parser = new CsvLineParser("title,location,price,imageUrl,description");
+
+		assertThrows(IllegalArgumentException.class, () -> parser.parse("Villa,Baner,cheap,https://x/y.jpg,Nice"));
+		assertThrows(IllegalArgumentException.class, () -> parser.parse("\"Villa,Baner,1,https://x/y.jpg,Nice"));
+		assertThrows(IllegalArgumentException.class, () -> new CsvLineParser("title,location,imageUrl,description"));
+		assertThrows(IllegalArgumentException.class, () -> new CsvLineParser(null));
+	}
+}
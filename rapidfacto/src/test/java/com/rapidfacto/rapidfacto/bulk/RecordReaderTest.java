@@ -0,0 +1,74 @@
+package com.rapidfacto.rapidfacto.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordReaderTest {
+
+	@Test
+	void splitsAtEveryKindOfLineBreak() throws IOException {
+		assertEquals(List.of("a", "b", "", "c", "d"), records("a\nb\r\n\r\nc\rd", false));
+		assertEquals(List.of("a"), records("a\n", false));
+		assertEquals(List.of(), records("", false));
+	}
+
+	@Test
+	void quotedCsvFieldsKeepTheirLineBreaks() throws IOException {
+		RecordReader reader = new RecordReader(new StringReader(
+				"title,description\n\"Flat\",\"Two lines\r\nof \"\"text\"\"\nand a third\"\nVilla,One line\n"), true);
+
+		assertEquals("title,description", reader.next());
+		assertEquals("\"Flat\",\"Two lines\r\nof \"\"text\"\"\nand a third\"", reader.next());
+		assertEquals(2, reader.recordLine());
+		assertEquals("Villa,One line", reader.next());
+		assertEquals(5, reader.recordLine());
+		assertEquals(null, reader.next());
+	}
+
+	@Test
+	void quotesOnlyJoinLinesForCsv() throws IOException {
+		assertEquals(List.of("{\"a\":\"b", "c\"}"), records("{\"a\":\"b\nc\"}", false));
+	}
+
+	@Test
+	void anOpenQuoteStopsJoiningLinesPastTheLimit() throws IOException {
+		String open = "\"" + "x".repeat(RecordReader.MAX_RECORD_LENGTH);
+		RecordReader reader = new RecordReader(new StringReader(open + "\nnext\nlast"), true);
+
+		assertEquals(open.substring(0, RecordReader.MAX_RECORD_LENGTH), reader.next());
+		assertTrue(reader.oversized());
+		assertEquals("next", reader.next());
+		assertFalse(reader.oversized());
+		assertEquals("last", reader.next());
+		assertEquals(List.of("\"a\nb"), records("\"a\nb", true));
+	}
+
+	@Test
+	void cutsUnquotedRecordsAtTheLimitToo() throws IOException {
+		String line = "y".repeat(RecordReader.MAX_RECORD_LENGTH + 10);
+		RecordReader reader = new RecordReader(new StringReader(line + "\r\n{}"), false);
+
+		assertEquals(line.substring(0, RecordReader.MAX_RECORD_LENGTH), reader.next());
+		assertTrue(reader.oversized());
+		assertEquals("{}", reader.next());
+		assertEquals(2, reader.recordLine());
+		assertFalse(reader.oversized());
+	}
+
+	private static List<String> records(String feed, boolean quotedFields) throws IOException {
+		RecordReader reader = new RecordReader(new StringReader(feed), quotedFields);
+		List<String> records = new ArrayList<>();
+		for (String record = reader.next(); record != null; record = reader.next()) {
+			records.add(record);
+		}
+		return records;
+	}
+}
@@ -0,0 +1,105 @@
+package com.rapidfacto.rapidfacto.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingLoaderTest {
+
+	@Test
+	void loadsOnlyExistingKeysInOneBatch() {
+		List<List<Long>> batches = new ArrayList<>();
+		CoalescingLoader<Long, String> loader = new CoalescingLoader<>(keys -> {
+			batches.add(List.copyOf(keys));
+			return evenKeysOnly(keys);
+		});
+
+		Map<Long, String> values = loader.loadAll(List.of(1L, 2L, 4L, 2L));
+
+		assertEquals(Map.of(2L, "v2", 4L, "v4"), values);
+		assertEquals(List.of(List.of(1L, 2L, 4L)), batches);
+		assertEquals(3, loader.loadedCount());
+	}
+
+	@Test
+	void concurrentCallerWaitsForKeysAlreadyBeingLoaded() throws Exception {
+		CountDownLatch firstLoadStarted = new CountDownLatch(1);
+		CountDownLatch releaseFirstLoad = new CountDownLatch(1);
+		List<List<Long>> batches = new CopyOnWriteArrayList<>();
+		CoalescingLoader<Long, String> loader = new CoalescingLoader<>(keys -> {
+			batches.add(List.copyOf(keys));
+			if (keys.contains(1L)) {
+				firstLoadStarted.countDown();
+				await(releaseFirstLoad);
+			}
+			return evenKeysOnly(keys);
+		});
+
+		CompletableFuture<Map<Long, String>> first = CompletableFuture.supplyAsync(() -> loader.loadAll(List.of(1L, 2L)));
+		assertTrue(firstLoadStarted.await(5, TimeUnit.SECONDS));
+		CompletableFuture<Map<Long, String>> second = CompletableFuture.supplyAsync(() -> loader.loadAll(List.of(2L, 4L)));
+		Thread.sleep(50);
+		assertFalse(second.isDone());
+		releaseFirstLoad.countDown();
+
+		assertEquals(Map.of(2L, "v2"), first.get(5, TimeUnit.SECONDS));
+		assertEquals(Map.of(2L, "v2", 4L, "v4"), second.get(5, TimeUnit.SECONDS));
+		assertEquals(List.of(List.of(1L, 2L), List.of(4L)), batches);
+		assertEquals(1, loader.coalescedCount());
+	}
+
+	@Test
+	void waiterLoadsItselfWhenTheSharedLoadFails() throws Exception {
+		CountDownLatch firstLoadStarted = new CountDownLatch(1);
+		CountDownLatch releaseFirstLoad = new CountDownLatch(1);
+		CoalescingLoader<Long, String> loader = new CoalescingLoader<>(keys -> {
+			if (keys.contains(1L)) {
+				firstLoadStarted.countDown();
+				await(releaseFirstLoad);
+				throw new IllegalStateException("connection lost");
+			}
+			return evenKeysOnly(keys);
+		});
+
+		CompletableFuture<Map<Long, String>> first = CompletableFuture.supplyAsync(() -> loader.loadAll(List.of(1L, 2L)));
+		assertTrue(firstLoadStarted.await(5, TimeUnit.SECONDS));
+		CompletableFuture<Map<Long, String>> second = CompletableFuture.supplyAsync(() -> loader.loadAll(List.of(2L)));
+		Thread.sleep(50);
+		releaseFirstLoad.countDown();
+
+		assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+		assertEquals(Map.of(2L, "v2"), second.get(5, TimeUnit.SECONDS));
+		assertEquals(Map.of(2L, "v2"), loader.loadAll(List.of(2L)));
+	}
+
+	private static Map<Long, String> evenKeysOnly(Collection<Long> keys) {
+		Map<Long, String> values = new HashMap<>();
+		for (Long key : keys) {
+			if (key % 2 == 0) {
+				values.put(key, "v" + key);
+			}
+		}
+		return values;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.rapidfacto.rapidfacto.cache;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rapidfacto.rapidfacto.codec.PropertyProtobuf;
+import com.rapidfacto.rapidfacto.codec.ResponseEncoder;
+import com.rapidfacto.rapidfacto.codec.ResponseFormat;
+import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import com.rapidfacto.rapidfacto.dto.CursorPage;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncodedResponseTest {
+
+	private final ResponseEncoder encoder = new ResponseEncoder(builder().build(), builder());
+
+	@Test
+	void cachedBytesAreStampedWithTheTimeTheyAreServed() throws IOException {
+		ApiResponse<CursorPage<PropertyResponseDto>> response = ApiResponse.success(page(), "Properties retrieved successfully");
+		LocalDateTime servedAt = LocalDateTime.of(2026, 10, 18, 9, 30, 15, 250_000_000);
+
+		for (ResponseFormat format : ResponseFormat.values()) {
+			EncodedResponse cached = EncodedResponse.of(encoder.encodeSplit(response, format));
+			byte[] timestamp = encoder.encodeTimestamp(servedAt, format);
+			byte[] expected = encoder.encode(new ApiResponse<>(true, response.getMessage(), response.getData(), servedAt), format);
+
+			if (format == ResponseFormat.PROTOBUF) {
+				// The timestamp field comes last instead of third, which protobuf readers accept
+				ApiResponse<CursorPage<PropertyResponseDto>> decoded = PropertyProtobuf.decode(cached.body(false, timestamp));
+				assertEquals(servedAt, decoded.getTimestamp());
+				assertEquals(PropertyProtobuf.decode(expected), decoded);
+			} else {
+				assertArrayEquals(expected, cached.body(false, timestamp), format.name());
+			}
+			assertTrue(cached.isGzip(true), format.name());
+			assertArrayEquals(cached.body(false, timestamp), gunzip(cached.body(true, timestamp)), format.name());
+		}
+	}
+
+	@Test
+	void smallBodiesAreNotGzipped() {
+		EncodedResponse cached = EncodedResponse.of(encoder.encodeSplit(ApiResponse.success(List.of(), "None"), ResponseFormat.JSON));
+
+		assertFalse(cached.isGzip(true));
+	}
+
+	private static CursorPage<PropertyResponseDto> page() {
+		List<PropertyResponseDto> items = new ArrayList<>();
+		for (long id = 1; id <= 20; id++) {
+			PropertyResponseDto property = new PropertyResponseDto();
+			property.setId(id);
+			property.setTitle("2 BHK Flat " + id);
+			property.setLocation("Baner, Pune");
+			property.setPrice(4_000_000.0 + id);
+			property.setCreatedAt(LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_000_000));
+			items.add(property);
+		}
+		return new CursorPage<>(items, "abc", true);
+	}
+
+	private static byte[] gunzip(byte[] gzip) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+			return in.readAllBytes();
+		}
+	}
+
+	private static Jackson2ObjectMapperBuilder builder() {
+		return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	}
+}
@@ -0,0 +1,45 @@
+package com.rapidfacto.rapidfacto.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LruCacheStoreTest {
+
+	@Test
+	void evictsLeastRecentlyUsedEntry() {
+		LruCacheStore<Long, String> store = new LruCacheStore<>(2, Duration.ofMinutes(1));
+		store.put(1L, "one");
+		store.put(2L, "two");
+		store.get(1L);
+		store.put(3L, "three");
+
+		assertNull(store.get(2L));
+		assertEquals("one", store.get(1L));
+		assertEquals("three", store.get(3L));
+		assertEquals(1, store.evictionCount());
+		assertEquals(3, store.hitCount());
+		assertEquals(1, store.missCount());
+	}
+
+	@Test
+	void putIfAbsentKeepsTheWritersValue() {
+		LruCacheStore<Long, String> store = new LruCacheStore<>(10, Duration.ofMinutes(1));
+		store.put(1L, "new");
+		store.putIfAbsent(1L, "stale");
+
+		assertEquals("new", store.get(1L));
+	}
+
+	@Test
+	void expiresEntriesAfterTtl() {
+		LruCacheStore<Long, String> store = new LruCacheStore<>(10, Duration.ZERO);
+		store.put(1L, "one");
+
+		assertNull(store.get(1L));
+		assertEquals(0, store.size());
+	}
+}
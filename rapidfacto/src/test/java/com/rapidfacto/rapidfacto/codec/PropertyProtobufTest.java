@@ -0,0 +1,115 @@
+package com.rapidfacto.rapidfacto.codec;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.UnknownFieldSet;
+import com.rapidfacto.rapidfacto.dto.ApiResponse;
+import com.rapidfacto.rapidfacto.dto.CursorPage;
+import com.rapidfacto.rapidfacto.dto.PropertyBatch;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import com.rapidfacto.rapidfacto.dto.PropertySummaryDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PropertyProtobufTest {
+
+	@Test
+	void pageRoundTripsWithAbsentFieldsKeptAbsent() throws Exception {
+		PropertyResponseDto full = property(1L, "2 BHK Flat", "Andheri East, Mumbai", 8_500_000.0);
+		full.setImageUrl("https://example.com/1.jpg");
+		full.setDescription("Sea facing — 12th floor");
+		full.setLatitude(19.1136);
+		full.setLongitude(72.8697);
+		full.setCreatedAt(LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_000_000));
+		full.setUpdatedAt(LocalDateTime.of(2024, 3, 2, 9, 0));
+		full.setVersion(3L);
+		PropertyResponseDto sparse = property(2L, null, "Pune", null);
+		ApiResponse<CursorPage<PropertyResponseDto>> response = ApiResponse.success(
+				new CursorPage<>(List.of(full, sparse), "abc", true), "Properties retrieved successfully");
+
+		ApiResponse<CursorPage<PropertyResponseDto>> decoded = PropertyProtobuf.decode(PropertyProtobuf.encode(response));
+
+		assertTrue(decoded.isSuccess());
+		assertEquals(response.getMessage(), decoded.getMessage());
+		assertEquals(response.getTimestamp().withNano(response.getTimestamp().getNano() / 1_000_000 * 1_000_000),
+				decoded.getTimestamp());
+		assertEquals(response.getData(), decoded.getData());
+		assertNull(decoded.getData().getItems().get(1).getPrice());
+	}
+
+	@Test
+	void writesValidProtobufMatchingTheSchema() throws Exception {
+		PropertySummaryDto summary = new PropertySummaryDto(5L, "Villa", "Goa", 20_000_000.0, null, LocalDateTime.now());
+		byte[] bytes = PropertyProtobuf.encode(ApiResponse.success(List.of(summary), "Properties found"));
+
+		UnknownFieldSet message = UnknownFieldSet.parseFrom(bytes);
+		assertEquals(Set.of(1, 2, 3, 4), message.asMap().keySet());
+		UnknownFieldSet property = UnknownFieldSet.parseFrom(message.getField(4).getLengthDelimitedList().get(0));
+		// Summaries leave out createdAt, as their JSON does
+		assertEquals(Set.of(1, 2, 3, 4), property.asMap().keySet());
+		assertEquals(List.of(5L), property.getField(1).getVarintList());
+		assertEquals(List.of(Double.doubleToLongBits(20_000_000.0)), property.getField(4).getFixed64List());
+	}
+
+	@Test
+	void multiGetSendsMissingIdsPacked() throws Exception {
+		PropertyBatch batch = new PropertyBatch(List.of(property(7L, "Studio", "Delhi", 3_000_000.0)), List.of(8L, 300L));
+		Map<Integer, UnknownFieldSet.Field> fields = UnknownFieldSet.parseFrom(PropertyProtobuf.encode(ApiResponse.success(batch))).asMap();
+
+		assertEquals(1, fields.get(4).getLengthDelimitedList().size());
+		ByteString packed = fields.get(7).getLengthDelimitedList().get(0);
+		CodedInputStream in = packed.newCodedInput();
+		List<Long> missing = new ArrayList<>();
+		while (!in.isAtEnd()) {
+			missing.add(in.readInt64());
+		}
+		assertEquals(List.of(8L, 300L), missing);
+	}
+
+	@Test
+	void errorsCarryOnlyTheMessage() throws Exception {
+		ApiResponse<CursorPage<PropertyResponseDto>> decoded = PropertyProtobuf.decode(
+				PropertyProtobuf.encode(ApiResponse.error("Property not found with id : '9'")));
+
+		assertFalse(decoded.isSuccess());
+		assertEquals("Property not found with id : '9'", decoded.getMessage());
+		assertTrue(decoded.getData().getItems().isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> PropertyProtobuf.encode(ApiResponse.success(Map.of("total", 1))));
+	}
+
+	@Test
+	void negotiatesByQualityThenSpecificityAndDefaultsToJson() {
+		Set<ResponseFormat> all = Set.of(ResponseFormat.values());
+		Set<ResponseFormat> schemaless = Set.of(ResponseFormat.JSON, ResponseFormat.CBOR, ResponseFormat.SMILE);
+
+		assertEquals(ResponseFormat.JSON, ResponseFormat.negotiate(null, all));
+		assertEquals(ResponseFormat.JSON, ResponseFormat.negotiate("application/json, text/plain, */*", all));
+		assertEquals(ResponseFormat.JSON, ResponseFormat.negotiate("not a media type", all));
+		assertEquals(ResponseFormat.CBOR, ResponseFormat.negotiate("application/cbor", all));
+		assertEquals(ResponseFormat.PROTOBUF, ResponseFormat.negotiate("application/json;q=0.5, application/x-protobuf", all));
+		assertEquals(ResponseFormat.PROTOBUF, ResponseFormat.negotiate("*/*, application/protobuf", all));
+		assertEquals(ResponseFormat.SMILE, ResponseFormat.negotiate("application/cbor;q=0.4, application/x-jackson-smile;q=0.8", all));
+		assertEquals(ResponseFormat.JSON, ResponseFormat.negotiate("application/x-protobuf", schemaless));
+		assertEquals(ResponseFormat.CBOR, ResponseFormat.negotiate("application/x-protobuf, application/cbor;q=0.5", schemaless));
+	}
+
+	private static PropertyResponseDto property(Long id, String title, String location, Double price) {
+		PropertyResponseDto property = new PropertyResponseDto();
+		property.setId(id);
+		property.setTitle(title);
+		property.setLocation(location);
+		property.setPrice(price);
+		return property;
+	}
+}
@@ -0,0 +1,59 @@
+package com.rapidfacto.rapidfacto.dto;
+
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageCursorTest {
+
+	@Test
+	void roundTripsEachKindOfKey() {
+		PageCursor price = PageCursor.decode(PageCursor.encode("price-asc", 4_500_000.0, 42L), "price-asc");
+		assertEquals(4_500_000.0, price.getKeyAsDouble());
+		assertEquals(42, price.getId());
+
+		LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_456_000);
+		PageCursor newest = PageCursor.decode(PageCursor.encode("newest", createdAt, 7L), "newest");
+		assertEquals(createdAt, newest.getKeyAsDateTime());
+		assertEquals(7, newest.getId());
+
+		PageCursor changes = PageCursor.decode(PageCursor.encode("changes", 12L, 1_099_511_627_776L), "changes");
+		assertEquals(12, changes.getKeyAsLong());
+		assertEquals(1_099_511_627_776L, changes.getId());
+	}
+
+	@Test
+	void isUrlSafe() {
+		String token = PageCursor.encode("newest", LocalDateTime.of(2024, 3, 1, 10, 15), 99_999L);
+
+		assertEquals(token, token.replaceAll("[^A-Za-z0-9_-]", ""));
+	}
+
+	@Test
+	void belongsToOneSort() {
+		String token = PageCursor.encode("price-asc", 100.0, 1L);
+
+		assertThrows(BadRequestException.class, () -> PageCursor.decode(token, "price-desc"));
+	}
+
+	@Test
+	void rejectsTamperedTokens() {
+		assertThrows(BadRequestException.class, () -> PageCursor.decode("not base64!", "newest"));
+		assertThrows(BadRequestException.class, () -> PageCursor.decode(raw("newest|2024-03-01T10:15"), "newest"));
+		assertThrows(BadRequestException.class, () -> PageCursor.decode(raw("newest|2024-03-01T10:15|x"), "newest"));
+		assertThrows(BadRequestException.class,
+				() -> PageCursor.decode(raw("newest|yesterday|1"), "newest").getKeyAsDateTime());
+		assertThrows(BadRequestException.class,
+				() -> PageCursor.decode(raw("price-asc|cheap|1"), "price-asc").getKeyAsDouble());
+	}
+
+	private static String raw(String cursor) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,59 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import com.rapidfacto.rapidfacto.dto.PageCursor;
+import com.rapidfacto.rapidfacto.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChangeCursorTest {
+
+	@Test
+	void keepsAPositionPerShard() {
+		ChangeCursor cursor = ChangeCursor.start(3).with(0, 12, 5).with(2, 7, (2L << 40) + 9);
+
+		ChangeCursor decoded = ChangeCursor.decode(cursor.encode(), 3);
+
+		assertEquals(12, decoded.version(0));
+		assertEquals(5, decoded.id(0));
+		assertEquals(-1, decoded.version(1));
+		assertEquals(0, decoded.id(1));
+		assertEquals(7, decoded.version(2));
+		assertEquals((2L << 40) + 9, decoded.id(2));
+	}
+
+	@Test
+	void cursorsFromBeforeShardingAreAPositionOnShardZero() {
+		ChangeCursor decoded = ChangeCursor.decode(PageCursor.encode("changes", 42L, 7L), 2);
+
+		assertEquals(42, decoded.version(0));
+		assertEquals(7, decoded.id(0));
+		assertEquals(-1, decoded.version(1));
+	}
+
+	@Test
+	void shardsAddedSinceStartFromScratch() {
+		String twoShards = ChangeCursor.start(2).with(1, 3, 4).encode();
+
+		ChangeCursor decoded = ChangeCursor.decode(twoShards, 3);
+
+		assertEquals(3, decoded.version(1));
+		assertEquals(-1, decoded.version(2));
+	}
+
+	@Test
+	void rejectsOtherTokens() {
+		assertThrows(BadRequestException.class, () -> ChangeCursor.decode("not base64!", 1));
+		assertThrows(BadRequestException.class, () -> ChangeCursor.decode(PageCursor.encode("price", 1L, 1L), 1));
+		assertThrows(BadRequestException.class, () -> ChangeCursor.decode(raw("changes|1:2,3"), 2));
+		assertThrows(BadRequestException.class, () -> ChangeCursor.decode(ChangeCursor.start(3).encode(), 2));
+	}
+
+	private static String raw(String cursor) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,69 @@
+package com.rapidfacto.rapidfacto.feed;
+
+import com.rapidfacto.rapidfacto.dto.PropertyChange;
+import com.rapidfacto.rapidfacto.dto.PropertyResponseDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeLogTest {
+
+	@Test
+	void answersCursorsFromTheResetPointOn() {
+		ChangeLog log = new ChangeLog(10);
+		log.reset(100);
+
+		assertNull(log.after(99, 10));
+		assertTrue(log.after(100, 10).isEmpty());
+
+		log.append(List.of(upsert(101, 1), PropertyChange.delete(102, 2L), upsert(104, 3)), 105);
+
+		assertEquals(List.of(101L, 102L, 104L), versions(log.after(100, 10)));
+		assertEquals(List.of(104L), versions(log.after(102, 10)));
+		assertEquals(List.of(101L, 102L), versions(log.after(100, 2)));
+		assertTrue(log.after(104, 10).isEmpty());
+		assertEquals(105, log.head());
+	}
+
+	@Test
+	void raisesTheFloorAsOldEntriesAreOverwritten() {
+		ChangeLog log = new ChangeLog(3);
+		log.reset(0);
+		for (long version = 1; version <= 5; version++) {
+			log.append(List.of(upsert(version, version)), version);
+		}
+
+		assertEquals(3, log.size());
+		assertEquals(2, log.floor());
+		assertNull(log.after(1, 10));
+		assertEquals(List.of(3L, 4L, 5L), versions(log.after(2, 10)));
+		assertEquals(List.of(5L), versions(log.after(4, 10)));
+	}
+
+	@Test
+	void resetForgetsEverything() {
+		ChangeLog log = new ChangeLog(3);
+		log.reset(0);
+		log.append(List.of(upsert(1, 1), upsert(2, 2)), 2);
+
+		log.reset(50);
+
+		assertEquals(0, log.size());
+		assertNull(log.after(2, 10));
+		assertTrue(log.after(50, 10).isEmpty());
+	}
+
+	private static PropertyChange upsert(long version, long id) {
+		PropertyResponseDto property = new PropertyResponseDto();
+		property.setId(id);
+		return PropertyChange.upsert(version, property);
+	}
+
+	private static List<Long> versions(List<PropertyChange> changes) {
+		return changes.stream().map(PropertyChange::getVersion).toList();
+	}
+}
@@ -0,0 +1,109 @@
+package com.rapidfacto.rapidfacto.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimiterTest {
+
+	private static final long WINDOW = 100_000_000L;
+	private static final long MILLI = 1_000_000L;
+
+	@Test
+	void growsWhileLatencyHoldsAtTheBaseline() {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 100, WINDOW);
+		long now = 0;
+		for (int window = 0; window < 20; window++) {
+			now = saturatedWindow(limiter, now, 20 * MILLI, false);
+		}
+		assertTrue(limiter.getLimit() > 20, "limit " + limiter.getLimit());
+		assertEquals(20 * MILLI, limiter.getBaselineNanos(), MILLI);
+	}
+
+	@Test
+	void shrinksWhenLatencyRisesFarAboveTheBaseline() {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(50, 4, 100, WINDOW);
+		long now = 0;
+		for (int window = 0; window < 5; window++) {
+			now = saturatedWindow(limiter, now, 20 * MILLI, false);
+		}
+		int healthy = limiter.getLimit();
+		// A database brownout: every query now takes ten times as long
+		for (int window = 0; window < 3; window++) {
+			now = saturatedWindow(limiter, now, 200 * MILLI, false);
+		}
+		assertTrue(limiter.getLimit() < healthy, limiter.getLimit() + " vs " + healthy);
+		// Settles where the admitted requests' latency stops rising, far below the healthy limit
+		for (int window = 0; window < 40; window++) {
+			now = saturatedWindow(limiter, now, 200 * MILLI, false);
+		}
+		assertTrue(limiter.getLimit() <= 10, "limit " + limiter.getLimit());
+	}
+
+	@Test
+	void backsOffOnFailures() {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(50, 4, 100, WINDOW);
+		saturatedWindow(limiter, 0, 20 * MILLI, true);
+		assertEquals(45, limiter.getLimit());
+	}
+
+	@Test
+	void doesNotGrowWhileTheLimitIsNotReached() {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(40, 2, 100, WINDOW);
+		long now = 0;
+		for (int window = 0; window < 10; window++) {
+			for (int i = 0; i < 20; i++) {
+				assertTrue(limiter.tryAcquire(1.0));
+				now += WINDOW / 10;
+				limiter.release(20 * MILLI, now, false);
+			}
+		}
+		assertEquals(40, limiter.getLimit());
+	}
+
+	@Test
+	void lowerSharesAreTurnedAwayFirst() {
+		AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 100, WINDOW);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(limiter.tryAcquire(0.5));
+		}
+		assertFalse(limiter.tryAcquire(0.5));
+		assertTrue(limiter.tryAcquire(1.0));
+		assertEquals(6, limiter.getInflight());
+		limiter.cancel();
+		assertEquals(5, limiter.getInflight());
+	}
+
+	@Test
+	void classifiesEndpoints() {
+		assertEquals(EndpointClass.BROWSE, EndpointClass.of("GET", "/api/properties"));
+		assertEquals(EndpointClass.BROWSE, EndpointClass.of("GET", "/api/properties/42"));
+		assertEquals(EndpointClass.SEARCH, EndpointClass.of("GET", "/api/properties/search/nearby"));
+		assertEquals(EndpointClass.SEARCH, EndpointClass.of("GET", "/api/properties/facets"));
+		assertEquals(EndpointClass.WRITE, EndpointClass.of("DELETE", "/api/properties/42"));
+		assertEquals(EndpointClass.WRITE, EndpointClass.of("PATCH", "/api/properties/42"));
+		assertEquals(EndpointClass.SIGNUP, EndpointClass.of("POST", "/api/users/signup"));
+		assertNull(EndpointClass.of("POST", "/api/properties/bulk"));
+		assertNull(EndpointClass.of("GET", "/api/properties/changes/stream"));
+		assertEquals(EndpointClass.WRITE, EndpointClass.of("PATCH", "/api/properties/prices"));
+		assertNull(EndpointClass.of("OPTIONS", "/api/properties"));
+		assertNull(EndpointClass.of("GET", "/actuator/metrics"));
+	}
+
+	// Fills the limit, then completes every request with the given latency, spread over one window
+	private static long saturatedWindow(AdaptiveLimiter limiter, long now, long latency, boolean dropped) {
+		int permits = 0;
+		while (limiter.tryAcquire(1.0)) {
+			permits++;
+		}
+		permits = Math.max(permits, 1);
+		for (int i = 0; i < permits; i++) {
+			now += WINDOW / permits + 1;
+			limiter.release(latency, now, dropped);
+		}
+		return now;
+	}
+}
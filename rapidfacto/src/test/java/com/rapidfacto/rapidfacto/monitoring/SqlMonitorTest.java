@@ -0,0 +1,106 @@
+package com.rapidfacto.rapidfacto.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlMonitorTest {
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+	private final SlowQueryLog slowQueryLog = new SlowQueryLog(2);
+
+	private SqlMonitor monitor(Duration slowThreshold) {
+		return new SqlMonitor(registry, slowQueryLog, new SqlLogger(registry, 0, 16), slowThreshold, 3);
+	}
+
+	@Test
+	void timesStatementsByOperationAndTable() throws Exception {
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:sqlmonitor;DB_CLOSE_DELAY=-1");
+		MonitoredDataSource dataSource = new MonitoredDataSource(h2, monitor(Duration.ofMinutes(1)));
+
+		try (Connection connection = dataSource.getConnection();
+			 Statement ddl = connection.createStatement()) {
+			ddl.execute("create table listings (id bigint primary key, title varchar(100))");
+			try (PreparedStatement insert = connection.prepareStatement("insert into listings (id, title) values (?, ?)")) {
+				for (int i = 1; i <= 3; i++) {
+					insert.setLong(1, i);
+					insert.setString(2, "listing " + i);
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			}
+			try (PreparedStatement select = connection.prepareStatement("select id from listings where id > ?")) {
+				select.setLong(1, 0);
+				try (ResultSet rows = select.executeQuery()) {
+					assertTrue(rows.next());
+				}
+			}
+		}
+
+		assertEquals(1, registry.get("jdbc.statements").tags("operation", "insert", "table", "listings", "outcome", "success").timer().count());
+		assertEquals(1, registry.get("jdbc.statements").tags("operation", "select", "table", "listings", "outcome", "success").timer().count());
+		assertEquals(1, registry.get("jdbc.statements").tags("operation", "other", "table", "none", "outcome", "success").timer().count());
+		assertEquals(0, slowQueryLog.captured());
+	}
+
+	@Test
+	void keepsSlowStatementsWithTheirRequest() {
+		SqlMonitor monitor = monitor(Duration.ZERO);
+		SqlMonitor.RequestQueries request = monitor.beginRequest("GET /api/properties/1");
+		monitor.record("select * from properties where id=?", 5_000_000, 1, true);
+		monitor.endRequest(request, "/api/properties/{id}");
+		monitor.record("update properties set price=? where id=?", 1_000_000, 50, false);
+
+		List<SlowQueryLog.SlowQuery> queries = slowQueryLog.snapshot();
+		assertEquals(2, queries.size());
+		assertEquals("update properties set price=? where id=?", queries.get(0).sql());
+		assertEquals(50, queries.get(0).batchSize());
+		assertNull(queries.get(0).request());
+		assertEquals("GET /api/properties/1", queries.get(1).request());
+		assertEquals(5.0, queries.get(1).durationMs());
+		assertEquals(1, registry.get("jdbc.statements").tags("operation", "update", "outcome", "error").timer().count());
+	}
+
+	@Test
+	void countsRepeatedStatementsAsNPlusOne() {
+		SqlMonitor monitor = monitor(Duration.ofMinutes(1));
+		SqlMonitor.RequestQueries request = monitor.beginRequest("GET /api/properties");
+		monitor.record("select * from properties limit ?", 1000, 1, true);
+		for (int i = 0; i < 3; i++) {
+			monitor.record("select * from users where id=?", 1000, 1, true);
+			monitor.entityLoaded();
+		}
+		monitor.endRequest(request, "/api/properties");
+		monitor.record("select * from users where id=?", 1000, 1, true);
+
+		assertEquals(4, registry.get("http.server.requests.queries").tags("uri", "/api/properties").summary().totalAmount());
+		assertEquals(3, registry.get("http.server.requests.entity.loads").summary().totalAmount());
+		assertEquals(1, registry.get("jdbc.n_plus_one").tags("uri", "/api/properties").counter().count());
+	}
+
+	@Test
+	void ringBufferKeepsTheNewestEntries() {
+		for (int i = 1; i <= 3; i++) {
+			slowQueryLog.add(new SlowQueryLog.SlowQuery(Instant.now(), i, "q" + i, 1, true, "main", null));
+		}
+
+		assertEquals(List.of("q3", "q2"), slowQueryLog.snapshot().stream().map(SlowQueryLog.SlowQuery::sql).toList());
+		assertEquals(3, slowQueryLog.captured());
+		slowQueryLog.clear();
+		assertTrue(slowQueryLog.snapshot().isEmpty());
+	}
+}
@@ -0,0 +1,108 @@
+package com.rapidfacto.rapidfacto.replica;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Two in-memory databases stand in for the primary and a replica; each answers with its own name
+class ReadWriteDataSourceTest {
+
+	private final DataSource primary = database("primary");
+	private final DataSource replica = database("replica");
+	private ReplicaRoutingDataSource routing;
+
+	@AfterEach
+	void stopChecks() throws Exception {
+		routing.close();
+	}
+
+	@Test
+	void readOnlyTransactionsGoToTheReplica() {
+		JdbcTemplate jdbc = readWrite(replica, "");
+
+		assertEquals("replica", inTransaction(jdbc, true));
+		assertEquals("primary", inTransaction(jdbc, false));
+		assertEquals("primary", jdbc.queryForObject("SELECT name FROM node", String.class));
+	}
+
+	@Test
+	void readYourWritesPinsReadsToThePrimary() {
+		JdbcTemplate jdbc = readWrite(replica, "");
+
+		assertEquals("primary", ReadRouting.onPrimary(() -> inTransaction(jdbc, true)));
+		assertEquals("replica", inTransaction(jdbc, true));
+	}
+
+	@Test
+	void readsAfterAWriteUseAReplicaOnceItHasAppliedIt() {
+		JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+		replicaJdbc.execute("CREATE TABLE property_change_counter (id INT PRIMARY KEY, version BIGINT)");
+		replicaJdbc.execute("CREATE TABLE property_change_leases (first_version BIGINT PRIMARY KEY)");
+		replicaJdbc.update("INSERT INTO property_change_counter VALUES (1, 8)");
+		replicaJdbc.update("INSERT INTO property_change_leases VALUES (7)");
+		JdbcTemplate jdbc = readWrite(replica, "");
+
+		ReadRouting.requireVersion(7);
+		try {
+			// Version 7 is still being written there
+			assertEquals("primary", inTransaction(jdbc, true));
+
+			replicaJdbc.update("DELETE FROM property_change_leases");
+			routing.checkReplicas();
+			assertEquals("replica", inTransaction(jdbc, true));
+		} finally {
+			ReadRouting.clear();
+		}
+	}
+
+	@Test
+	void laggingReplicaFallsBackToThePrimary() {
+		new JdbcTemplate(replica).update("UPDATE node SET lag_seconds = 30");
+		JdbcTemplate jdbc = readWrite(replica, "SELECT lag_seconds FROM node");
+
+		assertEquals("primary", inTransaction(jdbc, true));
+
+		new JdbcTemplate(replica).update("UPDATE node SET lag_seconds = 0");
+		routing.checkReplicas();
+		assertEquals("replica", inTransaction(jdbc, true));
+	}
+
+	@Test
+	void unreachableReplicaFallsBackToThePrimary() {
+		DriverManagerDataSource down = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/nowhere");
+		JdbcTemplate jdbc = readWrite(down, "");
+
+		assertEquals("primary", inTransaction(jdbc, true));
+	}
+
+	private JdbcTemplate readWrite(DataSource replicaDataSource, String lagQuery) {
+		routing = new ReplicaRoutingDataSource(primary, List.of(replicaDataSource), Duration.ofSeconds(2), lagQuery);
+		routing.checkReplicas();
+		return new JdbcTemplate(new ReadWriteDataSource(primary, routing));
+	}
+
+	private static String inTransaction(JdbcTemplate jdbc, boolean readOnly) {
+		TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()));
+		transaction.setReadOnly(readOnly);
+		return transaction.execute(status -> jdbc.queryForObject("SELECT name FROM node", String.class));
+	}
+
+	private static DataSource database(String name) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("CREATE TABLE node (name VARCHAR(20), lag_seconds INT)");
+		jdbc.update("INSERT INTO node VALUES (?, 0)", name);
+		return dataSource;
+	}
+}
@@ -0,0 +1,33 @@
+package com.rapidfacto.rapidfacto.replica;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WriteTokenTest {
+
+	@Test
+	void carriesTheLastVersionWrittenOnEachShard() {
+		TreeMap<Integer, Long> versions = new TreeMap<>();
+		versions.put(1, 40L);
+		versions.put(0, 12L);
+		WriteToken token = new WriteToken(1_760_000_000_000L, versions);
+
+		assertEquals("1760000000000,0:12,1:40", token.encode());
+		assertEquals(token, WriteToken.decode(token.encode()));
+		assertEquals(12L, WriteToken.decode("5,0:9,0:12").versions().get(0));
+		assertEquals(new TreeMap<>(), WriteToken.decode("1760000000000").versions());
+	}
+
+	@Test
+	void malformedTokensCountAsNone() {
+		assertNull(WriteToken.decode(null));
+		assertNull(WriteToken.decode(""));
+		assertNull(WriteToken.decode("yesterday"));
+		assertNull(WriteToken.decode("5,0"));
+		assertNull(WriteToken.decode("5,0:x"));
+	}
+}
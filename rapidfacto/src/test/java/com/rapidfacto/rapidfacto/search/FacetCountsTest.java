@@ -0,0 +1,141 @@
+package com.rapidfacto.rapidfacto.search;
+
+import com.rapidfacto.rapidfacto.dto.PropertyFacets;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FacetCountsTest {
+
+	private static final String[] LOCATIONS = {
+			"Andheri East, Mumbai", "Bandra West, Mumbai", "Powai, Mumbai", "Koramangala, Bangalore",
+			"Whitefield, Bangalore", "Hinjewadi, Pune", "Gurgaon"
+	};
+	private static final double[] EDGES = {0, 5_000_000, 10_000_000, 15_000_000};
+
+	@Test
+	void countsMatchBruteForceAcrossUpdatesAndRemovals() {
+		Random random = new Random(3);
+		FacetCounts counts = new FacetCounts(EDGES);
+		Map<Long, String> locations = new HashMap<>();
+		Map<Long, Double> prices = new HashMap<>();
+		for (int step = 0; step < 20_000; step++) {
+			long id = 1 + random.nextInt(3_000);
+			if (random.nextInt(10) == 0) {
+				counts.remove(id);
+				locations.remove(id);
+				prices.remove(id);
+			} else {
+				String location = LOCATIONS[random.nextInt(LOCATIONS.length)];
+				double price = random.nextInt(40) * 500_000.0;
+				counts.put(id, location, price);
+				locations.put(id, location);
+				prices.put(id, price);
+			}
+		}
+
+		// Unbounded prices with the counted edges read the per-location counters, bounded ones rank the prices
+		double[][] ranges = {{2_500_000, 12_000_000}, {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY}};
+		for (String keyword : new String[]{null, "mumbai", "WEST", "pune"}) {
+			for (double[] range : ranges) {
+				assertMatchesBruteForce(counts, locations, prices, keyword, range[0], range[1]);
+			}
+		}
+	}
+
+	@Test
+	void groupsLocationsIgnoringCaseAndSpacing() {
+		FacetCounts counts = new FacetCounts(EDGES);
+		counts.put(1, "Andheri East, Mumbai", 4_000_000);
+		counts.put(2, "andheri east ,  mumbai", 6_000_000);
+		counts.put(3, "Powai, Mumbai", 9_000_000);
+		counts.put(4, "Gurgaon", 7_000_000);
+
+		PropertyFacets facets = counts.count(null, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, EDGES, 20);
+
+		assertEquals(4, facets.getTotal());
+		assertEquals("Mumbai", facets.getCities().get(0).getCity());
+		assertEquals(3, facets.getCities().get(0).getCount());
+		assertEquals("Andheri East", facets.getLocalities().get(0).getLocality());
+		assertEquals(2, facets.getLocalities().get(0).getCount());
+		assertEquals("Gurgaon", facets.getCities().get(1).getCity());
+		assertNull(facets.getPriceHistogram().get(EDGES.length - 1).getMax());
+	}
+
+	@Test
+	void movesListingBetweenLocationsAndBuckets() {
+		FacetCounts counts = new FacetCounts(EDGES);
+		counts.put(1, "Powai, Mumbai", 4_000_000);
+		counts.put(1, "Hinjewadi, Pune", 11_000_000);
+
+		PropertyFacets facets = counts.count(null, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, EDGES, 20);
+
+		assertEquals(1, facets.getTotal());
+		assertEquals(1, facets.getCities().size());
+		assertEquals("Pune", facets.getCities().get(0).getCity());
+		assertEquals(0, facets.getPriceHistogram().get(0).getCount());
+		assertEquals(1, facets.getPriceHistogram().get(2).getCount());
+	}
+
+	@Test
+	void countsOnlyGivenIds() {
+		FacetCounts counts = new FacetCounts(EDGES);
+		counts.put(1, "Powai, Mumbai", 4_000_000);
+		counts.put(2, "Powai, Mumbai", 6_000_000);
+		counts.put(3, "Hinjewadi, Pune", 16_000_000);
+
+		PropertyFacets facets = counts.count(new long[]{1, 3, 99}, null, 0, Double.POSITIVE_INFINITY, EDGES, 20);
+
+		assertEquals(2, facets.getTotal());
+		assertEquals(1, facets.getPriceHistogram().get(0).getCount());
+		assertEquals(0, facets.getPriceHistogram().get(1).getCount());
+		assertEquals(1, facets.getPriceHistogram().get(3).getCount());
+	}
+
+	@Test
+	void rejectsUnorderedBucketEdges() {
+		assertThrows(IllegalArgumentException.class, () -> FacetCounts.parseBucketEdges("0,5000000,5000000"));
+		assertThrows(IllegalArgumentException.class, () -> FacetCounts.parseBucketEdges("0,abc"));
+	}
+
+	private static void assertMatchesBruteForce(FacetCounts counts, Map<Long, String> locations, Map<Long, Double> prices,
+			String keyword, double min, double max) {
+		PropertyFacets facets = counts.count(keyword, min, max, EDGES, 20);
+
+		long total = 0;
+		long[] histogram = new long[EDGES.length];
+		Map<String, Long> byCity = new HashMap<>();
+		for (Map.Entry<Long, String> entry : locations.entrySet()) {
+			double price = prices.get(entry.getKey());
+			String location = entry.getValue();
+			if (price < min || price > max
+					|| (keyword != null && !location.toLowerCase(Locale.ROOT).contains(keyword.toLowerCase(Locale.ROOT)))) {
+				continue;
+			}
+			total++;
+			String city = location.contains(",") ? location.substring(location.lastIndexOf(',') + 2) : location;
+			byCity.merge(city, 1L, Long::sum);
+			for (int b = EDGES.length - 1; b >= 0; b--) {
+				if (price >= EDGES[b]) {
+					histogram[b]++;
+					break;
+				}
+			}
+		}
+		assertEquals(total, facets.getTotal());
+		assertEquals(byCity.size(), facets.getCities().size());
+		for (PropertyFacets.CityCount city : facets.getCities()) {
+			assertEquals(byCity.get(city.getCity()), city.getCount());
+		}
+		for (int b = 0; b < EDGES.length; b++) {
+			assertEquals(histogram[b], facets.getPriceHistogram().get(b).getCount());
+		}
+	}
+}
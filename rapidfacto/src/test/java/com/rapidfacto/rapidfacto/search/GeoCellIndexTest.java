@@ -0,0 +1,172 @@
+package com.rapidfacto.rapidfacto.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoCellIndexTest {
+
+	private static final int COUNT = 20_000;
+
+	@Test
+	void radiusSearchMatchesBruteForce() {
+		Random random = new Random(7);
+		double[][] points = clusteredPoints(random);
+		GeoCellIndex index = load(points);
+
+		for (int q = 0; q < 50; q++) {
+			double[] centre = points[random.nextInt(COUNT)];
+			double radiusKm = 1 + random.nextDouble() * 30;
+			// Plain great-circle distances, independent of the index's squared chords
+			List<GeoMatch> expected = new ArrayList<>();
+			for (int i = 0; i < COUNT; i++) {
+				double distance = GeoQuery.distanceKm(centre[0], centre[1], points[i][0], points[i][1]);
+				if (distance <= radiusKm) {
+					double chord = 2 * Math.sin(distance / GeoQuery.EARTH_RADIUS_KM / 2);
+					expected.add(new GeoMatch(i + 1, chord * chord));
+				}
+			}
+			GeoQuery query = GeoQuery.radius(centre[0], centre[1], radiusKm);
+			List<GeoMatch> actual = nearest(index, query, 0, Double.MAX_VALUE, 25);
+			assertEquals(ids(nearestFirst(expected, 25)), ids(actual));
+			for (GeoMatch match : actual) {
+				assertTrue(match.distanceKm() <= radiusKm);
+			}
+		}
+	}
+
+	@Test
+	void boxSearchAppliesPriceRange() {
+		Random random = new Random(11);
+		double[][] points = clusteredPoints(random);
+		GeoCellIndex index = load(points);
+
+		GeoQuery query = GeoQuery.box(18.9, 19.3, 72.7, 73.1);
+		List<GeoMatch> expected = bruteForce(points, query, 5_000_000, 9_000_000, 100);
+		assertEquals(100, expected.size());
+		assertEquals(expected, nearest(index, query, 5_000_000, 9_000_000, 100));
+	}
+
+	@Test
+	void pagesByDistanceThenId() {
+		GeoCellIndex index = new GeoCellIndex();
+		// Two listings at the same spot tie on distance and are ordered by id
+		index.put(3, 12.97, 77.59, 1);
+		index.put(1, 12.97, 77.59, 1);
+		index.put(2, 12.98, 77.59, 1);
+		GeoQuery query = GeoQuery.radius(12.97, 77.59, 5);
+
+		List<GeoMatch> first = nearest(index, query, 0, Double.MAX_VALUE, 2);
+		assertEquals(List.of(1L, 3L), ids(first));
+		assertEquals(0, first.get(0).distanceKm(), 1e-9);
+
+		NearestSelector next = new NearestSelector(2, first.get(1).squaredChord(), first.get(1).id());
+		index.collect(query, 0, Double.MAX_VALUE, next);
+		List<GeoMatch> second = next.drain();
+		assertEquals(List.of(2L), ids(second));
+		assertEquals(1.11, second.get(0).distanceKm(), 0.01);
+	}
+
+	@Test
+	void followsMovesAndRemovals() {
+		GeoCellIndex index = new GeoCellIndex();
+		index.put(1, 28.61, 77.21, 1);
+		index.put(2, 28.62, 77.22, 1);
+		index.put(1, 19.07, 72.87, 1);
+		index.remove(2);
+
+		assertEquals(1, index.size());
+		assertTrue(nearest(index, GeoQuery.radius(28.61, 77.21, 10), 0, Double.MAX_VALUE, 10).isEmpty());
+		assertEquals(1, nearest(index, GeoQuery.radius(19.07, 72.87, 1), 0, Double.MAX_VALUE, 10).size());
+	}
+
+	@Test
+	void mergesBatchesOverExistingListings() {
+		GeoCellIndex index = new GeoCellIndex();
+		index.put(1, 28.61, 77.21, 1);
+		index.put(2, 28.62, 77.22, 1);
+		index.put(3, 12.97, 77.59, 1);
+		index.putAll(new long[] {4, 1, 3, 5}, new double[] {19.08, 19.07, 12.97, 28.60},
+				new double[] {72.88, 72.87, 77.59, 77.20}, new double[] {1, 1, 2, 1}, 4);
+
+		assertEquals(5, index.size());
+		assertEquals(List.of(1L, 4L), ids(nearest(index, GeoQuery.radius(19.07, 72.87, 5), 0, Double.MAX_VALUE, 10))
+				.stream().sorted().toList());
+		assertEquals(List.of(2L, 5L), ids(nearest(index, GeoQuery.radius(28.61, 77.21, 5), 0, Double.MAX_VALUE, 10))
+				.stream().sorted().toList());
+		assertEquals(List.of(3L), ids(nearest(index, GeoQuery.radius(12.97, 77.59, 5), 2, 2, 10)));
+	}
+
+	@Test
+	void handlesTheAntimeridian() {
+		GeoCellIndex index = new GeoCellIndex();
+		index.put(1, -17.7, 179.9, 1);
+		index.put(2, -17.7, -179.9, 1);
+		index.put(3, -17.7, 178.0, 1);
+
+		List<GeoMatch> radius = nearest(index, GeoQuery.radius(-17.7, 179.95, 50), 0, Double.MAX_VALUE, 10);
+		assertEquals(List.of(1L, 2L), ids(radius).stream().sorted().toList());
+		List<GeoMatch> box = nearest(index, GeoQuery.box(-18, -17, 179, -179), 0, Double.MAX_VALUE, 10);
+		assertEquals(List.of(1L, 2L), ids(box).stream().sorted().toList());
+	}
+
+	// Listings bunched around a few city centres, like the real catalogue
+	private static double[][] clusteredPoints(Random random) {
+		double[][] centres = {{19.07, 72.87}, {12.97, 77.59}, {28.61, 77.21}};
+		double[][] points = new double[COUNT][];
+		for (int i = 0; i < COUNT; i++) {
+			double[] centre = centres[i % centres.length];
+			points[i] = new double[] {centre[0] + random.nextGaussian() * 0.1, centre[1] + random.nextGaussian() * 0.1,
+					100_000 + random.nextInt(20_000_000)};
+		}
+		return points;
+	}
+
+	private static GeoCellIndex load(double[][] points) {
+		long[] ids = new long[COUNT];
+		double[] latitudes = new double[COUNT];
+		double[] longitudes = new double[COUNT];
+		double[] prices = new double[COUNT];
+		for (int i = 0; i < COUNT; i++) {
+			ids[i] = i + 1;
+			latitudes[i] = points[i][0];
+			longitudes[i] = points[i][1];
+			prices[i] = points[i][2];
+		}
+		GeoCellIndex index = new GeoCellIndex();
+		index.load(ids, latitudes, longitudes, prices, COUNT);
+		return index;
+	}
+
+	private static List<GeoMatch> nearest(GeoCellIndex index, GeoQuery query, double minPrice, double maxPrice, int limit) {
+		NearestSelector selector = new NearestSelector(limit);
+		index.collect(query, minPrice, maxPrice, selector);
+		return selector.drain();
+	}
+
+	private static List<GeoMatch> bruteForce(double[][] points, GeoQuery query, double minPrice, double maxPrice, int limit) {
+		List<GeoMatch> matches = new ArrayList<>();
+		for (int i = 0; i < points.length; i++) {
+			double squaredChord = query.match(points[i][0], points[i][1]);
+			if (squaredChord >= 0 && points[i][2] >= minPrice && points[i][2] <= maxPrice) {
+				matches.add(new GeoMatch(i + 1, squaredChord));
+			}
+		}
+		return nearestFirst(matches, limit);
+	}
+
+	private static List<Long> ids(List<GeoMatch> matches) {
+		return matches.stream().map(GeoMatch::id).toList();
+	}
+
+	private static List<GeoMatch> nearestFirst(List<GeoMatch> matches, int limit) {
+		matches.sort((a, b) -> a.squaredChord() != b.squaredChord()
+				? Double.compare(a.squaredChord(), b.squaredChord()) : Long.compare(a.id(), b.id()));
+		return matches.subList(0, Math.min(limit, matches.size()));
+	}
+}
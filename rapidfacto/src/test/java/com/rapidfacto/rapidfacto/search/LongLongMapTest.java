@@ -0,0 +1,50 @@
+package com.rapidfacto.rapidfacto.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongLongMapTest {
+
+	@Test
+	void storesZeroKeyAlongsideOthers() {
+		LongLongMap map = new LongLongMap();
+		map.put(0, 7);
+		map.put(16, 9);
+
+		assertTrue(map.containsKey(0));
+		assertEquals(7, map.get(0));
+		assertEquals(2, map.size());
+		assertTrue(map.remove(0));
+		assertFalse(map.containsKey(0));
+		assertEquals(9, map.get(16));
+	}
+
+	@Test
+	void matchesHashMapUnderRandomPutsAndRemoves() {
+		LongLongMap map = new LongLongMap();
+		Map<Long, Long> expected = new HashMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 50_000; i++) {
+			long key = random.nextInt(2_000);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key) != null, map.remove(key));
+			} else {
+				map.put(key, i);
+				expected.put(key, (long) i);
+			}
+		}
+
+		assertEquals(expected.size(), map.size());
+		for (long key = 0; key < 2_000; key++) {
+			assertEquals(expected.containsKey(key), map.containsKey(key));
+			assertEquals(expected.getOrDefault(key, 0L), map.get(key));
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.rapidfacto.rapidfacto.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SortedPriceIndexTest {
+
+	@Test
+	void loadsAndPagesInBothDirections() {
+		SortedPriceIndex index = new SortedPriceIndex();
+		index.load(new long[] {1, 2, 3, 4, 5}, new double[] {500, 100, 300, 100, 200}, 5);
+
+		assertArrayEquals(new long[] {2, 4, 5}, index.ascendingAfter(null, null, 3));
+		assertArrayEquals(new long[] {3, 1}, index.ascendingAfter(200.0, 5L, 3));
+		assertArrayEquals(new long[] {1, 3}, index.descendingAfter(null, null, 2));
+		assertArrayEquals(new long[] {5, 4, 2}, index.descendingAfter(300.0, 3L, 10));
+		assertArrayEquals(new long[] {2}, index.descendingAfter(100.0, 4L, 10));
+	}
+
+	@Test
+	void answersInclusiveRanges() {
+		SortedPriceIndex index = new SortedPriceIndex();
+		index.load(new long[] {1, 2, 3, 4}, new double[] {100, 200, 200, 300}, 4);
+
+		assertArrayEquals(new long[] {2, 3}, index.range(200, 200, 10));
+		assertArrayEquals(new long[] {1, 2}, index.range(0, 1000, 2));
+		assertArrayEquals(new long[0], index.range(301, 1000, 10));
+	}
+
+	@Test
+	void keepsOrderAcrossIncrementalWrites() {
+		SortedPriceIndex index = new SortedPriceIndex();
+		for (int id = 1; id <= 100; id++) {
+			index.put(id, (id * 37) % 101);
+		}
+		index.put(7, 0.5);
+		index.remove(8);
+
+		long[] all = index.ascendingAfter(null, null, 1000);
+		assertEquals(99, all.length);
+		assertEquals(7, all[0]);
+		for (int i = 1; i < all.length; i++) {
+			assertTrue(index.priceOf(all[i - 1]) <= index.priceOf(all[i]));
+		}
+		assertNull(index.priceOf(8));
+	}
+
+	@Test
+	void mergesBatchesLikeSinglePuts() {
+		SortedPriceIndex batched = new SortedPriceIndex();
+		SortedPriceIndex single = new SortedPriceIndex();
+		for (int id = 1; id <= 50; id++) {
+			batched.put(id, (id * 37) % 101);
+			single.put(id, (id * 37) % 101);
+		}
+		long[] ids = {60, 3, 55, 10, 51, 20};
+		double[] prices = {5, 5, 90, (10 * 37) % 101, 0.5, 200};
+		batched.putAll(ids, prices, ids.length);
+		for (int i = 0; i < ids.length; i++) {
+			single.put(ids[i], prices[i]);
+		}
+
+		assertEquals(53, batched.size());
+		assertArrayEquals(single.ascendingAfter(null, null, 100), batched.ascendingAfter(null, null, 100));
+		assertEquals(5.0, batched.priceOf(3));
+	}
+
+	@Test
+	void sortsLargeLoads() {
+		int count = 10_000;
+		long[] ids = new long[count];
+		double[] prices = new double[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = i + 1;
+			prices[i] = (i * 7919L) % 1000;
+		}
+		SortedPriceIndex index = new SortedPriceIndex();
+		index.load(ids, prices, count);
+
+		long[] sorted = index.ascendingAfter(null, null, count);
+		for (int i = 1; i < sorted.length; i++) {
+			double previous = index.priceOf(sorted[i - 1]);
+			double current = index.priceOf(sorted[i]);
+			assertTrue(previous < current || (previous == current && sorted[i - 1] < sorted[i]));
+		}
+	}
+}
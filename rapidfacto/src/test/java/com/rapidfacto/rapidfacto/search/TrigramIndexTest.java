@@ -0,0 +1,69 @@
+package com.rapidfacto.rapidfacto.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrigramIndexTest {
+
+	@Test
+	void findsSubstringsCaseInsensitively() {
+		TrigramIndex index = new TrigramIndex();
+		index.put(1, "Andheri East, Mumbai");
+		index.put(2, "Whitefield, Bangalore");
+		index.put(3, "Navi Mumbai");
+
+		assertArrayEquals(new long[] {3, 1}, index.search("MUMBAI", 10));
+		assertArrayEquals(new long[] {2}, index.search("field", 10));
+		assertArrayEquals(new long[0], index.search("pune", 10));
+	}
+
+	@Test
+	void ranksExactAndPrefixMatchesFirst() {
+		TrigramIndex index = new TrigramIndex();
+		index.put(1, "Spacious flat in Pune");
+		index.put(2, "Pune");
+		index.put(3, "Pune Hinjewadi flat");
+
+		assertArrayEquals(new long[] {2, 3, 1}, index.search("pune", 10));
+		assertArrayEquals(new long[] {2, 3}, index.search("pune", 2));
+	}
+
+	@Test
+	void answersShortQueries() {
+		TrigramIndex index = new TrigramIndex();
+		index.put(1, "1 RK Room");
+		index.put(2, "2 BHK");
+		index.put(3, "Hk");
+
+		assertArrayEquals(new long[] {1}, index.search("rk", 10));
+		assertArrayEquals(new long[] {3, 2}, index.search("hk", 10));
+		assertArrayEquals(new long[] {3, 1, 2}, index.search("k", 10));
+	}
+
+	@Test
+	void matchesNonAsciiTextAtCharacterBoundaries() {
+		TrigramIndex index = new TrigramIndex();
+		index.put(1, "Café Coffee Day, Koramangala");
+		index.put(2, "Ré");
+
+		assertArrayEquals(new long[] {1}, index.search("CAFÉ", 10));
+		assertArrayEquals(new long[] {2, 1}, index.search("é", 10));
+		assertArrayEquals(new long[] {2}, index.search("ré", 10));
+	}
+
+	@Test
+	void reflectsUpdatesAndRemovals() {
+		TrigramIndex index = new TrigramIndex();
+		index.put(1, "Sector 62, Noida");
+		index.put(1, "DLF Phase 3, Gurgaon");
+
+		assertArrayEquals(new long[0], index.search("noida", 10));
+		assertArrayEquals(new long[] {1}, index.search("gurgaon", 10));
+
+		index.remove(1);
+		assertArrayEquals(new long[0], index.search("gurgaon", 10));
+		assertEquals(0, index.size());
+	}
+}
@@ -0,0 +1,44 @@
+package com.rapidfacto.rapidfacto.security;
+
+import com.rapidfacto.rapidfacto.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+	@Test
+	void hashesOffTheCallingThread() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		PasswordHasher hasher = new PasswordHasher(registry, 4, 1, 4, Duration.ofSeconds(1));
+
+		String hash = hasher.hash("secret12").join();
+
+		assertTrue(hash.startsWith("$2a$04$"));
+		assertEquals(1, registry.get("password.hash").timer().count());
+		hasher.destroy();
+	}
+
+	@Test
+	void rejectsWhenTheQueueIsFull() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		PasswordHasher hasher = new PasswordHasher(registry, 14, 1, 1, Duration.ofSeconds(2));
+
+		// One hash running, one queued: the third has nowhere to go
+		CompletableFuture<String> running = hasher.hash("first-password");
+		CompletableFuture<String> queued = hasher.hash("second-password");
+		TooManyRequestsException ex = assertThrows(TooManyRequestsException.class, () -> hasher.hash("third-password"));
+
+		assertEquals(Duration.ofSeconds(2), ex.getRetryAfter());
+		assertEquals(1.0, registry.get("password.hash.rejected").functionCounter().count());
+		hasher.destroy();
+		running.cancel(true);
+		queued.cancel(true);
+	}
+}
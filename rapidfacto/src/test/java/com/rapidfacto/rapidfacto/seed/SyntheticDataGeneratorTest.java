@@ -0,0 +1,83 @@
+package com.rapidfacto.rapidfacto.seed;
+
+import com.rapidfacto.rapidfacto.security.PasswordHasher;
+import com.rapidfacto.rapidfacto.shard.ShardTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// Each run fills a fresh in-memory database; timestamps and password hashes are left out of the comparison, since
+// the first are relative to the clock and the second carry a random salt
+class SyntheticDataGeneratorTest {
+
+	private final PasswordHasher passwordHasher = new PasswordHasher(new SimpleMeterRegistry(), 4, 1, 4,
+			Duration.ofSeconds(1));
+
+	@AfterEach
+	void closeHasher() {
+		passwordHasher.destroy();
+	}
+
+	@Test
+	void sameSeedGeneratesTheSameRows() {
+		List<Map<String, Object>> first = generate(42, 250, 40);
+		List<Map<String, Object>> second = generate(42, 250, 40);
+
+		assertEquals(250 + 40, first.size());
+		assertEquals(first, second);
+	}
+
+	@Test
+	void differentSeedsGenerateDifferentRows() {
+		assertNotEquals(generate(42, 50, 10), generate(7, 50, 10));
+	}
+
+	private List<Map<String, Object>> generate(long seed, long properties, long users) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:seed-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("CREATE TABLE properties (id BIGINT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(100), "
+				+ "location VARCHAR(100), price DOUBLE, image_url VARCHAR(500), description VARCHAR(1000), "
+				+ "latitude DOUBLE, longitude DOUBLE, created_at TIMESTAMP, updated_at TIMESTAMP)");
+		jdbc.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, first_name VARCHAR(50), "
+				+ "last_name VARCHAR(50), email VARCHAR(100), phone_number VARCHAR(20), password VARCHAR(100), "
+				+ "type VARCHAR(20), created_at TIMESTAMP, updated_at TIMESTAMP)");
+
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		ShardTemplate shards = new ShardTemplate(transactionManager, new SimpleMeterRegistry(), List.of(), "");
+		SyntheticDataGenerator generator = new SyntheticDataGenerator(transactionManager);
+		ReflectionTestUtils.setField(generator, "jdbcTemplate", jdbc);
+		ReflectionTestUtils.setField(generator, "passwordHasher", passwordHasher);
+		ReflectionTestUtils.setField(generator, "shardTemplate", shards);
+		ReflectionTestUtils.setField(generator, "targetProperties", properties);
+		ReflectionTestUtils.setField(generator, "targetUsers", users);
+		ReflectionTestUtils.setField(generator, "batchSize", 64);
+		ReflectionTestUtils.setField(generator, "randomSeed", seed);
+		ReflectionTestUtils.setField(generator, "userPassword", "password123");
+
+		try {
+			generator.run(new DefaultApplicationArguments());
+			List<Map<String, Object>> rows = new ArrayList<>(jdbc.queryForList(
+					"SELECT id, title, location, price, image_url, description, latitude, longitude "
+							+ "FROM properties ORDER BY id"));
+			rows.addAll(jdbc.queryForList("SELECT id, first_name, last_name, email, phone_number, type "
+					+ "FROM users ORDER BY id"));
+			return rows;
+		} finally {
+			shards.destroy();
+		}
+	}
+}
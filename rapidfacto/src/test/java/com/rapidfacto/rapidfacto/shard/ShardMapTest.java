@@ -0,0 +1,70 @@
+package com.rapidfacto.rapidfacto.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardMapTest {
+
+	@Test
+	void idsCarryTheirShard() {
+		ShardMap map = new ShardMap(3, Map.of());
+
+		assertEquals(0, map.shardOf(1));
+		assertEquals(0, map.shardOf(ShardMap.firstId(1) - 1));
+		assertEquals(1, map.shardOf(ShardMap.firstId(1)));
+		assertEquals(2, map.shardOf(ShardMap.firstId(2) + 12345));
+		// Issued by no shard: beyond the last one, or not positive
+		assertEquals(-1, map.shardOf(ShardMap.firstId(3)));
+		assertEquals(-1, map.shardOf(0));
+		assertEquals(-1, map.shardOf(-5));
+		assertEquals(1, ShardMap.firstId(0));
+	}
+
+	@Test
+	void everyIdStaysSafeInJavaScript() {
+		assertEquals(1L << 53, ShardMap.firstId(ShardMap.MAX_SHARDS));
+		assertThrows(IllegalArgumentException.class, () -> new ShardMap(ShardMap.MAX_SHARDS + 1, Map.of()));
+	}
+
+	@Test
+	void citiesArePinnedOrHashed() {
+		ShardMap map = ShardMap.parse(4, " Mumbai=1, pune = 1,delhi=3,");
+
+		assertEquals(1, map.shardFor("Andheri East, Mumbai"));
+		assertEquals(1, map.shardFor("Hinjewadi, PUNE "));
+		assertEquals(3, map.shardFor("Delhi"));
+		// Unpinned cities spread by hash, the same way every time
+		int kochi = map.shardFor("Kakkanad, Kochi");
+		assertTrue(kochi >= 0 && kochi < 4);
+		assertEquals(kochi, map.shardFor("Marine Drive,kochi"));
+		assertEquals(0, new ShardMap(1, Map.of()).shardFor("Andheri East, Mumbai"));
+		assertFalse(new ShardMap(1, Map.of()).isSharded());
+	}
+
+	@Test
+	void locationSearchesForAConfiguredCityStayOnItsShard() {
+		ShardMap map = ShardMap.parse(3, "mumbai=1,delhi=2");
+
+		assertEquals(List.of(1), map.shardsMatching("Mumbai"));
+		assertEquals(List.of(2), map.shardsMatching(" DELHI"));
+		// Possibly part of a longer name, or a hashed city
+		assertEquals(List.of(0, 1, 2), map.shardsMatching("Andheri East, Mumbai"));
+		assertEquals(List.of(0, 1, 2), map.shardsMatching("Andheri"));
+		assertEquals(List.of(0, 1, 2), map.shardsMatching("Kakkanad, Kochi"));
+		assertEquals(List.of(0, 1, 2), map.shardsMatching(null));
+	}
+
+	@Test
+	void rejectsBadMaps() {
+		assertThrows(IllegalArgumentException.class, () -> ShardMap.parse(2, "mumbai=2"));
+		assertThrows(IllegalArgumentException.class, () -> ShardMap.parse(2, "mumbai"));
+		assertThrows(IllegalArgumentException.class, () -> ShardMap.parse(2, "mumbai=one"));
+	}
+}
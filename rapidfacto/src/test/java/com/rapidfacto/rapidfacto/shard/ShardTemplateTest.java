@@ -0,0 +1,150 @@
+package com.rapidfacto.rapidfacto.shard;
+
+import com.rapidfacto.rapidfacto.replica.ReadRouting;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Three in-memory databases stand in for the shards, each numbering its rows from its own first id
+class ShardTemplateTest {
+
+	private final ShardedDataSource dataSource = new ShardedDataSource(List.of(database(0), database(1), database(2)));
+	private final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+	private final ShardTemplate shards = new ShardTemplate(new DataSourceTransactionManager(dataSource),
+			new SimpleMeterRegistry(), List.of("shard-1", " ", "shard-2"), "mumbai=1,pune=2");
+
+	@AfterEach
+	void closeShards() throws Exception {
+		dataSource.close();
+	}
+
+	@Test
+	void writesGoToTheShardOfTheCityAndIdsSayWhere() {
+		long mumbai = insert("2 BHK Flat", "Powai, Mumbai", 9_000_000);
+		long pune = insert("Villa", "Baner, Pune", 12_000_000);
+
+		assertEquals(3, shards.getShardCount());
+		assertEquals(1, shards.getShardMap().shardOf(mumbai));
+		assertEquals(2, shards.getShardMap().shardOf(pune));
+		assertEquals(List.of(0, 1, 1), shards.executeOnEveryShard(shard -> count()));
+		assertEquals("Villa", shards.execute(shards.getShardMap().shardOf(pune),
+				() -> jdbc.queryForObject("SELECT title FROM properties WHERE id = ?", String.class, pune)));
+	}
+
+	@Test
+	void sortedSearchesMergeEveryShardsFirstRows() {
+		String[] cities = {"Delhi", "Mumbai", "Pune"};
+		for (int i = 0; i < 30; i++) {
+			insert("Listing " + i, "Somewhere, " + cities[i % 3], 1_000_000 + (i * 7919 % 30) * 100_000);
+		}
+
+		// Each shard returns at most the limit, cheapest first; the merge keeps the overall cheapest
+		List<List<Map<String, Object>>> perShard = shards.executeOnEveryShard(shard -> jdbc.queryForList(
+				"SELECT id, price FROM properties ORDER BY price, id LIMIT 7"));
+		Comparator<Map<String, Object>> byPrice = Comparator.comparing(row -> (Double) row.get("PRICE"));
+		List<Map<String, Object>> merged = SortedMerge.merge(perShard, byPrice, 7);
+
+		List<Double> expected = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			expected.add(1_000_000 + i * 100_000.0);
+		}
+		assertEquals(expected, merged.stream().map(row -> (Double) row.get("PRICE")).toList());
+		assertEquals(7, SortedMerge.concat(perShard, 7).size());
+		assertEquals(List.of(), SortedMerge.merge(List.of(List.of(), List.<Double>of()), Comparator.naturalOrder(), 5));
+	}
+
+	@Test
+	void failureOnOneShardRollsBackOnlyThatShard() {
+		insert("Flat", "Powai, Mumbai", 9_000_000);
+		assertThrows(DataAccessException.class, () -> shards.executeOnEveryShard(shard -> {
+			jdbc.update("INSERT INTO properties (title, location, price) VALUES ('Partial', 'x', 1)");
+			return shard == 1 ? jdbc.update("INSERT INTO missing_table VALUES (1)") : shard;
+		}));
+
+		assertEquals(List.of(1, 1, 1), shards.executeOnEveryShard(shard -> count()));
+	}
+
+	@Test
+	void workersKeepTheCallersRouting() {
+		TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		readOnly.setReadOnly(true);
+
+		List<Boolean> primaryRequired = ReadRouting.onPrimary(
+				() -> shards.executeOnEveryShard(shard -> ReadRouting.isPrimaryRequired()));
+		List<Integer> routedTo = shards.executeOnEveryShard(shard -> ShardRouting.currentShard());
+		List<Boolean> readOnlyWork = readOnly.execute(status -> shards.executeOnEveryShard(shard ->
+				jdbc.queryForObject("SELECT COUNT(*) FROM properties", Integer.class) == 0
+						&& TransactionSynchronizationManager.isCurrentTransactionReadOnly()));
+
+		assertEquals(List.of(true, true, true), primaryRequired);
+		assertEquals(List.of(0, 1, 2), routedTo);
+		assertTrue(readOnlyWork.stream().allMatch(Boolean::booleanValue));
+		assertEquals(0, ShardRouting.currentShard());
+	}
+
+	@Test
+	void workOnTheShardOfTheCallersTransactionJoinsIt() throws Exception {
+		// One connection to shard 0: a second transaction there would wait for the caller's to finish
+		HikariDataSource shard0 = new HikariDataSource();
+		shard0.setDataSource(database(0));
+		shard0.setMaximumPoolSize(1);
+		shard0.setConnectionTimeout(250);
+		ShardedDataSource pooled = new ShardedDataSource(List.of(shard0, database(1), database(2)));
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(pooled);
+		ShardTemplate pooledShards = new ShardTemplate(transactionManager, new SimpleMeterRegistry(),
+				List.of("shard-1", "shard-2"), "mumbai=1,pune=2");
+		JdbcTemplate pooledJdbc = new JdbcTemplate(pooled);
+
+		try {
+			List<Integer> counts = new TransactionTemplate(transactionManager).execute(status -> {
+				pooledJdbc.update("INSERT INTO properties (title, location, price) VALUES ('Flat', 'Saket, Delhi', 1)");
+				pooledShards.execute(0, () -> pooledJdbc.update(
+						"INSERT INTO properties (title, location, price) VALUES ('Villa', 'Saket, Delhi', 2)"));
+				return pooledShards.executeOnShards(List.of(2, 0, 1), shard -> pooledJdbc.queryForObject(
+						"SELECT COUNT(*) FROM properties", Integer.class));
+			});
+
+			assertEquals(List.of(0, 2, 0), counts);
+		} finally {
+			pooled.close();
+		}
+	}
+
+	private long insert(String title, String location, double price) {
+		return shards.execute(shards.getShardMap().shardFor(location), () -> {
+			jdbc.update("INSERT INTO properties (title, location, price) VALUES (?, ?, ?)", title, location, price);
+			return jdbc.queryForObject("SELECT MAX(id) FROM properties", Long.class);
+		});
+	}
+
+	private int count() {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM properties", Integer.class);
+	}
+
+	private static DataSource database(int shard) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:shard-" + shard + "-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("CREATE TABLE properties (id BIGINT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(100), "
+				+ "location VARCHAR(100), price DOUBLE)");
+		jdbc.execute("ALTER TABLE properties AUTO_INCREMENT = " + ShardMap.firstId(shard));
+		return dataSource;
+	}
+}